@@ -38,7 +38,7 @@ db.role.insertMany([
 // Create indexes for better performance
 db.user.createIndex({ "userName": 1 }, { unique: true });
 db.user.createIndex({ "emailId": 1 }, { sparse: true });
-db.paper.createIndex({ "paperCategory": 1 });
-db.paper.createIndex({ "createdDate": -1 });
+// Paper, entitlement and subscription indexes are declared in MongoIndexCatalog and created
+// by the service at startup
 
 print('MongoDB initialization completed successfully for ensureu database');
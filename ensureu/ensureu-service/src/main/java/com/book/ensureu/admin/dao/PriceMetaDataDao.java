@@ -2,14 +2,15 @@ package com.book.ensureu.admin.dao;
 
 import com.book.ensureu.common.dto.PriceMetaDataDto;
 import com.book.ensureu.common.model.PriceMetaData;
+import com.book.ensureu.common.model.PriceMetaDataIndex;
 import com.book.ensureu.common.transformer.PriceMetaDataTransformer;
 import com.book.ensureu.constant.CounterEnum;
 import com.book.ensureu.constant.PaperSubCategory;
 import com.book.ensureu.constant.SubscriptionType;
 import com.book.ensureu.model.Subscription;
 import com.book.ensureu.service.CounterService;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -18,16 +19,35 @@ import org.springframework.stereotype.Component;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * Also keeps the {@link PriceMetaDataIndex} the subscription catalog prices from. Saves and patches
+ * through this dao swap in an updated index right away, writes from elsewhere (other instances, the
+ * dummy data api) are picked up by reloading it once it is older than price.index.reload.millis.
+ */
 @Slf4j
-@AllArgsConstructor
 @Component
 public class PriceMetaDataDao {
 
-    private MongoTemplate mongoTemplate;
+    private final MongoTemplate mongoTemplate;
 
-    private PriceMetaDataTransformer priceMetaDataTransformer;
+    private final PriceMetaDataTransformer priceMetaDataTransformer;
 
-    private CounterService counterService;
+    private final CounterService counterService;
+
+    private final long reloadMillis;
+
+    private volatile PriceMetaDataIndex priceIndex;
+
+    private volatile long priceIndexLoadedAt;
+
+    public PriceMetaDataDao(MongoTemplate mongoTemplate, PriceMetaDataTransformer priceMetaDataTransformer,
+                            CounterService counterService,
+                            @Value("${price.index.reload.millis:300000}") long reloadMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.priceMetaDataTransformer = priceMetaDataTransformer;
+        this.counterService = counterService;
+        this.reloadMillis = reloadMillis;
+    }
 
     public List<PriceMetaDataDto> getPriceMetaData(PaperSubCategory paperSubCategory){
 
@@ -43,6 +63,7 @@ public class PriceMetaDataDao {
         long id = counterService.increment(CounterEnum.PRICEMETADATA);
         priceMetaData.setId(id);
         mongoTemplate.save(priceMetaData);
+        index(priceMetaData);
     }
 
     public void patchPriceMetaData(PriceMetaDataDto priceMetaDataDto){
@@ -54,7 +75,30 @@ public class PriceMetaDataDao {
         }
         priceMetaData = priceMetaDataTransformer.dtoToModel(priceMetaDataDto);
         mongoTemplate.save(priceMetaData);
+        index(priceMetaData);
+    }
 
+    public PriceMetaDataIndex getPriceIndex() {
+        PriceMetaDataIndex index = priceIndex;
+        if (index == null || System.currentTimeMillis() - priceIndexLoadedAt > reloadMillis) {
+            index = reloadPriceIndex();
+        }
+        return index;
+    }
+
+    public synchronized PriceMetaDataIndex reloadPriceIndex() {
+        long loadedAt = System.currentTimeMillis();
+        PriceMetaDataIndex index = PriceMetaDataIndex.of(mongoTemplate.findAll(PriceMetaData.class));
+        priceIndex = index;
+        priceIndexLoadedAt = loadedAt;
+        log.debug("[priceIndex] loaded [{}] prices", index.size());
+        return index;
+    }
+
+    private synchronized void index(PriceMetaData priceMetaData) {
+        if (priceIndex != null) {
+            priceIndex = priceIndex.with(priceMetaData);
+        }
     }
 
 }
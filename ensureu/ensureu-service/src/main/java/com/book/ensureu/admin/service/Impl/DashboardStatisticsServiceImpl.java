@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import com.book.ensureu.admin.constant.PaperStateStatus;
 import com.book.ensureu.admin.dto.DashboardStatisticsDto;
 import com.book.ensureu.admin.service.DashboardStatisticsService;
+import com.book.ensureu.annotation.SecondaryRead;
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.model.Subscription;
 import com.book.ensureu.repository.FreePaperCollectionRepository;
@@ -17,6 +18,7 @@ import com.book.ensureu.repository.SubscriptionRepository;
 import com.book.ensureu.repository.UserRepository;
 
 @Service
+@SecondaryRead
 public class DashboardStatisticsServiceImpl implements DashboardStatisticsService {
 
     @Autowired
@@ -23,9 +23,11 @@ import com.book.ensureu.admin.constant.PaperStateStatus;
 import com.book.ensureu.admin.dto.PaperCollectionDto;
 import com.book.ensureu.admin.service.PaidPaperCollectionService;
 import com.book.ensureu.constant.PaperType;
+import com.book.ensureu.constant.TestType;
 import com.book.ensureu.model.FreePaperCollection;
 import com.book.ensureu.model.PaidPaperCollection;
 import com.book.ensureu.service.CounterService;
+import com.book.ensureu.service.PaperTemplateService;
 import com.mongodb.MongoException;
 
 /**
@@ -46,6 +48,9 @@ public class PaidPaperCollectionServiceImpl implements PaidPaperCollectionServic
 	@Autowired
 	private MongoTemplate mongoTemplate;
 
+	@Autowired
+	private PaperTemplateService paperTemplateService;
+
 	@Override
 	public void createTestPaperInCollection(List<PaidPaperCollection> paidPaperCollectionList) {
 		testPaperCollectionRepository.saveAll(paidPaperCollectionList);
@@ -202,6 +207,8 @@ public class PaidPaperCollectionServiceImpl implements PaidPaperCollectionServic
 		Query query = Query.query(Criteria.where("id").in(paperIdList));
 		Update update = Update.update("taken",true);
 		mongoTemplate.findAndModify(query,update, PaidPaperCollection.class);
+		// findAndModify fires no save event
+		paperIdList.forEach(paperId -> paperTemplateService.invalidate(TestType.PAID, paperId));
 	}
 
 	@Override
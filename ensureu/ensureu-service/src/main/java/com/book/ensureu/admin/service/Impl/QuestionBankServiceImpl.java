@@ -21,6 +21,7 @@ import com.book.ensureu.admin.dto.QuestionBankDto;
 import com.book.ensureu.admin.dto.QuestionBankStatsDto;
 import com.book.ensureu.admin.model.QuestionBank;
 import com.book.ensureu.admin.service.QuestionBankService;
+import com.book.ensureu.annotation.SecondaryRead;
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.constant.PaperSubCategory;
 import com.book.ensureu.constant.PaperType;
@@ -158,6 +159,7 @@ public class QuestionBankServiceImpl implements QuestionBankService {
     }
 
     @Override
+    @SecondaryRead
     public Page<QuestionBankDto> list(
             PaperType paperType,
             PaperCategory paperCategory,
@@ -291,6 +293,7 @@ public class QuestionBankServiceImpl implements QuestionBankService {
     }
 
     @Override
+    @SecondaryRead
     public QuestionBankStatsDto getStats(String userId, boolean isAdmin) {
         QuestionBankStatsDto.QuestionBankStatsDtoBuilder builder = QuestionBankStatsDto.builder();
 
@@ -340,6 +343,7 @@ public class QuestionBankServiceImpl implements QuestionBankService {
     }
 
     @Override
+    @SecondaryRead
     public Page<QuestionBankDto> search(String searchText, Pageable pageable) {
         // For now, simple regex search. Later can add MongoDB text index
         Query query = new Query();
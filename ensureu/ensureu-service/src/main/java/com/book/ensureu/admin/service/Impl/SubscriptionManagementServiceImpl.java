@@ -29,6 +29,7 @@ import com.book.ensureu.admin.dto.SubscriptionExtendDto;
 import com.book.ensureu.admin.dto.SubscriptionStatsDto;
 import com.book.ensureu.admin.dto.SubscriptionUpdateDto;
 import com.book.ensureu.admin.service.SubscriptionManagementService;
+import com.book.ensureu.annotation.SecondaryRead;
 import com.book.ensureu.constant.CounterEnum;
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.constant.PaperSubCategory;
@@ -44,6 +45,8 @@ import com.book.ensureu.repository.FreePaperCollectionRepository;
 import com.book.ensureu.repository.PaidPaperCollectionRepository;
 import com.book.ensureu.repository.SubscriptionRepository;
 import com.book.ensureu.service.CounterService;
+import com.book.ensureu.service.EntitlementIndexService;
+import com.book.ensureu.service.PaperTemplateService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -69,6 +72,12 @@ public class SubscriptionManagementServiceImpl implements SubscriptionManagement
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private EntitlementIndexService entitlementIndexService;
+
+    @Autowired
+    private PaperTemplateService paperTemplateService;
+
     private static final List<PaperStateStatus> AVAILABLE_STATUSES =
             Arrays.asList(PaperStateStatus.APPROVED, PaperStateStatus.ACTIVE);
 
@@ -278,6 +287,8 @@ public class SubscriptionManagementServiceImpl implements SubscriptionManagement
 
         Subscription saved = subscriptionRepository.save(subscription);
         log.info("[SubscriptionManagement] Updated subscription: {}", saved.getId());
+        // the paper list of the subscription is indexed for every user holding it
+        entitlementIndexService.evictAll();
 
         return toAdminDto(saved);
     }
@@ -438,6 +449,8 @@ public class SubscriptionManagementServiceImpl implements SubscriptionManagement
 
         Subscription saved = subscriptionRepository.save(subscription);
         log.info("[SubscriptionManagement] Extended validity for subscription {} to {}", id, newValidity);
+        // free papers take their validity from the subscription, any user may hold it
+        entitlementIndexService.evictAll();
 
         return toAdminDto(saved);
     }
@@ -581,6 +594,7 @@ public class SubscriptionManagementServiceImpl implements SubscriptionManagement
     // ==========================================
 
     @Override
+    @SecondaryRead
     public SubscriptionStatsDto getStatistics() {
         log.info("[SubscriptionManagement] Getting statistics");
 
@@ -685,6 +699,9 @@ public class SubscriptionManagementServiceImpl implements SubscriptionManagement
         Update update = new Update().set("taken", taken);
 
         mongoTemplate.updateMulti(query, update, collectionName);
+        // updateMulti fires no save event, the cached templates are dropped here
+        TestType templateType = testType == TestType.FREE ? TestType.FREE : TestType.PAID;
+        paperIds.forEach(paperId -> paperTemplateService.invalidate(templateType, paperId));
 
         log.info("[SubscriptionManagement] Updated taken={} for {} papers in {}", taken, paperIds.size(), collectionName);
     }
@@ -19,6 +19,7 @@ import com.book.ensureu.model.Role;
 import com.book.ensureu.model.User;
 import com.book.ensureu.repository.RolesRepository;
 import com.book.ensureu.repository.UserRepository;
+import com.book.ensureu.security.AuthenticationCache;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,6 +33,9 @@ public class UserManagementServiceImpl implements UserManagementService {
     @Autowired
     private RolesRepository rolesRepository;
 
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
     @Override
     public Page<UserManagementDto> getAllUsers(Pageable pageable) {
         Page<User> users = userRepository.findAll(pageable);
@@ -80,6 +84,8 @@ public class UserManagementServiceImpl implements UserManagementService {
         user.setRoles(Collections.singletonList(role));
         user.setModifiedDate(System.currentTimeMillis());
         userRepository.save(user);
+        // tokens already cached for this user would keep the old authorities until they expire
+        authenticationCache.evictUser(user.getUserName());
 
         log.info("Assigned role {} to user {}", targetRoleType, user.getUserName());
         return toDto(user);
@@ -2,6 +2,7 @@ package com.book.ensureu.advice;
 
 import com.book.ensureu.exception.RuntimeEUException;
 import com.book.ensureu.exception.unchecked.EntityNotFound;
+import com.book.ensureu.exception.unchecked.RateLimitExceededException;
 import com.book.ensureu.response.dto.Response;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -16,21 +17,32 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 public class EUExceptionHandler extends ResponseEntityExceptionHandler {
 
     @ExceptionHandler({EntityNotFound.class})
-    public ResponseEntity<Response> handleEntityNotFoundException(EntityNotFound ex){
-        Response response = Response.builder()
+    public ResponseEntity<Response<Void>> handleEntityNotFoundException(EntityNotFound ex){
+        Response<Void> response = Response.<Void>builder()
                 .status(404)
                 .message(ex.getMessage())
                 .build();
-        return new ResponseEntity(response, HttpStatus.NOT_FOUND);
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler({RateLimitExceededException.class})
+    public ResponseEntity<Response<Void>> handleRateLimitExceededException(RateLimitExceededException ex){
+        Response<Void> response = Response.<Void>builder()
+                .status(429)
+                .message(ex.getMessage())
+                .build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(response, headers, HttpStatus.TOO_MANY_REQUESTS);
     }
 
     @ExceptionHandler({RuntimeEUException.class})
-    public ResponseEntity<Response> handleRuntimeEUException(RuntimeEUException ex){
-        Response response = Response.builder()
+    public ResponseEntity<Response<Void>> handleRuntimeEUException(RuntimeEUException ex){
+        Response<Void> response = Response.<Void>builder()
                 .status(500)
                 .message(ex.getMessage())
                 .build();
-        return new ResponseEntity(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
     /**
@@ -42,7 +54,7 @@ public class EUExceptionHandler extends ResponseEntityExceptionHandler {
         if (HttpStatus.INTERNAL_SERVER_ERROR.equals(status)) {
             request.setAttribute("javax.servlet.error.exception", ex, 0);
         }
-        return new ResponseEntity(Response.builder()
+        return new ResponseEntity<>(Response.<Void>builder()
                 .message(ex.getMessage())
                 .build(), headers, status);
     }
@@ -0,0 +1,22 @@
+package com.book.ensureu.annotation;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Mongo reads made while the annotated method runs, on the calling thread, use
+ * mongo.client.secondary.read.preference (secondaryPreferred with bounded staleness by default).
+ * Writes still go to the primary. Only put it on read paths that tolerate data a little behind the
+ * primary, never on a method that reads what it just wrote.
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({ METHOD, TYPE })
+public @interface SecondaryRead {
+
+}
@@ -7,9 +7,23 @@ import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
+import com.book.ensureu.constant.ServiceName;
+
+/**
+ * Limits calls per caller to limit within a sliding window of windowSeconds. The caller is the
+ * userName of a UserOtpDto argument, else the authenticated user, else the client address.
+ * Both values can be overridden with ratelimit.&lt;SERVICE&gt;.limit and
+ * ratelimit.&lt;SERVICE&gt;.window.seconds.
+ */
 @Documented
 @Retention(RUNTIME)
 @Target(METHOD)
 public @interface ServiceCallLimit {
 
+	ServiceName service() default ServiceName.OTPSERVICE;
+
+	int limit() default 3;
+
+	long windowSeconds() default 24 * 60 * 60;
+
 }
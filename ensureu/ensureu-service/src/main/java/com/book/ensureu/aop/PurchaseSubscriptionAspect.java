@@ -7,6 +7,7 @@ import com.book.ensureu.model.PurchaseSubscriptions;
 import com.book.ensureu.model.UserEntitlement;
 import com.book.ensureu.repository.PurchaseSubscriptionsRespository;
 import com.book.ensureu.service.CounterService;
+import com.book.ensureu.service.EntitlementIndexService;
 import lombok.extern.java.Log;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
@@ -31,6 +32,9 @@ public class PurchaseSubscriptionAspect {
     @Autowired
     private CounterService counterService;
 
+    @Autowired
+    private EntitlementIndexService entitlementIndexService;
+
     @Value("${day.milliseconds:86400000}")
     private Long milliseconds;
 
@@ -53,6 +57,9 @@ public class PurchaseSubscriptionAspect {
         } catch (Throwable throwable) {
             saveOrUpdatePurchaseSubscriptions(userId, subscribedDto, purchaseSubscriptionObj, PurchaseStatus.FAILED,userLastEntitlement);
             return throwable;
+        } finally {
+            // entitlements may be partly written even when the purchase failed
+            entitlementIndexService.evict(userId);
         }
         return value;
     }
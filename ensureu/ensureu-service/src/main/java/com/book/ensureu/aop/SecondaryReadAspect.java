@@ -0,0 +1,45 @@
+package com.book.ensureu.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import com.book.ensureu.configuration.MongoClientSettingsFactory;
+import com.book.ensureu.configuration.ReadIntent;
+import com.mongodb.ReadPreference;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes the reads of {@link com.book.ensureu.annotation.SecondaryRead} methods. Nested calls keep
+ * the outer intent and restore it on return.
+ */
+@Aspect
+@Component
+public class SecondaryReadAspect {
+
+	private final ReadPreference readPreference;
+
+	private final MeterRegistry meterRegistry;
+
+	public SecondaryReadAspect(MongoClientSettingsFactory mongoClientSettingsFactory, MeterRegistry meterRegistry) {
+		this.readPreference = mongoClientSettingsFactory.secondaryReadPreference();
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Around("@annotation(com.book.ensureu.annotation.SecondaryRead) || @within(com.book.ensureu.annotation.SecondaryRead)")
+	public Object secondaryRead(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
+		ReadPreference previous = ReadIntent.use(readPreference);
+		try {
+			return proceedingJoinPoint.proceed();
+		} finally {
+			ReadIntent.restore(previous);
+			if (previous == null) {
+				meterRegistry.counter("mongo.secondary.reads", "method",
+						proceedingJoinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+								+ proceedingJoinPoint.getSignature().getName()).increment();
+			}
+		}
+	}
+}
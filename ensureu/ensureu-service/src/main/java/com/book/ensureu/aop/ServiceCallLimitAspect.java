@@ -1,61 +1,106 @@
 package com.book.ensureu.aop;
 
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
-import com.book.ensureu.constant.ServiceName;
-import com.book.ensureu.constant.UserLoginType;
+import com.book.ensureu.annotation.ServiceCallLimit;
 import com.book.ensureu.dto.UserOtpDto;
-import com.book.ensureu.model.ServiceCallTrace;
-import com.book.ensureu.service.ServiceCallTraceService;
-import com.book.ensureu.util.HashUtil;
+import com.book.ensureu.exception.unchecked.RateLimitExceededException;
+import com.book.ensureu.service.RateLimiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Aspect
 @Component
 public class ServiceCallLimitAspect {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(ServiceCallLimitAspect.class);
+
 	@Autowired
-	private ServiceCallTraceService serviceCallTraceService;
-
-	@Around("@annotation(com.book.ensureu.annotation.ServiceCallLimit) and args(userOtpDto)")
-	public Object serviceCallLimit(ProceedingJoinPoint joinPoint, UserOtpDto userOtpDto) throws Throwable {
-
-		long start = System.currentTimeMillis();
-		System.out.println("userOtpDto  " + userOtpDto);
-		System.out.println("Start time " + start);
-
-		LOGGER.info("userOtpDto  " + userOtpDto);
-
-		String userName = userOtpDto.getUserName();
-		ServiceName serviceName = ServiceName.OTPSERVICE;
-		String id = HashUtil.hashByMD5(serviceName.toString(), userName);
-		int callCount = 0;
-		ServiceCallTrace serviceCallTraceDb = serviceCallTraceService
-				.getServceCallTraceById(HashUtil.hashByMD5(serviceName.toString(), userName));
-		if (serviceCallTraceDb != null) {
-			int callLimit = serviceCallTraceDb.getServiceCallLimit();
-			callCount = serviceCallTraceDb.getServiceCallCount();
-			if (callLimit <= callCount) {
-				LOGGER.info("Attempt limit exceeded, please try after some time  ");
-				throw new IllegalAccessError("Attempt limit exceeded, please try after some time");
-			}
+	private RateLimiter rateLimiter;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Environment environment;
+
+	@Around("@annotation(serviceCallLimit)")
+	public Object serviceCallLimit(ProceedingJoinPoint joinPoint, ServiceCallLimit serviceCallLimit) throws Throwable {
+
+		String service = serviceCallLimit.service().name();
+		int limit = environment.getProperty("ratelimit." + service + ".limit", Integer.class, serviceCallLimit.limit());
+		long windowSeconds = environment.getProperty("ratelimit." + service + ".window.seconds", Long.class,
+				serviceCallLimit.windowSeconds());
+		String caller = callerOf(joinPoint.getArgs());
+
+		long retryAfterMillis = rateLimiter.tryAcquire(service + ":" + caller, limit,
+				TimeUnit.SECONDS.toMillis(windowSeconds));
+		if (retryAfterMillis > 0) {
+			meterRegistry.counter("ratelimit.calls", "service", service, "result", "rejected").increment();
+			LOGGER.info("Attempt limit exceeded for service {} caller {}", service, caller);
+			throw new RateLimitExceededException("Attempt limit exceeded, please try after some time",
+					TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis) + 1);
 		}
+		meterRegistry.counter("ratelimit.calls", "service", service, "result", "allowed").increment();
+		return joinPoint.proceed();
+	}
 
-		ServiceCallTrace serviceCallTrace = new ServiceCallTrace(id, userOtpDto.getUserName(), serviceName, callCount,
-				3, UserLoginType.SIGNUP);
-		serviceCallTraceService.saveServceCallTrace(serviceCallTrace);
+	private String callerOf(Object[] args) {
+		for (Object arg : args) {
+			if (arg instanceof UserOtpDto && ((UserOtpDto) arg).getUserName() != null) {
+				return ((UserOtpDto) arg).getUserName();
+			}
+		}
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)
+				&& authentication.getName() != null) {
+			return authentication.getName();
+		}
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		if (requestAttributes instanceof ServletRequestAttributes) {
+			return clientAddress(((ServletRequestAttributes) requestAttributes).getRequest(),
+					StringUtils.commaDelimitedListToSet(environment.getProperty("ratelimit.trusted.proxies", "")));
+		}
+		return "unknown";
+	}
 
-		LOGGER.info("Save done.... ");
-		Object proceed = joinPoint.proceed();
-		long executionTime = System.currentTimeMillis() - start;
-		LOGGER.info(joinPoint.getSignature() + " Executed in " + executionTime + "ms");
-		return proceed;
+	/**
+	 * The peer address, unless the peer is one of trustedProxies. X-Forwarded-For is then read from
+	 * the right, every proxy appends the address it received from, the first address which is not a
+	 * trusted proxy is the client. Entries left of it are client supplied and never used.
+	 */
+	static String clientAddress(HttpServletRequest request, Set<String> trustedProxies) {
+		String address = request.getRemoteAddr();
+		String forwardedFor = request.getHeader("X-Forwarded-For");
+		if (forwardedFor == null || !trustedProxies.contains(address)) {
+			return address;
+		}
+		String[] hops = forwardedFor.split(",");
+		for (int i = hops.length - 1; i >= 0 && trustedProxies.contains(address); i--) {
+			if (!hops[i].trim().isEmpty()) {
+				address = hops[i].trim();
+			}
+		}
+		return address;
 	}
 
 }
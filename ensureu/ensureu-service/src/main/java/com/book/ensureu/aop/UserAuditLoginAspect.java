@@ -35,7 +35,7 @@ public Object userAuditLoginService(ProceedingJoinPoint proceedingJoinPoint, Jwt
 			.modifiedDate(new Date().getTime())
 			.build();
 	userAuditLoginService.saveUserAuditLogin(userAuditLogin);
-	log.info("save is done for Ensureu provider audit login.");
+	log.info("audit login queued for Ensureu user.");
 	Object object = null;
 	try {
 		object = proceedingJoinPoint.proceed();
@@ -57,7 +57,7 @@ public Object userAuditLoginService(ProceedingJoinPoint proceedingJoinPoint, Pro
 			.modifiedDate(new Date().getTime())
 			.build();
 	userAuditLoginService.saveUserAuditLogin(userAuditLogin);
-	log.info("save is done for poviderUser(Google,Facwbook) audit login.");
+	log.info("audit login queued for poviderUser(Google,Facwbook).");
 	Object object = null;
 	try {
 		object = proceedingJoinPoint.proceed();
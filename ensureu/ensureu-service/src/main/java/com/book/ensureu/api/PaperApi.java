@@ -1,17 +1,20 @@
 package com.book.ensureu.api;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.book.ensureu.exception.GenericException;
 import com.book.ensureu.exception.RuntimeEUException;
-import com.book.ensureu.flow.analytics.service.AnalyticsDataIngestionService;
+import com.book.ensureu.flow.analytics.service.AnalyticsIngestionQueue;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -19,6 +22,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.constant.PaperStatus;
@@ -27,15 +31,17 @@ import com.book.ensureu.constant.PaperType;
 import com.book.ensureu.constant.TestType;
 import com.book.ensureu.dto.PaperDto;
 import com.book.ensureu.dto.PaperAesDto;
+import com.book.ensureu.dto.PaperAutosaveDto;
+import com.book.ensureu.dto.PaperAutosaveResultDto;
 import com.book.ensureu.model.JwtUser;
 import com.book.ensureu.response.dto.Response;
 import com.book.ensureu.security.UserPrincipalService;
+import com.book.ensureu.service.PaperAutosaveService;
+import com.book.ensureu.service.PaperCryptoService;
+import com.book.ensureu.service.PaperPayloadService;
 import com.book.ensureu.service.PaperService;
 import com.book.ensureu.service.impl.PaperFactory;
-import com.book.ensureu.util.AesEncDecUtil;
 import com.book.ensureu.util.HashUtil;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/paper")
@@ -61,9 +67,16 @@ public class PaperApi {
     private String passphrase;
 
     @Autowired
-    private AnalyticsDataIngestionService analyticsDataIngestionService;
+    private AnalyticsIngestionQueue analyticsIngestionQueue;
 
-    private ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    @Autowired
+    private PaperCryptoService paperCryptoService;
+
+    @Autowired
+    private PaperAutosaveService paperAutosaveService;
+
+    @Autowired
+    private PaperPayloadService paperPayloadService;
 
     @CrossOrigin
     @RequestMapping(value = "/save", method = RequestMethod.POST)
@@ -74,7 +87,7 @@ public class PaperApi {
                 LOGGER.info("savePaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType());
                 paperService = paperFactory.getPaperService(paperDto.getTestType().toString());
                 paperService.savePaper(paperDto);
-                analyticsDataIngestionService.saveUserPaperStatFromPaperDto(paperDto);
+                analyticsIngestionQueue.submit(paperDto);
 
             } catch (Exception ex) {
                 LOGGER.error("savePaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType(), ex);
@@ -86,35 +99,57 @@ public class PaperApi {
 
     @CrossOrigin
     @RequestMapping(value = "/v1/save", method = RequestMethod.POST)
-    public void savePaperV1(@RequestBody PaperAesDto<String> paperAesDto) {
+    public void savePaperV1(InputStream paperAesDto) {
 
-        if (paperAesDto != null && paperAesDto.getBody() != null) {
-            PaperDto paperDto = null;
-            try {
-                AesEncDecUtil aesEncDecUtil = new AesEncDecUtil();
-                String passPhressEnr = HashUtil.setPassphraseEnrichment(passphrase);
-                LOGGER.info("passPhressEnr  " + passPhressEnr);
-                String paperDtoStr = aesEncDecUtil.decrypt(salt, iv, passPhressEnr, paperAesDto.getBody());
-                paperDto = objectMapper.readValue(paperDtoStr, PaperDto.class);
-                if (paperDto != null) {
-                    LOGGER.info("savePaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType());
-                    paperService = paperFactory.getPaperService(paperDto.getTestType().toString());
-                    paperService.savePaper(paperDto);
-                    analyticsDataIngestionService.saveUserPaperStatFromPaperDto(paperDto);
-                }
-            } catch (Exception ex) {
-                if (paperDto != null) {
-                    LOGGER.error("savePaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType(), ex);
-                } else {
-                    LOGGER.error("[savePaperV1] Exception occurred while decryption", ex);
-                    throw new RuntimeEUException("Exception occurred while decryption");
-
-                }
-            }
-        } else {
+        PaperDto paperDto;
+        try {
+            // decrypted while the request is read, the Base64 body never becomes a String
+            paperDto = paperCryptoService.decryptEnvelope(paperAesDto, PaperDto.class);
+        } catch (Exception ex) {
+            LOGGER.error("[savePaperV1] Exception occurred while decryption", ex);
+            throw new RuntimeEUException("Exception occurred while decryption");
+        }
+        if (paperDto == null) {
             throw new IllegalArgumentException("Can't be null");
         }
+        try {
+            LOGGER.info("savePaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType());
+            paperService = paperFactory.getPaperService(paperDto.getTestType().toString());
+            paperService.savePaper(paperDto);
+            analyticsIngestionQueue.submit(paperDto);
+        } catch (Exception ex) {
+            LOGGER.error("savePaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType(), ex);
+        }
+
+    }
+
+    /**
+     * Saves only the question responses changed since the last acknowledged batch of the
+     * current user's paper in progress, the full paper is still sent on submit via /save.
+     *
+     * @param paperAutosaveDto
+     * @return seq of the batch and whether it was applied
+     */
+    @CrossOrigin
+    @RequestMapping(value = "/autosave", method = RequestMethod.POST)
+    public PaperAutosaveResultDto autosavePaper(@RequestBody PaperAutosaveDto paperAutosaveDto) {
+        JwtUser jwtUser = userPrincipal.getCurrentUserDetails();
+        return paperAutosaveService.autosave(jwtUser.getUsername(), paperAutosaveDto);
+    }
 
+    @CrossOrigin
+    @RequestMapping(value = "/v1/autosave", method = RequestMethod.POST)
+    public PaperAutosaveResultDto autosavePaperV1(InputStream paperAesDto) {
+
+        PaperAutosaveDto paperAutosaveDto;
+        try {
+            paperAutosaveDto = paperCryptoService.decryptEnvelope(paperAesDto, PaperAutosaveDto.class);
+        } catch (Exception ex) {
+            LOGGER.error("[autosavePaperV1] Exception occurred while decryption", ex);
+            throw new RuntimeEUException("Exception occurred while decryption");
+        }
+        JwtUser jwtUser = userPrincipal.getCurrentUserDetails();
+        return paperAutosaveService.autosave(jwtUser.getUsername(), paperAutosaveDto);
     }
 
     @CrossOrigin
@@ -217,7 +252,7 @@ public class PaperApi {
      */
     @CrossOrigin
     @RequestMapping(value = "/v1/user/mapping/{testType}/{paperStatus}/{paperId}", method = RequestMethod.GET)
-    public Response<String> getPaperAndUserByTestStatusEnc(@PathVariable(value = "testType") String testType,
+    public ResponseEntity<StreamingResponseBody> getPaperAndUserByTestStatusEnc(@PathVariable(value = "testType") String testType,
                                                            @PathVariable(value = "paperStatus") String paperStatus, @PathVariable(value = "paperId") String paperId) {
 
         JwtUser jwtUser = null;
@@ -225,16 +260,13 @@ public class PaperApi {
             jwtUser = userPrincipal.getCurrentUserDetails();
             LOGGER.info("getPaperByUser testType " + testType + " UserId " + jwtUser.getUsername());
             paperService = paperFactory.getPaperService(testType);
+            TestType type = TestType.valueOf(testType.toUpperCase());
             PaperDto paperDto = paperService.paperMappedUserByPaperStatus(jwtUser.getUsername(),
-                    TestType.valueOf(testType.toUpperCase()), PaperStatus.valueOf(paperStatus.toUpperCase()), paperId);
+                    type, PaperStatus.valueOf(paperStatus.toUpperCase()), paperId);
 
-            AesEncDecUtil aesEncDecUtil = new AesEncDecUtil();
-            String passPhressEnr = HashUtil.setPassphraseEnrichment(passphrase);
-            LOGGER.info("passPhressEnr  " + passPhressEnr);
-            String paperSdoStr = objectMapper.writeValueAsString(paperDto);
-            String paperDtoEncStr = aesEncDecUtil.encrypt(salt, iv, passPhressEnr, paperSdoStr);
-
-            return new Response<String>().setBody(paperDtoEncStr).setStatus(200).setMessage("Success");
+            // paper content comes pre-encrypted from the payload cache, only the user's fields are encrypted here
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(paperPayloadService.encryptedPaper(type, paperDto));
 
         } catch (Exception ex) {
             LOGGER.error("getPaperAndUserByTestStatus testType " + testType + " UserId " + jwtUser.getUsername()
@@ -473,23 +505,13 @@ public class PaperApi {
             @RequestBody PaperAesDto<String> paperAesDto) {
         PaperDto paperDto = null;
         try {
-            if (ivV != null) {
-                iv = ivV;
-            }
-            if (saltV != null) {
-                salt = saltV;
-            }
-            if (passphreaseV != null) {
-                passphrase = passphreaseV;
-            } else {
-                passphrase = HashUtil.setPassphraseEnrichment(passphrase);
-            }
+            // overrides apply to this call only, never to the configured key
+            String iv = ivV != null ? ivV : this.iv;
+            String salt = saltV != null ? saltV : this.salt;
+            String passphrase = passphreaseV != null ? passphreaseV : HashUtil.setPassphraseEnrichment(this.passphrase);
 
-            LOGGER.info("getDecPaperDto salt " + salt + " iv" + iv + " passphrase " + passphrase);
-            AesEncDecUtil aesEncDecUtil = new AesEncDecUtil();
-            String paperDtoStr = aesEncDecUtil.decrypt(salt, iv, passphrase, paperAesDto.getBody());
-            LOGGER.info("paperDtoStr  " + paperDtoStr);
-            paperDto = objectMapper.readValue(paperDtoStr, PaperDto.class);
+            LOGGER.info("getDecPaperDto salt " + salt + " iv" + iv);
+            paperDto = paperCryptoService.decrypt(paperAesDto.getBody(), PaperDto.class, salt, iv, passphrase);
             return paperDto;
 
         } catch (Exception ex) {
@@ -509,21 +531,10 @@ public class PaperApi {
         try {
             LOGGER.info("getEncPaperDto salt " + salt + " iv" + iv + " passphreaseV " + passphreaseV);
 
-            if (ivV != null) {
-                iv = ivV;
-            }
-            if (saltV != null) {
-                salt = saltV;
-            }
-            if (passphreaseV != null) {
-                passphrase = passphreaseV;
-            } else {
-                passphrase = HashUtil.setPassphraseEnrichment(passphrase);
-            }
-            AesEncDecUtil aesEncDecUtil = new AesEncDecUtil();
-            LOGGER.info("passPhressEnr  " + passphrase);
-            String paperSdoStr = objectMapper.writeValueAsString(paperDto);
-            String paperDtoEncStr = aesEncDecUtil.encrypt(salt, iv, passphrase, paperSdoStr);
+            String iv = ivV != null ? ivV : this.iv;
+            String salt = saltV != null ? saltV : this.salt;
+            String passphrase = passphreaseV != null ? passphreaseV : HashUtil.setPassphraseEnrichment(this.passphrase);
+            String paperDtoEncStr = paperCryptoService.encrypt(paperDto, salt, iv, passphrase);
             return new Response<String>().setBody(paperDtoEncStr).setStatus(200).setMessage("Success");
 
         } catch (Exception ex) {
@@ -1,11 +1,13 @@
 package com.book.ensureu.api;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -13,22 +15,20 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.constant.PaperStatus;
 import com.book.ensureu.constant.PaperType;
 import com.book.ensureu.constant.TestType;
-import com.book.ensureu.dto.PaperAesDto;
 import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.exception.RuntimeEUException;
 import com.book.ensureu.model.JwtUser;
-import com.book.ensureu.response.dto.Response;
+import com.book.ensureu.response.dto.EncryptedResponseBody;
 import com.book.ensureu.security.UserPrincipalService;
+import com.book.ensureu.service.PaperCryptoService;
 import com.book.ensureu.service.PaperService;
 import com.book.ensureu.service.impl.PaperFactory;
-import com.book.ensureu.util.AesEncDecUtil;
-import com.book.ensureu.util.HashUtil;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/pastpaper")
@@ -43,16 +43,8 @@ public class PastPaperApi {
 	@Autowired
 	UserPrincipalService userPrincipal;
 	
-	@Value("${aes.encryption.salt}")
-	private String salt;
-	
-	@Value("${aes.encryption.iv}")
-	private String iv;
-	
-	@Value("${aes.encryption.passphrase}")
-	private String passphrase;
-	
-	private ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	@Autowired
+	private PaperCryptoService paperCryptoService;
 
 	@CrossOrigin
 	@RequestMapping(value = "/save", method = RequestMethod.POST)
@@ -74,37 +66,26 @@ public class PastPaperApi {
 	
 	@CrossOrigin
 	@RequestMapping(value = "/v1/save", method = RequestMethod.POST)
-	public void savePaperV1(@RequestBody PaperAesDto<String> paperAesDto) {
-		
-		if(paperAesDto!=null && paperAesDto.getBody()!=null) {
-			PaperDto paperDto=null;
-			try {
-			AesEncDecUtil aesEncDecUtil=new AesEncDecUtil();
-			String passPhressEnr=HashUtil.setPassphraseEnrichment(passphrase);
-			LOGGER.info("passPhressEnr  " + passPhressEnr);
-			String paperDtoStr=aesEncDecUtil.decrypt(salt, iv, passPhressEnr, paperAesDto.getBody());
-			paperDto=objectMapper.readValue(paperDtoStr, PaperDto.class);
+	public void savePaperV1(InputStream paperAesDto) {
 		
-			if (paperDto != null) {
-				try {
-					LOGGER.info("savePastPaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType());
-					paperService = paperFactory.getPaperService(paperDto.getTestType().toString());
-					paperService.savePaper(paperDto);
-
-				} catch (Exception ex) {
-					LOGGER.error("savePastPaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType(), ex);
-					throw ex;
-				}
-			}
-			
-			} catch (Exception ex) {
-				
-				LOGGER.error("savePaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType(), ex);
-				ex.printStackTrace();
-			}
-		}else {
+		PaperDto paperDto;
+		try {
+			paperDto=paperCryptoService.decryptEnvelope(paperAesDto, PaperDto.class);
+		} catch (Exception ex) {
+			LOGGER.error("[savePaperV1] Exception occurred while decryption", ex);
+			throw new RuntimeEUException("Exception occurred while decryption");
+		}
+		if(paperDto==null) {
 			throw new IllegalArgumentException("Can't be null");
 		}
+		try {
+			LOGGER.info("savePastPaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType());
+			paperService = paperFactory.getPaperService(paperDto.getTestType().toString());
+			paperService.savePaper(paperDto);
+
+		} catch (Exception ex) {
+			LOGGER.error("savePastPaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType(), ex);
+		}
 
 	}
 	
@@ -170,7 +151,7 @@ public class PastPaperApi {
 	 */
 	@CrossOrigin
 	@RequestMapping(value = "/v1/user/mapping/{testType}/{paperStatus}/{paperId}", method = RequestMethod.GET)
-	public Response<String> getPaperAndUserByTestStatusEnc(@PathVariable(value = "testType") String testType,
+	public ResponseEntity<StreamingResponseBody> getPaperAndUserByTestStatusEnc(@PathVariable(value = "testType") String testType,
 			@PathVariable(value = "paperStatus") String paperStatus, @PathVariable(value = "paperId") String paperId) {
 
 		JwtUser jwtUser = null;
@@ -180,14 +161,10 @@ public class PastPaperApi {
 			paperService = paperFactory.getPaperService(TestType.PASTPAPER.toString());
 			PaperDto paperDto= paperService.paperMappedUserByPaperStatus(jwtUser.getUsername(),
 					TestType.PASTPAPER, PaperStatus.valueOf(paperStatus.toUpperCase()), paperId);
-			
-			AesEncDecUtil aesEncDecUtil=new AesEncDecUtil();
-			String passPhressEnr=HashUtil.setPassphraseEnrichment(passphrase);
-			LOGGER.info("passPhressEnr  " + passPhressEnr);
-			String paperSdoStr=objectMapper.writeValueAsString(paperDto);
-			String paperDtoEncStr=aesEncDecUtil.encrypt(salt, iv, passPhressEnr,paperSdoStr);
-			
-			return new Response<String>().setBody(paperDtoEncStr).setStatus(200).setMessage("Success");
+
+			// serialized, encrypted and Base64 encoded straight into the response
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+					.body(new EncryptedResponseBody(paperCryptoService, paperDto));
 
 		} catch (Exception ex) {
 			LOGGER.error("getPaperAndUserByTestStatus testType " + testType + " UserId " + jwtUser.getUsername()
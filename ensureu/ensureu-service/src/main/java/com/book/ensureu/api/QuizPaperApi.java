@@ -1,9 +1,11 @@
 package com.book.ensureu.api;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -11,22 +13,20 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.constant.PaperStatus;
 import com.book.ensureu.constant.PaperType;
 import com.book.ensureu.constant.TestType;
-import com.book.ensureu.dto.PaperAesDto;
 import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.exception.RuntimeEUException;
 import com.book.ensureu.model.JwtUser;
-import com.book.ensureu.response.dto.Response;
+import com.book.ensureu.response.dto.EncryptedResponseBody;
 import com.book.ensureu.security.UserPrincipalService;
+import com.book.ensureu.service.PaperCryptoService;
 import com.book.ensureu.service.PaperService;
 import com.book.ensureu.service.impl.PaperFactory;
-import com.book.ensureu.util.AesEncDecUtil;
-import com.book.ensureu.util.HashUtil;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -43,16 +43,8 @@ public class QuizPaperApi {
 	@Autowired
 	UserPrincipalService userPrincipal;
 	
-	@Value("${aes.encryption.salt}")
-	private String salt;
-	
-	@Value("${aes.encryption.iv}")
-	private String iv;
-	
-	@Value("${aes.encryption.passphrase}")
-	private String passphrase;
-	
-	private ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	@Autowired
+	private PaperCryptoService paperCryptoService;
 
 	@CrossOrigin
 	@RequestMapping(value = "/save", method = RequestMethod.POST)
@@ -74,38 +66,26 @@ public class QuizPaperApi {
 	
 	@CrossOrigin
 	@RequestMapping(value = "/v1/save", method = RequestMethod.POST)
-	public void savePaperV1(@RequestBody PaperAesDto<String> paperAesDto) {
-		
-		if(paperAesDto!=null && paperAesDto.getBody()!=null) {
-			PaperDto paperDto=null;
-			try {
-			AesEncDecUtil aesEncDecUtil=new AesEncDecUtil();
-			String passPhressEnr=HashUtil.setPassphraseEnrichment(passphrase);
-			log.info("passPhressEnr  " + passPhressEnr);
-			String paperDtoStr=aesEncDecUtil.decrypt(salt, iv, passPhressEnr, paperAesDto.getBody());
-			paperDto=objectMapper.readValue(paperDtoStr, PaperDto.class);
+	public void savePaperV1(InputStream paperAesDto) {
 		
-			if (paperDto != null) {
-				try {
-					log.info("Quiz: saveQuizPaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType());
-					paperService = paperFactory.getPaperService(paperDto.getTestType().toString());
-					paperService.savePaper(paperDto);
-
-				} catch (Exception ex) {
-					log.error("Quiz: saveQuizPaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType(), ex);
-					throw ex;
-				}
-			}
-			
-			} catch (Exception ex) {
-				String paperId = paperDto != null ? paperDto.getPaperId() : "unknown";
-				String testType = paperDto != null && paperDto.getTestType() != null ? paperDto.getTestType().toString() : "unknown";
-				log.error("Quiz: savePaper paperId=" + paperId + " testType=" + testType, ex);
-				ex.printStackTrace();
-			}
-		}else {
+		PaperDto paperDto;
+		try {
+			paperDto=paperCryptoService.decryptEnvelope(paperAesDto, PaperDto.class);
+		} catch (Exception ex) {
+			log.error("[savePaperV1] Exception occurred while decryption", ex);
+			throw new RuntimeEUException("Exception occurred while decryption");
+		}
+		if(paperDto==null) {
 			throw new IllegalArgumentException("Can't be null");
 		}
+		try {
+			log.info("Quiz: saveQuizPaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType());
+			paperService = paperFactory.getPaperService(paperDto.getTestType().toString());
+			paperService.savePaper(paperDto);
+
+		} catch (Exception ex) {
+			log.error("Quiz: saveQuizPaper  " + paperDto.getPaperId() + " testType " + paperDto.getTestType(), ex);
+		}
 
 	}
 	
@@ -171,7 +151,7 @@ public class QuizPaperApi {
 	 */
 	@CrossOrigin
 	@RequestMapping(value = "/v1/user/mapping/{testType}/{paperStatus}/{paperId}", method = RequestMethod.GET)
-	public Response<String> getPaperAndUserByTestStatusEnc(@PathVariable(value = "testType") String testType,
+	public ResponseEntity<StreamingResponseBody> getPaperAndUserByTestStatusEnc(@PathVariable(value = "testType") String testType,
 			@PathVariable(value = "paperStatus") String paperStatus, @PathVariable(value = "paperId") String paperId) {
 
 		JwtUser jwtUser = null;
@@ -181,14 +161,10 @@ public class QuizPaperApi {
 			paperService = paperFactory.getPaperService(TestType.QUIZ.toString());
 			PaperDto paperDto= paperService.paperMappedUserByPaperStatus(jwtUser.getUsername(),
 					TestType.QUIZ, PaperStatus.valueOf(paperStatus.toUpperCase()), paperId);
-			
-			AesEncDecUtil aesEncDecUtil=new AesEncDecUtil();
-			String passPhressEnr=HashUtil.setPassphraseEnrichment(passphrase);
-			log.info("passPhressEnr  " + passPhressEnr);
-			String paperSdoStr=objectMapper.writeValueAsString(paperDto);
-			String paperDtoEncStr=aesEncDecUtil.encrypt(salt, iv, passPhressEnr,paperSdoStr);
-			
-			return new Response<String>().setBody(paperDtoEncStr).setStatus(200).setMessage("Success");
+
+			// serialized, encrypted and Base64 encoded straight into the response
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+					.body(new EncryptedResponseBody(paperCryptoService, paperDto));
 
 		} catch (Exception ex) {
 			log.error("Quiz: getPaperAndUserByTestStatus testType " + testType + " UserId " + jwtUser.getUsername()
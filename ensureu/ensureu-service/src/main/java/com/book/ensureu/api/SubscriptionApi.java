@@ -5,6 +5,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -23,10 +25,12 @@ import com.book.ensureu.dto.PaperInfo;
 import com.book.ensureu.dto.PaperPackageDto;
 import com.book.ensureu.dto.PurchaseSubscriptionsDto;
 import com.book.ensureu.dto.SubscribedDto;
+import com.book.ensureu.dto.SubscriptionCatalogSnapshot;
 import com.book.ensureu.model.JwtUser;
 import com.book.ensureu.model.UserPass;
 import com.book.ensureu.response.dto.Response;
 import com.book.ensureu.security.UserPrincipalService;
+import com.book.ensureu.service.SubscriptionCatalogService;
 import com.book.ensureu.service.SubscriptionService;
 import com.book.ensureu.service.UserPassService;
 
@@ -42,23 +46,35 @@ public class SubscriptionApi {
 	@Autowired
 	private UserPassService userPassService;
 
+	@Autowired
+	private SubscriptionCatalogService subscriptionCatalogService;
+
 	@Autowired
 	private UserPrincipalService userPrincipal;
 
+	/**
+	 * Served from the catalog snapshot with its ETag and Last-Modified, a matching If-None-Match or
+	 * If-Modified-Since is answered with 304 and no body.
+	 */
 	@CrossOrigin
 	@RequestMapping(value = "/getAllType/{testType}", method = RequestMethod.GET)
-	public Response<PaperPackageDto> getSubscriptionList(@PathVariable(value = "testType") String testType) {
+	public ResponseEntity<Response<PaperPackageDto>> getSubscriptionList(@PathVariable(value = "testType") String testType) {
 		LOGGER.info(" inside getSubscriptionList method tesType ");
 		Response<PaperPackageDto> response = new Response<>();
 
 		try {
-			PaperPackageDto paperPackageDto = subscriptionService.getSubscriptionList(TestType.valueOf(testType));
-			response.setBody(paperPackageDto).setStatus(200);
+			SubscriptionCatalogSnapshot snapshot = subscriptionCatalogService.getCatalog(TestType.valueOf(testType));
+			response.setBody(snapshot.getPaperPackage()).setStatus(200);
+			return ResponseEntity.ok()
+					.cacheControl(CacheControl.noCache())
+					.eTag(snapshot.getETag())
+					.lastModified(snapshot.getLastModified())
+					.body(response);
 		} catch (Exception e) {
 			LOGGER.error("Exception occurred while getting  subscription for getAllType" + e.getMessage());
 			response.setStatus(500).setMessage("Exception Occurred");
 		}
-		return response;
+		return ResponseEntity.ok(response);
 	}
 
 	@CrossOrigin
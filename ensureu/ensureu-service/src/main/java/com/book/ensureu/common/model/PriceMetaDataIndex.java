@@ -0,0 +1,86 @@
+package com.book.ensureu.common.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.book.ensureu.constant.PaperCategory;
+import com.book.ensureu.constant.PaperSubCategory;
+import com.book.ensureu.constant.PaperType;
+import com.book.ensureu.constant.SubscriptionType;
+
+/**
+ * Immutable lookup of price metadata by (PaperType, PaperCategory, PaperSubCategory,
+ * SubscriptionType), one EnumMap level per key. When two prices share a key the later one in the
+ * source list wins, as it did when the list was scanned.
+ */
+public final class PriceMetaDataIndex {
+
+	public static final PriceMetaDataIndex EMPTY = new PriceMetaDataIndex(Collections.emptyList());
+
+	private final List<PriceMetaData> prices;
+
+	private final Map<PaperType, Map<PaperCategory, Map<PaperSubCategory, Map<SubscriptionType, PriceMetaData>>>> index;
+
+	private PriceMetaDataIndex(List<PriceMetaData> prices) {
+		this.prices = prices;
+		this.index = new EnumMap<>(PaperType.class);
+		for (PriceMetaData price : prices) {
+			if (price.getPaperType() == null || price.getPaperCategory() == null
+					|| price.getPaperSubCategory() == null || price.getSubscriptionType() == null) {
+				continue;
+			}
+			index.computeIfAbsent(price.getPaperType(), type -> new EnumMap<>(PaperCategory.class))
+					.computeIfAbsent(price.getPaperCategory(), category -> new EnumMap<>(PaperSubCategory.class))
+					.computeIfAbsent(price.getPaperSubCategory(), subCategory -> new EnumMap<>(SubscriptionType.class))
+					.put(price.getSubscriptionType(), price);
+		}
+	}
+
+	public static PriceMetaDataIndex of(List<PriceMetaData> prices) {
+		if (prices == null || prices.isEmpty()) {
+			return EMPTY;
+		}
+		return new PriceMetaDataIndex(Collections.unmodifiableList(new ArrayList<>(prices)));
+	}
+
+	/**
+	 * A new index with price added, replacing the entry with the same id if there is one.
+	 */
+	public PriceMetaDataIndex with(PriceMetaData price) {
+		List<PriceMetaData> updated = new ArrayList<>(prices.size() + 1);
+		for (PriceMetaData existing : prices) {
+			if (price.getId() == null || !Objects.equals(existing.getId(), price.getId())) {
+				updated.add(existing);
+			}
+		}
+		updated.add(price);
+		return new PriceMetaDataIndex(Collections.unmodifiableList(updated));
+	}
+
+	/**
+	 * @return the prices of one sub category by subscription type, empty when it has none
+	 */
+	public Map<SubscriptionType, PriceMetaData> prices(PaperType paperType, PaperCategory paperCategory,
+			PaperSubCategory paperSubCategory) {
+		if (paperType == null || paperCategory == null || paperSubCategory == null) {
+			return Collections.emptyMap();
+		}
+		Map<PaperCategory, Map<PaperSubCategory, Map<SubscriptionType, PriceMetaData>>> categories = index.get(paperType);
+		Map<PaperSubCategory, Map<SubscriptionType, PriceMetaData>> subCategories = categories == null ? null
+				: categories.get(paperCategory);
+		Map<SubscriptionType, PriceMetaData> types = subCategories == null ? null : subCategories.get(paperSubCategory);
+		return types == null ? Collections.emptyMap() : Collections.unmodifiableMap(types);
+	}
+
+	public boolean isEmpty() {
+		return prices.isEmpty();
+	}
+
+	public int size() {
+		return prices.size();
+	}
+}
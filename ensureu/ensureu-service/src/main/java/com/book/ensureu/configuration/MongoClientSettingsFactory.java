@@ -0,0 +1,182 @@
+package com.book.ensureu.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import com.book.ensureu.profiler.MongoQueryProfiler;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client settings on top of the connection string. Pool sizing and timeouts come from mongo.client.*
+ * properties, options also present in the URI are overridden by them. The exam flow bursts at a
+ * paper's start time, so waiting for a pooled connection is bounded well below the driver's two
+ * minute default and checkout failures are counted by reason.
+ */
+@Slf4j
+@Component
+public class MongoClientSettingsFactory {
+
+	private static final String ZSTD = "zstd";
+
+	private static final String SNAPPY = "snappy";
+
+	private static final String ZLIB = "zlib";
+
+	private final MeterRegistry meterRegistry;
+
+	private final MongoQueryProfiler mongoQueryProfiler;
+
+	private final int maxPoolSize;
+
+	private final int minPoolSize;
+
+	private final int maxConnecting;
+
+	private final long maxWaitMillis;
+
+	private final long maxIdleMillis;
+
+	private final long maxLifeMillis;
+
+	private final long connectTimeoutMillis;
+
+	private final long serverSelectionTimeoutMillis;
+
+	private final List<String> compressors;
+
+	private final String readPreference;
+
+	private final String writeConcern;
+
+	private final String secondaryReadPreference;
+
+	private final long secondaryMaxStalenessSeconds;
+
+	public MongoClientSettingsFactory(MeterRegistry meterRegistry, MongoQueryProfiler mongoQueryProfiler,
+			@Value("${mongo.client.pool.max.size:100}") int maxPoolSize,
+			@Value("${mongo.client.pool.min.size:10}") int minPoolSize,
+			@Value("${mongo.client.pool.max.connecting:4}") int maxConnecting,
+			@Value("${mongo.client.pool.max.wait.millis:2000}") long maxWaitMillis,
+			@Value("${mongo.client.pool.max.idle.millis:300000}") long maxIdleMillis,
+			@Value("${mongo.client.pool.max.life.millis:0}") long maxLifeMillis,
+			@Value("${mongo.client.connect.timeout.millis:5000}") long connectTimeoutMillis,
+			@Value("${mongo.client.server.selection.timeout.millis:5000}") long serverSelectionTimeoutMillis,
+			@Value("${mongo.client.compressors:zstd,snappy,zlib}") List<String> compressors,
+			@Value("${mongo.client.read.preference:primary}") String readPreference,
+			@Value("${mongo.client.write.concern:}") String writeConcern,
+			@Value("${mongo.client.secondary.read.preference:secondaryPreferred}") String secondaryReadPreference,
+			@Value("${mongo.client.secondary.max.staleness.seconds:90}") long secondaryMaxStalenessSeconds) {
+		this.meterRegistry = meterRegistry;
+		this.mongoQueryProfiler = mongoQueryProfiler;
+		this.maxPoolSize = maxPoolSize;
+		this.minPoolSize = minPoolSize;
+		this.maxConnecting = maxConnecting;
+		this.maxWaitMillis = maxWaitMillis;
+		this.maxIdleMillis = maxIdleMillis;
+		this.maxLifeMillis = maxLifeMillis;
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.serverSelectionTimeoutMillis = serverSelectionTimeoutMillis;
+		this.compressors = compressors;
+		this.readPreference = readPreference;
+		this.writeConcern = writeConcern;
+		this.secondaryReadPreference = secondaryReadPreference;
+		this.secondaryMaxStalenessSeconds = secondaryMaxStalenessSeconds;
+	}
+
+	public MongoClientSettings settings(ConnectionString connectionString) {
+		MongoClientSettings.Builder settings = MongoClientSettings.builder()
+				.applyConnectionString(connectionString)
+				.applyToConnectionPoolSettings(pool -> pool
+						.maxSize(maxPoolSize)
+						.minSize(minPoolSize)
+						.maxConnecting(maxConnecting)
+						.maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS)
+						.maxConnectionIdleTime(maxIdleMillis, TimeUnit.MILLISECONDS)
+						.maxConnectionLifeTime(maxLifeMillis, TimeUnit.MILLISECONDS)
+						.addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry))
+						.addConnectionPoolListener(checkOutFailures()))
+				.applyToSocketSettings(socket -> socket.connectTimeout((int) connectTimeoutMillis, TimeUnit.MILLISECONDS))
+				.applyToClusterSettings(cluster -> cluster
+						.serverSelectionTimeout(serverSelectionTimeoutMillis, TimeUnit.MILLISECONDS))
+				.compressorList(compressorList())
+				.readPreference(ReadPreference.valueOf(readPreference));
+		if (StringUtils.hasText(writeConcern)) {
+			WriteConcern concern = WriteConcern.valueOf(writeConcern.trim());
+			if (concern == null) {
+				throw new IllegalArgumentException("Unknown mongo.client.write.concern " + writeConcern);
+			}
+			settings.writeConcern(concern);
+		}
+		if (mongoQueryProfiler.isEnabled()) {
+			settings.addCommandListener(mongoQueryProfiler);
+		}
+		log.info("[mongoClient] pool max [{}] min [{}] max wait [{}] ms, compressors {}, read preference [{}]",
+				maxPoolSize, minPoolSize, maxWaitMillis, compressors, readPreference);
+		return settings.build();
+	}
+
+	/**
+	 * Read preference of read-only templates. Staleness below 90 seconds is rejected by the server,
+	 * 0 leaves it unbounded.
+	 */
+	public ReadPreference secondaryReadPreference() {
+		if (secondaryMaxStalenessSeconds > 0) {
+			return ReadPreference.valueOf(secondaryReadPreference, new ArrayList<>(),
+					secondaryMaxStalenessSeconds, TimeUnit.SECONDS);
+		}
+		return ReadPreference.valueOf(secondaryReadPreference);
+	}
+
+	/*
+	 * zstd and snappy need zstd-jni and snappy-java at runtime, a compressor whose library is missing
+	 * is skipped here instead of failing the first compressed message
+	 */
+	List<MongoCompressor> compressorList() {
+		List<MongoCompressor> compressorList = new ArrayList<>();
+		for (String compressor : compressors) {
+			String name = compressor.trim().toLowerCase();
+			if (ZSTD.equals(name) && isPresent("com.github.luben.zstd.Zstd")) {
+				compressorList.add(MongoCompressor.createZstdCompressor());
+			} else if (SNAPPY.equals(name) && isPresent("org.xerial.snappy.Snappy")) {
+				compressorList.add(MongoCompressor.createSnappyCompressor());
+			} else if (ZLIB.equals(name)) {
+				compressorList.add(MongoCompressor.createZlibCompressor());
+			} else if (!name.isEmpty()) {
+				log.info("[mongoClient] compressor [{}] is not available, skipping", name);
+			}
+		}
+		return compressorList;
+	}
+
+	private ConnectionPoolListener checkOutFailures() {
+		return new ConnectionPoolListener() {
+			@Override
+			public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+				meterRegistry.counter("mongo.pool.checkout.failures", "reason", event.getReason().name()).increment();
+			}
+		};
+	}
+
+	/*
+	 * package-private so tests can decide which compressor libraries are on the classpath
+	 */
+	boolean isPresent(String className) {
+		return ClassUtils.isPresent(className, MongoClientSettingsFactory.class.getClassLoader());
+	}
+}
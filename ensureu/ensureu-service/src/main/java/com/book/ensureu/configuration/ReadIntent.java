@@ -0,0 +1,36 @@
+package com.book.ensureu.configuration;
+
+import com.mongodb.ReadPreference;
+
+/**
+ * Read preference requested for the current thread, applied by {@link ReadIntentMongoTemplate}.
+ * Null means the template default.
+ */
+public final class ReadIntent {
+
+	private static final ThreadLocal<ReadPreference> CURRENT = new ThreadLocal<>();
+
+	private ReadIntent() {
+	}
+
+	public static ReadPreference current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @return the read preference it replaces, to be passed back to {@link #restore(ReadPreference)}
+	 */
+	public static ReadPreference use(ReadPreference readPreference) {
+		ReadPreference previous = CURRENT.get();
+		CURRENT.set(readPreference);
+		return previous;
+	}
+
+	public static void restore(ReadPreference previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(previous);
+		}
+	}
+}
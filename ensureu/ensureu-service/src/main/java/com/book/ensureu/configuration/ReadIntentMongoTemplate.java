@@ -0,0 +1,27 @@
+package com.book.ensureu.configuration;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+
+/**
+ * MongoTemplate that applies the thread's {@link ReadIntent}. Every find, count and aggregate of the
+ * template, and of the repositories built on it, prepares its collection here. Read preference
+ * does not apply to writes, so they stay on the primary.
+ */
+public class ReadIntentMongoTemplate extends MongoTemplate {
+
+	public ReadIntentMongoTemplate(MongoClient mongoClient, String databaseName) {
+		super(mongoClient, databaseName);
+	}
+
+	@Override
+	protected MongoCollection<Document> prepareCollection(MongoCollection<Document> collection) {
+		MongoCollection<Document> prepared = super.prepareCollection(collection);
+		ReadPreference readPreference = ReadIntent.current();
+		return readPreference == null ? prepared : prepared.withReadPreference(readPreference);
+	}
+}
@@ -17,6 +17,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.book.ensureu.security.AuthenticationCache;
 import com.book.ensureu.security.JwtAuthenticationEntryPoint;
 import com.book.ensureu.security.JwtAuthorizationTokenFilter;
 import com.book.ensureu.security.util.JwtSecurityTokenUtil;
@@ -43,6 +44,9 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private AutenticationService autenticationService;
 
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
     @Value("${spring.jwt.authentication.path}")
     private String authenticationPath;
 
@@ -99,7 +103,9 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/v3/api-docs/**").permitAll()
 
                 .antMatchers("/otp/**").permitAll()
-                .antMatchers("/api/actuator/**").permitAll()
+                // paths are matched below the /api context path, only health is public
+                .antMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .antMatchers("/actuator/**").hasAnyRole(USER_SUPERADMIN, USER_ADMIN)
                 .antMatchers("/pastpaper/user/list/paperType/**").permitAll()
 
                 .antMatchers("/subscription/**").hasAnyRole(USER_SUPERADMIN, USER_ADMIN, USER_USER)
@@ -163,7 +169,7 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .anyRequest().authenticated();
 
         // Custom JWT based security filter
-        JwtAuthorizationTokenFilter authenticationTokenFilter = new JwtAuthorizationTokenFilter(userDetailsService(), jwtTokenUtil, "Authorization", autenticationService);
+        JwtAuthorizationTokenFilter authenticationTokenFilter = new JwtAuthorizationTokenFilter(userDetailsService(), jwtTokenUtil, "Authorization", autenticationService, authenticationCache);
         httpSecurity
                 .addFilterAfter(authenticationTokenFilter, UsernamePasswordAuthenticationFilter.class);
         // disable page caching
@@ -191,7 +197,8 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                         "/swagger-ui.html",
                         "/swagger-ui.**",
                         "/v3/api-docs/**",
-                        "/actuator/**",
+                        "/actuator/health",
+                        "/actuator/health/**",
                         "/",
                         "/*.html",
                         "/favicon.ico",
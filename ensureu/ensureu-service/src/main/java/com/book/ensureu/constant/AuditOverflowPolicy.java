@@ -0,0 +1,11 @@
+package com.book.ensureu.constant;
+
+/**
+ * What the login audit writer does with an event when its buffer is full
+ */
+public enum AuditOverflowPolicy {
+	/** count and drop the event, login latency never includes the write */
+	DROP,
+	/** write the event on the calling thread, nothing is lost but that login waits */
+	CALLER_RUNS
+}
@@ -0,0 +1,11 @@
+package com.book.ensureu.constant;
+
+/**
+ * How a user's attempt of a paper is stored in paidPaper/freePaper
+ */
+public enum PaperStorageMode {
+	/** the whole paper collection is copied into every user document */
+	FULL,
+	/** only the user's responses are stored, the paper is merged back from the shared template on read */
+	ANSWER_SHEET
+}
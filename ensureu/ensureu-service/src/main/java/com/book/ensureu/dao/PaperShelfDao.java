@@ -0,0 +1,81 @@
+package com.book.ensureu.dao;
+
+import com.book.ensureu.dto.PaperShelfRow;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@AllArgsConstructor
+public class PaperShelfDao {
+
+    static final String USER_PAPERS = "userPapers";
+
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Reads the papers of paperIds together with the user's own paper documents in one aggregation
+     * on the paper collection. Neither side carries the question pattern. Rows come back in paperIds
+     * order, ids missing from the collection are left out.
+     */
+    public <C, U> List<PaperShelfRow<C, U>> findShelf(String userId, List<String> paperIds,
+                                                      Class<C> paperCollectionClass, Class<U> userPaperClass) {
+        if (userId == null || paperIds == null || paperIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").in(paperIds)),
+                Aggregation.project().andExclude("pattern"),
+                userPaperLookup(userId, mongoTemplate.getCollectionName(userPaperClass)));
+        List<Document> documents = mongoTemplate.aggregate(aggregation,
+                mongoTemplate.getCollectionName(paperCollectionClass), Document.class).getMappedResults();
+
+        Map<Object, Document> documentById = new HashMap<>();
+        documents.forEach(document -> documentById.put(document.get("_id"), document));
+        List<PaperShelfRow<C, U>> rows = new ArrayList<>(documents.size());
+        for (String paperId : paperIds) {
+            Document document = documentById.remove(paperId);
+            if (document != null) {
+                rows.add(toRow(document, paperCollectionClass, userPaperClass));
+            }
+        }
+        return rows;
+    }
+
+    /*
+     * pipeline form of $lookup, so the join is limited to this user's document and drops the paper
+     * and answer sheet on the server
+     */
+    private static AggregationOperation userPaperLookup(String userId, String userPaperCollection) {
+        Document pipelineMatch = new Document("$match", new Document("userId", userId)
+                .append("$expr", new Document("$eq", Arrays.asList("$paperId", "$$paperId"))));
+        Document pipelineProject = new Document("$project", new Document("paper", 0).append("answerSheet", 0));
+        Document lookup = new Document("from", userPaperCollection)
+                .append("let", new Document("paperId", "$_id"))
+                .append("pipeline", Arrays.asList(pipelineMatch, pipelineProject, new Document("$limit", 1)))
+                .append("as", USER_PAPERS);
+        return context -> new Document("$lookup", lookup);
+    }
+
+    private <C, U> PaperShelfRow<C, U> toRow(Document document, Class<C> paperCollectionClass,
+                                             Class<U> userPaperClass) {
+        List<?> userPapers = document.get(USER_PAPERS, List.class);
+        document.remove(USER_PAPERS);
+        U userPaper = null;
+        if (userPapers != null && !userPapers.isEmpty() && userPapers.get(0) instanceof Document) {
+            userPaper = mongoTemplate.getConverter().read(userPaperClass, (Document) userPapers.get(0));
+        }
+        return new PaperShelfRow<>(mongoTemplate.getConverter().read(paperCollectionClass, document), userPaper);
+    }
+}
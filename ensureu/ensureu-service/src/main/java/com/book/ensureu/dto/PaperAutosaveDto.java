@@ -0,0 +1,28 @@
+package com.book.ensureu.dto;
+
+import java.util.List;
+
+import com.book.ensureu.constant.TestType;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A batch of changed question responses. seq must grow with every batch the client builds, a batch
+ * whose seq is not above the last applied one is ignored, so the client keeps resending a question
+ * until a batch containing it has been acknowledged.
+ */
+@Data
+@NoArgsConstructor
+public class PaperAutosaveDto {
+
+	private TestType testType;
+
+	private String paperId;
+
+	private long seq;
+
+	private Long totalTimeTaken;
+
+	private List<QuestionAutosaveDto> responses;
+}
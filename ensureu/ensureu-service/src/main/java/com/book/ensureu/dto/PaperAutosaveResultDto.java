@@ -0,0 +1,21 @@
+package com.book.ensureu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * applied is false when the batch was a duplicate or older than one already applied, or the paper
+ * is not in progress for the user. Either way the client does not need to resend it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaperAutosaveResultDto {
+
+	private String paperId;
+
+	private long seq;
+
+	private boolean applied;
+}
@@ -0,0 +1,19 @@
+package com.book.ensureu.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One paper on a user's shelf: the collection paper without its pattern and the user's own paper
+ * document for it, null when the user has not started it yet.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaperShelfRow<C, U> {
+
+    private C paperCollection;
+
+    private U userPaper;
+}
@@ -0,0 +1,34 @@
+package com.book.ensureu.dto;
+
+import java.util.List;
+
+import com.book.ensureu.constant.QuestionAttemptedStatus;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latest state of one question, located by its position in the paper pattern. subSectionIndex is
+ * null for a question directly inside its section, optionCount lets a full paper document have its
+ * options[].selected flags rewritten from so.
+ */
+@Data
+@NoArgsConstructor
+public class QuestionAutosaveDto {
+
+	private String questionId;
+
+	private int sectionIndex;
+
+	private Integer subSectionIndex;
+
+	private int questionIndex;
+
+	private List<String> so;
+
+	private QuestionAttemptedStatus questionAttemptedStatus;
+
+	private long timeTakenInSecond;
+
+	private Integer optionCount;
+}
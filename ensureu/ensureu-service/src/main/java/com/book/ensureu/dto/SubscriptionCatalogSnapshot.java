@@ -0,0 +1,33 @@
+package com.book.ensureu.dto;
+
+import com.book.ensureu.constant.TestType;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One built subscription catalog of a test type. The package is shared by every request served from
+ * the snapshot and must not be modified, a change builds a new snapshot instead.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SubscriptionCatalogSnapshot {
+
+	private final TestType testType;
+
+	private final PaperPackageDto paperPackage;
+
+	/**
+	 * digest of the serialized package, unchanged as long as the catalog content is
+	 */
+	private final String eTag;
+
+	/**
+	 * when the content last changed, in whole seconds as HTTP dates carry no millis
+	 */
+	private final long lastModified;
+
+	private final long builtAt;
+}
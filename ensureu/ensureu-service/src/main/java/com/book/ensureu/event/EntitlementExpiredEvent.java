@@ -0,0 +1,25 @@
+package com.book.ensureu.event;
+
+import java.util.List;
+
+import com.book.ensureu.model.UserEntitlement;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Entitlements whose validity lapsed and that were flagged inactive. The entitlements carry only
+ * id, userId, subscriptionId, paperId, testType, entitlementType and validity. Every instance
+ * publishes the events of the entitlements it finds lapsed, so listeners dropping local state see
+ * each expiry while side effects such as notifications may see one twice.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class EntitlementExpiredEvent {
+
+	private final List<UserEntitlement> entitlements;
+
+	private final long expiredAt;
+}
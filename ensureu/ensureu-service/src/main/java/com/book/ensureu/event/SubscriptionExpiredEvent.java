@@ -0,0 +1,21 @@
+package com.book.ensureu.event;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Active subscriptions whose validity lapsed. Subscriptions have no active flag, their state is left
+ * as it is and catalog queries keep filtering on validity.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SubscriptionExpiredEvent {
+
+	private final List<Long> subscriptionIds;
+
+	private final long expiredAt;
+}
@@ -0,0 +1,26 @@
+package com.book.ensureu.exception.unchecked;
+
+import com.book.ensureu.exception.EUExceptionMetaData;
+import com.book.ensureu.exception.RuntimeEUException;
+import org.springframework.http.HttpStatus;
+
+public class RateLimitExceededException extends RuntimeEUException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String msg, long retryAfterSeconds) {
+        super(new EUExceptionMetaData(HttpStatus.TOO_MANY_REQUESTS, msg, msg, HttpStatus.TOO_MANY_REQUESTS.value()));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public String getMessage() {
+        return getEuExceptionMetaData().getMessage();
+    }
+}
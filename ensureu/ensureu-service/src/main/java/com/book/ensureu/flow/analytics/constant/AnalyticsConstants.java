@@ -3,4 +3,11 @@ package com.book.ensureu.flow.analytics.constant;
 public interface AnalyticsConstants {
 
     String BUILD_ANALYTICS_SUCCESS_MSG = "";
+
+    int MAX_TOPPER_IDS = 10;
+
+    /**
+     * upper bounds of QuestionStat timeBuckets in seconds, anything slower goes to "gt_" + last bound
+     */
+    long[] TIME_BUCKET_SECONDS = {5, 10, 15, 20, 30, 45, 60, 90, 120, 180, 300, 600};
 }
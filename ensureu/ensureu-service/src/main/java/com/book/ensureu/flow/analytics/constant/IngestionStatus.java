@@ -0,0 +1,8 @@
+package com.book.ensureu.flow.analytics.constant;
+
+/**
+ * Lifecycle of an AnalyticsIngestionEvent in the outbox
+ */
+public enum IngestionStatus {
+    PENDING, PROCESSING, DONE, FAILED
+}
@@ -0,0 +1,132 @@
+package com.book.ensureu.flow.analytics.dao;
+
+import com.book.ensureu.flow.analytics.dto.UserAnalyticsDto;
+import com.book.ensureu.flow.analytics.model.PaperStat;
+import com.book.ensureu.flow.analytics.repository.PaperStatRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caches built UserAnalyticsDto per (userId, paperId) along with the PaperStat revision it was built from.
+ * An entry is served while the paper's revision is unchanged, or while the number of takers grew by less
+ * than tolerance ratio and the entry is younger than max stale, since a few more takers barely move
+ * percentiles. The revision itself is a tiny projection memoized per paper for a few seconds,
+ * so a refresh storm after an exam costs at most one small query per paper per revision ttl.
+ * Every entry also embeds the user's growth over their previous papers, so all entries of a user built
+ * before the last ingestion of one of the user's papers are rebuilt.
+ */
+@Component
+public class UserAnalyticsCache {
+
+    private final PaperStatRepository paperStatRepository;
+
+    private final Cache<String, CachedUserAnalytics> analyticsCache;
+
+    private final Cache<String, PaperStat> revisionCache;
+
+    private final Cache<String, Long> userIngestedAtCache;
+
+    private final double toleranceRatio;
+
+    private final long maxStaleMillis;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter staleCounter;
+
+    public UserAnalyticsCache(PaperStatRepository paperStatRepository, MeterRegistry meterRegistry,
+                              @Value("${analytics.cache.max.size:20000}") long maxSize,
+                              @Value("${analytics.cache.expire.minutes:30}") long expireMinutes,
+                              @Value("${analytics.cache.revision.ttl.seconds:5}") long revisionTtlSeconds,
+                              @Value("${analytics.cache.tolerance.ratio:0.01}") double toleranceRatio,
+                              @Value("${analytics.cache.max.stale.seconds:300}") long maxStaleSeconds) {
+        this.paperStatRepository = paperStatRepository;
+        this.toleranceRatio = toleranceRatio;
+        this.maxStaleMillis = TimeUnit.SECONDS.toMillis(maxStaleSeconds);
+        this.analyticsCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        this.revisionCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(revisionTtlSeconds, TimeUnit.SECONDS)
+                .build();
+        // not size bound, a stamp must outlive every entry built before it
+        this.userIngestedAtCache = Caffeine.newBuilder()
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, analyticsCache, "userAnalytics");
+        this.hitCounter = meterRegistry.counter("analytics.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("analytics.cache.requests", "result", "miss");
+        this.staleCounter = meterRegistry.counter("analytics.cache.requests", "result", "stale");
+    }
+
+    public UserAnalyticsDto get(String userId, String paperId, Supplier<UserAnalyticsDto> loader) {
+        PaperStat current = revisionCache.get(paperId, paperStatRepository::fetchPaperStatRevision);
+        long revision = current != null ? current.getRevision() : 0L;
+        long totalUsers = current != null ? current.getTotalUsers() : 0L;
+        String key = userId + "_" + paperId;
+
+        CachedUserAnalytics cached = analyticsCache.getIfPresent(key);
+        if (cached != null && isFresh(cached, userId, revision, totalUsers)) {
+            hitCounter.increment();
+            return cached.getUserAnalyticsDto();
+        }
+        if (cached == null) {
+            missCounter.increment();
+        } else {
+            staleCounter.increment();
+        }
+        long loadStartedAt = System.currentTimeMillis();
+        UserAnalyticsDto userAnalyticsDto = loader.get();
+        analyticsCache.put(key, new CachedUserAnalytics(userAnalyticsDto, revision, totalUsers, loadStartedAt));
+        return userAnalyticsDto;
+    }
+
+    /**
+     * Called after this instance wrote to PaperStat, so local readers see the new revision right away
+     */
+    public void evictPaperRevisions(Collection<String> paperIds) {
+        revisionCache.invalidateAll(paperIds);
+    }
+
+    /**
+     * Called after this instance ingested papers of these users, their entries of every paper are stale
+     */
+    public void evictUserGrowth(Collection<String> userIds) {
+        long now = System.currentTimeMillis();
+        userIds.forEach(userId -> userIngestedAtCache.put(userId, now));
+    }
+
+    private boolean isFresh(CachedUserAnalytics cached, String userId, long revision, long totalUsers) {
+        Long userIngestedAt = userIngestedAtCache.getIfPresent(userId);
+        if (userIngestedAt != null && cached.getBuiltAt() <= userIngestedAt) {
+            return false;
+        }
+        if (cached.getRevision() == revision) {
+            return true;
+        }
+        if (System.currentTimeMillis() - cached.getBuiltAt() > maxStaleMillis) {
+            return false;
+        }
+        return totalUsers - cached.getTotalUsers() <= cached.getTotalUsers() * toleranceRatio;
+    }
+
+    @lombok.Value
+    private static class CachedUserAnalytics {
+        UserAnalyticsDto userAnalyticsDto;
+        long revision;
+        long totalUsers;
+        long builtAt;
+    }
+}
@@ -9,14 +9,15 @@ import com.book.ensureu.flow.analytics.repository.QuestionStatRepository;
 import com.book.ensureu.flow.analytics.transformer.PercentilePercentTransformer;
 import com.book.ensureu.flow.analytics.transformer.UserQuestionTimeTransformer;
 import com.book.ensureu.flow.analytics.util.KeyConversionUtil;
+import com.book.ensureu.flow.analytics.util.ScoreDistribution;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import javax.validation.constraints.NotNull;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * get paperStat -- give percentile graph
@@ -42,14 +43,20 @@ public class UserAnalyticsDao {
 
     private UserQuestionTimeTransformer userQuestionTimeTransformer;
 
+    private UserAnalyticsCache userAnalyticsCache;
 
+
+    /**
+     * Reads the primary, UserAnalyticsCache stamps the result with the PaperStat revision it read from
+     * the primary and a lagging secondary would cache older stats under that newer revision
+     */
     public UserAnalyticsDto buildUserAnalytics(String userId, String paperId) {
 
         try {
             log.info("[buildUserAnalytics] userId [{}], paperId[{}]", userId, paperId);
             UserPaperTimeSeries userPaperTimeSeries = userPaperTimeSeriesRepository.fetchUserPaperTimeSeries(userId, paperId); // throws exception if no data is found
             PaperStat paperStat = paperStatRepository.fetchPaperStat(paperId);
-            List<String> topperList = paperStat.getTopperPaperStatList();
+            List<String> topperList = Optional.ofNullable(paperStat.getTopperPaperStatList()).orElse(Collections.emptyList());
             List<String> remainingTopperList = topperList.stream()
                     .filter(id -> !id.equalsIgnoreCase(userId))
                     .collect(Collectors.toList());
@@ -65,7 +72,7 @@ public class UserAnalyticsDao {
                 log.error("[buildUserAnalytics] userTimeSeries is not present");
             }
             setUserScoreDto(userId, userPaperStatList, userAnalyticsDto);
-            buildHistogram(userId, userAnalyticsDto, userPaperStatList);
+            buildHistogram(userId, paperId, userAnalyticsDto, userPaperStatList);
             buildPercentile(userAnalyticsDto, paperStat);
             buildUserGrowth(userAnalyticsDto, userId);
             return userAnalyticsDto;
@@ -88,6 +95,25 @@ public class UserAnalyticsDao {
     }
 
 
+    /**
+     * Batch version used by the ingestion pipeline, one bulk write per collection
+     */
+    public void saveUserPaperStats(List<UserPaperStat> userPaperStatList) {
+        userPaperStatRepository.saveUserPaperStats(userPaperStatList);
+        paperStatRepository.addUserMarksToPaperStat(userPaperStatList);
+        questionStatRepository.addUserQuestionStats(userPaperStatList);
+        userAnalyticsCache.evictPaperRevisions(userPaperStatList.stream()
+                .map(UserPaperStat::getPaperId)
+                .collect(Collectors.toSet()));
+        userAnalyticsCache.evictUserGrowth(userPaperStatList.stream()
+                .map(UserPaperStat::getUserId)
+                .collect(Collectors.toSet()));
+    }
+
+    public void addUserQuestionStats(UserPaperStat userPaperStat) {
+        questionStatRepository.addUserQuestionStats(Collections.singletonList(userPaperStat));
+    }
+
     public void saveQuestionStat(List<QuestionStat> questionStatList) {
         questionStatRepository.saveQuestionStat(questionStatList);
     }
@@ -101,21 +127,12 @@ public class UserAnalyticsDao {
         userPaperTimeSeriesRepository.saveUserPaperTimeSeries(userPaperTimeSeries);
     }
 
+    /**
+     * Adds user's score to the paper's score distribution, no user list is loaded or rewritten
+     */
     public void addUserMarksToPaperStat(UserPaperStat userPaperStat) {
-        PaperStat paperStat = paperStatRepository.fetchPaperStat(userPaperStat.getPaperId());
-        if (Objects.isNull(paperStat)) {
-            paperStat = createPaperStatFromUserPaperStat(userPaperStat);
-        } else {
-            paperStat.getUserPaperStatList().add(userPaperStat.getUserId());
-        }
-
-        Map<String, List<String>> userMarksTreeMap = paperStat.getMarksVsUsersTreeMap();
-        String scoreKey = KeyConversionUtil.getDoubleToKey(userPaperStat.getTotalScore());
-        List<String> listOfUsers = userMarksTreeMap.getOrDefault(scoreKey, new LinkedList<>());
-        listOfUsers.add(userPaperStat.getUserId());
-        userMarksTreeMap.putIfAbsent(scoreKey, listOfUsers);
-        addPercentileObjectDataAndTopperList(paperStat);
-        paperStatRepository.savePaperStat(paperStat);
+        paperStatRepository.addUserMarksToPaperStat(userPaperStat);
+        userAnalyticsCache.evictPaperRevisions(Collections.singleton(userPaperStat.getPaperId()));
     }
 
     public UserPaperTimeSeries fetchUserPaperTimeSeries(String userId, String paperId) {
@@ -123,52 +140,6 @@ public class UserAnalyticsDao {
     }
 
 
-    /**
-     * This method calculate percentile(P)as  P = 100*(N)/T
-     * Where T = total students , R = rank of current P, N = represents rank of user
-     * if they are in increasing order of their marks.
-     * With help of above formula it add percentileObjectDataList to paperStat object
-     * along with TopperUserList
-     *
-     * @param paperStat
-     */
-    private void addPercentileObjectDataAndTopperList(PaperStat paperStat) {
-
-        ArrayList<PercentileDataObject> percentileDataObjectList = new ArrayList<>();
-        int totalStudents = paperStat.getUserPaperStatList().size();
-
-        TreeMap<String, List<String>> treeMap = paperStat.getMarksVsUsersTreeMap();
-        int rank = 1;
-        for (Map.Entry<String, List<String>> e : treeMap.descendingMap().entrySet()) {
-
-            double marks = KeyConversionUtil.getDoubleFromKey(e.getKey());
-            double percentile = 100 * (totalStudents - rank + 1) / totalStudents;
-            PercentileDataObject obj = PercentileDataObject.builder()
-                    .marks(marks)
-                    .percentile(percentile)
-                    .userIds(e.getValue())  //TODO : need to add label also
-                    .rank(rank)
-                    .build();
-            percentileDataObjectList.add(obj);
-            rank += e.getValue().size();
-        }
-        paperStat.setTopperPaperStatList(treeMap.lastEntry().getValue());
-        paperStat.setPercentileDataObjectList(percentileDataObjectList);
-    }
-
-    private PaperStat createPaperStatFromUserPaperStat(UserPaperStat userPaperStat) {
-
-        return PaperStat.builder()
-                .paperId(userPaperStat.getPaperId())
-                .paperHierarchy(userPaperStat.getPaperHierarchy())
-                .paperSubCategory(userPaperStat.getPaperSubCategory())
-                .userPaperStatList(Stream.of(userPaperStat.getUserId()).collect(Collectors.toList()))
-                .topperPaperStatList(new LinkedList<>())
-                .percentileDataObjectList(new ArrayList<>())
-                .build();
-    }
-
-
     /**
      * buildTimeSeries graph
      * UserPaperTimeSeries won't hold null values as specified using javax constraints on UserPaperTimeSeries class
@@ -194,10 +165,12 @@ public class UserAnalyticsDao {
 
     }
 
-    private void buildHistogram(String userId, UserAnalyticsDto userAnalyticsDto, List<UserPaperStat> userPaperStatList) {
+    private void buildHistogram(String userId, String paperId, UserAnalyticsDto userAnalyticsDto, List<UserPaperStat> userPaperStatList) {
 
-        List<QuestionSpeedCompDto> questionSpeedCompDtoList = buildQuestionSeriesCompList(userId, userPaperStatList);
-        List<SectionHistogramDto> sectionHistogramDtoList = buildSectionHistogramDtoList(userId, userPaperStatList);
+        Map<String, QuestionStat> questionStatMap = questionStatRepository.fetchQuestionStatByPaperId(paperId).stream()
+                .collect(Collectors.toMap(QuestionStat::getQuestionId, Function.identity(), (a, b) -> a));
+        List<QuestionSpeedCompDto> questionSpeedCompDtoList = buildQuestionSeriesCompList(userId, userPaperStatList, questionStatMap);
+        List<SectionHistogramDto> sectionHistogramDtoList = buildSectionHistogramDtoList(userId, userPaperStatList, questionStatMap);
         userAnalyticsDto.setTimeHistogramList(questionSpeedCompDtoList);
         userAnalyticsDto.setSectionHistogramDtoList(sectionHistogramDtoList);
 
@@ -205,10 +178,11 @@ public class UserAnalyticsDao {
 
     private void buildPercentile(UserAnalyticsDto userAnalyticsDto, PaperStat paperStat) {
 
-        userAnalyticsDto.setPercentileList(percentilePercentTransformer.toModel(paperStat.getPercentileDataObjectList()));
+        userAnalyticsDto.setPercentileList(percentilePercentTransformer.toModel(ScoreDistribution.of(paperStat).toPercentileDataObjectList()));
     }
 
-    private List<SectionHistogramDto> buildSectionHistogramDtoList(String userId, List<UserPaperStat> userPaperStatList) {
+    private List<SectionHistogramDto> buildSectionHistogramDtoList(String userId, List<UserPaperStat> userPaperStatList,
+                                                                   Map<String, QuestionStat> questionStatMap) {
 
         List<UserQuestionStat> userQuestionStatList, topperQuestionStatList;
         Map<String, SectionHistogramDto> sectionHistogramDtoMap = new HashMap<>();
@@ -225,7 +199,7 @@ public class UserAnalyticsDao {
         userQuestionStatList = userPaperStatList.get(rank0).getUserQuestionStatList();
         topperQuestionStatList = userPaperStatList.get(rank1).getUserQuestionStatList();
         for (int i = 0; i < userQuestionStatList.size(); i++) {
-            QuestionSpeedCompDto questionSpeedCompDto = transformToQuestionSpeedComp(userQuestionStatList.get(i), topperQuestionStatList.get(i));
+            QuestionSpeedCompDto questionSpeedCompDto = transformToQuestionSpeedComp(userQuestionStatList.get(i), topperQuestionStatList.get(i), questionStatMap);
             SectionHistogramDto sectionHistogramDto = sectionHistogramDtoMap.getOrDefault(questionSpeedCompDto.getSection(), SectionHistogramDto.builder().
                     questionSpeedCompDtoList(new LinkedList<>()).
                     build());
@@ -245,7 +219,8 @@ public class UserAnalyticsDao {
         return new LinkedList<>(sectionHistogramDtoMap.values());
     }
 
-    private List<QuestionSpeedCompDto> buildQuestionSeriesCompList(String userId, List<UserPaperStat> userPaperStatList) {
+    private List<QuestionSpeedCompDto> buildQuestionSeriesCompList(String userId, List<UserPaperStat> userPaperStatList,
+                                                                   Map<String, QuestionStat> questionStatMap) {
 
         List<UserQuestionStat> userQuestionStatList, topperQuestionStatList;
         List<QuestionSpeedCompDto> questionSpeedCompDtoList = new LinkedList<>();
@@ -262,13 +237,15 @@ public class UserAnalyticsDao {
         userQuestionStatList = userPaperStatList.get(rank0).getUserQuestionStatList();
         topperQuestionStatList = userPaperStatList.get(rank1).getUserQuestionStatList();
         for (int i = 0; i < userQuestionStatList.size(); i++) {
-            questionSpeedCompDtoList.add(transformToQuestionSpeedComp(userQuestionStatList.get(i), topperQuestionStatList.get(i)));
+            questionSpeedCompDtoList.add(transformToQuestionSpeedComp(userQuestionStatList.get(i), topperQuestionStatList.get(i), questionStatMap));
         }
         return questionSpeedCompDtoList;
     }
 
-    private QuestionSpeedCompDto transformToQuestionSpeedComp(UserQuestionStat userQuestionStat, UserQuestionStat topperQuestionStat) {
+    private QuestionSpeedCompDto transformToQuestionSpeedComp(UserQuestionStat userQuestionStat, UserQuestionStat topperQuestionStat,
+                                                              Map<String, QuestionStat> questionStatMap) {
 
+        QuestionStat questionStat = questionStatMap.get(userQuestionStat.getQuestionId());
         return QuestionSpeedCompDto.builder().
                 questionId(userQuestionStat.getQuestionId()).
                 questionNumber(userQuestionStat.getQuestionNumber()).
@@ -276,6 +253,8 @@ public class UserAnalyticsDao {
                 timeTakenByTopper(topperQuestionStat.getTimeTaken()).
                 userMarks(userQuestionStat.getMarks()).
                 topperMarks(topperQuestionStat.getMarks()).
+                averageTime(questionStat != null ? questionStat.getAverageTime() : 0.0).
+                avgMarks(questionStat != null ? questionStat.getAverageMarks() : 0.0).
                 section(userQuestionStat.getSection()).
                 subSection(userQuestionStat.getSubSection()).
                 type(userQuestionStat.getType()).
@@ -298,17 +277,9 @@ public class UserAnalyticsDao {
         }).collect(Collectors.toList());
         paperStatRepository.fetchPaperStatByIdIn(paperIds).forEach(obj -> {
             UserGrowthPointDto userGrowthPointDto = userGrowthPointDtoMap.get(obj.getPaperId());
-            userGrowthPointDto.setTopperMarks(
-                    KeyConversionUtil.getDoubleFromKey(obj.getMarksVsUsersTreeMap().lastKey())
-            );
-            obj.getPercentileDataObjectList().forEach(percentileObj -> {
-                List<String> userIdList = percentileObj.getUserIds();
-                userIdList.forEach(str ->{
-                    if(str.equalsIgnoreCase(userId)){
-                        userGrowthPointDto.setUserPercentile(percentileObj.getPercentile());
-                    }
-                });
-            });
+            ScoreDistribution scoreDistribution = ScoreDistribution.of(obj);
+            userGrowthPointDto.setTopperMarks(KeyConversionUtil.safeDoubleValue(scoreDistribution.getTopScore()));
+            userGrowthPointDto.setUserPercentile(scoreDistribution.percentileOf(userGrowthPointDto.getUserMarks()));
         });
         userAnalyticsDto.setUserGrowthDto(UserGrowthDto.builder()
                 .paperIds(paperIds)
@@ -0,0 +1,51 @@
+package com.book.ensureu.flow.analytics.model;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.flow.analytics.constant.IngestionStatus;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Outbox entry written on paper submit, analytics are built from it asynchronously.
+ * Only the reference of the submitted user paper is kept, the worker reloads the paper.
+ * id is userId_paperId so a retried submit never queues the same paper twice.
+ * DONE entries are kept until completedAt expires (TTL index) for the same reason.
+ */
+@Data
+@Document(collection = "analyticsIngestionEvent")
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsIngestionEvent {
+
+    @Id
+    private String id;
+
+    private String userId;
+
+    private String paperId;
+
+    private TestType testType;
+
+    private IngestionStatus status;
+
+    private int attempts;
+
+    private String owner;
+
+    private long lockedUntil;
+
+    private long createdAt;
+
+    private Date completedAt;
+
+    private String lastError;
+
+    public static String idOf(String userId, String paperId) {
+        return userId + "_" + paperId;
+    }
+}
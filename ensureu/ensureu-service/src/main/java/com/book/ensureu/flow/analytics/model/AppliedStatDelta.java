@@ -0,0 +1,31 @@
+package com.book.ensureu.flow.analytics.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Marker of one submission counted into one PaperStat or QuestionStat.
+ * id is eventId:statType:statId, the $inc of a delta is only sent by the writer whose marker
+ * insert succeeded, so a redelivered submission is never counted twice.
+ * Markers are kept until appliedAt expires (TTL index), as long as DONE ingestion events.
+ */
+@Data
+@Document(collection = "appliedStatDelta")
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppliedStatDelta {
+
+    @Id
+    private String id;
+
+    private Date appliedAt;
+
+    public static String idOf(String eventId, Class<?> statType, String statId) {
+        return eventId + ":" + statType.getSimpleName() + ":" + statId;
+    }
+}
@@ -12,8 +12,11 @@ import java.util.*;
 
 /**
  * This class is used to make percentile graph for a paper.
- * TopperPaperStatList contains topper ids and similarly userPaperStatList
- * percentileDataObjectList contains info about particular percentile object
+ * scoreBuckets holds the number of users per score (key from KeyConversionUtil) and is
+ * updated with atomic $inc, so the document size depends on distinct scores, not on takers.
+ * TopperPaperStatList contains a bounded list of topper ids scoring topScore.
+ * userPaperStatList, marksVsUsersTreeMap and percentileDataObjectList are only read from
+ * documents written before the bucketed distribution, see ScoreDistribution
  *
  * @author Manish
  * @version 1.0
@@ -37,12 +40,27 @@ public class PaperStat {
 
     private PaperSubCategory paperSubCategory;
 
-    private List<String> userPaperStatList;
+    @Builder.Default
+    private Map<String, Long> scoreBuckets = new HashMap<>();
+
+    private long totalUsers;
+
+    private Double topScore;
+
+    /**
+     * incremented on every submission, lets readers tell whether the distribution changed
+     */
+    private long revision;
 
     private List<String> topperPaperStatList;
 
+    @Deprecated
+    private List<String> userPaperStatList;
+
+    @Deprecated
     private ArrayList<PercentileDataObject> percentileDataObjectList;
 
+    @Deprecated
     @Builder.Default
     private TreeMap<String, List<String>> marksVsUsersTreeMap = new TreeMap<>(
             (a, b) -> {
@@ -1,23 +1,33 @@
 package com.book.ensureu.flow.analytics.model;
 
-import com.book.ensureu.constant.QuestionAttemptedStatus;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
-import lombok.Builder;
-import lombok.Data;
+import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Aggregate of every submission of a question within a paper.
+ * Only counters and sums are stored, all of them updated with $inc/$min/$max,
+ * so averages are totalX / submissions and nothing grows with the number of users.
+ * timeBuckets is a fixed bucket sketch of timeTaken, see AnalyticsConstants.TIME_BUCKET_SECONDS
+ */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 @JsonNaming(PropertyNamingStrategy.SnakeCaseStrategy.class)
 @Document
 public class QuestionStat {
 
+    /**
+     * paperId_questionId, question ids are only unique within a paper
+     */
     @Id
+    private String id;
     private String questionId;
     private String paperId;
     private Long questionNumber;
@@ -26,14 +36,33 @@ public class QuestionStat {
     private String subSection;
     private String type;
 
-
     private String complexityLevel;
     private int categoryScore;
 
+    private long submissions;
+    private long attemptedCount;
+    private long correctCount;
+    private long incorrectCount;
+    private long skipCount;
+
+    private long totalTimeTaken;
+    private double totalMarks;
+
     private Long maxTime;
     private Long minTime;
 
-    Map<QuestionAttemptedStatus,Long> QuestionAttemptedMap;
+    @Builder.Default
+    private Map<String, Long> timeBuckets = new HashMap<>();
+
+    public static String idOf(String paperId, String questionId) {
+        return paperId + "_" + questionId;
+    }
+
+    public double getAverageTime() {
+        return submissions == 0 ? 0.0 : (double) totalTimeTaken / submissions;
+    }
 
-    private List<String> userIds;
+    public double getAverageMarks() {
+        return submissions == 0 ? 0.0 : totalMarks / submissions;
+    }
 }
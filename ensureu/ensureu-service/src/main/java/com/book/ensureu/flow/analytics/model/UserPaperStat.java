@@ -62,5 +62,12 @@ public class UserPaperStat {
 
     private List<UserQuestionStat> userQuestionStatList;
 
+    /**
+     * One stat per user paper, the same key as the AnalyticsIngestionEvent it is built from,
+     * so a redelivered event replaces the stat instead of adding another one.
+     */
+    public static String idOf(String userId, String paperId) {
+        return userId + "_" + paperId;
+    }
 
 }
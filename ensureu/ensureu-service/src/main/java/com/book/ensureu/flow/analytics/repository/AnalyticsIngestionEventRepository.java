@@ -0,0 +1,129 @@
+package com.book.ensureu.flow.analytics.repository;
+
+import com.book.ensureu.flow.analytics.constant.IngestionStatus;
+import com.book.ensureu.flow.analytics.model.AnalyticsIngestionEvent;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Repository
+@AllArgsConstructor
+@Slf4j
+public class AnalyticsIngestionEventRepository {
+
+    private MongoTemplate mongoTemplate;
+
+    public void ensureIndexes(long doneRetentionSeconds) {
+        mongoTemplate.indexOps(AnalyticsIngestionEvent.class)
+                .ensureIndex(new Index().on("status", Sort.Direction.ASC).on("lockedUntil", Sort.Direction.ASC));
+        mongoTemplate.indexOps(AnalyticsIngestionEvent.class)
+                .ensureIndex(new Index().on("completedAt", Sort.Direction.ASC).expire(doneRetentionSeconds, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Inserts the event unless one already exists for the same user paper.
+     *
+     * @return true when a new event was queued
+     */
+    public boolean enqueue(AnalyticsIngestionEvent event) {
+        Query query = new Query(Criteria.where("id").is(event.getId()));
+        Update update = new Update()
+                .setOnInsert("userId", event.getUserId())
+                .setOnInsert("paperId", event.getPaperId())
+                .setOnInsert("testType", event.getTestType())
+                .setOnInsert("status", IngestionStatus.PENDING)
+                .setOnInsert("attempts", 0)
+                .setOnInsert("lockedUntil", 0L)
+                .setOnInsert("createdAt", event.getCreatedAt());
+        return mongoTemplate.upsert(query, update, AnalyticsIngestionEvent.class).getUpsertedId() != null;
+    }
+
+    /**
+     * Claims the given events for owner, events already claimed by another worker are skipped.
+     */
+    public List<AnalyticsIngestionEvent> claim(Collection<String> ids, String owner, long lockMillis) {
+        long now = System.currentTimeMillis();
+        Query query = new Query(Criteria.where("id").in(ids).and("status").is(IngestionStatus.PENDING));
+        mongoTemplate.updateMulti(query, claimUpdate(owner, now + lockMillis), AnalyticsIngestionEvent.class);
+        return findClaimed(owner, ids);
+    }
+
+    /**
+     * Claims up to limit events which are pending since before pendingBefore, or whose previous
+     * owner's lock expired. Younger pending events are still expected in some worker's queue.
+     */
+    public List<AnalyticsIngestionEvent> claimStale(int limit, String owner, long lockMillis, long pendingBefore) {
+        long now = System.currentTimeMillis();
+        Criteria claimable = new Criteria().orOperator(
+                Criteria.where("status").is(IngestionStatus.PENDING).and("createdAt").lt(pendingBefore),
+                Criteria.where("status").is(IngestionStatus.PROCESSING).and("lockedUntil").lt(now));
+        Query query = new Query(claimable).with(Sort.by(Sort.Direction.ASC, "createdAt")).limit(limit);
+        query.fields().include("id");
+        List<String> ids = mongoTemplate.find(query, AnalyticsIngestionEvent.class).stream()
+                .map(AnalyticsIngestionEvent::getId)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Query claim = new Query(Criteria.where("id").in(ids).andOperator(new Criteria().orOperator(
+                Criteria.where("status").is(IngestionStatus.PENDING),
+                Criteria.where("status").is(IngestionStatus.PROCESSING).and("lockedUntil").lt(now))));
+        mongoTemplate.updateMulti(claim, claimUpdate(owner, now + lockMillis), AnalyticsIngestionEvent.class);
+        return findClaimed(owner, ids);
+    }
+
+    public void markDone(Collection<String> ids, String owner) {
+        Query query = new Query(Criteria.where("id").in(ids).and("owner").is(owner));
+        Update update = new Update()
+                .set("status", IngestionStatus.DONE)
+                .set("completedAt", new Date())
+                .unset("lastError");
+        mongoTemplate.updateMulti(query, update, AnalyticsIngestionEvent.class);
+    }
+
+    /**
+     * Puts the event back to PENDING for a retry, or FAILED once maxAttempts is reached.
+     */
+    public void markFailed(AnalyticsIngestionEvent event, String error, int maxAttempts) {
+        IngestionStatus status = event.getAttempts() + 1 >= maxAttempts ? IngestionStatus.FAILED : IngestionStatus.PENDING;
+        Query query = new Query(Criteria.where("id").is(event.getId()).and("owner").is(event.getOwner()));
+        Update update = new Update()
+                .inc("attempts", 1)
+                .set("status", status)
+                .set("lockedUntil", 0L)
+                .set("lastError", error);
+        mongoTemplate.updateFirst(query, update, AnalyticsIngestionEvent.class);
+        log.warn("[markFailed] event [{}] status [{}] error [{}]", event.getId(), status, error);
+    }
+
+    public long countPending() {
+        return mongoTemplate.count(new Query(Criteria.where("status").in(IngestionStatus.PENDING, IngestionStatus.PROCESSING)),
+                AnalyticsIngestionEvent.class);
+    }
+
+    private Update claimUpdate(String owner, long lockedUntil) {
+        return new Update()
+                .set("status", IngestionStatus.PROCESSING)
+                .set("owner", owner)
+                .set("lockedUntil", lockedUntil);
+    }
+
+    private List<AnalyticsIngestionEvent> findClaimed(String owner, Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids).and("owner").is(owner)
+                .and("status").is(IngestionStatus.PROCESSING));
+        return mongoTemplate.find(query, AnalyticsIngestionEvent.class);
+    }
+}
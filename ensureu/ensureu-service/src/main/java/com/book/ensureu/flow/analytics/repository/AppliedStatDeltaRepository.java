@@ -0,0 +1,109 @@
+package com.book.ensureu.flow.analytics.repository;
+
+import com.book.ensureu.flow.analytics.model.AppliedStatDelta;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Repository
+@Slf4j
+public class AppliedStatDeltaRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final long retentionSeconds;
+
+    public AppliedStatDeltaRepository(MongoTemplate mongoTemplate,
+                                      @Value("${analytics.ingestion.done.retention.seconds:604800}") long retentionSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    @PostConstruct
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(AppliedStatDelta.class)
+                    .ensureIndex(new Index().on("appliedAt", Sort.Direction.ASC).expire(retentionSeconds, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            log.error("[ensureIndexes] unable to ensure appliedStatDelta indexes", e);
+        }
+    }
+
+    /**
+     * Inserts a marker per id in a single unordered bulk write.
+     *
+     * @return the ids whose marker was inserted by this call, ids already applied are left out
+     */
+    public Set<String> claim(Collection<String> ids) {
+        Set<String> claimed = new LinkedHashSet<>(ids);
+        if (claimed.isEmpty()) {
+            return claimed;
+        }
+        List<String> markerIds = new ArrayList<>(claimed);
+        Date appliedAt = new Date();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AppliedStatDelta.class);
+        bulkOperations.insert(markerIds.stream()
+                .map(id -> new AppliedStatDelta(id, appliedAt))
+                .collect(Collectors.toList()));
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException e) {
+            boolean failed = false;
+            for (BulkWriteError error : e.getErrors()) {
+                claimed.remove(markerIds.get(error.getIndex()));
+                failed |= error.getCategory() != ErrorCategory.DUPLICATE_KEY;
+            }
+            if (failed) {
+                release(claimed);
+                throw e;
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Executes an ordered bulk whose op i counts the delta claimed as markerIds.get(i), null for ops
+     * counting nothing. An ordered bulk stops at the first rejected op, so the markers from that op on
+     * are released for the retry. On any other failure it is unknown what the server applied and the
+     * markers are kept: such a delta may be missed, but it is never counted twice.
+     */
+    public void execute(BulkOperations bulkOperations, List<String> markerIds) {
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException e) {
+            int rejectedAt = e.getErrors().isEmpty() ? markerIds.size() : e.getErrors().get(0).getIndex();
+            release(markerIds.subList(rejectedAt, markerIds.size()).stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList()));
+            throw e;
+        }
+    }
+
+    public void release(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.remove(new Query(Criteria.where("id").in(ids)), AppliedStatDelta.class);
+        log.warn("[release] [{}] stat deltas released for retry", ids.size());
+    }
+}
@@ -1,16 +1,31 @@
 package com.book.ensureu.flow.analytics.repository;
 
 import com.book.ensureu.exception.unchecked.EntityNotFound;
+import com.book.ensureu.flow.analytics.constant.AnalyticsConstants;
+import com.book.ensureu.flow.analytics.model.AppliedStatDelta;
 import com.book.ensureu.flow.analytics.model.PaperStat;
+import com.book.ensureu.flow.analytics.model.UserPaperStat;
+import com.book.ensureu.flow.analytics.util.KeyConversionUtil;
+import com.book.ensureu.flow.analytics.util.ScoreDistribution;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Slf4j
@@ -19,6 +34,8 @@ public class PaperStatRepository  {
 
     private MongoTemplate mongoTemplate;
 
+    private AppliedStatDeltaRepository appliedStatDeltaRepository;
+
     /**
      * Throws EntityNotFound Exception when no data found
      *
@@ -34,8 +51,116 @@ public class PaperStatRepository  {
         return paperStatList.get(0);
     }
 
-    public void addUserMarksToPaperStat(String id, Double marks){
+    /**
+     * Only revision and totalUsers, used to check whether cached analytics are still valid
+     */
+    public PaperStat fetchPaperStatRevision(String paperId) {
+        Query query = new Query(Criteria.where("paperId").is(paperId));
+        query.fields().include("revision").include("totalUsers");
+        return mongoTemplate.findOne(query, PaperStat.class);
+    }
+
+    /**
+     * Adds the user's score to the paper's score buckets with a single atomic upsert,
+     * so concurrent submissions never overwrite each other.
+     */
+    public void addUserMarksToPaperStat(UserPaperStat userPaperStat) {
+        addUserMarksToPaperStat(Collections.singletonList(userPaperStat));
+    }
+
+    /**
+     * Batch version of addUserMarksToPaperStat, all papers are sent in a single ordered bulk write.
+     * A missing PaperStat is created first, then every score is added by its own update, only for the
+     * submissions whose AppliedStatDelta this call claimed, so a redelivered submission is not counted twice.
+     */
+    public void addUserMarksToPaperStat(List<UserPaperStat> userPaperStatList) {
+        Map<String, List<UserPaperStat>> paperIdVsStats = userPaperStatList.stream()
+                .collect(Collectors.groupingBy(UserPaperStat::getPaperId, LinkedHashMap::new, Collectors.toList()));
+        migrateLegacyPaperStats(paperIdVsStats.keySet());
+        Set<String> claimed = appliedStatDeltaRepository.claim(userPaperStatList.stream()
+                .map(PaperStatRepository::appliedStatDeltaId)
+                .collect(Collectors.toList()));
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, PaperStat.class);
+        List<String> markerIds = new ArrayList<>();
+        paperIdVsStats.forEach((paperId, stats) -> {
+            bulkOperations.upsert(new Query(Criteria.where("paperId").is(paperId)), new Update()
+                    .setOnInsert("paperHierarchy", stats.get(0).getPaperHierarchy())
+                    .setOnInsert("paperSubCategory", stats.get(0).getPaperSubCategory()));
+            markerIds.add(null);
+            for (UserPaperStat stat : stats) {
+                if (!claimed.remove(appliedStatDeltaId(stat))) {
+                    log.debug("[addUserMarksToPaperStat] [{}] already counted", stat.getId());
+                    continue;
+                }
+                bulkOperations.updateOne(new Query(Criteria.where("paperId").is(paperId)), new Update()
+                        .inc("totalUsers", 1)
+                        .inc("revision", 1)
+                        .inc("scoreBuckets." + KeyConversionUtil.getDoubleToKey(stat.getTotalScore()), 1));
+                markerIds.add(appliedStatDeltaId(stat));
+            }
+        });
+        appliedStatDeltaRepository.execute(bulkOperations, markerIds);
+        paperIdVsStats.forEach((paperId, stats) -> {
+            double topScore = stats.stream().mapToDouble(stat -> KeyConversionUtil.safeDoubleValue(stat.getTotalScore())).max().getAsDouble();
+            List<String> toppers = stats.stream()
+                    .filter(stat -> KeyConversionUtil.safeDoubleValue(stat.getTotalScore()) == topScore)
+                    .map(UserPaperStat::getUserId)
+                    .distinct()
+                    .limit(AnalyticsConstants.MAX_TOPPER_IDS)
+                    .collect(Collectors.toList());
+            addToppers(paperId, toppers, topScore);
+        });
+    }
+
+    /**
+     * Seeds scoreBuckets, totalUsers and topScore of documents written before the bucketed distribution
+     * from their marksVsUsersTreeMap, before the first $inc lands on them. Otherwise the buckets would
+     * start from the new submission only, hiding every earlier taker, and a new topper could replace a
+     * higher legacy one. The update only matches while scoreBuckets is still empty, so concurrent
+     * writers migrate a document once.
+     */
+    private void migrateLegacyPaperStats(Collection<String> paperIds) {
+        Query legacy = new Query(Criteria.where("paperId").in(paperIds).and("marksVsUsersTreeMap").exists(true)
+                .orOperator(Criteria.where("scoreBuckets").exists(false), Criteria.where("scoreBuckets").is(new Document())));
+        legacy.fields().include("paperId").include("marksVsUsersTreeMap");
+        for (PaperStat paperStat : mongoTemplate.find(legacy, PaperStat.class)) {
+            Map<String, Long> scoreBuckets = ScoreDistribution.legacyBuckets(paperStat);
+            if (scoreBuckets.isEmpty()) {
+                continue;
+            }
+            ScoreDistribution distribution = ScoreDistribution.of(scoreBuckets);
+            Query notMigrated = new Query(Criteria.where("paperId").is(paperStat.getPaperId())
+                    .orOperator(Criteria.where("scoreBuckets").exists(false), Criteria.where("scoreBuckets").is(new Document())));
+            Update seed = new Update()
+                    .set("scoreBuckets", scoreBuckets)
+                    .set("totalUsers", distribution.getTotalUsers())
+                    .set("topScore", distribution.getTopScore())
+                    .inc("revision", 1);
+            if (mongoTemplate.updateFirst(notMigrated, seed, PaperStat.class).getModifiedCount() > 0) {
+                log.info("[migrateLegacyPaperStats] paper [{}] seeded with [{}] legacy takers", paperStat.getPaperId(),
+                        distribution.getTotalUsers());
+            }
+        }
+    }
 
+    private static String appliedStatDeltaId(UserPaperStat userPaperStat) {
+        return AppliedStatDelta.idOf(userPaperStat.getId(), PaperStat.class, userPaperStat.getPaperId());
+    }
+
+    /**
+     * Replaces the topper list when score beats topScore, otherwise joins it on a tie
+     * while the list has room for more than MAX_TOPPER_IDS users.
+     */
+    private void addToppers(String paperId, List<String> userIds, double score) {
+        Query newTopper = new Query(Criteria.where("paperId").is(paperId)
+                .orOperator(Criteria.where("topScore").lt(score), Criteria.where("topScore").exists(false)));
+        Update replace = new Update().set("topScore", score).set("topperPaperStatList", userIds);
+        if (mongoTemplate.updateFirst(newTopper, replace, PaperStat.class).getModifiedCount() > 0) {
+            return;
+        }
+        Query tie = new Query(Criteria.where("paperId").is(paperId).and("topScore").is(score)
+                .and("topperPaperStatList." + (AnalyticsConstants.MAX_TOPPER_IDS - 1)).exists(false));
+        mongoTemplate.updateFirst(tie, new Update().addToSet("topperPaperStatList").each(userIds.toArray()), PaperStat.class);
     }
 
     public void savePaperStat(PaperStat paperStat){
@@ -1,27 +1,191 @@
 package com.book.ensureu.flow.analytics.repository;
 
+import com.book.ensureu.constant.QuestionAttemptedStatus;
+import com.book.ensureu.flow.analytics.constant.AnalyticsConstants;
+import com.book.ensureu.flow.analytics.model.AppliedStatDelta;
 import com.book.ensureu.flow.analytics.model.QuestionStat;
+import com.book.ensureu.flow.analytics.model.UserPaperStat;
+import com.book.ensureu.flow.analytics.model.UserQuestionStat;
+import com.book.ensureu.flow.analytics.util.KeyConversionUtil;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository
 @AllArgsConstructor
+@Slf4j
 public class QuestionStatRepository {
 
     private MongoTemplate mongoTemplate;
 
+    private AppliedStatDeltaRepository appliedStatDeltaRepository;
+
     public List<QuestionStat> fetchQuestionStatByIdIn(List<String> questionIds){
 
         Query query = new Query(Criteria.where("questionId").in(questionIds));
         return mongoTemplate.find(query,QuestionStat.class);
     }
 
+    public List<QuestionStat> fetchQuestionStatByPaperId(String paperId) {
+        Query query = new Query(Criteria.where("paperId").is(paperId));
+        query.fields().exclude("timeBuckets");
+        return mongoTemplate.find(query, QuestionStat.class);
+    }
+
     public void saveQuestionStat(List<QuestionStat> questionStatList){
         mongoTemplate.save(questionStatList);
     }
+
+    /**
+     * Folds the question responses of each submission into one $inc/$min/$max update per question,
+     * sent only for the deltas whose AppliedStatDelta this call claimed, so a redelivered submission is
+     * not counted twice. Missing question stats are upserted first and all updates are sent as a single
+     * ordered bulk write.
+     */
+    public void addUserQuestionStats(List<UserPaperStat> userPaperStatList) {
+        Map<String, QuestionDelta> inserts = new LinkedHashMap<>();
+        List<QuestionDelta> deltas = new ArrayList<>();
+        for (UserPaperStat userPaperStat : userPaperStatList) {
+            if (userPaperStat.getUserQuestionStatList() == null) {
+                continue;
+            }
+            Map<String, QuestionDelta> eventDeltas = new LinkedHashMap<>();
+            for (UserQuestionStat userQuestionStat : userPaperStat.getUserQuestionStatList()) {
+                if (userQuestionStat.getQuestionId() == null) {
+                    continue;
+                }
+                eventDeltas.computeIfAbsent(QuestionStat.idOf(userPaperStat.getPaperId(), userQuestionStat.getQuestionId()),
+                        id -> new QuestionDelta(id, userPaperStat, userQuestionStat))
+                        .add(userQuestionStat);
+            }
+            eventDeltas.forEach(inserts::putIfAbsent);
+            deltas.addAll(eventDeltas.values());
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Set<String> claimed = appliedStatDeltaRepository.claim(deltas.stream()
+                .map(QuestionDelta::appliedStatDeltaId)
+                .collect(Collectors.toList()));
+        if (claimed.isEmpty()) {
+            log.debug("[addUserQuestionStats] [{}] responses already counted", deltas.size());
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, QuestionStat.class);
+        List<String> markerIds = new ArrayList<>();
+        inserts.forEach((id, delta) -> {
+            bulkOperations.upsert(new Query(Criteria.where("id").is(id)), delta.toInsert());
+            markerIds.add(null);
+        });
+        for (QuestionDelta delta : deltas) {
+            if (claimed.contains(delta.appliedStatDeltaId())) {
+                bulkOperations.updateOne(new Query(Criteria.where("id").is(delta.id)), delta.toUpdate());
+                markerIds.add(delta.appliedStatDeltaId());
+            }
+        }
+        appliedStatDeltaRepository.execute(bulkOperations, markerIds);
+        log.debug("[addUserQuestionStats] applied [{}] responses to [{}] question stats", claimed.size(), inserts.size());
+    }
+
+    private static String timeBucketKey(long timeTaken) {
+        for (long bound : AnalyticsConstants.TIME_BUCKET_SECONDS) {
+            if (timeTaken <= bound) {
+                return "le_" + bound;
+            }
+        }
+        return "gt_" + AnalyticsConstants.TIME_BUCKET_SECONDS[AnalyticsConstants.TIME_BUCKET_SECONDS.length - 1];
+    }
+
+    /**
+     * Accumulated change of one question by one submission
+     */
+    private static class QuestionDelta {
+
+        private final String id;
+        private final UserPaperStat userPaperStat;
+        private final UserQuestionStat first;
+        private long submissions;
+        private long correct;
+        private long incorrect;
+        private long skip;
+        private long totalTime;
+        private double totalMarks;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+        private final Map<String, Long> timeBuckets = new LinkedHashMap<>();
+
+        QuestionDelta(String id, UserPaperStat userPaperStat, UserQuestionStat first) {
+            this.id = id;
+            this.userPaperStat = userPaperStat;
+            this.first = first;
+        }
+
+        void add(UserQuestionStat userQuestionStat) {
+            double marks = KeyConversionUtil.safeDoubleValue(userQuestionStat.getMarks());
+            QuestionAttemptedStatus status = userQuestionStat.getQuestionAttemptedStatus();
+            if (status == null || status == QuestionAttemptedStatus.NA) {
+                // not reported by client, derive it from marks like the section histogram does
+                status = marks > 0 ? QuestionAttemptedStatus.CORRECT
+                        : marks < 0 ? QuestionAttemptedStatus.INCORRECT : QuestionAttemptedStatus.SKIP;
+            }
+            submissions++;
+            if (status == QuestionAttemptedStatus.CORRECT) {
+                correct++;
+            } else if (status == QuestionAttemptedStatus.INCORRECT) {
+                incorrect++;
+            } else {
+                skip++;
+            }
+            totalMarks += marks;
+            long timeTaken = userQuestionStat.getTimeTaken() == null ? 0L : userQuestionStat.getTimeTaken();
+            totalTime += timeTaken;
+            minTime = Math.min(minTime, timeTaken);
+            maxTime = Math.max(maxTime, timeTaken);
+            timeBuckets.merge(timeBucketKey(timeTaken), 1L, Long::sum);
+        }
+
+        Update toInsert() {
+            return new Update()
+                    .setOnInsert("questionId", first.getQuestionId())
+                    .setOnInsert("paperId", userPaperStat.getPaperId())
+                    .setOnInsert("paperHierarchy", userPaperStat.getPaperHierarchy())
+                    .setOnInsert("questionNumber", first.getQuestionNumber())
+                    .setOnInsert("section", first.getSection())
+                    .setOnInsert("subSection", first.getSubSection())
+                    .setOnInsert("type", first.getType())
+                    .setOnInsert("complexityLevel", first.getComplexityLevel())
+                    .setOnInsert("categoryScore", first.getCategoryScore());
+        }
+
+        Update toUpdate() {
+            Update update = new Update()
+                    .inc("submissions", submissions)
+                    .inc("attemptedCount", correct + incorrect)
+                    .inc("correctCount", correct)
+                    .inc("incorrectCount", incorrect)
+                    .inc("skipCount", skip)
+                    .inc("totalTimeTaken", totalTime)
+                    .inc("totalMarks", totalMarks)
+                    .min("minTime", minTime)
+                    .max("maxTime", maxTime);
+            timeBuckets.forEach((key, count) -> update.inc("timeBuckets." + key, count));
+            return update;
+        }
+
+        String appliedStatDeltaId() {
+            return AppliedStatDelta.idOf(userPaperStat.getId(), QuestionStat.class, id);
+        }
+    }
 }
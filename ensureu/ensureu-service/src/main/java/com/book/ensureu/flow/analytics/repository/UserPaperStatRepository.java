@@ -6,6 +6,8 @@ import com.book.ensureu.flow.analytics.model.UserPaperStat;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -62,12 +64,22 @@ public class UserPaperStatRepository {
         return paperStatList;
     }
 
+    /**
+     * Stats are keyed by UserPaperStat.idOf, saving the stat of a user paper again replaces it.
+     */
     public void saveUserPaperStat(UserPaperStat userPaperStat) {
-        //userPaperStat
-        //TODO : need to add unique id
         mongoTemplate.save(userPaperStat);
     }
 
+    public void saveUserPaperStats(List<UserPaperStat> userPaperStatList) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserPaperStat.class);
+        for (UserPaperStat userPaperStat : userPaperStatList) {
+            bulkOperations.replaceOne(new Query(Criteria.where("id").is(userPaperStat.getId())), userPaperStat,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulkOperations.execute();
+    }
+
     public List<UserPaperStat> fetchPreviousPaper(String userId, Integer numOfPaper){
         Query query = new Query(Criteria.where("userId").is(userId)).limit(numOfPaper).with(Sort.by(Sort.Direction.DESC,"createdAt"));
         return mongoTemplate.find(query,UserPaperStat.class);
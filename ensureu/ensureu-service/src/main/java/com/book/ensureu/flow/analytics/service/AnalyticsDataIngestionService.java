@@ -17,6 +17,8 @@ public interface AnalyticsDataIngestionService {
 
     void saveUserPaperStatFromPaperDto(PaperDto paperDto);
 
+    void saveUserPaperStatFromPaperDtos(List<PaperDto> paperDtoList);
+
     void saveUsePaperTimeSeries(UserPaperTimeSeriesDto userPaperTimeSeriesDto);
 
     UserPaperTimeSeriesDto fetchUserPaperTimeSeries(String userId, String paperId);
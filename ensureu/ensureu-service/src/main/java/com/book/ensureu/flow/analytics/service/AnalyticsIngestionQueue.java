@@ -0,0 +1,14 @@
+package com.book.ensureu.flow.analytics.service;
+
+import com.book.ensureu.dto.PaperDto;
+
+/**
+ * Takes submitted papers off the request path, analytics are ingested by background workers
+ */
+public interface AnalyticsIngestionQueue {
+
+    /**
+     * Queues the submitted paper for analytics ingestion, papers which are not DONE are ignored.
+     */
+    void submit(PaperDto paperDto);
+}
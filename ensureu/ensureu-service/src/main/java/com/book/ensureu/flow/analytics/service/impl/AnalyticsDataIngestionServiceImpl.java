@@ -6,7 +6,6 @@ import com.book.ensureu.exception.unchecked.EntityNotFound;
 import com.book.ensureu.flow.analytics.dao.UserAnalyticsDao;
 import com.book.ensureu.flow.analytics.dto.*;
 import com.book.ensureu.flow.analytics.model.PaperStat;
-import com.book.ensureu.flow.analytics.model.QuestionStat;
 import com.book.ensureu.flow.analytics.model.UserPaperStat;
 import com.book.ensureu.flow.analytics.model.UserPaperTimeSeries;
 import com.book.ensureu.flow.analytics.service.AnalyticsDataIngestionService;
@@ -18,7 +17,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,8 +34,10 @@ public class AnalyticsDataIngestionServiceImpl implements AnalyticsDataIngestion
     public void saveUserPaperStat(UserPaperStatDto userPaperStatDto) {
         log.info("[saveUserPaperStat] paperId [{}], userId [{}]",userPaperStatDto.getPaperId(),userPaperStatDto.getUserId());
         UserPaperStat userPaperStat = userPaperStatTransformer.toModel(userPaperStatDto);
+        userPaperStat.setId(UserPaperStat.idOf(userPaperStat.getUserId(), userPaperStat.getPaperId()));
         userAnalyticsDao.SaveUserPaperStat(userPaperStat);
         userAnalyticsDao.addUserMarksToPaperStat(userPaperStat);
+        userAnalyticsDao.addUserQuestionStats(userPaperStat);
 
     }
 
@@ -55,13 +55,28 @@ public class AnalyticsDataIngestionServiceImpl implements AnalyticsDataIngestion
        // if(TestType.PAID.equals(paperDto.getTestType())) {
             UserPaperStatDto userPaperStatDto = ingestUserPaperStats(paperDto);
             ingestUserQuestionStats(paperDto, userPaperStatDto);
-            ingestQuestionStats(userPaperStatDto);
             saveUserPaperStat(userPaperStatDto);
        // }
     }
 
 
 
+    /**
+     * Batch version used by AnalyticsIngestionQueue, stats of all papers are written
+     * with one bulk operation per collection.
+     */
+    @Override
+    public void saveUserPaperStatFromPaperDtos(List<PaperDto> paperDtoList) {
+        List<UserPaperStat> userPaperStatList = new ArrayList<>(paperDtoList.size());
+        for (PaperDto paperDto : paperDtoList) {
+            UserPaperStatDto userPaperStatDto = ingestUserPaperStats(paperDto);
+            ingestUserQuestionStats(paperDto, userPaperStatDto);
+            userPaperStatList.add(userPaperStatTransformer.toModel(userPaperStatDto));
+        }
+        log.info("[saveUserPaperStatFromPaperDtos] batch size [{}]", userPaperStatList.size());
+        userAnalyticsDao.saveUserPaperStats(userPaperStatList);
+    }
+
     @Override
     public void saveUsePaperTimeSeries(UserPaperTimeSeriesDto userPaperTimeSeriesDto) {
         log.info("[saveUsePaperTimeSeries] paperId [{}],userId [{}]",userPaperTimeSeriesDto.getPaperId(),userPaperTimeSeriesDto.getUserId());
@@ -80,19 +95,6 @@ public class AnalyticsDataIngestionServiceImpl implements AnalyticsDataIngestion
         return userPaperTimeSeriesTransformer.ToDto(userAnalyticsDao.fetchUserPaperTimeSeries(userId,paperId));
     }
 
-    private void ingestQuestionStats(UserPaperStatDto userPaperStatDto) {
-        Map<String, UserQuestionStatDto> questionStatDtoMap = userPaperStatDto.getUserQuestionStatList()
-                .stream()
-                .filter(f -> (f.getQuestionId() != null) ? true : false)
-                .collect(Collectors.toMap(k -> k.getQuestionId(), Function.identity(),(k,v)-> k));
-        List<QuestionStat> questionStatList = userAnalyticsDao.fetchQuestionStatByIdIn(questionStatDtoMap.keySet().stream().collect(Collectors.toList()));
-        if (Objects.nonNull(questionStatList)) {
-            // questionStatList.stream().
-        } else {
-
-        }
-    }
-
     private void ingestPaperStat(UserPaperStatDto userPaperStatDto) {
         PaperStat paperStat = PaperStat.builder()
                 .build();
@@ -100,6 +102,7 @@ public class AnalyticsDataIngestionServiceImpl implements AnalyticsDataIngestion
 
     private UserPaperStatDto ingestUserPaperStats(PaperDto paperDto) {
         UserPaperStatDto userPaperStats = new UserPaperStatDto();
+        userPaperStats.setId(UserPaperStat.idOf(paperDto.getUserId(), paperDto.getPaperId()));
         userPaperStats.setUserId(paperDto.getUserId());
         userPaperStats.setPaperId(paperDto.getPaperId());
         userPaperStats.setPaperName(paperDto.getPaperName());
@@ -133,6 +136,7 @@ public class AnalyticsDataIngestionServiceImpl implements AnalyticsDataIngestion
                 for (Question<Problem> question : questionList) {
                     UserQuestionStatDto questionStats = UserQuestionStatDto.builder()
                             .questionId(question.getId())
+                            .questionNumber(question.getqNo())
                             .questionAttemptedStatus(question.getQuestionAttemptedStatus())
                             .section(section.getTitle())
                             .subSection(subSection.getTitle())
@@ -145,7 +149,6 @@ public class AnalyticsDataIngestionServiceImpl implements AnalyticsDataIngestion
                 }
             }
         }
-        //TODO need to update QuestionStat Document
         userPaperStatDto.setUserQuestionStatList(userQuestionStatDtoList);
         return userQuestionStatDtoList;
     }
@@ -0,0 +1,300 @@
+package com.book.ensureu.flow.analytics.service.impl;
+
+import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.flow.analytics.model.AnalyticsIngestionEvent;
+import com.book.ensureu.flow.analytics.repository.AnalyticsIngestionEventRepository;
+import com.book.ensureu.flow.analytics.service.AnalyticsDataIngestionService;
+import com.book.ensureu.flow.analytics.service.AnalyticsIngestionQueue;
+import com.book.ensureu.service.impl.PaperFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Durable analytics ingestion off the paper submit path.
+ * submit() only upserts a small outbox entry and hands the in-memory paper to a bounded queue.
+ * Worker threads drain the queue in micro-batches and write stats with bulk operations.
+ * When the queue is full, or the JVM restarts, the scheduled sweep claims the outbox entries
+ * and reloads the user paper, so nothing submitted is lost. Delivery is at least once, stats are
+ * keyed and their counters guarded by the event id, so a redelivered event is applied once.
+ */
+@Service
+@Slf4j
+public class AnalyticsIngestionQueueImpl implements AnalyticsIngestionQueue {
+
+    private final AnalyticsIngestionEventRepository eventRepository;
+
+    private final AnalyticsDataIngestionService analyticsDataIngestionService;
+
+    private final PaperFactory paperFactory;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${analytics.ingestion.queue.capacity:2000}")
+    private int capacity;
+
+    @Value("${analytics.ingestion.workers:2}")
+    private int workers;
+
+    @Value("${analytics.ingestion.batch.size:50}")
+    private int batchSize;
+
+    @Value("${analytics.ingestion.batch.wait.millis:200}")
+    private long batchWaitMillis;
+
+    @Value("${analytics.ingestion.lock.millis:60000}")
+    private long lockMillis;
+
+    @Value("${analytics.ingestion.max.attempts:5}")
+    private int maxAttempts;
+
+    @Value("${analytics.ingestion.done.retention.seconds:604800}")
+    private long doneRetentionSeconds;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong claimSequence = new AtomicLong();
+
+    private final AtomicLong outboxPending = new AtomicLong();
+
+    private BlockingQueue<QueuedPaper> queue;
+
+    private ExecutorService workerPool;
+
+    private volatile boolean running;
+
+    private Counter queuedCounter;
+    private Counter duplicateCounter;
+    private Counter deferredCounter;
+    private Counter processedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+
+    public AnalyticsIngestionQueueImpl(AnalyticsIngestionEventRepository eventRepository,
+                                       AnalyticsDataIngestionService analyticsDataIngestionService,
+                                       PaperFactory paperFactory, MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.analyticsDataIngestionService = analyticsDataIngestionService;
+        this.paperFactory = paperFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        queuedCounter = meterRegistry.counter("analytics.ingestion.events", "result", "queued");
+        duplicateCounter = meterRegistry.counter("analytics.ingestion.events", "result", "duplicate");
+        deferredCounter = meterRegistry.counter("analytics.ingestion.events", "result", "deferred");
+        processedCounter = meterRegistry.counter("analytics.ingestion.events", "result", "processed");
+        failedCounter = meterRegistry.counter("analytics.ingestion.events", "result", "failed");
+        batchTimer = meterRegistry.timer("analytics.ingestion.batch");
+        Gauge.builder("analytics.ingestion.queue.size", queue, Collection::size).register(meterRegistry);
+        Gauge.builder("analytics.ingestion.queue.remaining", queue, BlockingQueue::remainingCapacity).register(meterRegistry);
+        Gauge.builder("analytics.ingestion.outbox.pending", outboxPending, AtomicLong::get).register(meterRegistry);
+        try {
+            eventRepository.ensureIndexes(doneRetentionSeconds);
+        } catch (Exception e) {
+            log.error("[start] unable to ensure analyticsIngestionEvent indexes", e);
+        }
+
+        running = true;
+        AtomicLong threadIndex = new AtomicLong();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "analytics-ingest-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            workerPool.submit(this::drain);
+        }
+        log.info("[start] analytics ingestion started with [{}] workers, capacity [{}], batch [{}]", workers, capacity, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workerPool.shutdown();
+        // whatever is left in the queue stays PENDING in the outbox and is swept after restart
+        workerPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void submit(PaperDto paperDto) {
+        if (paperDto == null || !PaperStatus.DONE.equals(paperDto.getPaperStatus())) {
+            return;
+        }
+        AnalyticsIngestionEvent event = AnalyticsIngestionEvent.builder()
+                .id(AnalyticsIngestionEvent.idOf(paperDto.getUserId(), paperDto.getPaperId()))
+                .userId(paperDto.getUserId())
+                .paperId(paperDto.getPaperId())
+                .testType(paperDto.getTestType())
+                .createdAt(System.currentTimeMillis())
+                .build();
+        if (!eventRepository.enqueue(event)) {
+            log.info("[submit] analytics already queued for userId [{}], paperId [{}]", paperDto.getUserId(), paperDto.getPaperId());
+            duplicateCounter.increment();
+            return;
+        }
+        queuedCounter.increment();
+        if (!queue.offer(new QueuedPaper(event.getId(), paperDto))) {
+            log.warn("[submit] ingestion queue full, userId [{}], paperId [{}] deferred to sweep", paperDto.getUserId(), paperDto.getPaperId());
+            deferredCounter.increment();
+        }
+    }
+
+    /**
+     * Picks up outbox entries which never made it to the queue, failed earlier,
+     * or were claimed by a worker that died.
+     */
+    @Scheduled(fixedDelayString = "${analytics.ingestion.sweep.millis:30000}")
+    public void sweep() {
+        try {
+            outboxPending.set(eventRepository.countPending());
+            if (queue.size() > capacity / 2) {
+                // workers are behind, sweeping now would only compete with them
+                return;
+            }
+            String owner = nextOwner();
+            List<AnalyticsIngestionEvent> events = eventRepository.claimStale(batchSize, owner, lockMillis,
+                    System.currentTimeMillis() - lockMillis);
+            if (!events.isEmpty()) {
+                log.info("[sweep] claimed [{}] outbox events", events.size());
+                ingest(events, Collections.emptyMap());
+            }
+        } catch (Exception e) {
+            log.error("[sweep] Exception occurred while sweeping analytics outbox", e);
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                QueuedPaper first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<QueuedPaper> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWaitMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    QueuedPaper next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                Map<String, PaperDto> paperDtoById = batch.stream()
+                        .collect(Collectors.toMap(QueuedPaper::getEventId, QueuedPaper::getPaperDto, (a, b) -> b));
+                List<AnalyticsIngestionEvent> events = eventRepository.claim(paperDtoById.keySet(), nextOwner(), lockMillis);
+                ingest(events, paperDtoById);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // events stay claimed until their lock expires and are then retried by the sweep
+                log.error("[drain] Exception occurred while ingesting analytics batch", e);
+            }
+        }
+    }
+
+    private void ingest(List<AnalyticsIngestionEvent> events, Map<String, PaperDto> paperDtoById) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<AnalyticsIngestionEvent> loaded = new ArrayList<>(events.size());
+        List<PaperDto> paperDtoList = new ArrayList<>(events.size());
+        for (AnalyticsIngestionEvent event : events) {
+            try {
+                PaperDto paperDto = paperDtoById.get(event.getId());
+                if (paperDto == null) {
+                    Optional<PaperDto> saved = paperFactory.getPaperService(event.getTestType().toString())
+                            .findSavedPaperByPaperIdAndUserId(event.getPaperId(), event.getUserId(), event.getTestType());
+                    if (!saved.isPresent() || !PaperStatus.DONE.equals(saved.get().getPaperStatus())) {
+                        abandon(event, saved.isPresent() ? "paper not submitted" : "paper not found");
+                        continue;
+                    }
+                    paperDto = saved.get();
+                }
+                paperDtoList.add(paperDto);
+                loaded.add(event);
+            } catch (Exception e) {
+                fail(event, e);
+            }
+        }
+        if (loaded.isEmpty()) {
+            return;
+        }
+        try {
+            analyticsDataIngestionService.saveUserPaperStatFromPaperDtos(paperDtoList);
+            done(loaded);
+        } catch (Exception batchException) {
+            log.error("[ingest] batch of [{}] failed, retrying one by one", loaded.size(), batchException);
+            for (int i = 0; i < loaded.size(); i++) {
+                try {
+                    analyticsDataIngestionService.saveUserPaperStatFromPaperDtos(Collections.singletonList(paperDtoList.get(i)));
+                    done(Collections.singletonList(loaded.get(i)));
+                } catch (Exception e) {
+                    fail(loaded.get(i), e);
+                }
+            }
+        } finally {
+            sample.stop(batchTimer);
+        }
+    }
+
+    private void done(List<AnalyticsIngestionEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        eventRepository.markDone(events.stream().map(AnalyticsIngestionEvent::getId).collect(Collectors.toList()),
+                events.get(0).getOwner());
+        processedCounter.increment(events.size());
+    }
+
+    private void fail(AnalyticsIngestionEvent event, Exception e) {
+        failedCounter.increment();
+        eventRepository.markFailed(event, String.valueOf(e.getMessage()), maxAttempts);
+    }
+
+    /*
+     * there is no submitted paper to count, a retry would find the same, so the event fails right away
+     */
+    private void abandon(AnalyticsIngestionEvent event, String reason) {
+        failedCounter.increment();
+        eventRepository.markFailed(event, reason, 0);
+    }
+
+    private String nextOwner() {
+        return instanceId + "-" + claimSequence.incrementAndGet();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class QueuedPaper {
+
+        private final String eventId;
+
+        private final PaperDto paperDto;
+    }
+}
@@ -2,6 +2,7 @@ package com.book.ensureu.flow.analytics.service.impl;
 
 import com.book.ensureu.constant.TestType;
 import com.book.ensureu.flow.analytics.dto.UserAnalyticsDto;
+import com.book.ensureu.flow.analytics.dao.UserAnalyticsCache;
 import com.book.ensureu.flow.analytics.dao.UserAnalyticsDao;
 import com.book.ensureu.flow.analytics.service.AnalyticsService;
 import lombok.AllArgsConstructor;
@@ -15,10 +16,15 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
     private UserAnalyticsDao userAnalyticsDao;
 
+    private UserAnalyticsCache userAnalyticsCache;
+
+    /**
+     * Served from UserAnalyticsCache, rebuilt only when the paper's score distribution changed enough
+     */
     @Override
     public UserAnalyticsDto getUserAnalytics(String userId, String paperId) {
 
-        return userAnalyticsDao.buildUserAnalytics(userId, paperId);
+        return userAnalyticsCache.get(userId, paperId, () -> userAnalyticsDao.buildUserAnalytics(userId, paperId));
 
     }
 }
@@ -0,0 +1,142 @@
+package com.book.ensureu.flow.analytics.util;
+
+import com.book.ensureu.flow.analytics.model.PaperStat;
+import com.book.ensureu.flow.analytics.model.PercentileDataObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Read side of PaperStat score buckets.
+ * Distinct scores are kept in descending order along with the number of users scoring
+ * strictly above each of them, so rank and percentile of any score is a binary search.
+ * Memory depends on the number of distinct scores of a paper, not on number of users.
+ */
+public final class ScoreDistribution {
+
+    private static final ScoreDistribution EMPTY = new ScoreDistribution(new double[0], new long[]{0});
+
+    private final double[] scores;
+
+    /**
+     * usersAbove[i] = users with score greater than scores[i], usersAbove[n] = total users
+     */
+    private final long[] usersAbove;
+
+    private ScoreDistribution(double[] scores, long[] usersAbove) {
+        this.scores = scores;
+        this.usersAbove = usersAbove;
+    }
+
+    public static ScoreDistribution of(PaperStat paperStat) {
+        if (paperStat == null) {
+            return EMPTY;
+        }
+        Map<String, Long> scoreBuckets = paperStat.getScoreBuckets();
+        if (scoreBuckets == null || scoreBuckets.isEmpty()) {
+            // document written before bucketed distribution and not yet migrated by a submission
+            scoreBuckets = legacyBuckets(paperStat);
+        }
+        return of(scoreBuckets);
+    }
+
+    /**
+     * number of users per score of a document written before the bucketed distribution, empty when
+     * it has no legacy distribution
+     */
+    // marksVsUsersTreeMap is read on purpose, it is the only distribution of documents not yet bucketed
+    @SuppressWarnings("deprecation")
+    public static Map<String, Long> legacyBuckets(PaperStat paperStat) {
+        Map<String, Long> scoreBuckets = new HashMap<>();
+        if (paperStat.getMarksVsUsersTreeMap() != null) {
+            for (Map.Entry<String, List<String>> e : paperStat.getMarksVsUsersTreeMap().entrySet()) {
+                if (e.getValue() != null && !e.getValue().isEmpty()) {
+                    scoreBuckets.put(e.getKey(), (long) e.getValue().size());
+                }
+            }
+        }
+        return scoreBuckets;
+    }
+
+    public static ScoreDistribution of(Map<String, Long> scoreBuckets) {
+        if (scoreBuckets == null || scoreBuckets.isEmpty()) {
+            return EMPTY;
+        }
+        TreeMap<Double, Long> descending = new TreeMap<>(Comparator.reverseOrder());
+        for (Map.Entry<String, Long> e : scoreBuckets.entrySet()) {
+            if (e.getValue() != null && e.getValue() > 0) {
+                descending.merge(KeyConversionUtil.getDoubleFromKey(e.getKey()), e.getValue(), Long::sum);
+            }
+        }
+        int n = descending.size();
+        double[] scores = new double[n];
+        long[] usersAbove = new long[n + 1];
+        int i = 0;
+        for (Map.Entry<Double, Long> e : descending.entrySet()) {
+            scores[i] = e.getKey();
+            usersAbove[i + 1] = usersAbove[i] + e.getValue();
+            i++;
+        }
+        return new ScoreDistribution(scores, usersAbove);
+    }
+
+    public long getTotalUsers() {
+        return usersAbove[scores.length];
+    }
+
+    public Double getTopScore() {
+        return scores.length == 0 ? null : scores[0];
+    }
+
+    /**
+     * rank is 1 + number of users scoring strictly more than score
+     */
+    public long rankOf(double score) {
+        return usersAbove[firstIndexAtOrBelow(score)] + 1;
+    }
+
+    /**
+     * P = 100*(T - R + 1)/T where T = total students and R = rank of the score
+     */
+    public double percentileOf(double score) {
+        long total = getTotalUsers();
+        if (total == 0) {
+            return 0.0;
+        }
+        return 100.0 * (total - rankOf(score) + 1) / total;
+    }
+
+    /**
+     * one PercentileDataObject per distinct score, highest score first
+     */
+    public ArrayList<PercentileDataObject> toPercentileDataObjectList() {
+        ArrayList<PercentileDataObject> percentileDataObjectList = new ArrayList<>(scores.length);
+        long total = getTotalUsers();
+        for (int i = 0; i < scores.length; i++) {
+            long rank = usersAbove[i] + 1;
+            percentileDataObjectList.add(PercentileDataObject.builder()
+                    .marks(scores[i])
+                    .percentile(100.0 * (total - rank + 1) / total)
+                    .rank((int) rank)
+                    .build());
+        }
+        return percentileDataObjectList;
+    }
+
+    private int firstIndexAtOrBelow(double score) {
+        int low = 0, high = scores.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (scores[mid] > score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
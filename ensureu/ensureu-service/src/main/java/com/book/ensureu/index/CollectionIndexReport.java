@@ -0,0 +1,25 @@
+package com.book.ensureu.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Index state of one collection as reported by the mongoindexes actuator endpoint. Index entries
+ * are key patterns, e.g. "userId:1,paperId:1". Unused holds existing indexes without any access
+ * since the server last restarted, it stays null when index stats cannot be read.
+ */
+@Data
+public class CollectionIndexReport {
+
+	private List<String> declared = new ArrayList<>();
+
+	private List<String> existing = new ArrayList<>();
+
+	private List<String> missing = new ArrayList<>();
+
+	private List<String> undeclared = new ArrayList<>();
+
+	private List<String> unused;
+}
@@ -0,0 +1,113 @@
+package com.book.ensureu.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import com.book.ensureu.model.FreePaper;
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.PastPaper;
+import com.book.ensureu.model.QuizPaper;
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.model.User;
+import com.book.ensureu.model.UserEntitlement;
+
+/**
+ * Indexes the service needs, per model class. Each entry backs repository query shapes, equality
+ * fields lead and the range field (validity) comes last. Indexes are matched on their key pattern,
+ * so an index created by hand under another name still counts as present. The unique user name
+ * index is the same definition the mongo-init scripts create, so either may run first.
+ */
+public final class MongoIndexCatalog {
+
+	private static final Map<Class<?>, List<Index>> REQUIRED;
+
+	static {
+		Map<Class<?>, List<Index>> required = new LinkedHashMap<>();
+		List<Index> userPapers = Arrays.asList(
+				index("userId", "paperId"),
+				index("paperId"));
+		required.put(PaidPaper.class, userPapers);
+		required.put(FreePaper.class, Arrays.asList(
+				index("userId", "paperId"),
+				index("paperId"),
+				index("testType")));
+		required.put(QuizPaper.class, userPapers);
+		required.put(PastPaper.class, userPapers);
+		required.put(UserEntitlement.class, Arrays.asList(
+				index("userId", "active", "entitlementType", "validity"),
+				index("active", "validity")));
+		required.put(Subscription.class, Arrays.asList(
+				index("paperSubCategory", "testType", "validity"),
+				index("paperType", "testType", "validity"),
+				index("testType").on("amendmentNo", Sort.Direction.DESC).named("testType_1_amendmentNo_-1"),
+				index("state", "validity"),
+				index("paperIds", "state")));
+		required.put(User.class, Collections.singletonList(index("userName").unique()));
+		REQUIRED = Collections.unmodifiableMap(required);
+	}
+
+	private MongoIndexCatalog() {
+	}
+
+	public static Map<Class<?>, List<Index>> required() {
+		return REQUIRED;
+	}
+
+	public static List<Index> required(Class<?> modelClass) {
+		return REQUIRED.getOrDefault(modelClass, Collections.emptyList());
+	}
+
+	/**
+	 * key pattern of a declared index, e.g. "userId:1,paperId:1"
+	 */
+	public static String signature(Index index) {
+		Document keys = index.getIndexKeys();
+		List<String> fields = new ArrayList<>(keys.size());
+		keys.forEach((key, direction) -> fields.add(key + ":" + direction));
+		return String.join(",", fields);
+	}
+
+	/**
+	 * key pattern of an index read back from the server, in the same form as {@link #signature(Index)}
+	 */
+	public static String signature(IndexInfo indexInfo) {
+		List<String> fields = new ArrayList<>(indexInfo.getIndexFields().size());
+		for (IndexField field : indexInfo.getIndexFields()) {
+			String type;
+			if (field.isText()) {
+				type = "text";
+			} else if (field.isGeo()) {
+				type = "geo";
+			} else {
+				type = field.getDirection() == Sort.Direction.DESC ? "-1" : "1";
+			}
+			fields.add(field.getKey() + ":" + type);
+		}
+		return String.join(",", fields);
+	}
+
+	/**
+	 * leading key of a declared index, the field a query must constrain to use it at all
+	 */
+	public static String leadingKey(Index index) {
+		return index.getIndexKeys().keySet().iterator().next();
+	}
+
+	private static Index index(String... keys) {
+		Index index = new Index();
+		for (String key : keys) {
+			index.on(key, Sort.Direction.ASC);
+		}
+		return index.named(String.join("_1_", keys) + "_1").background();
+	}
+}
@@ -0,0 +1,99 @@
+package com.book.ensureu.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bson.Document;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the catalog with the indexes present on the server, per collection. Exposed at
+ * /actuator/mongoindexes once listed in management.endpoints.web.exposure.include, to admins only.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "mongoindexes")
+@AllArgsConstructor
+public class MongoIndexEndpoint {
+
+	private static final String ID_INDEX = "_id_";
+
+	private final MongoTemplate mongoTemplate;
+
+	@ReadOperation
+	public Map<String, CollectionIndexReport> indexes() {
+		Map<String, CollectionIndexReport> reports = new TreeMap<>();
+		for (Map.Entry<Class<?>, List<Index>> entry : MongoIndexCatalog.required().entrySet()) {
+			String collectionName = mongoTemplate.getCollectionName(entry.getKey());
+			reports.put(collectionName, report(entry.getKey(), collectionName, entry.getValue()));
+		}
+		return reports;
+	}
+
+	private CollectionIndexReport report(Class<?> modelClass, String collectionName, List<Index> declared) {
+		CollectionIndexReport report = new CollectionIndexReport();
+		for (Index index : declared) {
+			report.getDeclared().add(MongoIndexCatalog.signature(index));
+		}
+		Map<String, String> existingByName = new HashMap<>();
+		for (IndexInfo indexInfo : mongoTemplate.indexOps(modelClass).getIndexInfo()) {
+			if (ID_INDEX.equals(indexInfo.getName())) {
+				continue;
+			}
+			String signature = MongoIndexCatalog.signature(indexInfo);
+			existingByName.put(indexInfo.getName(), signature);
+			report.getExisting().add(signature);
+			if (!report.getDeclared().contains(signature)) {
+				report.getUndeclared().add(signature);
+			}
+		}
+		for (String signature : report.getDeclared()) {
+			if (!report.getExisting().contains(signature)) {
+				report.getMissing().add(signature);
+			}
+		}
+		Map<String, Long> accesses = accesses(collectionName);
+		if (accesses != null) {
+			report.setUnused(new ArrayList<>());
+			existingByName.forEach((name, signature) -> {
+				if (accesses.getOrDefault(name, 0L) == 0L) {
+					report.getUnused().add(signature);
+				}
+			});
+			Collections.sort(report.getUnused());
+		}
+		return report;
+	}
+
+	/*
+	 * $indexStats needs the indexStats privilege, which plain readWrite users lack, so usage is
+	 * left out of the report rather than failing it
+	 */
+	private Map<String, Long> accesses(String collectionName) {
+		try {
+			Map<String, Long> accesses = new HashMap<>();
+			for (Document stats : mongoTemplate.getCollection(collectionName)
+					.aggregate(Collections.singletonList(new Document("$indexStats", new Document())))) {
+				Document access = stats.get("accesses", Document.class);
+				Number ops = access == null ? null : access.get("ops", Number.class);
+				accesses.put(stats.getString("name"), ops == null ? 0L : ops.longValue());
+			}
+			return accesses;
+		} catch (Exception e) {
+			log.warn("[mongoIndexes] unable to read index stats of [{}]: {}", collectionName, e.getMessage());
+			return null;
+		}
+	}
+}
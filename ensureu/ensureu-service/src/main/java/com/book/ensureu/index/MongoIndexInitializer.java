@@ -0,0 +1,53 @@
+package com.book.ensureu.index;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the catalog indexes at startup. Builds run in the background so a large collection
+ * does not block its writers, and a failing index is logged without keeping the service down.
+ */
+@Slf4j
+@Component
+public class MongoIndexInitializer {
+
+	private final MongoTemplate mongoTemplate;
+
+	private final boolean enabled;
+
+	public MongoIndexInitializer(MongoTemplate mongoTemplate,
+			@Value("${mongo.index.catalog.ensure.enabled:true}") boolean enabled) {
+		this.mongoTemplate = mongoTemplate;
+		this.enabled = enabled;
+	}
+
+	@PostConstruct
+	public void ensureIndexes() {
+		if (!enabled) {
+			log.info("[ensureIndexes] index catalog disabled, skipping");
+			return;
+		}
+		int ensured = 0;
+		for (Map.Entry<Class<?>, List<Index>> entry : MongoIndexCatalog.required().entrySet()) {
+			for (Index index : entry.getValue()) {
+				try {
+					mongoTemplate.indexOps(entry.getKey()).ensureIndex(index);
+					ensured++;
+				} catch (Exception e) {
+					log.error("[ensureIndexes] unable to ensure index [{}] on [{}]", MongoIndexCatalog.signature(index),
+							mongoTemplate.getCollectionName(entry.getKey()), e);
+				}
+			}
+		}
+		log.info("[ensureIndexes] ensured [{}] catalog indexes", ensured);
+	}
+}
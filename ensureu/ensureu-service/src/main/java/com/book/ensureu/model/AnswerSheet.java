@@ -0,0 +1,24 @@
+package com.book.ensureu.model;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The user specific part of an attempted paper. Questions are keyed by question id, or by their
+ * position when the id is missing, sections and sub sections by position. Entries are only kept
+ * for questions and sections the user touched.
+ */
+@Data
+@NoArgsConstructor
+public class AnswerSheet implements Serializable {
+
+	private static final long serialVersionUID = 6934150247734361842L;
+
+	private Map<String, QuestionResponse> responses = new LinkedHashMap<>();
+
+	private Map<String, SectionResponse> sections = new LinkedHashMap<>();
+}
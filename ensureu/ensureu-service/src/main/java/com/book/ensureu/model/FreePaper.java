@@ -24,6 +24,7 @@ public class FreePaper extends UserPaper implements Comparable<FreePaper>{
 	private PaperStatus paperStatus;
 	private int totalAttemptedQuestionCount;
 	private FreePaperCollection paper;
+	private AnswerSheet answerSheet;
 	private int totalSkipedCount;
 	private int totalCorrectCount;
 	private int totalInCorrectCount;
@@ -39,6 +40,7 @@ public class FreePaper extends UserPaper implements Comparable<FreePaper>{
 	private Long startTestTime;
 	private Long endTestTime;
 	private Long totalTimeTaken;
+	private Long autosaveSeq;
 	private Double totalScore;
 	private Double totalGetScore;
 	private Long totalTime;
@@ -95,6 +97,14 @@ public class FreePaper extends UserPaper implements Comparable<FreePaper>{
 		this.paper = paper;
 	}
 
+	public AnswerSheet getAnswerSheet() {
+		return answerSheet;
+	}
+
+	public void setAnswerSheet(AnswerSheet answerSheet) {
+		this.answerSheet = answerSheet;
+	}
+
 	public int getTotalSkipedCount() {
 		return totalSkipedCount;
 	}
@@ -199,6 +209,14 @@ public class FreePaper extends UserPaper implements Comparable<FreePaper>{
 		this.totalTimeTaken = totalTimeTaken;
 	}
 
+	public Long getAutosaveSeq() {
+		return autosaveSeq;
+	}
+
+	public void setAutosaveSeq(Long autosaveSeq) {
+		this.autosaveSeq = autosaveSeq;
+	}
+
 	public Double getTotalScore() {
 		return totalScore;
 	}
@@ -268,7 +286,8 @@ public class FreePaper extends UserPaper implements Comparable<FreePaper>{
 	public String toString() {
 		return "FreePaper [id=" + id + ", paperId=" + paperId + ", userId=" + userId + ", paperStatus=" + paperStatus
 				+ ", totalAttemptedQuestionCount=" + totalAttemptedQuestionCount + ", paper=" + paper
-				+ ", totalSkipedCount=" + totalSkipedCount + ", totalCorrectCount=" + totalCorrectCount
+				+ ", answerSheet=" + answerSheet + ", totalSkipedCount=" + totalSkipedCount
+				+ ", totalCorrectCount=" + totalCorrectCount
 				+ ", totalInCorrectCount=" + totalInCorrectCount + ", createDateTime=" + createDateTime
 				+ ", paperValidityStartDate=" + paperValidityStartDate + ", paperValidityEndDate="
 				+ paperValidityEndDate + ", paperType=" + paperType + ", paperCategory=" + paperCategory
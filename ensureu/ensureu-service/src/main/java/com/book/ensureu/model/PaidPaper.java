@@ -25,6 +25,7 @@ private String paperId;
 private String userId;
 private PaperStatus paperStatus;
 private PaidPaperCollection paper;
+private AnswerSheet answerSheet;
 private String paperSubCategoryName;
 private String paperName;
 private PaperType paperType;
@@ -42,6 +43,7 @@ private Long paperValidityEndDate;
 private Long startTestTime;
 private Long endTestTime;
 private Long totalTimeTaken;
+private Long autosaveSeq;
 private Double totalScore;
 private Double totalGetScore;
 private Long totalTime;
@@ -81,6 +83,12 @@ public PaidPaperCollection getPaper() {
 public void setPaper(PaidPaperCollection paper) {
 	this.paper = paper;
 }
+public AnswerSheet getAnswerSheet() {
+	return answerSheet;
+}
+public void setAnswerSheet(AnswerSheet answerSheet) {
+	this.answerSheet = answerSheet;
+}
 public String getPaperSubCategoryName() {
 	return paperSubCategoryName;
 }
@@ -172,6 +180,12 @@ public Long getTotalTimeTaken() {
 public void setTotalTimeTaken(Long totalTimeTaken) {
 	this.totalTimeTaken = totalTimeTaken;
 }
+public Long getAutosaveSeq() {
+	return autosaveSeq;
+}
+public void setAutosaveSeq(Long autosaveSeq) {
+	this.autosaveSeq = autosaveSeq;
+}
 public Double getTotalScore() {
 	return totalScore;
 }
@@ -230,7 +244,8 @@ public void setTotalGetScore(Double totalGetScore) {
 @Override
 public String toString() {
 	return "PaidPaper [id=" + id + ", paperId=" + paperId + ", userId=" + userId + ", paperStatus=" + paperStatus
-			+ ", paper=" + paper + ", paperSubCategoryName=" + paperSubCategoryName + ", paperName=" + paperName
+			+ ", paper=" + paper + ", answerSheet=" + answerSheet + ", paperSubCategoryName=" + paperSubCategoryName
+			+ ", paperName=" + paperName
 			+ ", paperType=" + paperType + ", paperCategory=" + paperCategory + ", paperSubCategory=" + paperSubCategory
 			+ ", testType=" + testType + ", totalSkipedCount=" + totalSkipedCount + ", totalCorrectCount="
 			+ totalCorrectCount + ", totalInCorrectCount=" + totalInCorrectCount + ", totalAttemptedQuestionCount="
@@ -0,0 +1,33 @@
+package com.book.ensureu.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.book.ensureu.constant.TestType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last edit of one paper collection, id is testType:paperId. invalidatedAt is stamped by the
+ * server, every instance polls the recent ones to drop its cached template of the paper.
+ * Removed by the TTL index on invalidatedAt.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "paperTemplateInvalidation")
+public class PaperTemplateInvalidation {
+
+	@Id
+	private String id;
+
+	private TestType testType;
+
+	private String paperId;
+
+	private Date invalidatedAt;
+}
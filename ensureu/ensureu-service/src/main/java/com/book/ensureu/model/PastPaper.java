@@ -42,6 +42,7 @@ public class PastPaper implements Serializable {
 	private Long startTestTime;
 	private Long endTestTime;
 	private Long totalTimeTaken;
+	private Long autosaveSeq;
 	private Double totalScore;
 	private Double totalGetScore;
 	private Long totalTime;
@@ -194,6 +195,12 @@ public class PastPaper implements Serializable {
 	public void setTotalTimeTaken(Long totalTimeTaken) {
 		this.totalTimeTaken = totalTimeTaken;
 	}
+	public Long getAutosaveSeq() {
+		return autosaveSeq;
+	}
+	public void setAutosaveSeq(Long autosaveSeq) {
+		this.autosaveSeq = autosaveSeq;
+	}
 	public Double getTotalScore() {
 		return totalScore;
 	}
@@ -0,0 +1,27 @@
+package com.book.ensureu.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.book.ensureu.constant.QuestionAttemptedStatus;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a user did with one question of a paper
+ */
+@Data
+@NoArgsConstructor
+public class QuestionResponse implements Serializable {
+
+	private static final long serialVersionUID = 4178829102774625011L;
+
+	private List<String> so;
+
+	private QuestionAttemptedStatus questionAttemptedStatus;
+
+	private long timeTakenInSecond;
+
+	private double score;
+}
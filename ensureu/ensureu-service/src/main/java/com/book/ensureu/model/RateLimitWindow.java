@@ -0,0 +1,28 @@
+package com.book.ensureu.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Call count of one rate limit key within one fixed window, id is key:windowIndex.
+ * Removed by the TTL index on expireAt once the window can no longer be the previous one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "rateLimitWindow")
+public class RateLimitWindow {
+
+	@Id
+	private String id;
+
+	private long count;
+
+	private Date expireAt;
+}
@@ -0,0 +1,29 @@
+package com.book.ensureu.model;
+
+import java.io.Serializable;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A user's aggregates for one section or sub section of a paper, scoreInSection is the
+ * scoreInSubSection of a sub section
+ */
+@Data
+@NoArgsConstructor
+public class SectionResponse implements Serializable {
+
+	private static final long serialVersionUID = -2265129378143805529L;
+
+	private int skipedCount;
+
+	private int correctCount;
+
+	private int inCorrectCount;
+
+	private double score;
+
+	private double scoreInSection;
+
+	private long timeTakenSecond;
+}
@@ -49,4 +49,7 @@ public class UserEntitlement {
 
 	private Date crDate;
 
+	// set by the expiry when it flags a lapsed entitlement inactive, unset on entitlements deactivated otherwise
+	private Long expiredDate;
+
 }
@@ -0,0 +1,28 @@
+package com.book.ensureu.profiler;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Query shapes seen since startup, most total time first. Exposed at /actuator/mongoqueries to admins
+ * once listed in management.endpoints.web.exposure.include, ?top=n limits the list.
+ */
+@Component
+@Endpoint(id = "mongoqueries")
+@AllArgsConstructor
+public class MongoQueryProfileEndpoint {
+
+	private final MongoQueryProfiler mongoQueryProfiler;
+
+	@ReadOperation
+	public List<QueryShapeReport> queries(@Nullable Integer top) {
+		List<QueryShapeReport> reports = mongoQueryProfiler.report();
+		return top != null && top >= 0 && top < reports.size() ? reports.subList(0, top) : reports;
+	}
+}
@@ -0,0 +1,280 @@
+package com.book.ensureu.profiler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Command listener timing every query by its shape, see {@link QueryShapes}. getMore batches are
+ * kept under "getMore" plus the shape that opened the cursor. Every explainEvery-th execution of a
+ * read shape is explained with queryPlanner verbosity on a single background thread, explains that
+ * do not fit its queue are dropped.
+ */
+@Slf4j
+@Component
+public class MongoQueryProfiler implements CommandListener {
+
+	private static final String GET_MORE = "getMore";
+
+	private static final String OVERFLOW = "(other)";
+
+	private final MeterRegistry meterRegistry;
+
+	private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+	private final boolean enabled;
+
+	private final long slowNanos;
+
+	private final int maxShapes;
+
+	private final long explainEvery;
+
+	private final boolean histogram;
+
+	private final Map<String, QueryShapeStats> shapes = new ConcurrentHashMap<>();
+
+	private final Map<Integer, Pending> pending = new ConcurrentHashMap<>();
+
+	private final Cache<Long, QueryShapeStats> cursors;
+
+	private final ExecutorService explainer;
+
+	public MongoQueryProfiler(MeterRegistry meterRegistry, ObjectProvider<MongoTemplate> mongoTemplate,
+			@Value("${mongo.profiler.enabled:true}") boolean enabled,
+			@Value("${mongo.profiler.slow.millis:200}") long slowMillis,
+			@Value("${mongo.profiler.max.shapes:500}") int maxShapes,
+			@Value("${mongo.profiler.explain.every:1000}") long explainEvery,
+			@Value("${mongo.profiler.histogram:false}") boolean histogram) {
+		this.meterRegistry = meterRegistry;
+		this.mongoTemplate = mongoTemplate;
+		this.enabled = enabled;
+		this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+		this.maxShapes = maxShapes;
+		this.explainEvery = explainEvery;
+		this.histogram = histogram;
+		this.cursors = Caffeine.newBuilder()
+				.maximumSize(10_000)
+				.expireAfterAccess(10, TimeUnit.MINUTES)
+				.build();
+		this.explainer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16),
+				runnable -> {
+					Thread thread = new Thread(runnable, "mongo-explain");
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.DiscardPolicy());
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return the profiled shapes, most total time first
+	 */
+	public List<QueryShapeReport> report() {
+		List<QueryShapeReport> reports = new ArrayList<>(shapes.size());
+		for (QueryShapeStats stats : shapes.values()) {
+			reports.add(stats.report());
+		}
+		reports.sort(Comparator.comparingDouble(QueryShapeReport::getTotalMillis).reversed());
+		return reports;
+	}
+
+	@Override
+	public void commandStarted(CommandStartedEvent event) {
+		try {
+			String commandName = event.getCommandName();
+			BsonDocument command = event.getCommand();
+			QueryShapeStats stats;
+			QueryShapeStats origin;
+			long cursorId = 0L;
+			if (GET_MORE.equals(commandName)) {
+				BsonValue id = command.get(GET_MORE);
+				cursorId = id != null && id.isInt64() ? id.asInt64().getValue() : 0L;
+				origin = cursors.getIfPresent(cursorId);
+				if (origin == null) {
+					return;
+				}
+				stats = stats(GET_MORE + " " + origin.shape, GET_MORE, origin.collection);
+			} else {
+				String shape = QueryShapes.shape(commandName, command);
+				if (shape == null) {
+					return;
+				}
+				BsonValue collection = command.get(commandName);
+				stats = stats(shape, commandName, collection != null && collection.isString()
+						? collection.asString().getValue() : "?");
+				origin = stats;
+				if (explainEvery > 0 && stats.executions.getAndIncrement() % explainEvery == 0) {
+					explain(stats, event.getDatabaseName(), command);
+				}
+			}
+			pending.put(event.getRequestId(), new Pending(stats, origin, cursorId));
+		} catch (Exception e) {
+			log.warn("[mongoProfiler] unable to profile [{}]: {}", event.getCommandName(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void commandSucceeded(CommandSucceededEvent event) {
+		Pending started = pending.remove(event.getRequestId());
+		if (started == null) {
+			return;
+		}
+		try {
+			long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+			BsonDocument reply = event.getResponse();
+			long documents = documents(event.getCommandName(), reply);
+			long bytes = reply instanceof RawBsonDocument ? ((RawBsonDocument) reply).getByteBuffer().remaining() : 0L;
+			started.stats.record(nanos, documents, bytes);
+			trackCursor(started, reply);
+			if (nanos >= slowNanos) {
+				log.warn("[mongoProfiler] slow query took [{}] ms, [{}] documents, [{}] bytes: {}",
+						TimeUnit.NANOSECONDS.toMillis(nanos), documents, bytes, started.stats.shape);
+			}
+		} catch (Exception e) {
+			log.warn("[mongoProfiler] unable to record [{}]: {}", event.getCommandName(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void commandFailed(CommandFailedEvent event) {
+		Pending started = pending.remove(event.getRequestId());
+		if (started != null) {
+			started.stats.failed(event.getElapsedTime(TimeUnit.NANOSECONDS));
+			if (started.cursorId != 0L) {
+				cursors.invalidate(started.cursorId);
+			}
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		explainer.shutdownNow();
+	}
+
+	private QueryShapeStats stats(String shape, String command, String collection) {
+		QueryShapeStats stats = shapes.get(shape);
+		if (stats != null) {
+			return stats;
+		}
+		// unbounded shapes would mean unbounded meters, past the limit new shapes share one entry
+		String key = shapes.size() < maxShapes ? shape : command + " " + collection + " " + OVERFLOW;
+		return shapes.computeIfAbsent(key, k -> new QueryShapeStats(meterRegistry, k, command, collection, histogram));
+	}
+
+	private void trackCursor(Pending started, BsonDocument reply) {
+		BsonValue cursor = reply.get("cursor");
+		if (cursor == null || !cursor.isDocument()) {
+			return;
+		}
+		BsonValue id = cursor.asDocument().get("id");
+		long cursorId = id != null && id.isInt64() ? id.asInt64().getValue() : 0L;
+		if (cursorId != 0L) {
+			cursors.put(cursorId, started.origin);
+		} else if (started.cursorId != 0L) {
+			cursors.invalidate(started.cursorId);
+		}
+	}
+
+	static long documents(String commandName, BsonDocument reply) {
+		BsonValue cursor = reply.get("cursor");
+		if (cursor != null && cursor.isDocument()) {
+			BsonValue batch = cursor.asDocument().get(GET_MORE.equals(commandName) ? "nextBatch" : "firstBatch");
+			return batch != null && batch.isArray() ? batch.asArray().size() : 0L;
+		}
+		if ("findAndModify".equals(commandName)) {
+			BsonValue value = reply.get("value");
+			return value != null && value.isDocument() ? 1L : 0L;
+		}
+		if ("distinct".equals(commandName)) {
+			BsonValue values = reply.get("values");
+			return values != null && values.isArray() ? values.asArray().size() : 0L;
+		}
+		BsonValue n = reply.get("n");
+		return n != null && n.isNumber() ? n.asNumber().longValue() : 0L;
+	}
+
+	/*
+	 * the command document is only valid during the event, so the explain gets its own copy
+	 */
+	private void explain(QueryShapeStats stats, String databaseName, BsonDocument command) {
+		if (!isExplainable(stats.command)) {
+			return;
+		}
+		BsonDocument explained = new BsonDocument();
+		for (Map.Entry<String, BsonValue> entry : command.clone().entrySet()) {
+			String key = entry.getKey();
+			if (!key.startsWith("$") && !"lsid".equals(key) && !"txnNumber".equals(key)) {
+				explained.put(key, entry.getValue());
+			}
+		}
+		explainer.execute(() -> {
+			try {
+				MongoTemplate template = mongoTemplate.getIfAvailable();
+				if (template == null) {
+					return;
+				}
+				Document result = template.getMongoDatabaseFactory().getMongoDatabase(databaseName)
+						.runCommand(new BsonDocument("explain", explained).append("verbosity", new BsonString("queryPlanner")));
+				String plan = PlanSummary.summarize(result);
+				stats.plan = plan;
+				stats.collectionScan = plan != null && plan.contains(PlanSummary.COLLSCAN);
+				stats.explainedAt = System.currentTimeMillis();
+				meterRegistry.counter("mongo.query.explains", "shape", stats.id, "scan",
+						stats.collectionScan ? "collection" : "index").increment();
+			} catch (Exception e) {
+				log.warn("[mongoProfiler] unable to explain {}: {}", stats.shape, e.getMessage());
+			}
+		});
+	}
+
+	private static boolean isExplainable(String commandName) {
+		return "find".equals(commandName) || "aggregate".equals(commandName) || "count".equals(commandName)
+				|| "distinct".equals(commandName);
+	}
+
+	private static final class Pending {
+
+		private final QueryShapeStats stats;
+
+		private final QueryShapeStats origin;
+
+		private final long cursorId;
+
+		private Pending(QueryShapeStats stats, QueryShapeStats origin, long cursorId) {
+			this.stats = stats;
+			this.origin = origin;
+			this.cursorId = cursorId;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.book.ensureu.profiler;
+
+import java.util.List;
+
+import org.bson.Document;
+
+/**
+ * Turns an explain result into a one line plan, stages from the root down with the index name
+ * next to index scans, e.g. "PROJECTION_SIMPLE > FETCH > IXSCAN(userId_1_paperId_1)". Branches of
+ * an OR plan are joined with " | ".
+ */
+final class PlanSummary {
+
+	static final String COLLSCAN = "COLLSCAN";
+
+	private PlanSummary() {
+	}
+
+	/**
+	 * @return the winning plan, null when the explain has none (e.g. an aggregation that does not
+	 *         start with a query)
+	 */
+	static String summarize(Document explain) {
+		Document winningPlan = find(explain, "winningPlan", 0);
+		if (winningPlan == null) {
+			return null;
+		}
+		// slot based execution nests the classic plan one level down
+		Document queryPlan = winningPlan.get("queryPlan", Document.class);
+		StringBuilder summary = new StringBuilder();
+		append(queryPlan != null ? queryPlan : winningPlan, summary);
+		return summary.toString();
+	}
+
+	private static void append(Document stage, StringBuilder summary) {
+		summary.append(stage.getString("stage"));
+		String indexName = stage.getString("indexName");
+		if (indexName != null) {
+			summary.append('(').append(indexName).append(')');
+		}
+		Document inputStage = stage.get("inputStage", Document.class);
+		if (inputStage != null) {
+			summary.append(" > ");
+			append(inputStage, summary);
+			return;
+		}
+		List<?> inputStages = stage.get("inputStages", List.class);
+		if (inputStages != null && !inputStages.isEmpty()) {
+			summary.append(" > ");
+			for (int i = 0; i < inputStages.size(); i++) {
+				if (i > 0) {
+					summary.append(" | ");
+				}
+				append((Document) inputStages.get(i), summary);
+			}
+		}
+	}
+
+	/*
+	 * aggregations and sharded clusters wrap queryPlanner at different depths, so look for it
+	 */
+	private static Document find(Object node, String key, int depth) {
+		if (depth > 8) {
+			return null;
+		}
+		if (node instanceof Document) {
+			Document document = (Document) node;
+			Object value = document.get(key);
+			if (value instanceof Document) {
+				return (Document) value;
+			}
+			for (Object child : document.values()) {
+				Document found = find(child, key, depth + 1);
+				if (found != null) {
+					return found;
+				}
+			}
+		} else if (node instanceof List) {
+			for (Object child : (List<?>) node) {
+				Document found = find(child, key, depth + 1);
+				if (found != null) {
+					return found;
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,41 @@
+package com.book.ensureu.profiler;
+
+import lombok.Data;
+
+/**
+ * One query shape as reported by the mongoqueries actuator endpoint. Plan is the winning plan of
+ * the last sampled explain, e.g. "FETCH > IXSCAN(userId_1_paperId_1)", null until one ran.
+ */
+@Data
+public class QueryShapeReport {
+
+	private String id;
+
+	private String shape;
+
+	private String command;
+
+	private String collection;
+
+	private long count;
+
+	private long failures;
+
+	private double totalMillis;
+
+	private double meanMillis;
+
+	private double maxMillis;
+
+	private double p95Millis;
+
+	private long documents;
+
+	private long bytes;
+
+	private String plan;
+
+	private boolean collectionScan;
+
+	private Long explainedAt;
+}
@@ -0,0 +1,96 @@
+package com.book.ensureu.profiler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Meters of one query shape, tagged with the command, the collection and a short id of the shape
+ * so the series stay readable. The endpoint maps ids back to shapes.
+ */
+final class QueryShapeStats {
+
+	final String id;
+
+	final String shape;
+
+	final String command;
+
+	final String collection;
+
+	final AtomicLong executions = new AtomicLong();
+
+	private final Timer timer;
+
+	private final DistributionSummary documents;
+
+	private final DistributionSummary bytes;
+
+	private final Counter failures;
+
+	volatile String plan;
+
+	volatile boolean collectionScan;
+
+	volatile Long explainedAt;
+
+	QueryShapeStats(MeterRegistry meterRegistry, String shape, String command, String collection, boolean histogram) {
+		this.id = Integer.toHexString(shape.hashCode());
+		this.shape = shape;
+		this.command = command;
+		this.collection = collection;
+		Tags tags = Tags.of("command", command, "collection", collection, "shape", id);
+		this.timer = Timer.builder("mongo.query")
+				.tags(tags)
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram(histogram)
+				.register(meterRegistry);
+		this.documents = DistributionSummary.builder("mongo.query.documents").tags(tags).register(meterRegistry);
+		this.bytes = DistributionSummary.builder("mongo.query.bytes").baseUnit("bytes").tags(tags)
+				.register(meterRegistry);
+		this.failures = Counter.builder("mongo.query.failures").tags(tags).register(meterRegistry);
+	}
+
+	void record(long nanos, long documentCount, long byteCount) {
+		timer.record(nanos, TimeUnit.NANOSECONDS);
+		documents.record(documentCount);
+		if (byteCount > 0) {
+			bytes.record(byteCount);
+		}
+	}
+
+	void failed(long nanos) {
+		timer.record(nanos, TimeUnit.NANOSECONDS);
+		failures.increment();
+	}
+
+	QueryShapeReport report() {
+		QueryShapeReport report = new QueryShapeReport();
+		report.setId(id);
+		report.setShape(shape);
+		report.setCommand(command);
+		report.setCollection(collection);
+		report.setCount(timer.count());
+		report.setFailures((long) failures.count());
+		report.setTotalMillis(timer.totalTime(TimeUnit.MILLISECONDS));
+		report.setMeanMillis(timer.mean(TimeUnit.MILLISECONDS));
+		report.setMaxMillis(timer.max(TimeUnit.MILLISECONDS));
+		for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+			if (percentile.percentile() == 0.95) {
+				report.setP95Millis(percentile.value(TimeUnit.MILLISECONDS));
+			}
+		}
+		report.setDocuments((long) documents.totalAmount());
+		report.setBytes((long) bytes.totalAmount());
+		report.setPlan(plan);
+		report.setCollectionScan(collectionScan);
+		report.setExplainedAt(explainedAt);
+		return report;
+	}
+}
@@ -0,0 +1,149 @@
+package com.book.ensureu.profiler;
+
+import java.util.Map;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * Reduces a Mongo command to its shape: the command, the collection and the filter with every value
+ * replaced by "?". Operators and field names are kept, so {userId: "u1", paperId: {$in: [..]}} and
+ * {userId: "u2", paperId: {$in: [..]}} share the shape {userId:?,paperId:{$in:?}}.
+ */
+final class QueryShapes {
+
+	private QueryShapes() {
+	}
+
+	/**
+	 * @return the shape of the command, null when the command is not profiled
+	 */
+	static String shape(String commandName, BsonDocument command) {
+		switch (commandName) {
+		case "find":
+			return commandName + " " + collection(command, commandName) + " " + filter(command, "filter")
+					+ sort(command, "sort");
+		case "count":
+			return commandName + " " + collection(command, commandName) + " " + filter(command, "query");
+		case "distinct":
+			return commandName + " " + collection(command, commandName) + " " + string(command, "key") + " "
+					+ filter(command, "query");
+		case "findAndModify":
+			return commandName + " " + collection(command, commandName) + " " + filter(command, "query")
+					+ sort(command, "sort");
+		case "aggregate":
+			return commandName + " " + collection(command, commandName) + " " + pipeline(command);
+		case "update":
+			return commandName + " " + collection(command, commandName) + " " + firstStatement(command, "updates");
+		case "delete":
+			return commandName + " " + collection(command, commandName) + " " + firstStatement(command, "deletes");
+		case "insert":
+			return commandName + " " + collection(command, commandName);
+		default:
+			return null;
+		}
+	}
+
+	static String normalize(BsonValue value) {
+		StringBuilder shape = new StringBuilder();
+		normalize(value, shape);
+		return shape.toString();
+	}
+
+	private static void normalize(BsonValue value, StringBuilder shape) {
+		if (value.isDocument()) {
+			shape.append('{');
+			boolean first = true;
+			for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+				if (!first) {
+					shape.append(',');
+				}
+				first = false;
+				shape.append(entry.getKey()).append(':');
+				BsonValue child = entry.getValue();
+				// $and/$or/$nor hold clauses, any other array ($in, $all, ...) is a value
+				if (child.isArray() && isLogical(entry.getKey())) {
+					shape.append('[');
+					BsonArray clauses = child.asArray();
+					for (int i = 0; i < clauses.size(); i++) {
+						if (i > 0) {
+							shape.append(',');
+						}
+						normalize(clauses.get(i), shape);
+					}
+					shape.append(']');
+				} else if (child.isDocument()) {
+					normalize(child, shape);
+				} else {
+					shape.append('?');
+				}
+			}
+			shape.append('}');
+		} else {
+			shape.append('?');
+		}
+	}
+
+	private static boolean isLogical(String key) {
+		return "$and".equals(key) || "$or".equals(key) || "$nor".equals(key);
+	}
+
+	private static String collection(BsonDocument command, String commandName) {
+		BsonValue collection = command.get(commandName);
+		return collection != null && collection.isString() ? collection.asString().getValue() : "?";
+	}
+
+	private static String filter(BsonDocument command, String key) {
+		BsonValue filter = command.get(key);
+		return filter != null && filter.isDocument() ? normalize(filter) : "{}";
+	}
+
+	private static String sort(BsonDocument command, String key) {
+		BsonValue sort = command.get(key);
+		if (sort == null || !sort.isDocument() || sort.asDocument().isEmpty()) {
+			return "";
+		}
+		return " sort" + sort.asDocument().toJson().replace(" ", "");
+	}
+
+	private static String string(BsonDocument command, String key) {
+		BsonValue value = command.get(key);
+		return value != null && value.isString() ? value.asString().getValue() : "?";
+	}
+
+	private static String firstStatement(BsonDocument command, String key) {
+		BsonValue statements = command.get(key);
+		if (statements == null || !statements.isArray() || statements.asArray().isEmpty()
+				|| !statements.asArray().get(0).isDocument()) {
+			return "{}";
+		}
+		BsonValue filter = statements.asArray().get(0).asDocument().get("q");
+		return filter != null && filter.isDocument() ? normalize(filter) : "{}";
+	}
+
+	/*
+	 * stage names in order, $match stages keep their normalized filter since they decide the plan
+	 */
+	private static String pipeline(BsonDocument command) {
+		BsonValue pipeline = command.get("pipeline");
+		if (pipeline == null || !pipeline.isArray()) {
+			return "[]";
+		}
+		StringBuilder shape = new StringBuilder("[");
+		for (BsonValue stage : pipeline.asArray()) {
+			if (!stage.isDocument() || stage.asDocument().isEmpty()) {
+				continue;
+			}
+			if (shape.length() > 1) {
+				shape.append(',');
+			}
+			String name = stage.asDocument().getFirstKey();
+			shape.append(name);
+			if ("$match".equals(name)) {
+				normalize(stage.asDocument().get(name), shape);
+			}
+		}
+		return shape.append(']').toString();
+	}
+}
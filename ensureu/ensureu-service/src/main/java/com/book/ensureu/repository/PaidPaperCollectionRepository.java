@@ -1,5 +1,6 @@
 package com.book.ensureu.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -65,6 +66,12 @@ public interface PaidPaperCollectionRepository extends MongoRepository<PaidPaper
 			fields = "{ paperName: 1, _id:1 , paperSubCategory:1, paperCategory:1, paperType:1, testType:1 }")
 	public List<PaidPaperCollection> findByPaperSubCategoryAndTestType(PaperSubCategory paperSubCategory, TestType testType);
 
+	// Same as above for several sub categories at once, used to resolve many subscriptions in one query
+	@Query(value = "{ 'paperSubCategory' : { '$in' : ?0 } , 'testType' : ?1 , 'paperStateStatus' : 'ACTIVE' }",
+			fields = "{ paperName: 1, _id:1 , paperSubCategory:1, paperCategory:1, paperType:1, testType:1 }")
+	public List<PaidPaperCollection> findByPaperSubCategoryInAndTestType(Collection<PaperSubCategory> paperSubCategories,
+			TestType testType);
+
 	// ==========================================
 	// Subscription Management Methods
 	// ==========================================
@@ -72,6 +72,24 @@ public interface UserEntitlementRepository extends MongoRepository<UserEntitleme
 																														   Long createdDate, Long validity, PaperType paperType,
 																														   TestType testType, List<EntitlementType> entitlementTypes);
 
+	// The expiry flags lapsed entitlements active=false, readers of past entitlements leave active out
+
+	@Query("{ 'userId' : ?0, 'entitlementType' : {'$in': ?1}, 'validity' : {'$lte' : ?2} }")
+	public List<UserEntitlement> findByUserIdAndEntitlementTypeInAndValidityUpTo(String userId, List<EntitlementType> entitlementTypes,
+																				 Long validity);
+
+	@Query("{'$and' : [ {'userId' : ?0}, {'paperType' : ?1} ,{'testType' : ?2}, {'entitlementType' : {'$in': ?3}} ] }")
+	public List<UserEntitlement> findAllByUserIdAndPaperTypeAndTestTypeAndEntitlementTypeIn(String userId, PaperType paperType, TestType testType,
+																						   List<EntitlementType> entitlementTypes);
+
+	// active as the entitlement was written, lapsed entitlements the expiry flagged count as active
+
+	@Query("{ 'userId' : ?0, 'entitlementType' : {'$in': ?1}, '$or' : [ {'active' : true}, {'expiredDate' : {'$exists' : true}} ] }")
+	public List<UserEntitlement> findWrittenActiveByUserIdAndEntitlementTypeIn(String userId, List<EntitlementType> entitlementTypes);
+
+	@Query("{ 'userId' : ?0, 'entitlementType' : {'$in': ?1}, 'active' : false, 'expiredDate' : {'$exists' : false} }")
+	public List<UserEntitlement> findWrittenInactiveByUserIdAndEntitlementTypeIn(String userId, List<EntitlementType> entitlementTypes);
+
 	/*
 	 * public List<UserEntitlement> findByUserIdAndPaperTypeAndActive(Long userId,
 	 * PaperType paperType, Boolean active);
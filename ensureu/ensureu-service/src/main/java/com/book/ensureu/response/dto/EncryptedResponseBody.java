@@ -0,0 +1,60 @@
+package com.book.ensureu.response.dto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.book.ensureu.service.PaperCryptoService;
+import com.book.ensureu.service.PaperCryptoService.EncryptedPrefix;
+
+/**
+ * Writes the same JSON as a Response&lt;String&gt; carrying paperCryptoService.encrypt(value) with
+ * status 200, but streams value through the cipher and Base64 encoder straight to the client
+ * instead of holding the JSON, ciphertext and Base64 text in memory.
+ */
+public class EncryptedResponseBody implements StreamingResponseBody {
+
+	private static final byte[] PREFIX = "{\"status\":200,\"message\":\"Success\",\"body\":\""
+			.getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] SUFFIX = "\"}".getBytes(StandardCharsets.US_ASCII);
+
+	private final PaperCryptoService paperCryptoService;
+
+	private final Object value;
+
+	private final EncryptedPrefix prefix;
+
+	private final byte[] tail;
+
+	public EncryptedResponseBody(PaperCryptoService paperCryptoService, Object value) {
+		this.paperCryptoService = paperCryptoService;
+		this.value = value;
+		this.prefix = null;
+		this.tail = null;
+	}
+
+	/**
+	 * Body whose JSON is the plaintext of prefix followed by tail, only tail is encrypted per response.
+	 */
+	public EncryptedResponseBody(PaperCryptoService paperCryptoService, EncryptedPrefix prefix, byte[] tail) {
+		this.paperCryptoService = paperCryptoService;
+		this.value = null;
+		this.prefix = prefix;
+		this.tail = tail;
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(PREFIX);
+		// Base64 needs no JSON escaping
+		if (prefix != null) {
+			paperCryptoService.encrypt(prefix, tail, out);
+		} else {
+			paperCryptoService.encrypt(value, out);
+		}
+		out.write(SUFFIX);
+	}
+}
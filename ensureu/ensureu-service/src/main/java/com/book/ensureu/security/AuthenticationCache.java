@@ -0,0 +1,138 @@
+package com.book.ensureu.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Keeps validated bearer tokens mapped to their principal, so that steady state requests are
+ * authenticated without the oauthToken and user lookups. An entry lives for at most ttl and
+ * never beyond the token's own expiry. Tokens which are not provider tokens are remembered
+ * for a few seconds too, a burst of requests with an expired or invalid JWT then costs one
+ * query. The mark is short lived and dropped when the token is saved as a provider token, a
+ * provider token looked up before its save is not rejected for long.
+ *
+ * @author dharmendra.singh
+ */
+@Component
+public class AuthenticationCache {
+
+	private final Cache<String, CachedPrincipal> principals;
+
+	private final Cache<String, Boolean> nonProviderTokens;
+
+	private final long ttlMillis;
+
+	private final MeterRegistry meterRegistry;
+
+	@Autowired
+	public AuthenticationCache(MeterRegistry meterRegistry,
+			@Value("${auth.cache.max.size:50000}") long maxSize,
+			@Value("${auth.cache.ttl.seconds:300}") long ttlSeconds,
+			@Value("${auth.cache.negative.ttl.seconds:10}") long negativeTtlSeconds) {
+		this(meterRegistry, maxSize, ttlSeconds, negativeTtlSeconds, Ticker.systemTicker());
+	}
+
+	AuthenticationCache(MeterRegistry meterRegistry, long maxSize, long ttlSeconds, long negativeTtlSeconds,
+			Ticker ticker) {
+		this.meterRegistry = meterRegistry;
+		this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+		this.principals = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new Expiry<String, CachedPrincipal>() {
+					@Override
+					public long expireAfterCreate(String token, CachedPrincipal cached, long currentTime) {
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(0, cached.expiresAt - System.currentTimeMillis()));
+					}
+
+					@Override
+					public long expireAfterUpdate(String token, CachedPrincipal cached, long currentTime,
+							long currentDuration) {
+						return expireAfterCreate(token, cached, currentTime);
+					}
+
+					@Override
+					public long expireAfterRead(String token, CachedPrincipal cached, long currentTime,
+							long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+		this.nonProviderTokens = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(negativeTtlSeconds, TimeUnit.SECONDS)
+				.ticker(ticker)
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, principals, "authPrincipals");
+	}
+
+	public UserDetails getPrincipal(String token) {
+		CachedPrincipal cached = principals.getIfPresent(token);
+		if (cached == null || cached.expiresAt <= System.currentTimeMillis()) {
+			return null;
+		}
+		return cached.userDetails;
+	}
+
+	/**
+	 * @param tokenExpiresAt epoch millis after which the token itself is invalid, Long.MAX_VALUE if unknown
+	 */
+	public void putPrincipal(String token, UserDetails userDetails, long tokenExpiresAt) {
+		long expiresAt = Math.min(tokenExpiresAt, System.currentTimeMillis() + ttlMillis);
+		principals.put(token, new CachedPrincipal(userDetails, expiresAt));
+	}
+
+	public boolean isNonProviderToken(String token) {
+		return nonProviderTokens.getIfPresent(token) != null;
+	}
+
+	public void markNonProviderToken(String token) {
+		nonProviderTokens.put(token, Boolean.TRUE);
+	}
+
+	/**
+	 * Called when token is saved as a provider token, a lookup that raced the save is forgotten
+	 */
+	public void forgetNonProviderToken(String token) {
+		nonProviderTokens.invalidate(token);
+	}
+
+	/**
+	 * Drops every cached token of username, e.g. after its roles changed
+	 */
+	public void evictUser(String username) {
+		principals.asMap().values().removeIf(cached -> username.equals(cached.userDetails.getUsername()));
+	}
+
+	/**
+	 * Records how long resolving the principal took, by where it came from
+	 */
+	public void recordLookup(String source, long startNanos) {
+		meterRegistry.timer("auth.filter.lookup", "source", source)
+				.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static class CachedPrincipal {
+
+		private final UserDetails userDetails;
+
+		private final long expiresAt;
+
+		CachedPrincipal(UserDetails userDetails, long expiresAt) {
+			this.userDetails = userDetails;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -41,6 +41,7 @@ public class JwtAuthorizationTokenFilter extends OncePerRequestFilter {
 	private UserService userService;
 	@Autowired
 	AutenticationService autenticationService;
+	private AuthenticationCache authenticationCache;
 
 	public JwtAuthorizationTokenFilter(UserDetailsService userDetailsService, JwtSecurityTokenUtil jwtTokenUtil,
 			String tokenHeader) {
@@ -58,6 +59,12 @@ public class JwtAuthorizationTokenFilter extends OncePerRequestFilter {
 
 	}
 
+	public JwtAuthorizationTokenFilter(UserDetailsService userDetailsService, JwtSecurityTokenUtil jwtTokenUtil,
+			String tokenHeader, AutenticationService autenticationService, AuthenticationCache authenticationCache) {
+		this(userDetailsService, jwtTokenUtil, tokenHeader, autenticationService);
+		this.authenticationCache = authenticationCache;
+	}
+
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
 			throws ServletException, IOException {
@@ -82,9 +89,24 @@ public class JwtAuthorizationTokenFilter extends OncePerRequestFilter {
 		   }
 			
 	      else if (!bypassUrl) {
+				long lookupStart = System.nanoTime();
 				if (requestHeader != null && requestHeader.startsWith("Bearer ")) {
 					authToken = requestHeader.substring(7);
-					provideOauth = autenticationService.getProviderOauthByToken(authToken);
+					UserDetails cachedUserDetails = authenticationCache.getPrincipal(authToken);
+					if (cachedUserDetails != null) {
+						if (SecurityContextHolder.getContext().getAuthentication() == null) {
+							setAuthentication(request, cachedUserDetails);
+						}
+						authenticationCache.recordLookup("cache", lookupStart);
+						chain.doFilter(request, response);
+						return;
+					}
+					if (!authenticationCache.isNonProviderToken(authToken)) {
+						provideOauth = autenticationService.getProviderOauthByToken(authToken);
+						if (provideOauth == null) {
+							authenticationCache.markNonProviderToken(authToken);
+						}
+					}
 					username = checkProviderToken(provideOauth, authToken);
 				} else {
 					LOGGER.warn("couldn't find bearer string, will ignore the header {}", "");
@@ -95,21 +117,15 @@ public class JwtAuthorizationTokenFilter extends OncePerRequestFilter {
 				if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 					LOGGER.debug("security context was null, so authorizating user {}", username);
 
-					// It is not compelling necessary to load the use details from the database. You
-					// could also store the information
-					// in the token and read it from it. It's up to you ;)
 					UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
 
-					// For simple validation it is completely sufficient to just check the token
-					// integrity. You don't have to call
-					// the database compellingly. Again it's up to you ;)
 					if (jwtTokenUtil.validateToken(authToken, userDetails)) {
-						UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-								userDetails, null, userDetails.getAuthorities());
-						authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+						setAuthentication(request, userDetails);
 						LOGGER.info("authorizated user '{}', setting security context", username);
-						SecurityContextHolder.getContext().setAuthentication(authentication);
+						authenticationCache.putPrincipal(authToken, userDetails,
+								jwtTokenUtil.getExpirationDateFromToken(authToken).getTime());
 					}
+					authenticationCache.recordLookup("jwt", lookupStart);
 					chain.doFilter(request, response);
 				} else {
 					LOGGER.debug("autnetication service {}", autenticationService);
@@ -117,14 +133,15 @@ public class JwtAuthorizationTokenFilter extends OncePerRequestFilter {
 					if (providerOauth != null) {
 						UserDetails userDetails = this.userDetailsService
 								.loadUserByUsername(providerOauth.getUsername());
-						UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-								userDetails, null, userDetails.getAuthorities());
-						authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+						setAuthentication(request, userDetails);
 						LOGGER.info("authorizated user '{}', for providers security context",
 								providerOauth.getUsername());
-						SecurityContextHolder.getContext().setAuthentication(authentication);
+						// provider tokens are not expiry checked, the cache ttl bounds the entry
+						authenticationCache.putPrincipal(authToken, userDetails, Long.MAX_VALUE);
+						authenticationCache.recordLookup("provider", lookupStart);
 						chain.doFilter(request, response);
 					} else {
+						authenticationCache.recordLookup("rejected", lookupStart);
 						response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized");
 					}
 
@@ -164,6 +181,13 @@ public class JwtAuthorizationTokenFilter extends OncePerRequestFilter {
 		response.setHeader("Access-Control-Allow-Headers", headers.toString());
 	}
 
+	private void setAuthentication(HttpServletRequest request, UserDetails userDetails) {
+		UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails,
+				null, userDetails.getAuthorities());
+		authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+	}
+
 	private String checkProviderToken(ProviderOauthToken provideOauth, String authToken) {
 		String username = null;
 		try {
@@ -0,0 +1,36 @@
+package com.book.ensureu.service;
+
+import com.book.ensureu.constant.PaperStorageMode;
+import com.book.ensureu.model.AnswerSheet;
+import com.book.ensureu.model.Paper;
+import com.book.ensureu.model.Pattern;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+
+/**
+ * Splits an attempted paper into the shared paper template and the user's answer sheet, and
+ * merges them back. Templates come from PaperTemplateService and are never modified by a merge.
+ */
+public interface AnswerSheetService {
+
+	PaperStorageMode getStorageMode();
+
+	/**
+	 * Collects the responses and section aggregates of pattern, an empty sheet when pattern is null.
+	 */
+	AnswerSheet toAnswerSheet(Pattern<Sections<SubSections<Question<Problem>>>> pattern);
+
+	/**
+	 * Copy of template with the responses of answerSheet applied, template itself is left untouched.
+	 */
+	<C extends Paper<Sections<SubSections<Question<Problem>>>>> C merge(C template, AnswerSheet answerSheet);
+
+	/**
+	 * Key of a question's entry in AnswerSheet.responses, subSectionIndex is null for a question
+	 * directly inside its section.
+	 */
+	String questionKey(String questionId, int sectionIndex, Integer subSectionIndex, int questionIndex);
+
+}
@@ -0,0 +1,33 @@
+package com.book.ensureu.service;
+
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.model.UserEntitlement;
+
+/**
+ * Keeps the upcoming entitlement and subscription expiries in memory, flags lapsed entitlements
+ * inactive in bulk and publishes {@link com.book.ensureu.event.EntitlementExpiredEvent} and
+ * {@link com.book.ensureu.event.SubscriptionExpiredEvent} as they lapse.
+ */
+public interface EntitlementExpiryService {
+
+	/**
+	 * Schedules, moves or drops the expiry of a written entitlement.
+	 */
+	void track(UserEntitlement entitlement);
+
+	/**
+	 * Schedules, moves or drops the expiry of a written subscription.
+	 */
+	void track(Subscription subscription);
+
+	/**
+	 * Loads the next part of the horizon, expires what lapsed and sweeps up entitlements lapsed
+	 * without being tracked.
+	 */
+	void tick();
+
+	/**
+	 * @return the number of expiries held in memory
+	 */
+	int pending();
+}
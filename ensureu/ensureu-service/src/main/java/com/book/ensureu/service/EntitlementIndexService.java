@@ -0,0 +1,39 @@
+package com.book.ensureu.service;
+
+import java.util.List;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperInfo;
+
+/**
+ * Which papers a user may open and until when, answered from a per-user index of the user's active
+ * entitlements instead of the entitlement, subscription and paper info lookups on every request.
+ */
+public interface EntitlementIndexService {
+
+	/**
+	 * Papers of the user's active entitlements of testType with their validity window, all of them
+	 * when paperIds is null or empty. Callers get their own copies.
+	 */
+	List<PaperInfo> getPaperInfoList(String userId, List<String> paperIds, TestType testType);
+
+	/**
+	 * @return the validity of paperId for the user, null when none of the user's entitlements opens it
+	 */
+	Long getValidity(String userId, String paperId, TestType testType);
+
+	/**
+	 * @return whether the user holds any active entitlement of testType
+	 */
+	boolean isEntitled(String userId, TestType testType);
+
+	/**
+	 * Drops the index of userId, called whenever one of the user's entitlements is written.
+	 */
+	void evict(String userId);
+
+	/**
+	 * Drops every index, called when a subscription shared by many users changes.
+	 */
+	void evictAll();
+}
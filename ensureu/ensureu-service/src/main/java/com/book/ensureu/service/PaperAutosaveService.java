@@ -0,0 +1,14 @@
+package com.book.ensureu.service;
+
+import com.book.ensureu.dto.PaperAutosaveDto;
+import com.book.ensureu.dto.PaperAutosaveResultDto;
+
+/**
+ * Applies small batches of question responses to a user's paper in progress with a single
+ * conditional update, without reading or rewriting the paper document.
+ */
+public interface PaperAutosaveService {
+
+	PaperAutosaveResultDto autosave(String userId, PaperAutosaveDto paperAutosaveDto);
+
+}
@@ -0,0 +1,97 @@
+package com.book.ensureu.service;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * AES payload encryption shared with the web client. The ciphertext format is the one
+ * produced by AesEncDecUtil: Base64 of AES/CBC/PKCS5Padding over the JSON of the value,
+ * keyed by PBKDF2 of the configured salt and passphrase.
+ */
+public interface PaperCryptoService {
+
+	String encrypt(Object value);
+
+	/**
+	 * Writes the Base64 ciphertext of value to out without materializing the JSON.
+	 * out is flushed but left open.
+	 */
+	void encrypt(Object value, OutputStream out);
+
+	String encrypt(Object value, String salt, String iv, String passphrase);
+
+	<T> T decrypt(String ciphertext, Class<T> type);
+
+	/**
+	 * Reads Base64 ciphertext from in and maps the decrypted JSON onto type.
+	 */
+	<T> T decrypt(InputStream ciphertext, Class<T> type);
+
+	<T> T decrypt(String ciphertext, Class<T> type, String salt, String iv, String passphrase);
+
+	/**
+	 * Reads a PaperAesDto JSON document from in, Base64 decoding and decrypting its body as it is
+	 * parsed, and maps the decrypted JSON onto type. Returns null when the document has no body.
+	 */
+	<T> T decryptEnvelope(InputStream in, Class<T> type);
+
+	/**
+	 * Encrypts the head of plaintext that ends on a cipher block and Base64 group boundary once, so
+	 * payloads starting with the same bytes only encrypt their own remainder.
+	 */
+	EncryptedPrefix encryptPrefix(byte[] plaintext);
+
+	/**
+	 * False once the default passphrase has moved on from the key prefix was encrypted with.
+	 */
+	boolean isCurrent(EncryptedPrefix prefix);
+
+	/**
+	 * Writes the Base64 ciphertext of the prefix plaintext followed by tail, the same bytes
+	 * encrypt(Object, OutputStream) writes for that JSON. out is flushed but left open.
+	 */
+	void encrypt(EncryptedPrefix prefix, byte[] tail, OutputStream out);
+
+	/**
+	 * Base64 ciphertext of an aligned plaintext head, together with the cipher state and the
+	 * unaligned rest of the plaintext needed to continue the chain.
+	 */
+	final class EncryptedPrefix {
+
+		private final Object key;
+
+		private final byte[] encodedHead;
+
+		private final byte[] chainIv;
+
+		private final byte[] plaintextRest;
+
+		public EncryptedPrefix(Object key, byte[] encodedHead, byte[] chainIv, byte[] plaintextRest) {
+			this.key = key;
+			this.encodedHead = encodedHead;
+			this.chainIv = chainIv;
+			this.plaintextRest = plaintextRest;
+		}
+
+		public Object getKey() {
+			return key;
+		}
+
+		public byte[] getEncodedHead() {
+			return encodedHead;
+		}
+
+		public byte[] getChainIv() {
+			return chainIv;
+		}
+
+		public byte[] getPlaintextRest() {
+			return plaintextRest;
+		}
+
+		public int size() {
+			return encodedHead.length + plaintextRest.length;
+		}
+	}
+
+}
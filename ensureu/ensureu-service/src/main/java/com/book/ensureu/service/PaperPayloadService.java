@@ -0,0 +1,20 @@
+package com.book.ensureu.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperDto;
+
+/**
+ * Encrypted exam-start responses. The paper content is serialized and encrypted once per paper
+ * template, each response only adds the user's own fields.
+ */
+public interface PaperPayloadService {
+
+	/**
+	 * Same body as EncryptedResponseBody over paperDto. The cached paper content is used when
+	 * paperDto still carries the untouched template, otherwise the whole paperDto is encrypted.
+	 */
+	StreamingResponseBody encryptedPaper(TestType testType, PaperDto paperDto);
+
+}
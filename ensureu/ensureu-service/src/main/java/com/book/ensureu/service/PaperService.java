@@ -1,6 +1,7 @@
 package com.book.ensureu.service;
 
 import java.util.List;
+import java.util.Optional;
 
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.constant.PaperStatus;
@@ -22,6 +23,9 @@ public List<PaperDto> getPaperByPaperId(String paperId, TestType typePaper);
 
 public PaperDto getPaperByPaperIdAndUserId(String paperId, String userId,TestType typePaper);
 
+//read only, the paper the user saved or empty, never starts a new one
+public Optional<PaperDto> findSavedPaperByPaperIdAndUserId(String paperId, String userId, TestType typePaper);
+
 
 //find userId all test
 public List<PaperDto> getPaperByUserId(String userId);
@@ -0,0 +1,27 @@
+package com.book.ensureu.service;
+
+import java.util.List;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperDto;
+
+/**
+ * Status rows of a set of subscribed papers for a user, as shown on the dashboard.
+ */
+public interface PaperShelfService {
+
+	/**
+	 * The user's own paper for every paperId that has one, followed by a START row built from the
+	 * paper collection for the rest. Results are cached per user for a short while, callers get
+	 * their own copy of the list.
+	 * 
+	 * @param excludeDone leaves out papers the user has already finished
+	 */
+	List<PaperDto> getPaperShelf(String userId, TestType testType, List<String> paperIds, long validityDate,
+			boolean excludeDone);
+
+	/**
+	 * Drops the cached shelves of userId, called whenever one of the user's papers is written.
+	 */
+	void evict(String userId);
+}
@@ -0,0 +1,43 @@
+package com.book.ensureu.service;
+
+import java.util.Optional;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.model.FreePaperCollection;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.Paper;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.QuizPaperCollection;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+
+/**
+ * Read-through cache of paper collections. The returned instances are shared by every request that
+ * starts the same paper, callers must not modify them and attach a copyOf them to a user's paper.
+ */
+public interface PaperTemplateService {
+
+	Optional<PaidPaperCollection> getPaidTemplate(String paperId);
+
+	Optional<FreePaperCollection> getFreeTemplate(String paperId);
+
+	Optional<QuizPaperCollection> getQuizTemplate(String paperId);
+
+	/**
+	 * Deep copy of template, which the caller owns and may modify.
+	 */
+	<C extends Paper<Sections<SubSections<Question<Problem>>>>> C copyOf(C template);
+
+	/**
+	 * Drops the cached copy of paperId after it has been edited, readers load the new content on
+	 * their next access. Every write of a paper collection that fires no mapping event must call it.
+	 */
+	void invalidate(TestType testType, String paperId);
+
+	/**
+	 * Loads the active papers whose validity starts within the pre-warm window.
+	 */
+	void prewarm();
+
+}
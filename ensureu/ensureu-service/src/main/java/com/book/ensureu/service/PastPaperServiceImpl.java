@@ -60,6 +60,7 @@ public class PastPaperServiceImpl implements PaperService {
 		}
 		LOGGER.info("User Mapping pastPaper UserId [" + pastPaper.getUserId() + "] paperId [" + pastPaper.getPaperId()
 				+ "]");
+		keepAutosaveSeq(pastPaper);
 		pastPaperRepository.save(pastPaper);
 	}
 
@@ -70,6 +71,7 @@ public class PastPaperServiceImpl implements PaperService {
 		PastPaper pastPaper = PastPaperConversionUtil.pastPaperDtoToModel(paperDto);
 		LOGGER.info("User Mapping PastPaper UserId [" + pastPaper.getUserId() + "] paperId [" + pastPaper.getPaperId()
 				+ "]");
+		keepAutosaveSeq(pastPaper);
 		pastPaperRepository.save(pastPaper);
 	}
 
@@ -101,6 +103,12 @@ public class PastPaperServiceImpl implements PaperService {
 		return null;
 	}
 
+	@Override
+	public Optional<PaperDto> findSavedPaperByPaperIdAndUserId(String paperId, String userId, TestType typePaper) {
+		return Optional.ofNullable(pastPaperRepository.findByUserIdAndPaperId(userId, paperId))
+				.map(PastPaperConversionUtil::pastPaperToDto);
+	}
+
 	@Override
 	public List<PaperDto> getPaperByUserId(String userId) {
 		return null;
@@ -319,4 +327,16 @@ public class PastPaperServiceImpl implements PaperService {
 		return PastPaperConversionUtil.pastPaperToDto(pastPapers);
 	}
 
+	/*
+	 * the stored autosave sequence survives a full save, see QuizPaperServiceImpl
+	 */
+	private void keepAutosaveSeq(PastPaper pastPaper) {
+		if (pastPaper.getUserId() == null || pastPaper.getPaperId() == null) {
+			return;
+		}
+		PastPaper existing = pastPaperRepository.findByUserIdAndPaperId(pastPaper.getUserId(), pastPaper.getPaperId());
+		if (existing != null) {
+			pastPaper.setAutosaveSeq(existing.getAutosaveSeq());
+		}
+	}
 }
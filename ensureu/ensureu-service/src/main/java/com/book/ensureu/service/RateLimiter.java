@@ -0,0 +1,36 @@
+package com.book.ensureu.service;
+
+/**
+ * Sliding window rate limiter. The window is approximated from the count of the current
+ * fixed window plus the count of the previous one, weighted by how much of it still overlaps.
+ */
+public interface RateLimiter {
+
+	/**
+	 * Takes one permit for key if fewer than limit were taken within the last windowMillis.
+	 *
+	 * @return 0 when the call is permitted, otherwise the millis until it would be
+	 */
+	long tryAcquire(String key, int limit, long windowMillis);
+
+	/**
+	 * @return 0 when one more call fits, otherwise the millis until it would
+	 */
+	static long retryAfterMillis(long previous, long current, int limit, long windowMillis, long now) {
+		long elapsed = now % windowMillis;
+		double overlap = 1d - (double) elapsed / windowMillis;
+		if (previous * overlap + current + 1 <= limit) {
+			return 0;
+		}
+		if (current + 1 > limit) {
+			// the current window alone is full, wait for the next one and its share of this one
+			long wait = windowMillis - elapsed;
+			double nextOverlapAllowed = (double) (limit - 1) / Math.max(1, current);
+			return wait + (long) Math.ceil(windowMillis * Math.max(0d, 1d - nextOverlapAllowed));
+		}
+		// wait until the previous window has slid out far enough
+		double overlapAllowed = (double) (limit - current - 1) / previous;
+		long elapsedNeeded = (long) Math.ceil(windowMillis * (1d - overlapAllowed));
+		return Math.max(1, elapsedNeeded - elapsed);
+	}
+}
@@ -0,0 +1,28 @@
+package com.book.ensureu.service;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.SubscriptionCatalogSnapshot;
+
+/**
+ * The subscription catalog shown before purchase, served from a snapshot per test type instead of
+ * being rebuilt on every request.
+ */
+public interface SubscriptionCatalogService {
+
+	/**
+	 * The current snapshot of testType, built on the caller's thread only when none exists yet.
+	 */
+	SubscriptionCatalogSnapshot getCatalog(TestType testType);
+
+	/**
+	 * Queues a background rebuild of every built snapshot after a short delay. Changes arriving while
+	 * one is queued share it, the current snapshots are served until the rebuild swaps them.
+	 */
+	void markChanged();
+
+	/**
+	 * Rebuilds every built snapshot now, also run on a schedule so subscriptions whose validity
+	 * ended drop out without a change event.
+	 */
+	void refresh();
+}
@@ -6,10 +6,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import com.book.ensureu.constant.CounterEnum;
 import com.book.ensureu.model.UserAuditLogin;
 import com.book.ensureu.repository.UserAuditLoginReposiotry;
-import com.book.ensureu.service.CounterService;
 import com.book.ensureu.service.audit.UserAuditLoginService;
 
 @Service
@@ -20,12 +18,14 @@ public class UserAuditLoginServiceImpl implements UserAuditLoginService {
 	private UserAuditLoginReposiotry userAuditLoginReposiotry;
 
 	@Autowired
-	private CounterService counterService;
+	private UserAuditLoginWriter userAuditLoginWriter;
 
+	/**
+	 * Queued for the batched writer, the caller does not wait for the insert
+	 */
 	@Override
 	public void saveUserAuditLogin(UserAuditLogin userAuditLogin) {
-		userAuditLogin.setId(counterService.increment(CounterEnum.USERAUDIT));
-		userAuditLoginReposiotry.save(userAuditLogin);
+		userAuditLoginWriter.submit(userAuditLogin);
 	}
 
 	@Override
@@ -0,0 +1,169 @@
+package com.book.ensureu.service.audit.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.book.ensureu.constant.AuditOverflowPolicy;
+import com.book.ensureu.constant.CounterEnum;
+import com.book.ensureu.model.UserAuditLogin;
+import com.book.ensureu.service.CounterService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Buffers login audit events in a bounded queue and writes them with one insertMany once
+ * batch size events are waiting or flush millis passed, so a login never waits on the audit
+ * write. Events still buffered are flushed on shutdown, a crash loses at most one buffer.
+ */
+@Component
+@Slf4j
+public class UserAuditLoginWriter {
+
+	private final MongoTemplate mongoTemplate;
+
+	private final CounterService counterService;
+
+	private final MeterRegistry meterRegistry;
+
+	@Value("${audit.login.buffer.capacity:10000}")
+	private int capacity;
+
+	@Value("${audit.login.batch.size:500}")
+	private int batchSize;
+
+	@Value("${audit.login.flush.millis:1000}")
+	private long flushMillis;
+
+	@Value("${audit.login.overflow.policy:DROP}")
+	private AuditOverflowPolicy overflowPolicy;
+
+	private BlockingQueue<UserAuditLogin> buffer;
+
+	private Thread flusher;
+
+	private volatile boolean running;
+
+	private Counter queuedCounter;
+	private Counter droppedCounter;
+	private Counter callerRunsCounter;
+	private Counter writtenCounter;
+	private Counter failedCounter;
+	private Timer flushTimer;
+
+	public UserAuditLoginWriter(MongoTemplate mongoTemplate, CounterService counterService, MeterRegistry meterRegistry) {
+		this.mongoTemplate = mongoTemplate;
+		this.counterService = counterService;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PostConstruct
+	public void start() {
+		buffer = new ArrayBlockingQueue<>(capacity);
+		queuedCounter = meterRegistry.counter("audit.login.events", "result", "queued");
+		droppedCounter = meterRegistry.counter("audit.login.events", "result", "dropped");
+		callerRunsCounter = meterRegistry.counter("audit.login.events", "result", "caller_runs");
+		writtenCounter = meterRegistry.counter("audit.login.events", "result", "written");
+		failedCounter = meterRegistry.counter("audit.login.events", "result", "failed");
+		flushTimer = meterRegistry.timer("audit.login.flush");
+		Gauge.builder("audit.login.buffer.size", buffer, Collection::size).register(meterRegistry);
+
+		running = true;
+		flusher = new Thread(this::drain, "audit-login-writer");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		// let an in flight insert finish, the idle poll returns within flush millis
+		flusher.join(flushMillis + TimeUnit.SECONDS.toMillis(10));
+		flusher.interrupt();
+		List<UserAuditLogin> remaining = new ArrayList<>();
+		buffer.drainTo(remaining);
+		write(remaining);
+	}
+
+	public void submit(UserAuditLogin userAuditLogin) {
+		if (buffer.offer(userAuditLogin)) {
+			queuedCounter.increment();
+			return;
+		}
+		if (overflowPolicy == AuditOverflowPolicy.CALLER_RUNS) {
+			callerRunsCounter.increment();
+			write(Collections.singletonList(userAuditLogin));
+		} else {
+			droppedCounter.increment();
+			log.warn("[submit] audit buffer full, dropped login audit of userId [{}]", userAuditLogin.getUserId());
+		}
+	}
+
+	private void drain() {
+		List<UserAuditLogin> batch = new ArrayList<>(batchSize);
+		while (running) {
+			try {
+				UserAuditLogin first = buffer.poll(flushMillis, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+				while (batch.size() < batchSize) {
+					buffer.drainTo(batch, batchSize - batch.size());
+					long remaining = deadline - System.nanoTime();
+					if (batch.size() >= batchSize || remaining <= 0) {
+						break;
+					}
+					UserAuditLogin next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				write(batch);
+			} catch (InterruptedException e) {
+				// stop() flushes what is left
+				write(batch);
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void write(List<UserAuditLogin> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		Timer.Sample sample = Timer.start(meterRegistry);
+		try {
+			for (UserAuditLogin userAuditLogin : batch) {
+				userAuditLogin.setId(counterService.increment(CounterEnum.USERAUDIT));
+			}
+			mongoTemplate.insert(batch, UserAuditLogin.class);
+			writtenCounter.increment(batch.size());
+		} catch (Exception e) {
+			// audit is best effort, a failed batch must not stall logins or the writer
+			failedCounter.increment(batch.size());
+			log.error("[write] unable to write [{}] login audit events", batch.size(), e);
+		} finally {
+			sample.stop(flushTimer);
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package com.book.ensureu.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.constant.PaperStorageMode;
+import com.book.ensureu.constant.QuestionAttemptedStatus;
+import com.book.ensureu.model.AnswerSheet;
+import com.book.ensureu.model.Options;
+import com.book.ensureu.model.Paper;
+import com.book.ensureu.model.Pattern;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.QuestionData;
+import com.book.ensureu.model.QuestionResponse;
+import com.book.ensureu.model.SectionResponse;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+import com.book.ensureu.service.AnswerSheetService;
+
+/**
+ * Sections and sub sections are keyed by position ("0", "0_1"), questions by id, falling back to
+ * their position ("0_1_4" inside a sub section, "0_q_4" directly inside a section) when the id is
+ * missing or not usable as a Mongo field name. Merging copies the containers down to each question
+ * and only copies a Problem when the user answered it, the heavy text, options and solutions stay
+ * shared with the cached template.
+ */
+@Service
+public class AnswerSheetServiceImpl implements AnswerSheetService {
+
+	private final PaperStorageMode storageMode;
+
+	public AnswerSheetServiceImpl(@Value("${paper.storage.mode:FULL}") PaperStorageMode storageMode) {
+		this.storageMode = storageMode;
+	}
+
+	@Override
+	public PaperStorageMode getStorageMode() {
+		return storageMode;
+	}
+
+	@Override
+	public AnswerSheet toAnswerSheet(Pattern<Sections<SubSections<Question<Problem>>>> pattern) {
+		AnswerSheet answerSheet = new AnswerSheet();
+		if (pattern == null || pattern.getSections() == null) {
+			return answerSheet;
+		}
+		List<Sections<SubSections<Question<Problem>>>> sections = pattern.getSections();
+		for (int i = 0; i < sections.size(); i++) {
+			Sections<SubSections<Question<Problem>>> section = sections.get(i);
+			if (section == null) {
+				continue;
+			}
+			String sectionKey = String.valueOf(i);
+			putSectionResponse(answerSheet, sectionKey, section.getSkipedCount(), section.getCorrectCount(),
+					section.getInCorrectCount(), section.getScore(), section.getScoreInSection(),
+					section.getTimeTakenSecond());
+			collectResponses(answerSheet, section.getQuestionData(), sectionKey + "_q_");
+			if (section.getSubSections() == null) {
+				continue;
+			}
+			for (int j = 0; j < section.getSubSections().size(); j++) {
+				SubSections<Question<Problem>> subSection = section.getSubSections().get(j);
+				if (subSection == null) {
+					continue;
+				}
+				String subSectionKey = sectionKey + "_" + j;
+				putSectionResponse(answerSheet, subSectionKey, subSection.getSkipedCount(),
+						subSection.getCorrectCount(), subSection.getInCorrectCount(), subSection.getScore(),
+						subSection.getScoreInSubSection(), subSection.getTimeTakenSecond());
+				collectResponses(answerSheet, subSection.getQuestionData(), subSectionKey + "_");
+			}
+		}
+		return answerSheet;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <C extends Paper<Sections<SubSections<Question<Problem>>>>> C merge(C template, AnswerSheet answerSheet) {
+		if (template == null) {
+			return null;
+		}
+		C paper = (C) BeanUtils.instantiateClass(template.getClass());
+		BeanUtils.copyProperties(template, paper);
+		if (answerSheet == null || (isEmpty(answerSheet.getResponses()) && isEmpty(answerSheet.getSections()))) {
+			// nothing to apply, an untouched paper keeps sharing the template pattern
+			return paper;
+		}
+		paper.setPattern(mergePattern(template.getPattern(), answerSheet));
+		return paper;
+	}
+
+	private static boolean isEmpty(Map<String, ?> map) {
+		return map == null || map.isEmpty();
+	}
+
+	private Pattern<Sections<SubSections<Question<Problem>>>> mergePattern(
+			Pattern<Sections<SubSections<Question<Problem>>>> template, AnswerSheet answerSheet) {
+		if (template == null) {
+			return null;
+		}
+		Pattern<Sections<SubSections<Question<Problem>>>> pattern = new Pattern<>();
+		BeanUtils.copyProperties(template, pattern);
+		if (template.getSections() == null) {
+			return pattern;
+		}
+		List<Sections<SubSections<Question<Problem>>>> sections = new ArrayList<>(template.getSections().size());
+		for (int i = 0; i < template.getSections().size(); i++) {
+			Sections<SubSections<Question<Problem>>> templateSection = template.getSections().get(i);
+			if (templateSection == null) {
+				sections.add(null);
+				continue;
+			}
+			String sectionKey = String.valueOf(i);
+			Sections<SubSections<Question<Problem>>> section = new Sections<>();
+			BeanUtils.copyProperties(templateSection, section);
+			SectionResponse sectionResponse = answerSheet.getSections().get(sectionKey);
+			if (sectionResponse != null) {
+				section.setSkipedCount(sectionResponse.getSkipedCount());
+				section.setCorrectCount(sectionResponse.getCorrectCount());
+				section.setInCorrectCount(sectionResponse.getInCorrectCount());
+				section.setScore(sectionResponse.getScore());
+				section.setScoreInSection(sectionResponse.getScoreInSection());
+				section.setTimeTakenSecond(sectionResponse.getTimeTakenSecond());
+			}
+			section.setQuestionData(mergeQuestionData(templateSection.getQuestionData(), answerSheet, sectionKey + "_q_"));
+			if (templateSection.getSubSections() != null) {
+				List<SubSections<Question<Problem>>> subSections = new ArrayList<>(templateSection.getSubSections().size());
+				for (int j = 0; j < templateSection.getSubSections().size(); j++) {
+					subSections.add(mergeSubSection(templateSection.getSubSections().get(j), answerSheet,
+							sectionKey + "_" + j));
+				}
+				section.setSubSections(subSections);
+			}
+			sections.add(section);
+		}
+		pattern.setSections(sections);
+		return pattern;
+	}
+
+	private SubSections<Question<Problem>> mergeSubSection(SubSections<Question<Problem>> template,
+			AnswerSheet answerSheet, String subSectionKey) {
+		if (template == null) {
+			return null;
+		}
+		SubSections<Question<Problem>> subSection = new SubSections<>();
+		BeanUtils.copyProperties(template, subSection);
+		SectionResponse sectionResponse = answerSheet.getSections().get(subSectionKey);
+		if (sectionResponse != null) {
+			subSection.setSkipedCount(sectionResponse.getSkipedCount());
+			subSection.setCorrectCount(sectionResponse.getCorrectCount());
+			subSection.setInCorrectCount(sectionResponse.getInCorrectCount());
+			subSection.setScore(sectionResponse.getScore());
+			subSection.setScoreInSubSection(sectionResponse.getScoreInSection());
+			subSection.setTimeTakenSecond(sectionResponse.getTimeTakenSecond());
+		}
+		subSection.setQuestionData(mergeQuestionData(template.getQuestionData(), answerSheet, subSectionKey + "_"));
+		return subSection;
+	}
+
+	private QuestionData<Question<Problem>> mergeQuestionData(QuestionData<Question<Problem>> template,
+			AnswerSheet answerSheet, String questionPrefix) {
+		if (template == null) {
+			return null;
+		}
+		QuestionData<Question<Problem>> questionData = new QuestionData<>();
+		questionData.setSkip(template.getSkip());
+		if (template.getQuestions() == null) {
+			return questionData;
+		}
+		List<Question<Problem>> questions = new ArrayList<>(template.getQuestions().size());
+		for (int k = 0; k < template.getQuestions().size(); k++) {
+			Question<Problem> templateQuestion = template.getQuestions().get(k);
+			if (templateQuestion == null) {
+				questions.add(null);
+				continue;
+			}
+			Question<Problem> question = new Question<>();
+			BeanUtils.copyProperties(templateQuestion, question);
+			QuestionResponse response = answerSheet.getResponses()
+					.get(questionKey(templateQuestion.getId(), questionPrefix + k));
+			if (response != null) {
+				question.setQuestionAttemptedStatus(response.getQuestionAttemptedStatus());
+				question.setTimeTakenInSecond(response.getTimeTakenInSecond());
+				question.setScore(response.getScore());
+				question.setProblem(withSelection(templateQuestion.getProblem(), response.getSo()));
+				question.setProblemHindi(withSelection(templateQuestion.getProblemHindi(), response.getSo()));
+			}
+			questions.add(question);
+		}
+		questionData.setQuestions(questions);
+		return questionData;
+	}
+
+	/*
+	 * so holds option indexes as sent by the web client, older papers may hold the option prompt
+	 */
+	private static Problem withSelection(Problem template, List<String> so) {
+		if (template == null || so == null || so.isEmpty()) {
+			return template;
+		}
+		Problem problem = new Problem();
+		BeanUtils.copyProperties(template, problem);
+		problem.setSo(new ArrayList<>(so));
+		if (template.getOptions() != null) {
+			List<Options> options = new ArrayList<>(template.getOptions().size());
+			for (int i = 0; i < template.getOptions().size(); i++) {
+				Options templateOption = template.getOptions().get(i);
+				if (templateOption == null) {
+					options.add(null);
+					continue;
+				}
+				Options option = new Options();
+				BeanUtils.copyProperties(templateOption, option);
+				option.setSelected(so.contains(String.valueOf(i))
+						|| (templateOption.getPrompt() != null && so.contains(templateOption.getPrompt())));
+				options.add(option);
+			}
+			problem.setOptions(options);
+		}
+		return problem;
+	}
+
+	private static void collectResponses(AnswerSheet answerSheet, QuestionData<Question<Problem>> questionData,
+			String questionPrefix) {
+		if (questionData == null || questionData.getQuestions() == null) {
+			return;
+		}
+		List<Question<Problem>> questions = questionData.getQuestions();
+		for (int k = 0; k < questions.size(); k++) {
+			Question<Problem> question = questions.get(k);
+			if (question == null) {
+				continue;
+			}
+			List<String> so = question.getProblem() != null ? question.getProblem().getSo() : null;
+			boolean answered = so != null && !so.isEmpty();
+			boolean attempted = question.getQuestionAttemptedStatus() != null
+					&& question.getQuestionAttemptedStatus() != QuestionAttemptedStatus.NA;
+			if (!answered && !attempted && question.getTimeTakenInSecond() == 0 && question.getScore() == 0) {
+				continue;
+			}
+			QuestionResponse response = new QuestionResponse();
+			response.setSo(answered ? new ArrayList<>(so) : null);
+			response.setQuestionAttemptedStatus(question.getQuestionAttemptedStatus());
+			response.setTimeTakenInSecond(question.getTimeTakenInSecond());
+			response.setScore(question.getScore());
+			answerSheet.getResponses().put(questionKey(question.getId(), questionPrefix + k), response);
+		}
+	}
+
+	/*
+	 * score starts as the section's total marks in the template and is overwritten by the client on
+	 * submit, so it is not a sign of a touched section on its own
+	 */
+	private static void putSectionResponse(AnswerSheet answerSheet, String key, int skipedCount, int correctCount,
+			int inCorrectCount, double score, double scoreInSection, long timeTakenSecond) {
+		if (skipedCount == 0 && correctCount == 0 && inCorrectCount == 0 && scoreInSection == 0
+				&& timeTakenSecond == 0) {
+			return;
+		}
+		SectionResponse sectionResponse = new SectionResponse();
+		sectionResponse.setSkipedCount(skipedCount);
+		sectionResponse.setCorrectCount(correctCount);
+		sectionResponse.setInCorrectCount(inCorrectCount);
+		sectionResponse.setScore(score);
+		sectionResponse.setScoreInSection(scoreInSection);
+		sectionResponse.setTimeTakenSecond(timeTakenSecond);
+		answerSheet.getSections().put(key, sectionResponse);
+	}
+
+	@Override
+	public String questionKey(String questionId, int sectionIndex, Integer subSectionIndex, int questionIndex) {
+		String questionPrefix = subSectionIndex == null ? sectionIndex + "_q_" : sectionIndex + "_" + subSectionIndex + "_";
+		return questionKey(questionId, questionPrefix + questionIndex);
+	}
+
+	private static String questionKey(String id, String position) {
+		if (id == null || id.isEmpty() || id.indexOf('.') >= 0 || id.startsWith("$")) {
+			return position;
+		}
+		return id;
+	}
+}
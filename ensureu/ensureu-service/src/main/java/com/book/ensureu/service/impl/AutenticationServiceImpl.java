@@ -23,6 +23,7 @@ import com.book.ensureu.constant.UserLoginType;
 import com.book.ensureu.model.JwtUser;
 import com.book.ensureu.model.ProviderOauthToken;
 import com.book.ensureu.model.User;
+import com.book.ensureu.security.AuthenticationCache;
 import com.book.ensureu.security.JwtUserFactory;
 import com.book.ensureu.repository.AutenticationProviderRepository;
 import com.book.ensureu.security.JwtAuthenticationResponse;
@@ -64,6 +65,9 @@ public class AutenticationServiceImpl implements AutenticationService {
 	@Qualifier("facebookProviderTokenService")
 	ProviderTokenValidate facebookProviderTokenService;
 
+	@Autowired
+	AuthenticationCache authenticationCache;
+
 	@Override
 	public void authenticate(String userName, String password) throws AuthenticationException {
 		Objects.requireNonNull(userName);
@@ -93,6 +97,7 @@ public class AutenticationServiceImpl implements AutenticationService {
 		ProviderOauthToken providerOauthTokenRequest = new ProviderOauthToken(accessToken, userName,
 				UserLoginType.SIGNUP);
 		autenticationProviderRepository.save(providerOauthTokenRequest);
+		authenticationCache.forgetNonProviderToken(providerOauthTokenRequest.getToken());
 		return ResponseEntity.ok(new JwtAuthenticationResponse(accessToken, user.getUsername(),
 				user.getFirstname() + " " + user.getLastname(), user.isVerificationFlag(),user.getRoles()));
 	}
@@ -20,8 +20,7 @@ import com.book.ensureu.dto.BlogCategoryDTO;
 import com.book.ensureu.model.BlogCategoryModel;
 import com.book.ensureu.repository.BlogCategoryRepository;
 import com.book.ensureu.service.BlogCategoryService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.book.ensureu.transformer.BlogMapper;
 import com.mongodb.DBObject;
 
 @Service
@@ -31,7 +30,7 @@ public class BlogCategoryServiceImpl implements BlogCategoryService {
 	BlogCategoryRepository blogCategoryRepo;
 
 	@Autowired
-	ObjectMapper mapper;
+	BlogMapper mapper;
 	
 	@Autowired
 	@Lazy
@@ -41,10 +40,10 @@ public class BlogCategoryServiceImpl implements BlogCategoryService {
 	public BlogCategoryDTO saveBlogCategory(BlogCategoryDTO payload) throws Exception {
 		BlogCategoryModel model = null;
 		if (payload != null) {
-			model = blogCategoryRepo.save(mapper.convertValue(payload, BlogCategoryModel.class));
+			model = blogCategoryRepo.save(mapper.toBlogCategoryModel(payload));
 		}
 
-		return model != null ? mapper.convertValue(model, BlogCategoryDTO.class) : null;
+		return model != null ? mapper.toBlogCategoryDto(model) : null;
 	}
 
 	@Override
@@ -52,12 +51,10 @@ public class BlogCategoryServiceImpl implements BlogCategoryService {
 		List<BlogCategoryModel> modelList = null;
 		if (payloadList != null) {
 			modelList = blogCategoryRepo
-					.saveAll(mapper.convertValue(payloadList, new TypeReference<List<BlogCategoryModel>>() {
-					}));
+					.saveAll(mapper.toBlogCategoryModels(payloadList));
 		}
 
-		return modelList != null ? mapper.convertValue(modelList, new TypeReference<List<BlogCategoryDTO>>() {
-		}) : null;
+		return modelList != null ? mapper.toBlogCategoryDtos(modelList) : null;
 	}
 
 	@Override
@@ -70,8 +67,7 @@ public class BlogCategoryServiceImpl implements BlogCategoryService {
 		} else {
 			modelList = blogCategoryRepo.findAll();
 		}
-		return modelList != null ? mapper.convertValue(modelList, new TypeReference<List<BlogCategoryDTO>>() {
-		}) : null;
+		return modelList != null ? mapper.toBlogCategoryDtos(modelList) : null;
 	}
 	
 	@Override
@@ -13,8 +13,7 @@ import com.book.ensureu.dto.BlogTagsDTO;
 import com.book.ensureu.model.BlogTagsModel;
 import com.book.ensureu.repository.BlogTagsRepository;
 import com.book.ensureu.service.BlogTagsService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.book.ensureu.transformer.BlogMapper;
 
 @Service
 public class BlogTagsServiceImpl implements BlogTagsService {
@@ -23,16 +22,16 @@ public class BlogTagsServiceImpl implements BlogTagsService {
 	BlogTagsRepository blogTagsRepo;
 
 	@Autowired
-	ObjectMapper mapper;
+	BlogMapper mapper;
 
 	@Override
 	public BlogTagsDTO saveBlogTags(BlogTagsDTO payload) throws Exception {
 		BlogTagsModel model = null;
 		if (payload != null) {
-			model = blogTagsRepo.save(mapper.convertValue(payload, BlogTagsModel.class));
+			model = blogTagsRepo.save(mapper.toBlogTagsModel(payload));
 		}
 
-		return model != null ? mapper.convertValue(model, BlogTagsDTO.class) : null;
+		return model != null ? mapper.toBlogTagsDto(model) : null;
 	}
 
 	@Override
@@ -40,12 +39,10 @@ public class BlogTagsServiceImpl implements BlogTagsService {
 		List<BlogTagsModel> modelList = null;
 		if (payloadList != null) {
 			modelList = blogTagsRepo
-					.saveAll(mapper.convertValue(payloadList, new TypeReference<List<BlogTagsModel>>() {
-					}));
+					.saveAll(mapper.toBlogTagsModels(payloadList));
 		}
 
-		return modelList != null ? mapper.convertValue(modelList, new TypeReference<List<BlogTagsDTO>>() {
-		}) : null;
+		return modelList != null ? mapper.toBlogTagsDtos(modelList) : null;
 	}
 
 	@Override
@@ -58,8 +55,7 @@ public class BlogTagsServiceImpl implements BlogTagsService {
 		} else {
 			modelList = blogTagsRepo.findAll();
 		}
-		return modelList != null ? mapper.convertValue(modelList, new TypeReference<List<BlogTagsDTO>>() {
-		}) : null;
+		return modelList != null ? mapper.toBlogTagsDtos(modelList) : null;
 	}
 
 }
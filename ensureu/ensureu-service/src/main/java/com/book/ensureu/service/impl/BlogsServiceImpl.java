@@ -35,8 +35,7 @@ import com.book.ensureu.repository.BlogCommentsRepository;
 import com.book.ensureu.repository.BlogsRepository;
 import com.book.ensureu.security.UserPrincipalService;
 import com.book.ensureu.service.BlogsService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.book.ensureu.transformer.BlogMapper;
 
 @Service
 public class BlogsServiceImpl implements BlogsService {
@@ -44,7 +43,7 @@ public class BlogsServiceImpl implements BlogsService {
 	private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(BlogsServiceImpl.class);
 
 	@Autowired
-	ObjectMapper mapper;
+	BlogMapper mapper;
 
 	@Autowired
 	BlogsRepository blogsRepo;
@@ -70,7 +69,7 @@ public class BlogsServiceImpl implements BlogsService {
 		BlogsModel model = null;
 		if (blogsPayload != null) {
 			blogsPayload.setCreatedDate(System.currentTimeMillis());
-			model = mapper.convertValue(blogsPayload, BlogsModel.class);
+			model = mapper.toBlogsModel(blogsPayload);
 			JwtUser currentUser = userPrincipal.getCurrentUserDetails();
 			if (currentUser != null) {
 				model.setUserId(currentUser.getUsername());
@@ -80,7 +79,7 @@ public class BlogsServiceImpl implements BlogsService {
 			}
 			model = blogsRepo.save(model);
 		}
-		return model != null ? mapper.convertValue(model, BlogsDTO.class) : null;
+		return model != null ? mapper.toBlogsDto(model) : null;
 	}
 
 	@Override
@@ -88,7 +87,7 @@ public class BlogsServiceImpl implements BlogsService {
 		BlogsModel model = null;
 		if (blogsPayload != null) {
 			JwtUser currentUser = userPrincipal.getCurrentUserDetails();
-			model = mapper.convertValue(blogsPayload, BlogsModel.class);
+			model = mapper.toBlogsModel(blogsPayload);
 			if (currentUser != null) {
 				model.setUserId(currentUser.getUsername());
 				model.setAuthor(currentUser.getFirstname() + " " + currentUser.getLastname());
@@ -127,7 +126,7 @@ public class BlogsServiceImpl implements BlogsService {
 				model = mongoTemplate.findAndModify(query, update, options, BlogsModel.class);
 			}
 		}
-		return model != null ? mapper.convertValue(model, BlogsDTO.class) : null;
+		return model != null ? mapper.toBlogsDto(model) : null;
 	}
 
 	@Override
@@ -141,8 +140,7 @@ public class BlogsServiceImpl implements BlogsService {
 						: Sort.by(Order.desc(sortBy));
 		PageRequest pagination = PageRequest.of(page, size, sort);
 		modelPage = blogsRepo.findAll(pagination);
-		return modelPage != null ? mapper.convertValue(modelPage.getContent(), new TypeReference<List<BlogsDTO>>() {
-		}) : null;
+		return modelPage != null ? mapper.toBlogsDtos(modelPage.getContent()) : null;
 	}
 
 	@Override
@@ -164,11 +162,11 @@ public class BlogsServiceImpl implements BlogsService {
 				}
 			} else {
 				// Create new comments document
-				model = mapper.convertValue(blogCommentsPayload, BlogCommentsModel.class);
+				model = mapper.toBlogCommentsModel(blogCommentsPayload);
 			}
 			model = blogCommentsRepo.save(model);
 		}
-		return model != null ? mapper.convertValue(model, BlogCommentsDTO.class) : null;
+		return model != null ? mapper.toBlogCommentsDto(model) : null;
 	}
 
 	@Override
@@ -177,7 +175,7 @@ public class BlogsServiceImpl implements BlogsService {
 			return null;
 		// Use findByBlogId instead of findById - blogId is a field, not the document id
 		Optional<BlogCommentsModel> model = blogCommentsRepo.findByBlogId(blogId);
-		return model != null && model.isPresent() ? mapper.convertValue(model.get(), BlogCommentsDTO.class) : null;
+		return model != null && model.isPresent() ? mapper.toBlogCommentsDto(model.get()) : null;
 	}
 
 	@Override
@@ -191,8 +189,7 @@ public class BlogsServiceImpl implements BlogsService {
 				: BlogsConstant.SortBy.CREATEDDATE.getSortByCode();
 		PageRequest pagination = PageRequest.of(page, size, Sort.by(Order.desc(sortBy)));
 		modelPage = blogsRepo.findByCategory(new ObjectId(categoryId), pagination);
-		return modelPage != null ? mapper.convertValue(modelPage.getContent(), new TypeReference<List<BlogsDTO>>() {
-		}) : null;
+		return modelPage != null ? mapper.toBlogsDtos(modelPage.getContent()) : null;
 	}
 
 	@Override
@@ -209,8 +206,7 @@ public class BlogsServiceImpl implements BlogsService {
 			PageRequest pagination = PageRequest.of(page, size, Sort.by(Order.desc(sortBy)));
 			modelPage = blogsRepo.findByUserId(currentUser.getUsername(), pagination);
 		}
-		return modelPage != null ? mapper.convertValue(modelPage.getContent(), new TypeReference<List<BlogsDTO>>() {
-		}) : null;
+		return modelPage != null ? mapper.toBlogsDtos(modelPage.getContent()) : null;
 	}
 
 	@Override
@@ -232,15 +228,14 @@ public class BlogsServiceImpl implements BlogsService {
 	public List<BlogsDTO> searchByTitle(String phrase) throws Exception {
 		TextCriteria criteria = TextCriteria.forDefaultLanguage().matchingPhrase(phrase);
 		List<BlogsModel> modelList = blogsRepo.findBy(criteria);
-		return modelList != null ? mapper.convertValue(modelList, new TypeReference<List<BlogsDTO>>() {
-		}) : null;
+		return modelList != null ? mapper.toBlogsDtos(modelList) : null;
 	}
 	
 	@Override
 	public BlogsDTO fetchById(String blogId) throws Exception {
 		// TODO Auto-generated method stub
 		Optional<BlogsModel> model = blogsRepo.findById(blogId);
-		return model != null && model.isPresent() ? mapper.convertValue(model.get(), BlogsDTO.class) : null;
+		return model != null && model.isPresent() ? mapper.toBlogsDto(model.get()) : null;
 	}
 
 }
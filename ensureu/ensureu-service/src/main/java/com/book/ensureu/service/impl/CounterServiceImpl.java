@@ -1,6 +1,14 @@
-
 package com.book.ensureu.service.impl;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -10,42 +18,138 @@ import org.springframework.stereotype.Service;
 
 import com.book.ensureu.constant.CounterEnum;
 import com.book.ensureu.model.Counter;
-import com.book.ensureu.repository.CounterRepository;
 import com.book.ensureu.service.CounterService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
 /**
+ * Hi/lo id allocation. Each JVM reserves a block of ids per counter with a single atomic $inc
+ * on the counter document and hands them out from memory, so instances never collide and only
+ * one in block size calls reaches Mongo. Ids stay unique and increasing per instance, but are
+ * not gap free: ids left in a block are lost on restart, and instances interleave blocks.
+ * Set counter.block.size.&lt;COUNTER&gt;=1 for a counter that must stay strictly sequential.
+ *
  * @author dharmendra.singh
  *
  */
 @Service
+@Slf4j
 public class CounterServiceImpl implements CounterService {
 
-	@Autowired
-	CounterRepository counterRepository;
-	
 	@Autowired
 	MongoTemplate mongoTemplate;
 
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Autowired
+	Environment environment;
+
+	@Value("${counter.block.size.default:100}")
+	private int defaultBlockSize;
+
+	private final Map<CounterEnum, CounterBlocks> counterBlocks = new EnumMap<>(CounterEnum.class);
+
+	@PostConstruct
+	public void init() {
+		for (CounterEnum counterEnum : CounterEnum.values()) {
+			int blockSize = environment.getProperty("counter.block.size." + counterEnum.name(), Integer.class,
+					defaultBlockSize);
+			counterBlocks.put(counterEnum, new CounterBlocks(counterEnum, Math.max(1, blockSize)));
+		}
+	}
+
 	@Override
 	public Long increment(CounterEnum counterEnum) {
-		
-		if(!counterRepository.existsById(counterEnum.toString())){
-			createandInitialize();	
-			}
-			Query query = new Query(Criteria.where("name").is(counterEnum.toString()));
-			Update update = new Update().inc("counter", 1);
-			return mongoTemplate.findAndModify(query, update, new FindAndModifyOptions().returnNew(true), Counter.class).getCounter();
-
+		return counterBlocks.get(counterEnum).next();
 	}
 
 	@Override
 	public boolean createandInitialize() {
-		for(CounterEnum counterEnum:CounterEnum.values())
-			if(!counterRepository.existsById(counterEnum.toString())){
-				counterRepository.save(new Counter(counterEnum.toString(),1l));
+		for (CounterEnum counterEnum : CounterEnum.values()) {
+			Query query = new Query(Criteria.where("name").is(counterEnum.toString()));
+			mongoTemplate.upsert(query, new Update().setOnInsert("counter", 1L), Counter.class);
+		}
+		return true;
+	}
+
+	/**
+	 * Reserves (counter, counter + blockSize] and returns its upper bound. Upserts, so a missing
+	 * counter document is created on first use instead of checking for it on every call.
+	 */
+	private long reserve(CounterEnum counterEnum, int blockSize) {
+		Query query = new Query(Criteria.where("name").is(counterEnum.toString()));
+		Update update = new Update().inc("counter", blockSize);
+		return mongoTemplate.findAndModify(query, update, new FindAndModifyOptions().returnNew(true).upsert(true),
+				Counter.class).getCounter();
+	}
+
+	/**
+	 * Current block of one counter, refilled under a lock once exhausted
+	 */
+	private class CounterBlocks {
+
+		private final CounterEnum counterEnum;
+
+		private final int blockSize;
+
+		private final AtomicReference<IdBlock> current = new AtomicReference<>();
+
+		private final io.micrometer.core.instrument.Counter reservations;
+
+		private final io.micrometer.core.instrument.Counter contention;
+
+		private final Timer reservationTimer;
+
+		CounterBlocks(CounterEnum counterEnum, int blockSize) {
+			this.counterEnum = counterEnum;
+			this.blockSize = blockSize;
+			this.reservations = meterRegistry.counter("counter.id.reservations", "counter", counterEnum.name());
+			this.contention = meterRegistry.counter("counter.id.contention", "counter", counterEnum.name());
+			this.reservationTimer = meterRegistry.timer("counter.id.reservation", "counter", counterEnum.name());
+		}
+
+		long next() {
+			IdBlock block = current.get();
+			while (true) {
+				if (block != null) {
+					long id = block.next.getAndIncrement();
+					if (id <= block.max) {
+						return id;
+					}
+				}
+				block = refill(block);
+			}
+		}
+
+		private synchronized IdBlock refill(IdBlock exhausted) {
+			IdBlock block = current.get();
+			if (block != exhausted) {
+				// another thread reserved while this one waited for the lock
+				contention.increment();
+				return block;
 			}
-			return true;
+			long max = reservationTimer.record(() -> reserve(counterEnum, blockSize));
+			reservations.increment();
+			block = new IdBlock(max - blockSize + 1, max);
+			current.set(block);
+			log.debug("[reserve] counter [{}] reserved ids [{}..{}]", counterEnum, max - blockSize + 1, max);
+			return block;
+		}
+	}
+
+	private static class IdBlock {
+
+		private final AtomicLong next;
+
+		private final long max;
 
+		IdBlock(long first, long max) {
+			this.next = new AtomicLong(first);
+			this.max = max;
+		}
 	}
 
 }
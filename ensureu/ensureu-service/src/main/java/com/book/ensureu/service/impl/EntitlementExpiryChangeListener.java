@@ -0,0 +1,34 @@
+package com.book.ensureu.service.impl;
+
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.model.UserEntitlement;
+import com.book.ensureu.service.EntitlementExpiryService;
+
+/**
+ * Hands every saved entitlement and subscription to the expiry engine, so purchases, validity
+ * extensions and deactivations move the expiries it holds. Bulk updates raise no save event, what
+ * they change is left to the engine's sweep.
+ */
+@Component
+public class EntitlementExpiryChangeListener extends AbstractMongoEventListener<Object> {
+
+	private final EntitlementExpiryService entitlementExpiryService;
+
+	public EntitlementExpiryChangeListener(EntitlementExpiryService entitlementExpiryService) {
+		this.entitlementExpiryService = entitlementExpiryService;
+	}
+
+	@Override
+	public void onAfterSave(AfterSaveEvent<Object> event) {
+		Object source = event.getSource();
+		if (source instanceof UserEntitlement) {
+			entitlementExpiryService.track((UserEntitlement) source);
+		} else if (source instanceof Subscription) {
+			entitlementExpiryService.track((Subscription) source);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package com.book.ensureu.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.event.EntitlementExpiredEvent;
+import com.book.ensureu.event.SubscriptionExpiredEvent;
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.model.Subscription.SubscriptionState;
+import com.book.ensureu.model.UserEntitlement;
+import com.book.ensureu.service.EntitlementExpiryService;
+import com.mongodb.client.result.UpdateResult;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Expiries up to horizonMillis ahead are held in {@link ExpiryTimeWheel}s, loaded a step at a time
+ * with range queries on the (active, validity) and (state, validity) indexes. An entitlement is
+ * flagged active=false once its validity is in the past, the update re-checks active and validity
+ * so an entitlement extended meanwhile stays active. Writes seen through {@link #track} move held
+ * expiries, entitlements lapsed without being held, written by another instance or before the
+ * first load, are picked up by the sweep. Read queries keep their validity conditions, the flag
+ * lags a lapse by up to a tick, or a sweep for entitlements that were not held. Every entitlement
+ * type is flagged: the test series readers filter on validity as well, and flagged entitlements
+ * carry expiredDate so listings by the stored flag still tell them from admin deactivations.
+ */
+@Slf4j
+@Service
+public class EntitlementExpiryServiceImpl implements EntitlementExpiryService {
+
+	private static final int WHEEL_SLOTS = 64;
+
+	private static final int WHEEL_LEVELS = 4;
+
+	// a backlog, e.g. on the first run, drains this many batches per tick
+	private static final int MAX_SWEEP_BATCHES = 20;
+
+	private final MongoTemplate mongoTemplate;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final MeterRegistry meterRegistry;
+
+	private final boolean enabled;
+
+	private final long horizonMillis;
+
+	private final long loadStepMillis;
+
+	private final long sweepMillis;
+
+	private final int batchSize;
+
+	private final ExpiryTimeWheel<Long> entitlements;
+
+	private final ExpiryTimeWheel<Long> subscriptions;
+
+	private final Object lock = new Object();
+
+	// expiries with validity up to here are loaded, later ones are left to the next load
+	private long loadedUntil;
+
+	private long lastSweep;
+
+	public EntitlementExpiryServiceImpl(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+			MeterRegistry meterRegistry,
+			@Value("${entitlement.expiry.enabled:true}") boolean enabled,
+			@Value("${entitlement.expiry.tick.millis:1000}") long tickMillis,
+			@Value("${entitlement.expiry.horizon.millis:3600000}") long horizonMillis,
+			@Value("${entitlement.expiry.load.step.millis:60000}") long loadStepMillis,
+			@Value("${entitlement.expiry.sweep.millis:60000}") long sweepMillis,
+			@Value("${entitlement.expiry.batch.size:500}") int batchSize) {
+		this.mongoTemplate = mongoTemplate;
+		this.eventPublisher = eventPublisher;
+		this.meterRegistry = meterRegistry;
+		this.enabled = enabled;
+		this.horizonMillis = horizonMillis;
+		this.loadStepMillis = loadStepMillis;
+		this.sweepMillis = sweepMillis;
+		this.batchSize = batchSize;
+		long now = System.currentTimeMillis();
+		this.entitlements = new ExpiryTimeWheel<>(tickMillis, WHEEL_SLOTS, WHEEL_LEVELS, now);
+		this.subscriptions = new ExpiryTimeWheel<>(tickMillis, WHEEL_SLOTS, WHEEL_LEVELS, now);
+		this.loadedUntil = now - 1;
+		meterRegistry.gauge("entitlement.expiry.pending", this, EntitlementExpiryServiceImpl::pending);
+	}
+
+	@Override
+	public void track(UserEntitlement entitlement) {
+		if (!enabled || entitlement == null || entitlement.getId() == null) {
+			return;
+		}
+		synchronized (lock) {
+			if (Boolean.TRUE.equals(entitlement.getActive()) && entitlement.getValidity() != null
+					&& entitlement.getValidity() <= loadedUntil) {
+				entitlements.schedule(entitlement.getId(), entitlement.getValidity() + 1);
+			} else {
+				entitlements.cancel(entitlement.getId());
+			}
+		}
+	}
+
+	@Override
+	public void track(Subscription subscription) {
+		if (!enabled || subscription == null || subscription.getId() == null) {
+			return;
+		}
+		synchronized (lock) {
+			if (SubscriptionState.ACTIVE.equals(subscription.getState()) && subscription.getValidity() != null
+					&& subscription.getValidity() <= loadedUntil) {
+				subscriptions.schedule(subscription.getId(), subscription.getValidity() + 1);
+			} else {
+				subscriptions.cancel(subscription.getId());
+			}
+		}
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${entitlement.expiry.tick.millis:1000}",
+			initialDelayString = "${entitlement.expiry.tick.millis:1000}")
+	public void tick() {
+		if (!enabled) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		try {
+			if (now - lastSweep >= sweepMillis && sweep(now)) {
+				lastSweep = now;
+			}
+			if (now + horizonMillis - loadedUntil() >= loadStepMillis) {
+				load(now + horizonMillis);
+			}
+			List<Long> lapsedEntitlements;
+			List<Long> lapsedSubscriptions;
+			synchronized (lock) {
+				lapsedEntitlements = entitlements.advance(now);
+				lapsedSubscriptions = subscriptions.advance(now);
+			}
+			for (int from = 0; from < lapsedEntitlements.size(); from += batchSize) {
+				deactivate(lapsedEntitlements.subList(from, Math.min(from + batchSize, lapsedEntitlements.size())),
+						now, "wheel");
+			}
+			if (!lapsedSubscriptions.isEmpty()) {
+				meterRegistry.counter("subscription.expiry.expired").increment(lapsedSubscriptions.size());
+				eventPublisher.publishEvent(new SubscriptionExpiredEvent(lapsedSubscriptions, now));
+			}
+		} catch (Exception e) {
+			meterRegistry.counter("entitlement.expiry.failures").increment();
+			log.error("[entitlementExpiry] tick failed, lapsed entitlements are left to the sweep", e);
+		}
+	}
+
+	@Override
+	public int pending() {
+		synchronized (lock) {
+			return entitlements.size() + subscriptions.size();
+		}
+	}
+
+	/*
+	 * the queries run outside the lock, tracking keeps going while a load is in flight
+	 */
+	void load(long to) {
+		long from = loadedUntil();
+		Query entitlementQuery = Query.query(Criteria.where("active").is(true).and("validity").gt(from).lte(to));
+		entitlementQuery.fields().include("validity");
+		List<UserEntitlement> upcoming = mongoTemplate.find(entitlementQuery, UserEntitlement.class);
+		Query subscriptionQuery = Query.query(Criteria.where("state").is(SubscriptionState.ACTIVE)
+				.and("validity").gt(from).lte(to));
+		subscriptionQuery.fields().include("validity");
+		List<Subscription> upcomingSubscriptions = mongoTemplate.find(subscriptionQuery, Subscription.class);
+		synchronized (lock) {
+			for (UserEntitlement entitlement : upcoming) {
+				entitlements.schedule(entitlement.getId(), entitlement.getValidity() + 1);
+			}
+			for (Subscription subscription : upcomingSubscriptions) {
+				subscriptions.schedule(subscription.getId(), subscription.getValidity() + 1);
+			}
+			loadedUntil = to;
+		}
+		log.debug("[entitlementExpiry] loaded [{}] entitlement and [{}] subscription expiries up to [{}]",
+				upcoming.size(), upcomingSubscriptions.size(), to);
+	}
+
+	/**
+	 * @return false when lapsed entitlements are left for the next tick
+	 */
+	boolean sweep(long now) {
+		for (int batch = 0; batch < MAX_SWEEP_BATCHES; batch++) {
+			if (deactivate(null, now, "sweep") < batchSize) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * lapsed entitlements among ids, any when ids is null, are read before the update so the event
+	 * carries exactly the ones still active, an update alone does not tell which documents it changed
+	 */
+	private int deactivate(List<Long> ids, long now, String source) {
+		Criteria criteria = ids != null ? Criteria.where("_id").in(ids).and("active") : Criteria.where("active");
+		Query query = Query.query(criteria.is(true).and("validity").lt(now)).limit(batchSize);
+		query.fields().include("userId", "subscriptionId", "paperId", "testType", "entitlementType", "validity");
+		List<UserEntitlement> lapsed = mongoTemplate.find(query, UserEntitlement.class);
+		if (lapsed.isEmpty()) {
+			return 0;
+		}
+		List<Long> lapsedIds = new ArrayList<>(lapsed.size());
+		for (UserEntitlement entitlement : lapsed) {
+			lapsedIds.add(entitlement.getId());
+		}
+		UpdateResult result = mongoTemplate.updateMulti(
+				Query.query(Criteria.where("_id").in(lapsedIds).and("active").is(true).and("validity").lt(now)),
+				Update.update("active", false).set("expiredDate", now), UserEntitlement.class);
+		meterRegistry.counter("entitlement.expiry.deactivated", "source", source)
+				.increment(result.getModifiedCount());
+		log.info("[entitlementExpiry] flagged [{}] lapsed entitlements inactive from {}", result.getModifiedCount(),
+				source);
+		eventPublisher.publishEvent(new EntitlementExpiredEvent(lapsed, now));
+		return lapsed.size();
+	}
+
+	private long loadedUntil() {
+		synchronized (lock) {
+			return loadedUntil;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.book.ensureu.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.book.ensureu.dto.PaperInfo;
+import com.book.ensureu.dto.SubscribedDto;
+
+/**
+ * Immutable paperId to validity window map of one user and test type. A paper reached through more
+ * than one entitlement keeps the window that ends last.
+ */
+final class EntitlementIndex {
+
+	static final EntitlementIndex EMPTY = new EntitlementIndex(Collections.emptyMap(), false);
+
+	private final Map<String, PaperInfo> papers;
+
+	private final boolean entitled;
+
+	private EntitlementIndex(Map<String, PaperInfo> papers, boolean entitled) {
+		this.papers = papers;
+		this.entitled = entitled;
+	}
+
+	static EntitlementIndex of(List<SubscribedDto> subscriptions, boolean entitled) {
+		Map<String, PaperInfo> papers = new HashMap<>();
+		if (subscriptions != null) {
+			for (SubscribedDto subscription : subscriptions) {
+				if (subscription == null || subscription.getListOfPaperInfo() == null) {
+					continue;
+				}
+				for (PaperInfo paperInfo : subscription.getListOfPaperInfo()) {
+					if (paperInfo == null || paperInfo.getId() == null) {
+						continue;
+					}
+					PaperInfo known = papers.get(paperInfo.getId());
+					if (known == null || endsAfter(paperInfo, known)) {
+						papers.put(paperInfo.getId(), copy(paperInfo));
+					}
+				}
+			}
+		}
+		return new EntitlementIndex(Collections.unmodifiableMap(papers), entitled);
+	}
+
+	boolean isEntitled() {
+		return entitled;
+	}
+
+	/**
+	 * @return the validity of paperId, null when it is not indexed or its window ended before now
+	 */
+	Long validity(String paperId, long now) {
+		PaperInfo paperInfo = papers.get(paperId);
+		return paperInfo != null && isOpen(paperInfo, now) ? paperInfo.getValidity() : null;
+	}
+
+	List<PaperInfo> paperInfoList(List<String> paperIds, long now) {
+		List<PaperInfo> paperInfoList = new ArrayList<>();
+		if (paperIds == null || paperIds.isEmpty()) {
+			for (PaperInfo paperInfo : papers.values()) {
+				if (isOpen(paperInfo, now)) {
+					paperInfoList.add(copy(paperInfo));
+				}
+			}
+			return paperInfoList;
+		}
+		for (String paperId : new LinkedHashSet<>(paperIds)) {
+			PaperInfo paperInfo = papers.get(paperId);
+			if (paperInfo != null && isOpen(paperInfo, now)) {
+				paperInfoList.add(copy(paperInfo));
+			}
+		}
+		return paperInfoList;
+	}
+
+	int size() {
+		return papers.size();
+	}
+
+	private static boolean isOpen(PaperInfo paperInfo, long now) {
+		return paperInfo.getValidity() == null || paperInfo.getValidity() >= now;
+	}
+
+	private static boolean endsAfter(PaperInfo paperInfo, PaperInfo known) {
+		if (known.getValidity() == null) {
+			return false;
+		}
+		return paperInfo.getValidity() == null || paperInfo.getValidity() > known.getValidity();
+	}
+
+	private static PaperInfo copy(PaperInfo paperInfo) {
+		return PaperInfo.builder()
+				.id(paperInfo.getId())
+				.paperName(paperInfo.getPaperName())
+				.createdDate(paperInfo.getCreatedDate())
+				.validity(paperInfo.getValidity())
+				.build();
+	}
+}
@@ -0,0 +1,141 @@
+package com.book.ensureu.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.constant.EntitlementType;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperInfo;
+import com.book.ensureu.dto.SubscribedDto;
+import com.book.ensureu.event.EntitlementExpiredEvent;
+import com.book.ensureu.model.UserEntitlement;
+import com.book.ensureu.repository.UserEntitlementRepository;
+import com.book.ensureu.service.EntitlementIndexService;
+import com.book.ensureu.service.impl.helper.SubscriptionServiceImplHelper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds a user's {@link EntitlementIndex} once per test type from the entitlements active at build
+ * time and the subscriptions behind them, then answers from it until the entry expires or is
+ * evicted. Indexes are cached per user like the paper shelves, so a load racing with an eviction
+ * lands in the dropped entry and is never served. Windows that end while cached are filtered on
+ * lookup, a purchase, an admin validity change or an expiry evicts instead of waiting for the TTL.
+ * Evictions are local to this instance, so another instance serves a changed index for at most the
+ * TTL. A user without entitlements is never cached, a purchase on any instance opens the papers on
+ * the next request everywhere.
+ */
+@Slf4j
+@Service
+public class EntitlementIndexServiceImpl implements EntitlementIndexService {
+
+	private final UserEntitlementRepository entitlementRepository;
+
+	private final SubscriptionServiceImplHelper implHelper;
+
+	private final Cache<String, Map<TestType, EntitlementIndex>> indexes;
+
+	public EntitlementIndexServiceImpl(UserEntitlementRepository entitlementRepository,
+			SubscriptionServiceImplHelper implHelper, MeterRegistry meterRegistry,
+			@Value("${entitlement.index.cache.max.users:20000}") long maxUsers,
+			@Value("${entitlement.index.cache.expire.seconds:60}") long expireSeconds) {
+		this.entitlementRepository = entitlementRepository;
+		this.implHelper = implHelper;
+		this.indexes = Caffeine.newBuilder()
+				.maximumSize(maxUsers)
+				.expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, indexes, "entitlementIndexes");
+	}
+
+	@Override
+	public List<PaperInfo> getPaperInfoList(String userId, List<String> paperIds, TestType testType) {
+		if (userId == null || testType == null) {
+			return new ArrayList<>();
+		}
+		return index(userId, testType).paperInfoList(paperIds, System.currentTimeMillis());
+	}
+
+	@Override
+	public Long getValidity(String userId, String paperId, TestType testType) {
+		if (userId == null || paperId == null || testType == null) {
+			return null;
+		}
+		return index(userId, testType).validity(paperId, System.currentTimeMillis());
+	}
+
+	@Override
+	public boolean isEntitled(String userId, TestType testType) {
+		return userId != null && testType != null && index(userId, testType).isEntitled();
+	}
+
+	@Override
+	public void evict(String userId) {
+		if (userId != null) {
+			indexes.invalidate(userId);
+		}
+	}
+
+	@Override
+	public void evictAll() {
+		indexes.invalidateAll();
+	}
+
+	@EventListener
+	public void onEntitlementExpired(EntitlementExpiredEvent event) {
+		for (UserEntitlement entitlement : event.getEntitlements()) {
+			evict(entitlement.getUserId());
+		}
+	}
+
+	private EntitlementIndex index(String userId, TestType testType) {
+		Map<TestType, EntitlementIndex> userIndexes = indexes.get(userId, id -> new ConcurrentHashMap<>());
+		EntitlementIndex index = userIndexes.get(testType);
+		if (index == null) {
+			index = load(userId, testType);
+			if (index != EntitlementIndex.EMPTY) {
+				userIndexes.putIfAbsent(testType, index);
+			}
+		}
+		return index;
+	}
+
+	private EntitlementIndex load(String userId, TestType testType) {
+		EntitlementType entitlementType;
+		switch (testType) {
+		case PAID:
+			entitlementType = EntitlementType.SUBSCRIPTION;
+			break;
+		case FREE:
+			entitlementType = EntitlementType.FREE_SUBSCRIPTION;
+			break;
+		default:
+			return EntitlementIndex.EMPTY;
+		}
+		long timeInMillis = System.currentTimeMillis();
+		List<UserEntitlement> listOfEntitle = entitlementRepository
+				.findByUserIdAndActiveAndCreatedDateAndValidityAndEntitlementType(userId, true, timeInMillis,
+						timeInMillis, entitlementType);
+		if (listOfEntitle == null || listOfEntitle.isEmpty()) {
+			return EntitlementIndex.EMPTY;
+		}
+		List<SubscribedDto> listOfSubDto = implHelper.getSubscriptionFromUserEntitle(null, null, testType,
+				listOfEntitle);
+		EntitlementIndex index = EntitlementIndex.of(listOfSubDto, true);
+		log.debug("[entitlementIndex] built for user [{}] {} with [{}] entitlements, [{}] papers", userId, testType,
+				listOfEntitle.size(), index.size());
+		return index;
+	}
+}
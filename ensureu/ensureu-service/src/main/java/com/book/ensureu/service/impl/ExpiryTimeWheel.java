@@ -0,0 +1,162 @@
+package com.book.ensureu.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel of expiry deadlines. Level 0 has one bucket per tick, every level above
+ * covers slots times the span of the one below, so levels of 64 slots at a one second tick reach
+ * about 194 days with four levels. Deadlines are placed on the lowest level whose current rotation
+ * can hold them and move down a level when the wheel reaches their bucket, advancing costs one
+ * bucket per elapsed tick however many deadlines are held. Keys are unique, scheduling a key again
+ * moves it. Not thread safe, callers synchronize.
+ */
+final class ExpiryTimeWheel<K> {
+
+	private final long tickMillis;
+
+	private final int slots;
+
+	private final long[] spans;
+
+	private final List<Map<K, Entry<K>>[]> levels;
+
+	private final Map<K, Entry<K>> entries = new HashMap<>();
+
+	private final Map<K, Entry<K>> due = new LinkedHashMap<>();
+
+	private long currentTick;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	ExpiryTimeWheel(long tickMillis, int slots, int levelCount, long now) {
+		if (tickMillis <= 0 || slots < 2 || levelCount < 1) {
+			throw new IllegalArgumentException("Invalid time wheel " + tickMillis + "ms x " + slots + " x " + levelCount);
+		}
+		this.tickMillis = tickMillis;
+		this.slots = slots;
+		this.spans = new long[levelCount];
+		this.levels = new ArrayList<>(levelCount);
+		long span = 1L;
+		for (int level = 0; level < levelCount; level++) {
+			spans[level] = span;
+			levels.add(new Map[slots]);
+			span = Math.multiplyExact(span, slots);
+		}
+		this.currentTick = now / tickMillis;
+	}
+
+	/**
+	 * @return false when expiresAt lies beyond the reach of the top level, the key is not held then
+	 */
+	boolean schedule(K key, long expiresAt) {
+		cancel(key);
+		// the first tick at or after expiresAt, so a deadline never fires early
+		long deadlineTick = (expiresAt + tickMillis - 1) / tickMillis;
+		return place(new Entry<>(key, deadlineTick));
+	}
+
+	void cancel(K key) {
+		Entry<K> entry = entries.remove(key);
+		if (entry != null && entry.level >= 0) {
+			levels.get(entry.level)[entry.slot].remove(key);
+		} else if (entry != null) {
+			due.remove(key);
+		}
+	}
+
+	boolean contains(K key) {
+		return entries.containsKey(key);
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Moves the wheel to now and hands back the keys whose deadline has passed, the wheel no longer
+	 * holds them afterwards.
+	 */
+	List<K> advance(long now) {
+		long targetTick = now / tickMillis;
+		while (currentTick < targetTick) {
+			currentTick++;
+			// top down, a bucket cascaded from above may land in a lower bucket due on this same tick
+			for (int level = spans.length - 1; level > 0; level--) {
+				if (currentTick % spans[level] == 0) {
+					cascade(level, (int) ((currentTick / spans[level]) % slots));
+				}
+			}
+			Map<K, Entry<K>> bucket = levels.get(0)[(int) (currentTick % slots)];
+			if (bucket != null && !bucket.isEmpty()) {
+				levels.get(0)[(int) (currentTick % slots)] = null;
+				for (Entry<K> entry : bucket.values()) {
+					entry.level = -1;
+					due.put(entry.key, entry);
+				}
+			}
+		}
+		List<K> expired = new ArrayList<>(due.size());
+		for (Entry<K> entry : due.values()) {
+			entries.remove(entry.key);
+			expired.add(entry.key);
+		}
+		due.clear();
+		return expired;
+	}
+
+	private void cascade(int level, int slot) {
+		Map<K, Entry<K>> bucket = levels.get(level)[slot];
+		if (bucket == null || bucket.isEmpty()) {
+			return;
+		}
+		levels.get(level)[slot] = null;
+		for (Entry<K> entry : bucket.values()) {
+			entries.remove(entry.key);
+			place(entry);
+		}
+	}
+
+	private boolean place(Entry<K> entry) {
+		if (entry.deadlineTick <= currentTick) {
+			entry.level = -1;
+			entries.put(entry.key, entry);
+			due.put(entry.key, entry);
+			return true;
+		}
+		for (int level = 0; level < spans.length; level++) {
+			long rotations = entry.deadlineTick / spans[level] - currentTick / spans[level];
+			if (rotations < slots) {
+				int slot = (int) ((entry.deadlineTick / spans[level]) % slots);
+				Map<K, Entry<K>>[] buckets = levels.get(level);
+				if (buckets[slot] == null) {
+					buckets[slot] = new LinkedHashMap<>();
+				}
+				entry.level = level;
+				entry.slot = slot;
+				buckets[slot].put(entry.key, entry);
+				entries.put(entry.key, entry);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final class Entry<K> {
+
+		private final K key;
+
+		private final long deadlineTick;
+
+		private int level;
+
+		private int slot;
+
+		private Entry(K key, long deadlineTick) {
+			this.key = key;
+			this.deadlineTick = deadlineTick;
+		}
+	}
+}
@@ -13,6 +13,7 @@ import com.book.ensureu.model.FreePaper;
 import com.book.ensureu.repository.FreePaperRepository;
 import com.book.ensureu.service.CounterService;
 import com.book.ensureu.service.FreePaperService;
+import com.book.ensureu.service.PaperShelfService;
 import com.mongodb.MongoException;
 
 /**
@@ -27,6 +28,9 @@ public class FreePaperServiceImpl implements FreePaperService<FreePaper> {
 	@Autowired
 	FreePaperRepository freePaperRepository;
 
+	@Autowired
+	private PaperShelfService paperShelfService;
+
 	@Autowired
 	CounterService counterService;
 
@@ -62,6 +66,7 @@ public class FreePaperServiceImpl implements FreePaperService<FreePaper> {
 				freePaper.setId(counterService.increment(CounterEnum.FREEPAPER));
 			}
 			freePaperRepository.save(freePaper);
+			paperShelfService.evict(freePaper.getUserId());
 		}
 	}
 
@@ -0,0 +1,63 @@
+package com.book.ensureu.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.service.RateLimiter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Single node RateLimiter. Each key owns its window counters and lock, so callers only
+ * contend with calls for the same key and nothing leaves the JVM.
+ */
+@Service
+@ConditionalOnProperty(name = "ratelimit.store", havingValue = "memory")
+public class InMemoryRateLimiter implements RateLimiter {
+
+	private final Cache<String, WindowCounter> counters;
+
+	public InMemoryRateLimiter(@Value("${ratelimit.memory.max.keys:100000}") long maxKeys,
+			@Value("${ratelimit.memory.idle.hours:48}") long idleHours) {
+		// idle must exceed the longest window, a key idle for two windows has nothing left to count
+		this.counters = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterAccess(idleHours, TimeUnit.HOURS)
+				.build();
+	}
+
+	@Override
+	public long tryAcquire(String key, int limit, long windowMillis) {
+		WindowCounter counter = counters.get(key, k -> new WindowCounter());
+		long now = System.currentTimeMillis();
+		synchronized (counter) {
+			counter.roll(now / windowMillis);
+			long retryAfter = RateLimiter.retryAfterMillis(counter.previous, counter.current, limit, windowMillis, now);
+			if (retryAfter == 0) {
+				counter.current++;
+			}
+			return retryAfter;
+		}
+	}
+
+	private static class WindowCounter {
+
+		private long window = Long.MIN_VALUE;
+
+		private long previous;
+
+		private long current;
+
+		void roll(long nowWindow) {
+			if (nowWindow == window) {
+				return;
+			}
+			previous = nowWindow == window + 1 ? current : 0;
+			current = 0;
+			window = nowWindow;
+		}
+	}
+}
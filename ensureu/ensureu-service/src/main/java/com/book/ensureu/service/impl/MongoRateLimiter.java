@@ -0,0 +1,83 @@
+package com.book.ensureu.service.impl;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.model.RateLimitWindow;
+import com.book.ensureu.service.RateLimiter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Multi node RateLimiter. A permit is one atomic upserting $inc on the current window
+ * document. The previous window is closed, so its count is read once and memoized.
+ * A rejected call takes its increment back, so retries do not extend the block.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "ratelimit.store", havingValue = "mongo", matchIfMissing = true)
+public class MongoRateLimiter implements RateLimiter {
+
+	private final MongoTemplate mongoTemplate;
+
+	private final Cache<String, Long> closedWindowCounts;
+
+	public MongoRateLimiter(MongoTemplate mongoTemplate,
+			@Value("${ratelimit.memory.max.keys:100000}") long maxKeys) {
+		this.mongoTemplate = mongoTemplate;
+		this.closedWindowCounts = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterWrite(1, TimeUnit.HOURS)
+				.build();
+	}
+
+	@PostConstruct
+	public void ensureIndexes() {
+		try {
+			mongoTemplate.indexOps(RateLimitWindow.class)
+					.ensureIndex(new Index().on("expireAt", Sort.Direction.ASC).expire(0, TimeUnit.SECONDS));
+		} catch (Exception e) {
+			log.error("[ensureIndexes] unable to ensure rateLimitWindow ttl index", e);
+		}
+	}
+
+	@Override
+	public long tryAcquire(String key, int limit, long windowMillis) {
+		long now = System.currentTimeMillis();
+		long window = now / windowMillis;
+		long previous = closedWindowCounts.get(key + ":" + (window - 1), this::countOf);
+
+		Query query = new Query(Criteria.where("id").is(key + ":" + window));
+		Update update = new Update()
+				.inc("count", 1)
+				.setOnInsert("expireAt", new Date((window + 2) * windowMillis));
+		RateLimitWindow current = mongoTemplate.findAndModify(query, update,
+				new FindAndModifyOptions().returnNew(true).upsert(true), RateLimitWindow.class);
+
+		long retryAfter = RateLimiter.retryAfterMillis(previous, current.getCount() - 1, limit, windowMillis, now);
+		if (retryAfter > 0) {
+			mongoTemplate.updateFirst(query, new Update().inc("count", -1), RateLimitWindow.class);
+		}
+		return retryAfter;
+	}
+
+	private long countOf(String id) {
+		RateLimitWindow window = mongoTemplate.findById(id, RateLimitWindow.class);
+		return window == null ? 0L : window.getCount();
+	}
+}
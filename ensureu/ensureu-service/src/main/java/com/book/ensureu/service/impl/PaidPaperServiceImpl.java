@@ -6,9 +6,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +17,7 @@ import org.springframework.stereotype.Service;
 import com.book.ensureu.constant.CounterEnum;
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.PaperStorageMode;
 import com.book.ensureu.constant.PaperSubCategory;
 import com.book.ensureu.constant.PaperType;
 import com.book.ensureu.constant.TestType;
@@ -26,14 +25,18 @@ import com.book.ensureu.dto.AttemptedPaperDto;
 import com.book.ensureu.dto.PaperDto;
 import com.book.ensureu.dto.PaperInfo;
 import com.book.ensureu.flow.analytics.model.PaperStat;
-import com.book.ensureu.flow.analytics.model.PercentileDataObject;
 import com.book.ensureu.flow.analytics.repository.PaperStatRepository;
+import com.book.ensureu.flow.analytics.util.KeyConversionUtil;
+import com.book.ensureu.flow.analytics.util.ScoreDistribution;
 import com.book.ensureu.model.PaidPaper;
 import com.book.ensureu.model.PaidPaperCollection;
 import com.book.ensureu.repository.PaidPaperCollectionRepository;
 import com.book.ensureu.repository.PaidPaperRepository;
+import com.book.ensureu.service.AnswerSheetService;
 import com.book.ensureu.service.CounterService;
 import com.book.ensureu.service.PaperService;
+import com.book.ensureu.service.PaperShelfService;
+import com.book.ensureu.service.PaperTemplateService;
 import com.book.ensureu.service.SubscriptionService;
 import com.book.ensureu.util.PaperConversionUtil;
 
@@ -58,6 +61,15 @@ public class PaidPaperServiceImpl implements PaperService {
 	@Autowired
 	private PaperStatRepository paperStatRepository;
 
+	@Autowired
+	private AnswerSheetService answerSheetService;
+
+	@Autowired
+	private PaperTemplateService paperTemplateService;
+
+	@Autowired
+	private PaperShelfService paperShelfService;
+
 	/*
 	 * savePaper method will save and update the paper
 	 * 
@@ -73,13 +85,18 @@ public class PaidPaperServiceImpl implements PaperService {
 						testPaper.getPaperId());
 				return;
 			}
+			// a full save must not reset the autosave sequence, a late batch would match again
+			if (existing != null) {
+				testPaper.setAutosaveSeq(existing.getAutosaveSeq());
+			}
 		}
 		if (paperDto.getId() == null) {
 			testPaper.setId(counterService.increment(CounterEnum.TESTPAPER));
 		}
 		LOGGER.info("User Mapping TestPaper UserId [" + testPaper.getUserId() + "] paperId [" + testPaper.getPaperId()
 				+ "]");
-		paidPaperRepository.save(testPaper);
+		paidPaperRepository.save(toStorageForm(testPaper));
+		paperShelfService.evict(testPaper.getUserId());
 
 	}
 
@@ -99,10 +116,14 @@ public class PaidPaperServiceImpl implements PaperService {
 						testPaper.getPaperId());
 				return;
 			}
+			if (existing != null) {
+				testPaper.setAutosaveSeq(existing.getAutosaveSeq());
+			}
 		}
 		LOGGER.info("User Mapping TestPaper UserId [" + testPaper.getUserId() + "] paperId [" + testPaper.getPaperId()
 				+ "]");
-		paidPaperRepository.save(testPaper);
+		paidPaperRepository.save(toStorageForm(testPaper));
+		paperShelfService.evict(testPaper.getUserId());
 	}
 
 	@Override
@@ -114,7 +135,7 @@ public class PaidPaperServiceImpl implements PaperService {
 	public PaperDto getPaperById(Long id, TestType testType) {
 		Optional<PaidPaper> testPaperOptional = paidPaperRepository.findById(id);
 		if (testPaperOptional.isPresent()) {
-			return PaperConversionUtil.paidPaperToDto(testPaperOptional.get());
+			return PaperConversionUtil.paidPaperToDto(withPaper(testPaperOptional.get()));
 		}
 		return null;
 	}
@@ -126,9 +147,9 @@ public class PaidPaperServiceImpl implements PaperService {
 		PaidPaper testPaper = paidPaperRepository.findByUserIdAndPaperId(userId, paperId);
 		PaidPaperCollection testPaperColl = null;
 		if (testPaper != null) {
-			return PaperConversionUtil.paidPaperToDto(testPaper);
+			return PaperConversionUtil.paidPaperToDto(withPaper(testPaper));
 		} else {
-			Optional<PaidPaperCollection> testPaperCollOp = paidPaperCollectionRepository.findById(paperId);
+			Optional<PaidPaperCollection> testPaperCollOp = findPaperCollection(paperId);
 			// valididy date from subscription and user entitlemt collection.
 			List<String> paperList = new ArrayList<String>();
 			paperList.add(paperId);
@@ -141,7 +162,8 @@ public class PaidPaperServiceImpl implements PaperService {
 			if (testPaperCollOp.isPresent()) {
 				testPaperColl = testPaperCollOp.get();
 				testPaper = new PaidPaper();
-				testPaper.setPaper(testPaperColl);
+				testPaper.setPaper(isAnswerSheetMode() ? answerSheetService.merge(testPaperColl, null)
+						: paperTemplateService.copyOf(testPaperColl));
 				testPaper.setPaperId(testPaperColl.getId());
 				testPaper.setPaperStatus(PaperStatus.START);
 				testPaper.setPaperSubCategory(testPaperColl.getPaperSubCategory());
@@ -162,10 +184,17 @@ public class PaidPaperServiceImpl implements PaperService {
 		return PaperConversionUtil.paidPaperToDto(testPaper);
 	}
 
+	@Override
+	public Optional<PaperDto> findSavedPaperByPaperIdAndUserId(String paperId, String userId, TestType testType) {
+		return Optional.ofNullable(paidPaperRepository.findByUserIdAndPaperId(userId, paperId))
+				.map(testPaper -> PaperConversionUtil.paidPaperToDto(withPaper(testPaper)));
+	}
+
 	@Override
 	public List<PaperDto> getPaperByPaperId(String paperId, TestType typePaper) {
 		System.out.println("PAID Paper");
 		List<PaidPaper> testPaperList = paidPaperRepository.findByPaperId(paperId);
+		testPaperList.forEach(this::withPaper);
 		return PaperConversionUtil.paidPaperToDto(testPaperList);
 	}
 
@@ -190,6 +219,7 @@ public class PaidPaperServiceImpl implements PaperService {
 	public List<PaperDto> getPaperByUserId(String userId) {
 		List<PaidPaper> paidPaperList = paidPaperRepository.findByUserId(userId);
 		if (paidPaperList != null && !paidPaperList.isEmpty()) {
+			paidPaperList.forEach(this::withPaper);
 			return PaperConversionUtil.paidPaperToDto(paidPaperList);
 		}
 		return null;
@@ -199,6 +229,7 @@ public class PaidPaperServiceImpl implements PaperService {
 	public List<PaperDto> getPaperByUserIdAndPaperType(String userId, PaperType paperType) {
 		List<PaidPaper> paidPaperList = paidPaperRepository.findByUserIdAndPaperType(userId, paperType);
 		if (paidPaperList != null && !paidPaperList.isEmpty()) {
+			paidPaperList.forEach(this::withPaper);
 			return PaperConversionUtil.paidPaperToDto(paidPaperList);
 		}
 		return null;
@@ -210,6 +241,7 @@ public class PaidPaperServiceImpl implements PaperService {
 		List<PaidPaper> paidPaperList = paidPaperRepository.findByUserIdAndPaperTypeAndTestType(userId, paperType,
 				testType);
 		if (paidPaperList != null && !paidPaperList.isEmpty()) {
+			paidPaperList.forEach(this::withPaper);
 			return PaperConversionUtil.paidPaperToDto(paidPaperList);
 		}
 		return null;
@@ -244,7 +276,7 @@ public class PaidPaperServiceImpl implements PaperService {
 			PaidPaper paidPaperFromDb = paidPaperRepository
 					.findByUserIdAndPaperId(userId, paperId);
 			if (paidPaperFromDb != null) {
-				return PaperConversionUtil.paidPaperToDto(paidPaperFromDb);
+				return PaperConversionUtil.paidPaperToDto(withPaper(paidPaperFromDb));
 			} else {
 				LOGGER.info("PaperId is not valid");
 				return null;
@@ -262,7 +294,7 @@ public class PaidPaperServiceImpl implements PaperService {
 			
 			if (paperStatus.equals(paperStatus.START)) {
 				if (paidPaperFromDb != null) {
-					return PaperConversionUtil.paidPaperToDto(paidPaperFromDb);
+					return PaperConversionUtil.paidPaperToDto(withPaper(paidPaperFromDb));
 				} else {
 
 					// need to add validity date to paper...
@@ -278,18 +310,20 @@ public class PaidPaperServiceImpl implements PaperService {
 						valididtyDate = paperInfo.get(0).getValidity();
 					}
 
-					Optional<PaidPaperCollection> paidPaperCollOpt = paidPaperCollectionRepository
-							.findById(paperId);
+					Optional<PaidPaperCollection> paidPaperCollOpt = findPaperCollection(paperId);
 					if (paidPaperCollOpt.isPresent()) {
 						PaidPaperCollection paidPaperCollection = paidPaperCollOpt
 								.get();
 						PaidPaper paidPaper = createPaidPaperByPaidCollectionPaper(
-								paidPaperCollection, testType, userId,
+								isAnswerSheetMode() ? paidPaperCollection
+										: paperTemplateService.copyOf(paidPaperCollection),
+								testType, userId,
 								"UserMapped", valididtyDate);
 						paidPaper.setId(counterService
 								.increment(CounterEnum.TESTPAPER));
-						paidPaper = paidPaperRepository.save(paidPaper);
-						return PaperConversionUtil.paidPaperToDto(paidPaper);
+						paidPaper = paidPaperRepository.save(toStorageForm(paidPaper));
+						paperShelfService.evict(userId);
+						return PaperConversionUtil.paidPaperToDto(withPaper(paidPaper));
 
 					} else {
 						throw new IllegalArgumentException(
@@ -298,13 +332,48 @@ public class PaidPaperServiceImpl implements PaperService {
 				}
 			} else if (paperStatus.equals(paperStatus.RESUME)
 					|| paperStatus.equals(paperStatus.INPROGRESS)) {
-				return PaperConversionUtil.paidPaperToDto(paidPaperFromDb);
+				return PaperConversionUtil.paidPaperToDto(withPaper(paidPaperFromDb));
 			}
 		}
 		return null;
 	}
 
-	private PaidPaper createPaidPaperByPaidCollectionPaper(PaidPaperCollection paidPaperColl, TestType testType,
+	private boolean isAnswerSheetMode() {
+		return PaperStorageMode.ANSWER_SHEET.equals(answerSheetService.getStorageMode());
+	}
+
+	/*
+	 * paper content does not change once it is published, every start of the same paper shares
+	 * one cached template
+	 */
+	private Optional<PaidPaperCollection> findPaperCollection(String paperId) {
+		return paperTemplateService.getPaidTemplate(paperId);
+	}
+
+	/*
+	 * in answer sheet mode only the user's responses are persisted, the paper is dropped
+	 */
+	private PaidPaper toStorageForm(PaidPaper paidPaper) {
+		if (paidPaper != null && isAnswerSheetMode()) {
+			PaidPaperCollection paper = paidPaper.getPaper();
+			paidPaper.setAnswerSheet(answerSheetService.toAnswerSheet(paper != null ? paper.getPattern() : null));
+			paidPaper.setPaper(null);
+		}
+		return paidPaper;
+	}
+
+	/*
+	 * rebuilds the paper of an answer sheet document from the template, whatever the current mode is
+	 */
+	private PaidPaper withPaper(PaidPaper paidPaper) {
+		if (paidPaper != null && paidPaper.getPaper() == null && paidPaper.getAnswerSheet() != null) {
+			paperTemplateService.getPaidTemplate(paidPaper.getPaperId()).ifPresent(
+					template -> paidPaper.setPaper(answerSheetService.merge(template, paidPaper.getAnswerSheet())));
+		}
+		return paidPaper;
+	}
+
+	static PaidPaper createPaidPaperByPaidCollectionPaper(PaidPaperCollection paidPaperColl, TestType testType,
 			String userId, String userMapped, long validityDate) {
 
 		PaidPaper paidPaper = null;
@@ -352,69 +421,20 @@ public class PaidPaperServiceImpl implements PaperService {
 	@Override
 	public List<PaperDto> getPaperStatusDetailsByPaperIds(String userId, List<String> paperIds, TestType testType)
 			throws Exception {
-		List<PaperDto> resultDto = null;
-		try {
-			if (paperIds == null || paperIds.isEmpty()) {
-				return null;
-			}
-			
-
-			// need to add validity date to paper...
-			// valididy date from subscription and user entitlemt collection.
-			List<PaperInfo> paperInfo = subscriptionService.getPaperInfoListForUser(userId, paperIds, testType);
-			AtomicLong valididtyDate = new AtomicLong();
-			if (paperInfo != null && !paperInfo.isEmpty()) {
-				valididtyDate.set(paperInfo.get(0).getValidity());
-			}
-			
-			
-			LOGGER.info("size PAID paperIds [" + paperIds.size() + "] ");
-			LOGGER.info("getPaperStatusDetailsByPaperIds PAID userId [" + userId + "] paperIds [" + paperIds + "]");
-			List<PaidPaper> paidPaperList = paidPaperRepository.findPaidPaperUsingUserIdAndPaperIds(userId, paperIds);
-			if (paidPaperList != null && !paidPaperList.isEmpty()) {
-				LOGGER.info("getPaperStatusDetailsByPaperIds PAID paperSize [" + paidPaperList.size() + "]");
-				// get from user collection..
-				
-				List<PaidPaper> paperNotDoneOnlyList=new ArrayList<>();
-				paidPaperList.forEach(paperPaid->{
-					
-					if(paperPaid!=null && !PaperStatus.DONE.equals(paperPaid.getPaperStatus())) {
-						paperNotDoneOnlyList.add(paperPaid);
-				}});
-				
-				List<PaperDto> paperDtoFromUserPaper = PaperConversionUtil.paidPaperToDto(paperNotDoneOnlyList);
-				if (paperIds.size() > paidPaperList.size()) {
-					paidPaperList.forEach(p -> paperIds.remove(p.getPaperId()));
-					LOGGER.info("size after change paperSize [" + paidPaperList.size() + "]");
-					// get from paperCollection...
-					List<PaidPaperCollection> paidPaperColl = paidPaperCollectionRepository.findByIdListIns(paperIds);
-					if (paidPaperColl != null && !paidPaperColl.isEmpty()) {
-						List<PaidPaper> paidPaperList1 = new ArrayList<>();
-						paidPaperColl.forEach(paidPaperCollItem -> paidPaperList1.add(
-								createPaidPaperByPaidCollectionPaper(paidPaperCollItem, testType, userId, null, valididtyDate.get())));
-						List<PaperDto> paperDtoFromColl = PaperConversionUtil.paidPaperToDto(paidPaperList1);
-						resultDto = Stream.of(paperDtoFromUserPaper, paperDtoFromColl).flatMap(x -> x.stream())
-								.collect(Collectors.toList());
-					} else {
-						resultDto = paperDtoFromUserPaper;
-					}
-				} else {
-					resultDto = paperDtoFromUserPaper;
-				}
-				LOGGER.info("getPaperStatusDetailsByPaperIds PAID paperSize [" + paperIds.size() + "]");
-			}
+		if (paperIds == null || paperIds.isEmpty()) {
+			return null;
+		}
 
-			else {
-				List<PaidPaperCollection> paidPaperColl = paidPaperCollectionRepository.findByIdListIns(paperIds);
-				List<PaidPaper> paidPaperList1 = new ArrayList<>();
-				paidPaperColl.forEach(paidPaperCollItem -> paidPaperList1
-						.add(createPaidPaperByPaidCollectionPaper(paidPaperCollItem, testType, userId, null, valididtyDate.get())));
-				resultDto = PaperConversionUtil.paidPaperToDto(paidPaperList1);
-			}
-		} catch (Exception ex) {
-			throw ex;
+		// need to add validity date to paper...
+		// valididy date from subscription and user entitlemt collection.
+		List<PaperInfo> paperInfo = subscriptionService.getPaperInfoListForUser(userId, paperIds, testType);
+		long valididtyDate = 0;
+		if (paperInfo != null && !paperInfo.isEmpty()) {
+			valididtyDate = paperInfo.get(0).getValidity();
 		}
-		return resultDto;
+
+		LOGGER.info("getPaperStatusDetailsByPaperIds PAID userId [" + userId + "] paperIds [" + paperIds + "]");
+		return paperShelfService.getPaperShelf(userId, testType, paperIds, valididtyDate, true);
 	}
 
 	/*
@@ -444,20 +464,19 @@ public class PaidPaperServiceImpl implements PaperService {
 			if (paidPaperList != null && !paidPaperList.isEmpty()) {
 				List<String> paperIds=paidPaperList.stream().map(PaidPaper :: getPaperId).collect(Collectors.toList());
 				List<PaperStat> paperStats=paperStatRepository.fetchPaperStatByIdIn(paperIds);
+				Map<String,Double> paperIdVsScore=new HashMap<String, Double>();
+				paidPaperList.forEach(paidPaper -> paperIdVsScore.put(paidPaper.getPaperId(),
+						KeyConversionUtil.safeDoubleValue(paidPaper.getTotalGetScore())));
 				Map<String,Double> paperIdVsPercentile=new HashMap<String, Double>();
 				if (paperStats != null) {
 					paperStats.forEach(paperStat->{
-						if (paperStat.getPercentileDataObjectList() == null) {
+						ScoreDistribution scoreDistribution = ScoreDistribution.of(paperStat);
+						if (scoreDistribution.getTotalUsers() == 0) {
 							return;
 						}
-						for(PercentileDataObject percentileDataObject : paperStat.getPercentileDataObjectList()) {
-							if(percentileDataObject.getUserIds().contains(userId)) {
-								LOGGER.info(userId + " percentile " + percentileDataObject.getPercentile() + " for paper "
-										+ paperStat.getPaperId());
-								paperIdVsPercentile.put(paperStat.getPaperId(), percentileDataObject.getPercentile());
-								break;
-							}
-						}
+						double percentile = scoreDistribution.percentileOf(paperIdVsScore.get(paperStat.getPaperId()));
+						LOGGER.info(userId + " percentile " + percentile + " for paper " + paperStat.getPaperId());
+						paperIdVsPercentile.put(paperStat.getPaperId(), percentile);
 					});
 				}
 				paperDto = PaperConversionUtil.paidPaperToDto(paidPaperList,paperIdVsPercentile);
@@ -504,55 +523,13 @@ public class PaidPaperServiceImpl implements PaperService {
 			return null;
 		}
 
-		List<PaperDto> resultDto = null;
-		try {
-			if (paperIds == null || paperIds.isEmpty()) {
-				return null;
-			}
-			LOGGER.info("size PAID paperIds [" + paperIds.size() + "] ");
-			LOGGER.info("getMissedPapersByUsers PAID userId [" + userId + "] paperIds [" + paperIds + "]");
-			List<PaidPaper> paidPaperListInDb = paidPaperRepository.findPaidPaperUsingUserIdAndPaperIds(userId, paperIds);
-			List<PaidPaper> paidPaperListClone=new ArrayList<PaidPaper>();
-			if (paidPaperListInDb != null && !paidPaperListInDb.isEmpty()) {
-				paidPaperListInDb.stream().forEach(paidPaper -> {
-					if(!PaperStatus.DONE.equals(paidPaper.getPaperStatus())) {
-						paidPaperListClone.add(paidPaper);
-					}
-					paperIds.remove(paidPaper.getPaperId());
-
-				});
-				
-			}
-			// create paper by paperId from paperCollection.
-			List<PaidPaperCollection> paidPaperColl = paidPaperCollectionRepository.findByIdListIns(paperIds);
-			List<PaidPaper> paidPaperValue = new ArrayList<>();
-			if(paidPaperColl!=null && !paidPaperColl.isEmpty()) {
-			paidPaperColl.forEach(paperCollList -> paidPaperValue
-					.add(createPaidPaperByPaidCollectionPaper(paperCollList, testType, userId, null, validityDate)));
-			}
-			
-			List<PaidPaper> paidPaperValueRes=null;
-			if(paidPaperValue!=null && paidPaperListInDb!=null) {
-				paidPaperValueRes=Stream.of(paidPaperValue,paidPaperListClone).flatMap(x->x.stream()).collect(Collectors.toList());
-			}else if(paidPaperValue!=null) {
-				paidPaperValueRes=paidPaperValue;
-			}else {
-				paidPaperValueRes=paidPaperListInDb;
-			}
-			resultDto = PaperConversionUtil.paidPaperToDto(paidPaperValueRes);
-			return resultDto;
-		} catch (Exception ex) {
-			LOGGER.error("error getMissedPapersByUsers ", ex);
-			throw ex;
-		}
-
+		LOGGER.info("getMissedPapersByUsers PAID userId [" + userId + "] paperIds [" + paperIds + "]");
+		return paperShelfService.getPaperShelf(userId, testType, paperIds, validityDate, true);
 	}
 
 	@Override
 	public List<PaperDto> getPaperStatusDetailsByPaperCateoryORTestType(String userId, TestType testType,
 			PaperType paperType, PaperCategory paperCategory) throws Exception {
-		List<PaperDto> resultDto = null;
-
 		// need to add paperIds from subscription and entitle table..
 
 		List<PaperInfo> listPaperInfo = subscriptionService.getPaperInfoListForUser(userId, new Date().getTime(),
@@ -581,76 +558,16 @@ public class PaidPaperServiceImpl implements PaperService {
 					return;
 				}
 				if (!PaperStatus.DONE.equals(paper.getPaperStatus())) {
-					filtered.add(paper);
+					filtered.add(withPaper(paper));
 				}
 			});
 			return PaperConversionUtil.paidPaperToDto(filtered);
 		}
-		/*
-		 * paperIds.add(3L); paperIds.add(4L); paperIds.add(5L); paperIds.add(6L);
-		 */
-		try {
-			if (paperIds == null || paperIds.isEmpty()) {
-				return null;
-			}
-			LOGGER.info("size PAID paperIds [" + paperIds.size() + "] ");
-			LOGGER.info("getPaperStatusDetailsByPaperIds PAID userId [" + userId + "] paperIds [" + paperIds + "]");
-			List<PaidPaper> paidPaperList = paidPaperRepository.findPaidPaperUsingUserIdAndPaperIds(userId, paperIds);
-			//List<PaidPaper> paidPaperList = paidPaperRepository.findPaidPaperUsingUserIdAndPaperIdsAndNotDone(userId, paperIds);
-			if (paidPaperList != null && !paidPaperList.isEmpty()) {
-				LOGGER.info("getPaperStatusDetailsByPaperIds PAID paperSize [" + paidPaperList.size() + "]");
-				
-				List<PaidPaper> paperNotDoneOnlyList=new ArrayList<>();
-				paidPaperList.forEach(paperPaid->{
-					
-					if(paperPaid!=null && !PaperStatus.DONE.equals(paperPaid.getPaperStatus())) {
-						paperNotDoneOnlyList.add(paperPaid);
-				}});
-				
-				LOGGER.info("getPaperStatusDetailsByPaperIds PAID paperSize after DONE remove [" + paperNotDoneOnlyList.size() + "]");
-
-				// get from user collection..
-				List<PaperDto> paperDtoFromUserPaper = PaperConversionUtil.paidPaperToDto(paperNotDoneOnlyList);
-				if (paperIds.size() > paidPaperList.size()) {
-					paidPaperList.forEach(p -> paperIds.remove(p.getPaperId()));
-					LOGGER.info("size after change paperSize [" + paidPaperList.size() + "]");
-					// get from paperCollection...
-					List<PaidPaperCollection> paidPaperColl = paidPaperCollectionRepository.findByIdListIns(paperIds);
-					if (paidPaperColl != null && !paidPaperColl.isEmpty()) {
-						List<PaidPaper> paidPaperList1 = new ArrayList<>();
-						paidPaperColl
-								.forEach(paidPaperCollItem -> paidPaperList1.add(createPaidPaperByPaidCollectionPaper(
-										paidPaperCollItem, testType, userId, null, validityDate)));
-						List<PaperDto> paperDtoFromColl = PaperConversionUtil.paidPaperToDto(paidPaperList1);
-						if(paperDtoFromUserPaper!=null && paperDtoFromColl!=null) {
-							resultDto = Stream.of(paperDtoFromUserPaper, paperDtoFromColl).flatMap(x -> x.stream())
-									.collect(Collectors.toList());
-						}else if(paperDtoFromUserPaper!=null) {
-							resultDto=paperDtoFromUserPaper;
-						}else if(paperDtoFromColl!=null) {
-							resultDto= paperDtoFromColl;
-						}
-					
-					} else {
-						resultDto = paperDtoFromUserPaper;
-					}
-				} else {
-					resultDto = paperDtoFromUserPaper;
-				}
-				LOGGER.info("getPaperStatusDetailsByPaperIds PAID paperSize [" + paperIds.size() + "]");
-			}
-
-			else {
-				List<PaidPaperCollection> paidPaperColl = paidPaperCollectionRepository.findByIdListIns(paperIds);
-				List<PaidPaper> paidPaperList1 = new ArrayList<>();
-				paidPaperColl.forEach(paidPaperCollItem -> paidPaperList1.add(
-						createPaidPaperByPaidCollectionPaper(paidPaperCollItem, testType, userId, null, validityDate)));
-				resultDto = PaperConversionUtil.paidPaperToDto(paidPaperList1);
-			}
-		} catch (Exception ex) {
-			throw ex;
+		if (paperIds.isEmpty()) {
+			return null;
 		}
-		return resultDto;
+		LOGGER.info("getPaperStatusDetailsByPaperCateoryORTestType PAID userId [" + userId + "] paperIds [" + paperIds + "]");
+		return paperShelfService.getPaperShelf(userId, testType, paperIds, validityDate, true);
 	}
 
 }
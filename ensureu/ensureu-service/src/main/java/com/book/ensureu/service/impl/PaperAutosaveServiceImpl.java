@@ -0,0 +1,210 @@
+package com.book.ensureu.service.impl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.PaperStorageMode;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperAutosaveDto;
+import com.book.ensureu.dto.PaperAutosaveResultDto;
+import com.book.ensureu.dto.QuestionAutosaveDto;
+import com.book.ensureu.exception.unchecked.InvalidRequestException;
+import com.book.ensureu.model.FreePaper;
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.PastPaper;
+import com.book.ensureu.model.QuizPaper;
+import com.book.ensureu.service.AnswerSheetService;
+import com.book.ensureu.service.PaperAutosaveService;
+import com.book.ensureu.service.PaperShelfService;
+import com.mongodb.client.result.UpdateResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One updateFirst per batch. The filter carries the sequence check, so a retried or late batch
+ * simply matches nothing. Answer sheet documents get their responses $set by key, full documents
+ * by position inside paper.pattern, the filter then also requires each position to hold the
+ * question of the response, a batch with a position out of bounds or of another question matches
+ * nothing either. Full saves keep the stored autosaveSeq. Paid and free papers can be in either shape, so when the shape
+ * of the configured storage mode does not match, the other one is tried. An applied batch drops the
+ * user's cached shelves like every other write of a user's paper.
+ */
+@Service
+public class PaperAutosaveServiceImpl implements PaperAutosaveService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PaperAutosaveServiceImpl.class);
+
+	static final String SEQ_FIELD = "autosaveSeq";
+
+	private static final int MAX_OPTION_COUNT = 26;
+
+	private final MongoTemplate mongoTemplate;
+
+	private final AnswerSheetService answerSheetService;
+
+	private final PaperShelfService paperShelfService;
+
+	private final int maxResponses;
+
+	private final Counter appliedCounter;
+
+	private final Counter ignoredCounter;
+
+	public PaperAutosaveServiceImpl(MongoTemplate mongoTemplate, AnswerSheetService answerSheetService,
+			PaperShelfService paperShelfService, MeterRegistry meterRegistry,
+			@Value("${paper.autosave.max.responses:200}") int maxResponses) {
+		this.mongoTemplate = mongoTemplate;
+		this.answerSheetService = answerSheetService;
+		this.paperShelfService = paperShelfService;
+		this.maxResponses = maxResponses;
+		this.appliedCounter = meterRegistry.counter("paper.autosave.batches", "result", "applied");
+		this.ignoredCounter = meterRegistry.counter("paper.autosave.batches", "result", "ignored");
+	}
+
+	@Override
+	public PaperAutosaveResultDto autosave(String userId, PaperAutosaveDto paperAutosaveDto) {
+		validate(userId, paperAutosaveDto);
+		TestType testType = paperAutosaveDto.getTestType();
+		Class<?> paperClass = paperClass(testType);
+		boolean bothShapes = TestType.PAID.equals(testType) || TestType.FREE.equals(testType);
+		boolean answerSheetFirst = bothShapes
+				&& PaperStorageMode.ANSWER_SHEET.equals(answerSheetService.getStorageMode());
+
+		UpdateResult result = apply(userId, paperAutosaveDto, paperClass, answerSheetFirst);
+		if (result.getMatchedCount() == 0 && bothShapes) {
+			result = apply(userId, paperAutosaveDto, paperClass, !answerSheetFirst);
+		}
+		boolean applied = result.getMatchedCount() > 0;
+		if (applied) {
+			appliedCounter.increment();
+			paperShelfService.evict(userId);
+		} else {
+			ignoredCounter.increment();
+			LOGGER.debug("[autosave] ignored seq [{}] userId [{}] paperId [{}]", paperAutosaveDto.getSeq(), userId,
+					paperAutosaveDto.getPaperId());
+		}
+		return new PaperAutosaveResultDto(paperAutosaveDto.getPaperId(), paperAutosaveDto.getSeq(), applied);
+	}
+
+	private UpdateResult apply(String userId, PaperAutosaveDto paperAutosaveDto, Class<?> paperClass,
+			boolean answerSheet) {
+		Criteria criteria = Criteria.where("userId").is(userId)
+				.and("paperId").is(paperAutosaveDto.getPaperId())
+				.and("paperStatus").ne(PaperStatus.DONE)
+				.and(answerSheet ? "answerSheet" : "paper").ne(null)
+				.orOperator(Criteria.where(SEQ_FIELD).lt(paperAutosaveDto.getSeq()),
+						Criteria.where(SEQ_FIELD).exists(false));
+		if (!answerSheet) {
+			questionsAt(paperAutosaveDto.getResponses()).forEach((path, questionId) -> {
+				if (questionId.isEmpty()) {
+					criteria.and(path).exists(true);
+				} else {
+					criteria.and(path + ".id").is(questionId);
+				}
+			});
+		}
+		Update update = new Update().set(SEQ_FIELD, paperAutosaveDto.getSeq());
+		if (paperAutosaveDto.getTotalTimeTaken() != null) {
+			update.set("totalTimeTaken", paperAutosaveDto.getTotalTimeTaken());
+		}
+		for (QuestionAutosaveDto response : paperAutosaveDto.getResponses()) {
+			if (answerSheet) {
+				setAnswerSheetResponse(update, response);
+			} else {
+				setPaperResponse(update, response);
+			}
+		}
+		return mongoTemplate.updateFirst(new Query(criteria), update, paperClass);
+	}
+
+	private void setAnswerSheetResponse(Update update, QuestionAutosaveDto response) {
+		String path = "answerSheet.responses." + answerSheetService.questionKey(response.getQuestionId(),
+				response.getSectionIndex(), response.getSubSectionIndex(), response.getQuestionIndex()) + ".";
+		update.set(path + "so", response.getSo())
+				.set(path + "questionAttemptedStatus", response.getQuestionAttemptedStatus())
+				.set(path + "timeTakenInSecond", response.getTimeTakenInSecond());
+	}
+
+	private static void setPaperResponse(Update update, QuestionAutosaveDto response) {
+		String question = questionPath(response) + ".";
+		List<String> so = response.getSo();
+		update.set(question + "problem.so", so)
+				.set(question + "questionAttemptedStatus", response.getQuestionAttemptedStatus())
+				.set(question + "timeTakenInSecond", response.getTimeTakenInSecond());
+		if (response.getOptionCount() != null) {
+			for (int i = 0; i < response.getOptionCount(); i++) {
+				update.set(question + "problem.options." + i + ".selected", so != null && so.contains(String.valueOf(i)));
+			}
+		}
+	}
+
+	private static String questionPath(QuestionAutosaveDto response) {
+		StringBuilder path = new StringBuilder("paper.pattern.sections.").append(response.getSectionIndex());
+		if (response.getSubSectionIndex() != null) {
+			path.append(".subSections.").append(response.getSubSectionIndex());
+		}
+		return path.append(".questionData.questions.").append(response.getQuestionIndex()).toString();
+	}
+
+	/*
+	 * question path to the expected question id, empty when the response names no question and only
+	 * the position has to exist
+	 */
+	private static Map<String, String> questionsAt(List<QuestionAutosaveDto> responses) {
+		Map<String, String> questions = new LinkedHashMap<>();
+		for (QuestionAutosaveDto response : responses) {
+			String questionId = response.getQuestionId() == null ? "" : response.getQuestionId();
+			String previous = questions.putIfAbsent(questionPath(response), questionId);
+			if (previous != null && !previous.equals(questionId)) {
+				throw new InvalidRequestException("autosave names two questions at one position");
+			}
+		}
+		return questions;
+	}
+
+	private void validate(String userId, PaperAutosaveDto paperAutosaveDto) {
+		if (userId == null || paperAutosaveDto == null || paperAutosaveDto.getPaperId() == null
+				|| paperAutosaveDto.getTestType() == null) {
+			throw new InvalidRequestException("userId, paperId and testType are required");
+		}
+		List<QuestionAutosaveDto> responses = paperAutosaveDto.getResponses();
+		if (responses == null || responses.isEmpty() || responses.size() > maxResponses) {
+			throw new InvalidRequestException("autosave takes 1 to " + maxResponses + " responses");
+		}
+		for (QuestionAutosaveDto response : responses) {
+			if (response == null || response.getSectionIndex() < 0 || response.getQuestionIndex() < 0
+					|| (response.getSubSectionIndex() != null && response.getSubSectionIndex() < 0)
+					|| (response.getOptionCount() != null
+							&& (response.getOptionCount() < 0 || response.getOptionCount() > MAX_OPTION_COUNT))) {
+				throw new InvalidRequestException("invalid question position in autosave");
+			}
+		}
+	}
+
+	private static Class<?> paperClass(TestType testType) {
+		switch (testType) {
+		case PAID:
+			return PaidPaper.class;
+		case FREE:
+			return FreePaper.class;
+		case PASTPAPER:
+			return PastPaper.class;
+		case QUIZ:
+			return QuizPaper.class;
+		default:
+			throw new InvalidRequestException("autosave is not supported for " + testType);
+		}
+	}
+}
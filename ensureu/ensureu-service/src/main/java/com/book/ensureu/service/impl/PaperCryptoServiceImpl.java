@@ -0,0 +1,327 @@
+package com.book.ensureu.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.service.PaperCryptoService;
+import com.book.ensureu.util.AesEncDecUtil;
+import com.book.ensureu.util.HashUtil;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Same wire format as AesEncDecUtil, without its per call costs. PBKDF2 runs once per
+ * (salt, passphrase) and the derived key is cached, each thread reuses one Cipher, and JSON
+ * is written to / read from the cipher streams directly instead of going through Strings.
+ */
+@Service
+public class PaperCryptoServiceImpl implements PaperCryptoService {
+
+	private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
+	private static final String KEY_FACTORY_ALGORITHM = "PBKDF2WithHmacSHA1";
+
+	private static final String HEAD_TRANSFORMATION = "AES/CBC/NoPadding";
+
+	private static final int AES_BLOCK_SIZE = 16;
+
+	// 16 byte AES blocks that also encode to whole 4 character Base64 groups
+	private static final int PREFIX_ALIGNMENT = 48;
+
+	private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(PaperCryptoServiceImpl::newCipher);
+
+	private final ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final Cache<String, SecretKey> keyCache;
+
+	private final String salt;
+
+	private final String iv;
+
+	private final String passphrase;
+
+	private final int keySize;
+
+	private final int iterationCount;
+
+	private final Timer encryptTimer;
+
+	private final Timer decryptTimer;
+
+	public PaperCryptoServiceImpl(MeterRegistry meterRegistry,
+			@Value("${aes.encryption.salt}") String salt,
+			@Value("${aes.encryption.iv}") String iv,
+			@Value("${aes.encryption.passphrase}") String passphrase,
+			@Value("${aes.encryption.key.size:128}") int keySize,
+			@Value("${aes.encryption.iteration.count:1000}") int iterationCount,
+			@Value("${aes.encryption.key.cache.size:64}") long keyCacheSize,
+			@Value("${aes.encryption.key.cache.expire.hours:24}") long keyCacheExpireHours) {
+		this.salt = salt;
+		this.iv = iv;
+		this.passphrase = passphrase;
+		this.keySize = keySize;
+		this.iterationCount = iterationCount;
+		// bounded, /v1/enc and /v1/dec accept caller supplied salt and passphrase
+		this.keyCache = Caffeine.newBuilder()
+				.maximumSize(keyCacheSize)
+				.expireAfterAccess(keyCacheExpireHours, TimeUnit.HOURS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, keyCache, "aesDerivedKeys");
+		this.encryptTimer = meterRegistry.timer("paper.crypto", "op", "encrypt");
+		this.decryptTimer = meterRegistry.timer("paper.crypto", "op", "decrypt");
+	}
+
+	@Override
+	public String encrypt(Object value) {
+		return encrypt(value, salt, iv, defaultPassphrase());
+	}
+
+	@Override
+	public void encrypt(Object value, OutputStream out) {
+		encryptTimer.record(() -> writeEncrypted(value, out, salt, iv, defaultPassphrase()));
+	}
+
+	@Override
+	public String encrypt(Object value, String salt, String iv, String passphrase) {
+		return encryptTimer.record(() -> {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			writeEncrypted(value, out, salt, iv, passphrase);
+			return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+		});
+	}
+
+	@Override
+	public <T> T decrypt(String ciphertext, Class<T> type) {
+		return decrypt(ciphertext, type, salt, iv, defaultPassphrase());
+	}
+
+	@Override
+	public <T> T decrypt(InputStream ciphertext, Class<T> type) {
+		return decryptTimer.record(() -> readDecrypted(new Base64InputStream(ciphertext), type, salt, iv, defaultPassphrase()));
+	}
+
+	@Override
+	public <T> T decrypt(String ciphertext, Class<T> type, String salt, String iv, String passphrase) {
+		return decryptTimer.record(() -> readDecrypted(new ByteArrayInputStream(Base64.decodeBase64(ciphertext)), type,
+				salt, iv, passphrase));
+	}
+
+	@Override
+	public <T> T decryptEnvelope(InputStream in, Class<T> type) {
+		return decryptTimer.record(() -> {
+			try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+				if (parser.nextToken() != JsonToken.START_OBJECT) {
+					throw new IllegalStateException("Expected a JSON object");
+				}
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					JsonToken value = parser.nextToken();
+					if (!"body".equals(field)) {
+						parser.skipChildren();
+						continue;
+					}
+					if (value != JsonToken.VALUE_STRING) {
+						return null;
+					}
+					DecryptingOutputStream plaintext = new DecryptingOutputStream(
+							initCipher(Cipher.DECRYPT_MODE, salt, iv, defaultPassphrase()));
+					parser.readBinaryValue(Base64Variants.MIME_NO_LINEFEEDS, plaintext);
+					return objectMapper.readValue(plaintext.finish(), type);
+				}
+				return null;
+			} catch (IOException | GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	@Override
+	public EncryptedPrefix encryptPrefix(byte[] plaintext) {
+		SecretKey key = secretKey(salt, defaultPassphrase());
+		int head = plaintext.length - plaintext.length % PREFIX_ALIGNMENT;
+		byte[] chainIv = AesEncDecUtil.hex(iv);
+		byte[] ciphertext = new byte[0];
+		if (head > 0) {
+			try {
+				Cipher cipher = Cipher.getInstance(HEAD_TRANSFORMATION);
+				cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(chainIv));
+				ciphertext = cipher.doFinal(plaintext, 0, head);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+			// CBC carries on from the last ciphertext block exactly as if the head had been part of the stream
+			chainIv = Arrays.copyOfRange(ciphertext, head - AES_BLOCK_SIZE, head);
+		}
+		return new EncryptedPrefix(key, Base64.encodeBase64(ciphertext), chainIv,
+				Arrays.copyOfRange(plaintext, head, plaintext.length));
+	}
+
+	@Override
+	public boolean isCurrent(EncryptedPrefix prefix) {
+		return prefix.getKey() == secretKey(salt, defaultPassphrase());
+	}
+
+	@Override
+	public void encrypt(EncryptedPrefix prefix, byte[] tail, OutputStream out) {
+		encryptTimer.record(() -> {
+			try {
+				out.write(prefix.getEncodedHead());
+				Cipher cipher = CIPHERS.get();
+				cipher.init(Cipher.ENCRYPT_MODE, (SecretKey) prefix.getKey(), new IvParameterSpec(prefix.getChainIv()));
+				try (OutputStream encrypted = new CipherOutputStream(
+						new Base64OutputStream(new NonClosingOutputStream(out), true, 0, null), cipher)) {
+					encrypted.write(prefix.getPlaintextRest());
+					encrypted.write(tail);
+				}
+			} catch (IOException | GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	private void writeEncrypted(Object value, OutputStream out, String salt, String iv, String passphrase) {
+		Cipher cipher = initCipher(Cipher.ENCRYPT_MODE, salt, iv, passphrase);
+		// closing the chain finishes the padding block and the Base64 tail, the caller's stream stays open
+		OutputStream encrypted = new CipherOutputStream(
+				new Base64OutputStream(new NonClosingOutputStream(out), true, 0, null), cipher);
+		try {
+			objectMapper.writeValue(encrypted, value);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private <T> T readDecrypted(InputStream in, Class<T> type, String salt, String iv, String passphrase) {
+		Cipher cipher = initCipher(Cipher.DECRYPT_MODE, salt, iv, passphrase);
+		try {
+			return objectMapper.readValue(new CipherInputStream(in, cipher), type);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Cipher initCipher(int mode, String salt, String iv, String passphrase) {
+		Cipher cipher = CIPHERS.get();
+		try {
+			cipher.init(mode, secretKey(salt, passphrase), new IvParameterSpec(AesEncDecUtil.hex(iv)));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+		return cipher;
+	}
+
+	private SecretKey secretKey(String salt, String passphrase) {
+		return keyCache.get(salt + ':' + passphrase, key -> deriveKey(salt, passphrase));
+	}
+
+	private SecretKey deriveKey(String salt, String passphrase) {
+		try {
+			SecretKeyFactory factory = SecretKeyFactory.getInstance(KEY_FACTORY_ALGORITHM);
+			PBEKeySpec spec = new PBEKeySpec(passphrase.toCharArray(), AesEncDecUtil.hex(salt), iterationCount, keySize);
+			try {
+				return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+			} finally {
+				spec.clearPassword();
+			}
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String defaultPassphrase() {
+		// enrichment may roll the passphrase (e.g. per day), the key cache simply picks up the new one
+		return HashUtil.setPassphraseEnrichment(passphrase);
+	}
+
+	private static Cipher newCipher() {
+		try {
+			return Cipher.getInstance(TRANSFORMATION);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Decrypts bytes as they are written, only the plaintext JSON is buffered
+	 */
+	private static class DecryptingOutputStream extends OutputStream {
+
+		private final Cipher cipher;
+
+		private final ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+
+		DecryptingOutputStream(Cipher cipher) {
+			this.cipher = cipher;
+		}
+
+		@Override
+		public void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			byte[] decrypted = cipher.update(b, off, len);
+			if (decrypted != null) {
+				plaintext.write(decrypted, 0, decrypted.length);
+			}
+		}
+
+		byte[] finish() throws GeneralSecurityException {
+			byte[] decrypted = cipher.doFinal();
+			plaintext.write(decrypted, 0, decrypted.length);
+			return plaintext.toByteArray();
+		}
+	}
+
+	private static class NonClosingOutputStream extends FilterOutputStream {
+
+		NonClosingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
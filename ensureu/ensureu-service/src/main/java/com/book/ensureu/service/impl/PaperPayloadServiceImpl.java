@@ -0,0 +1,190 @@
+package com.book.ensureu.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.model.Paper;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+import com.book.ensureu.response.dto.EncryptedResponseBody;
+import com.book.ensureu.service.PaperCryptoService;
+import com.book.ensureu.service.PaperCryptoService.EncryptedPrefix;
+import com.book.ensureu.service.PaperPayloadService;
+import com.book.ensureu.service.PaperTemplateService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * The response JSON is laid out as {"paper":...,&lt;user fields&gt;}. Everything up to the user
+ * fields is the same for every user starting the paper, so its JSON and the ciphertext of its
+ * aligned head are kept per paper, tied to the template instance they were built from. A paperDto
+ * only takes this path while its pattern is still the template's own instance, any answered or
+ * stale copy is encrypted as a whole.
+ */
+@Service
+public class PaperPayloadServiceImpl implements PaperPayloadService {
+
+	private static final byte[] PAPER_FIELD = "{\"paper\":".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] EMPTY_TAIL = "}".getBytes(StandardCharsets.US_ASCII);
+
+	private static final int AES_BLOCK_SIZE = 16;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final PaperCryptoService paperCryptoService;
+
+	private final PaperTemplateService paperTemplateService;
+
+	private final Cache<String, PaperPayload> payloads;
+
+	private final Counter hitCounter;
+
+	private final Counter missCounter;
+
+	private final Counter bypassCounter;
+
+	private final Counter cachedBytesCounter;
+
+	private final Counter encryptedBytesCounter;
+
+	public PaperPayloadServiceImpl(PaperCryptoService paperCryptoService, PaperTemplateService paperTemplateService,
+			MeterRegistry meterRegistry,
+			@Value("${paper.payload.cache.max.bytes:134217728}") long maxBytes,
+			@Value("${paper.template.cache.expire.minutes:10}") long expireMinutes) {
+		this.paperCryptoService = paperCryptoService;
+		this.paperTemplateService = paperTemplateService;
+		this.payloads = Caffeine.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((String key, PaperPayload payload) -> payload.weight())
+				.expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, payloads, "paperPayloads");
+		this.hitCounter = meterRegistry.counter("paper.payload.requests", "result", "hit");
+		this.missCounter = meterRegistry.counter("paper.payload.requests", "result", "miss");
+		this.bypassCounter = meterRegistry.counter("paper.payload.requests", "result", "bypass");
+		this.cachedBytesCounter = meterRegistry.counter("paper.payload.bytes", "source", "cache");
+		this.encryptedBytesCounter = meterRegistry.counter("paper.payload.bytes", "source", "encrypted");
+	}
+
+	@Override
+	public StreamingResponseBody encryptedPaper(TestType testType, PaperDto paperDto) {
+		Paper<Sections<SubSections<Question<Problem>>>> template = untouchedTemplate(testType, paperDto);
+		if (template == null) {
+			bypassCounter.increment();
+			return new EncryptedResponseBody(paperCryptoService, paperDto);
+		}
+		String key = testType + ":" + paperDto.getPaperId();
+		PaperPayload payload = payloads.getIfPresent(key);
+		if (payload != null && payload.template == template && paperCryptoService.isCurrent(payload.prefix)) {
+			hitCounter.increment();
+		} else {
+			// a rolled passphrase only needs the cached JSON encrypted again
+			byte[] json = payload != null && payload.template == template ? payload.json : paperJson(paperDto);
+			payload = new PaperPayload(template, json, paperCryptoService.encryptPrefix(json));
+			payloads.put(key, payload);
+			missCounter.increment();
+		}
+		byte[] tail = userFields(paperDto);
+		cachedBytesCounter.increment(payload.prefix.getEncodedHead().length);
+		encryptedBytesCounter.increment(encodedLength(payload.prefix.getPlaintextRest().length + tail.length));
+		return new EncryptedResponseBody(paperCryptoService, payload.prefix, tail);
+	}
+
+	private Paper<Sections<SubSections<Question<Problem>>>> untouchedTemplate(TestType testType, PaperDto paperDto) {
+		if (testType == null || paperDto == null || paperDto.getPaperId() == null || paperDto.getPaper() == null
+				|| paperDto.getPaper().getPattern() == null) {
+			return null;
+		}
+		Optional<? extends Paper<Sections<SubSections<Question<Problem>>>>> template;
+		switch (testType) {
+		case PAID:
+			template = paperTemplateService.getPaidTemplate(paperDto.getPaperId());
+			break;
+		case FREE:
+			template = paperTemplateService.getFreeTemplate(paperDto.getPaperId());
+			break;
+		case QUIZ:
+			template = paperTemplateService.getQuizTemplate(paperDto.getPaperId());
+			break;
+		default:
+			return null;
+		}
+		return template.filter(paper -> paper.getPattern() == paperDto.getPaper().getPattern()).orElse(null);
+	}
+
+	private byte[] paperJson(PaperDto paperDto) {
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		json.write(PAPER_FIELD, 0, PAPER_FIELD.length);
+		byte[] paper = writeJson(paperDto.getPaper());
+		json.write(paper, 0, paper.length);
+		return json.toByteArray();
+	}
+
+	/*
+	 * the rest of the PaperDto object, "," + its fields + "}", paper itself is left out as null
+	 */
+	private byte[] userFields(PaperDto paperDto) {
+		PaperDto userFields = new PaperDto();
+		BeanUtils.copyProperties(paperDto, userFields, "paper");
+		byte[] json = writeJson(userFields);
+		if (json.length <= 2) {
+			return EMPTY_TAIL;
+		}
+		json[0] = ',';
+		return json;
+	}
+
+	private byte[] writeJson(Object value) {
+		try {
+			return objectMapper.writeValueAsBytes(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/*
+	 * Base64 length of the PKCS5 padded ciphertext of plaintextLength bytes
+	 */
+	static long encodedLength(int plaintextLength) {
+		int padded = (plaintextLength / AES_BLOCK_SIZE + 1) * AES_BLOCK_SIZE;
+		return 4L * ((padded + 2) / 3);
+	}
+
+	private static final class PaperPayload {
+
+		private final Object template;
+
+		private final byte[] json;
+
+		private final EncryptedPrefix prefix;
+
+		private PaperPayload(Object template, byte[] json, EncryptedPrefix prefix) {
+			this.template = template;
+			this.json = json;
+			this.prefix = prefix;
+		}
+
+		private int weight() {
+			return json.length + prefix.size();
+		}
+	}
+}
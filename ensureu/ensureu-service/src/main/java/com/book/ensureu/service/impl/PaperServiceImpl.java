@@ -4,9 +4,6 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +14,7 @@ import org.springframework.stereotype.Service;
 import com.book.ensureu.constant.CounterEnum;
 import com.book.ensureu.constant.PaperCategory;
 import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.PaperStorageMode;
 import com.book.ensureu.constant.PaperSubCategory;
 import com.book.ensureu.constant.PaperType;
 import com.book.ensureu.constant.TestType;
@@ -28,8 +26,11 @@ import com.book.ensureu.model.FreePaper;
 import com.book.ensureu.model.FreePaperCollection;
 import com.book.ensureu.repository.FreePaperCollectionRepository;
 import com.book.ensureu.repository.FreePaperRepository;
+import com.book.ensureu.service.AnswerSheetService;
 import com.book.ensureu.service.CounterService;
 import com.book.ensureu.service.PaperService;
+import com.book.ensureu.service.PaperShelfService;
+import com.book.ensureu.service.PaperTemplateService;
 import com.book.ensureu.service.SubscriptionService;
 import com.book.ensureu.util.PaperConversionUtil;
 
@@ -54,6 +55,15 @@ public class PaperServiceImpl implements PaperService {
 	@Autowired
 	private SubscriptionService subscriptionService;
 
+	@Autowired
+	private AnswerSheetService answerSheetService;
+
+	@Autowired
+	private PaperTemplateService paperTemplateService;
+
+	@Autowired
+	private PaperShelfService paperShelfService;
+
 	@Override
 	public void savePaper(PaperDto paperDto) {
 		FreePaper freePaper = PaperConversionUtil.freePaperDtoToModel(paperDto);
@@ -65,13 +75,17 @@ public class PaperServiceImpl implements PaperService {
 						freePaper.getPaperId());
 				return;
 			}
+			if (existing != null) {
+				freePaper.setAutosaveSeq(existing.getAutosaveSeq());
+			}
 		}
 		if (paperDto.getId() == null) {
 			freePaper.setId(counterService.increment(CounterEnum.FREEPAPER));
 		}
 		LOGGER.info("User Mapping FreePaper UserId [" + freePaper.getUserId() + "] paperId [" + freePaper.getPaperId()
 				+ "]");
-		freePaperRepository.save(freePaper);
+		freePaperRepository.save(toStorageForm(freePaper));
+		paperShelfService.evict(freePaper.getUserId());
 	}
 
 	@Override
@@ -85,13 +99,17 @@ public class PaperServiceImpl implements PaperService {
 						freePaper.getPaperId());
 				return;
 			}
+			if (existing != null) {
+				freePaper.setAutosaveSeq(existing.getAutosaveSeq());
+			}
 		}
 		if (paperDto.getId() == null) {
 			throw new IllegalArgumentException("id can not be null");
 		}
 		LOGGER.info("User Mapping FreePaper UserId [" + freePaper.getUserId() + "] paperId [" + freePaper.getPaperId()
 				+ "]");
-		freePaperRepository.save(freePaper);
+		freePaperRepository.save(toStorageForm(freePaper));
+		paperShelfService.evict(freePaper.getUserId());
 	}
 
 	@Override
@@ -122,9 +140,9 @@ public class PaperServiceImpl implements PaperService {
 		FreePaper freePaper = freePaperRepository.findByUserIdAndPaperId(userId, paperId);
 		FreePaperCollection freePaperColl = null;
 		if (freePaper != null) {
-			return PaperConversionUtil.freePaperToDto(freePaper);
+			return PaperConversionUtil.freePaperToDto(withPaper(freePaper));
 		} else {
-			Optional<FreePaperCollection> freePaperCollOp = freePaperCollectionRepository.findById(paperId);
+			Optional<FreePaperCollection> freePaperCollOp = findPaperCollection(paperId);
 			if (freePaperCollOp.isPresent()) {
 
 				List<String> paperList = new ArrayList<String>();
@@ -143,6 +161,12 @@ public class PaperServiceImpl implements PaperService {
 		}
 	}
 
+	@Override
+	public Optional<PaperDto> findSavedPaperByPaperIdAndUserId(String paperId, String userId, TestType testType) {
+		return Optional.ofNullable(freePaperRepository.findByUserIdAndPaperId(userId, paperId))
+				.map(freePaper -> PaperConversionUtil.freePaperToDto(withPaper(freePaper)));
+	}
+
 	@Override
 	public long getAllCountPaper() {
 		return 0;
@@ -157,6 +181,7 @@ public class PaperServiceImpl implements PaperService {
 	public List<PaperDto> getPaperByUserId(String userId) {
 		List<FreePaper> freePaperList = freePaperRepository.findByUserId(userId);
 		if (freePaperList != null && !freePaperList.isEmpty()) {
+			freePaperList.forEach(this::withPaper);
 			return PaperConversionUtil.freePaperToDto(freePaperList);
 		}
 		return null;
@@ -166,6 +191,7 @@ public class PaperServiceImpl implements PaperService {
 	public List<PaperDto> getPaperByUserIdAndPaperType(String userId, PaperType paperType) {
 		List<FreePaper> freePaperList = freePaperRepository.findByUserIdAndPaperType(userId, paperType);
 		if (freePaperList != null && !freePaperList.isEmpty()) {
+			freePaperList.forEach(this::withPaper);
 			return PaperConversionUtil.freePaperToDto(freePaperList);
 		}
 		return null;
@@ -177,6 +203,7 @@ public class PaperServiceImpl implements PaperService {
 		List<FreePaper> freePaperList = freePaperRepository.findByUserIdAndPaperTypeAndTestType(userId, paperType,
 				testType);
 		if (freePaperList != null && !freePaperList.isEmpty()) {
+			freePaperList.forEach(this::withPaper);
 			return PaperConversionUtil.freePaperToDto(freePaperList);
 		}
 		return null;
@@ -244,7 +271,7 @@ public class PaperServiceImpl implements PaperService {
 		if (PaperStatus.DONE.equals(paperStatus)) {
 			FreePaper freePaperFromDb = freePaperRepository.findByUserIdAndPaperId(userId, paperId);
 			if (freePaperFromDb != null) {
-				return PaperConversionUtil.freePaperToDto(freePaperFromDb);
+				return PaperConversionUtil.freePaperToDto(withPaper(freePaperFromDb));
 			} else {
 				LOGGER.info("PaperId is not valid");
 				return null;
@@ -262,7 +289,7 @@ public class PaperServiceImpl implements PaperService {
 			if (paperStatus.equals(paperStatus.START)) {
 				Optional<FreePaperCollection> freePaperCollOpt = null;
 				if (freePaperFromDb != null) {
-					return PaperConversionUtil.freePaperToDto(freePaperFromDb);
+					return PaperConversionUtil.freePaperToDto(withPaper(freePaperFromDb));
 				} else {
 
 					// need to add validity date to paper...
@@ -276,14 +303,16 @@ public class PaperServiceImpl implements PaperService {
 						valididtyDate = paperInfo.get(0).getValidity();
 					}
 
-					freePaperCollOpt = freePaperCollectionRepository.findById(paperId);
+					freePaperCollOpt = findPaperCollection(paperId);
 					if (freePaperCollOpt.isPresent()) {
 						FreePaperCollection freePaperCollection = freePaperCollOpt.get();
-						FreePaper freePaper = createFreePaperByFreeCollectionPaper(freePaperCollection, testType,
-								userId, "UserMap", valididtyDate);
+						FreePaper freePaper = createFreePaperByFreeCollectionPaper(
+								isAnswerSheetMode() ? freePaperCollection : paperTemplateService.copyOf(freePaperCollection),
+								testType, userId, "UserMap", valididtyDate);
 						freePaper.setId(counterService.increment(CounterEnum.FREEPAPER));
-						freePaper = freePaperRepository.save(freePaper);
-						return PaperConversionUtil.freePaperToDto(freePaper);
+						freePaper = freePaperRepository.save(toStorageForm(freePaper));
+						paperShelfService.evict(userId);
+						return PaperConversionUtil.freePaperToDto(withPaper(freePaper));
 
 					} else {
 						throw new IllegalArgumentException("PaperId is not valid");
@@ -291,14 +320,49 @@ public class PaperServiceImpl implements PaperService {
 				}
 
 			} else if (paperStatus.equals(paperStatus.RESUME) || paperStatus.equals(paperStatus.INPROGRESS)) {
-				return PaperConversionUtil.freePaperToDto(freePaperFromDb);
+				return PaperConversionUtil.freePaperToDto(withPaper(freePaperFromDb));
 			}
 		}
 		return null;
 
 	}
 
-	private FreePaper createFreePaperByFreeCollectionPaper(FreePaperCollection freePaperColl, TestType testType,
+	private boolean isAnswerSheetMode() {
+		return PaperStorageMode.ANSWER_SHEET.equals(answerSheetService.getStorageMode());
+	}
+
+	/*
+	 * paper content does not change once it is published, every start of the same paper shares
+	 * one cached template
+	 */
+	private Optional<FreePaperCollection> findPaperCollection(String paperId) {
+		return paperTemplateService.getFreeTemplate(paperId);
+	}
+
+	/*
+	 * in answer sheet mode only the user's responses are persisted, the paper is dropped
+	 */
+	private FreePaper toStorageForm(FreePaper freePaper) {
+		if (freePaper != null && isAnswerSheetMode()) {
+			FreePaperCollection paper = freePaper.getPaper();
+			freePaper.setAnswerSheet(answerSheetService.toAnswerSheet(paper != null ? paper.getPattern() : null));
+			freePaper.setPaper(null);
+		}
+		return freePaper;
+	}
+
+	/*
+	 * rebuilds the paper of an answer sheet document from the template, whatever the current mode is
+	 */
+	private FreePaper withPaper(FreePaper freePaper) {
+		if (freePaper != null && freePaper.getPaper() == null && freePaper.getAnswerSheet() != null) {
+			paperTemplateService.getFreeTemplate(freePaper.getPaperId()).ifPresent(
+					template -> freePaper.setPaper(answerSheetService.merge(template, freePaper.getAnswerSheet())));
+		}
+		return freePaper;
+	}
+
+	static FreePaper createFreePaperByFreeCollectionPaper(FreePaperCollection freePaperColl, TestType testType,
 			String userId, String userMap, long validityDate) {
 
 		FreePaper freePaper = null;
@@ -339,62 +403,20 @@ public class PaperServiceImpl implements PaperService {
 	@Override
 	public List<PaperDto> getPaperStatusDetailsByPaperIds(String userId, List<String> paperIds, TestType testType)
 			throws Exception {
+		if (paperIds == null || paperIds.isEmpty()) {
+			return null;
+		}
 
-		List<PaperDto> resultDto = null;
-		try {
-			if (paperIds == null || paperIds.isEmpty()) {
-				return null;
-			}
-
-			// need to add validity date to paper...
-			// valididy date from subscription and user entitlemt collection.
-			List<PaperInfo> paperInfo = subscriptionService.getPaperInfoListForUser(userId, paperIds, testType);
-			AtomicLong valididtyDate = new AtomicLong();
-			if (paperInfo != null && !paperInfo.isEmpty()) {
-				valididtyDate.set(paperInfo.get(0).getValidity());
-			}
-
-			LOGGER.info("size Free paperIds [" + paperIds.size() + "] ");
-			LOGGER.info("getPaperStatusDetailsByPaperIds FRee userId [" + userId + "] paperIds [" + paperIds + "]");
-			List<FreePaper> freePaperList = freePaperRepository.findFreePaperUsingUserIdAndPaperIds(userId, paperIds);
-			if (freePaperList != null && !freePaperList.isEmpty()) {
-				LOGGER.info("getPaperStatusDetailsByPaperIds Free paperSize [" + freePaperList.size() + "]");
-				// get from user collection..
-				List<PaperDto> paperDtoFromUserPaper = PaperConversionUtil.freePaperToDto(freePaperList);
-				if (paperIds.size() > freePaperList.size()) {
-					freePaperList.forEach(p -> paperIds.remove(p.getPaperId()));
-					LOGGER.info("size after change paperSize [" + freePaperList.size() + "]");
-					// get from paperCollection...
-					List<FreePaperCollection> freePaperColl = freePaperCollectionRepository.findByIdListIns(paperIds);
-					if (freePaperColl != null && !freePaperColl.isEmpty()) {
-						List<FreePaper> freePaperList1 = new ArrayList<>();
-						freePaperColl
-								.forEach(freePaperCollItem -> freePaperList1.add(createFreePaperByFreeCollectionPaper(
-										freePaperCollItem, testType, userId, null, valididtyDate.get())));
-						List<PaperDto> paperDtoFromColl = PaperConversionUtil.freePaperToDto(freePaperList1);
-						resultDto = Stream.of(paperDtoFromUserPaper, paperDtoFromColl).flatMap(x -> x.stream())
-								.collect(Collectors.toList());
-					} else {
-						resultDto = paperDtoFromUserPaper;
-					}
-				} else {
-					resultDto = paperDtoFromUserPaper;
-				}
-				LOGGER.info("getPaperStatusDetailsByPaperIds PAID paperSize [" + paperIds.size() + "]");
-			}
-
-			else {
-				List<FreePaperCollection> freePaperColl = freePaperCollectionRepository.findByIdListIns(paperIds);
-				List<FreePaper> freePaperList1 = new ArrayList<>();
-				freePaperColl.forEach(
-						freePaperCollItem -> freePaperList1.add(createFreePaperByFreeCollectionPaper(freePaperCollItem,
-								testType, userId, null, valididtyDate.get())));
-				resultDto = PaperConversionUtil.freePaperToDto(freePaperList1);
-			}
-		} catch (Exception ex) {
-			throw ex;
+		// need to add validity date to paper...
+		// valididy date from subscription and user entitlemt collection.
+		List<PaperInfo> paperInfo = subscriptionService.getPaperInfoListForUser(userId, paperIds, testType);
+		long valididtyDate = 0;
+		if (paperInfo != null && !paperInfo.isEmpty()) {
+			valididtyDate = paperInfo.get(0).getValidity();
 		}
-		return resultDto;
+
+		LOGGER.info("getPaperStatusDetailsByPaperIds FRee userId [" + userId + "] paperIds [" + paperIds + "]");
+		return paperShelfService.getPaperShelf(userId, testType, paperIds, valididtyDate, false);
 	}
 
 	/*
@@ -445,9 +467,6 @@ public class PaperServiceImpl implements PaperService {
 	@Override
 	public List<PaperDto> getPaperStatusDetailsByPaperCateoryORTestType(String userId, TestType testType,
 			PaperType paperType, PaperCategory paperCategory) throws Exception {
-		// TODO Auto-generated method stub
-		List<PaperDto> resultDto = null;
-
 		// need to add paperIds from subscription and entitle table..
 
 		//Comenting it free paper don't need subscriptions.... for now later we will check and descide - Dharmendra.
@@ -468,74 +487,11 @@ public class PaperServiceImpl implements PaperService {
 			// throw new IllegalArgumentException("Paper is not subscribed");
 		}
 
-		/*
-		 * List<Long> paperIds=new ArrayList<>(); paperIds.add(3L); paperIds.add(4L);
-		 * paperIds.add(5L); paperIds.add(6L);
-		 */
-
-		try {
-			if (paperIds == null || paperIds.isEmpty()) {
-				return null;
-			}
-			LOGGER.info("size Free paperIds [" + paperIds.size() + "] ");
-			LOGGER.info("getPaperStatusDetailsByPaperIds FRee userId [" + userId + "] paperIds [" + paperIds + "]");
-			List<FreePaper> freePaperList = freePaperRepository.findFreePaperUsingUserIdAndPaperIds(userId, paperIds);
-			if (freePaperList != null && !freePaperList.isEmpty()) {
-				LOGGER.info("getPaperStatusDetailsByPaperIds Free paperSize [" + freePaperList.size() + "]");
-
-				List<FreePaper> paperNotDoneOnlyList = new ArrayList<>();
-				freePaperList.forEach(paperFree -> {
-
-					if (paperFree != null && !PaperStatus.DONE.equals(paperFree.getPaperStatus())) {
-						paperNotDoneOnlyList.add(paperFree);
-					}
-				});
-
-				LOGGER.info("getPaperStatusDetailsByPaperIds after remove DONE statuc [" + paperNotDoneOnlyList.size()
-						+ "]");
-
-				// get from user collection..
-				List<PaperDto> paperDtoFromUserPaper = PaperConversionUtil.freePaperToDto(paperNotDoneOnlyList);
-				if (paperIds.size() > freePaperList.size()) {
-					freePaperList.forEach(p -> paperIds.remove(p.getPaperId()));
-					LOGGER.info("size after change paperSize [" + freePaperList.size() + "]");
-					// get from paperCollection...
-					List<FreePaperCollection> freePaperColl = freePaperCollectionRepository.findByIdListIns(paperIds);
-					if (freePaperColl != null && !freePaperColl.isEmpty()) {
-						List<FreePaper> freePaperList1 = new ArrayList<>();
-						freePaperColl
-								.forEach(freePaperCollItem -> freePaperList1.add(createFreePaperByFreeCollectionPaper(
-										freePaperCollItem, testType, userId, null, validityDate)));
-						List<PaperDto> paperDtoFromColl = PaperConversionUtil.freePaperToDto(freePaperList1);
-						if (paperDtoFromUserPaper != null && paperDtoFromColl != null) {
-							resultDto = Stream.of(paperDtoFromUserPaper, paperDtoFromColl).flatMap(x -> x.stream())
-									.collect(Collectors.toList());
-						} else if (paperDtoFromUserPaper != null) {
-							resultDto = paperDtoFromUserPaper;
-						} else if (paperDtoFromColl != null) {
-							resultDto = paperDtoFromColl;
-						}
-
-					} else {
-						resultDto = paperDtoFromUserPaper;
-					}
-				} else {
-					resultDto = paperDtoFromUserPaper;
-				}
-				LOGGER.info("getPaperStatusDetailsByPaperIds PAID paperSize [" + paperIds.size() + "]");
-			}
-
-			else {
-				List<FreePaperCollection> freePaperColl = freePaperCollectionRepository.findByIdListIns(paperIds);
-				List<FreePaper> freePaperList1 = new ArrayList<>();
-				freePaperColl.forEach(freePaperCollItem -> freePaperList1.add(
-						createFreePaperByFreeCollectionPaper(freePaperCollItem, testType, userId, null, validityDate)));
-				resultDto = PaperConversionUtil.freePaperToDto(freePaperList1);
-			}
-		} catch (Exception ex) {
-			throw ex;
+		if (paperIds.isEmpty()) {
+			return null;
 		}
-		return resultDto;
+		LOGGER.info("getPaperStatusDetailsByPaperCateoryORTestType FRee userId [" + userId + "] paperIds [" + paperIds + "]");
+		return paperShelfService.getPaperShelf(userId, testType, paperIds, validityDate, true);
 	}
 
 }
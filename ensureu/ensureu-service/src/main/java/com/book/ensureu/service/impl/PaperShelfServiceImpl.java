@@ -0,0 +1,133 @@
+package com.book.ensureu.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dao.PaperShelfDao;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.dto.PaperShelfRow;
+import com.book.ensureu.exception.unchecked.InvalidRequestException;
+import com.book.ensureu.model.FreePaper;
+import com.book.ensureu.model.FreePaperCollection;
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.service.PaperShelfService;
+import com.book.ensureu.util.PaperConversionUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * A shelf is read with one aggregation through PaperShelfDao. Shelves are cached per user, keyed by
+ * the request inside the user's entry, so evicting a user drops every listing of theirs at once. A
+ * load racing with an eviction lands in the dropped entry and is never served.
+ */
+@Service
+public class PaperShelfServiceImpl implements PaperShelfService {
+
+	private final PaperShelfDao paperShelfDao;
+
+	private final Cache<String, Map<String, List<PaperDto>>> shelves;
+
+	public PaperShelfServiceImpl(PaperShelfDao paperShelfDao, MeterRegistry meterRegistry,
+			@Value("${paper.shelf.cache.max.users:10000}") long maxUsers,
+			@Value("${paper.shelf.cache.expire.seconds:60}") long expireSeconds) {
+		this.paperShelfDao = paperShelfDao;
+		this.shelves = Caffeine.newBuilder()
+				.maximumSize(maxUsers)
+				.expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, shelves, "paperShelves");
+	}
+
+	@Override
+	public List<PaperDto> getPaperShelf(String userId, TestType testType, List<String> paperIds, long validityDate,
+			boolean excludeDone) {
+		if (userId == null || paperIds == null || paperIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+		Map<String, List<PaperDto>> userShelves = shelves.get(userId, id -> new ConcurrentHashMap<>());
+		String key = shelfKey(testType, paperIds, validityDate, excludeDone);
+		List<PaperDto> shelf = userShelves.get(key);
+		if (shelf == null) {
+			shelf = Collections.unmodifiableList(load(userId, testType, paperIds, validityDate, excludeDone));
+			userShelves.putIfAbsent(key, shelf);
+		}
+		return new ArrayList<>(shelf);
+	}
+
+	@Override
+	public void evict(String userId) {
+		if (userId != null) {
+			shelves.invalidate(userId);
+		}
+	}
+
+	private List<PaperDto> load(String userId, TestType testType, List<String> paperIds, long validityDate,
+			boolean excludeDone) {
+		switch (testType) {
+		case PAID:
+			return paidShelf(paperShelfDao.findShelf(userId, paperIds, PaidPaperCollection.class, PaidPaper.class),
+					testType, userId, validityDate, excludeDone);
+		case FREE:
+			return freeShelf(paperShelfDao.findShelf(userId, paperIds, FreePaperCollection.class, FreePaper.class),
+					testType, userId, validityDate, excludeDone);
+		default:
+			throw new InvalidRequestException("paper shelf is not supported for " + testType);
+		}
+	}
+
+	static List<PaperDto> paidShelf(List<PaperShelfRow<PaidPaperCollection, PaidPaper>> rows, TestType testType,
+			String userId, long validityDate, boolean excludeDone) {
+		List<PaidPaper> userPapers = new ArrayList<>();
+		List<PaidPaper> notStarted = new ArrayList<>();
+		for (PaperShelfRow<PaidPaperCollection, PaidPaper> row : rows) {
+			PaidPaper userPaper = row.getUserPaper();
+			if (userPaper == null) {
+				notStarted.add(PaidPaperServiceImpl.createPaidPaperByPaidCollectionPaper(row.getPaperCollection(),
+						testType, userId, null, validityDate));
+			} else if (!excludeDone || !PaperStatus.DONE.equals(userPaper.getPaperStatus())) {
+				userPapers.add(userPaper);
+			}
+		}
+		userPapers.addAll(notStarted);
+		return orEmpty(PaperConversionUtil.paidPaperToDto(userPapers));
+	}
+
+	static List<PaperDto> freeShelf(List<PaperShelfRow<FreePaperCollection, FreePaper>> rows, TestType testType,
+			String userId, long validityDate, boolean excludeDone) {
+		List<FreePaper> userPapers = new ArrayList<>();
+		List<FreePaper> notStarted = new ArrayList<>();
+		for (PaperShelfRow<FreePaperCollection, FreePaper> row : rows) {
+			FreePaper userPaper = row.getUserPaper();
+			if (userPaper == null) {
+				notStarted.add(PaperServiceImpl.createFreePaperByFreeCollectionPaper(row.getPaperCollection(),
+						testType, userId, null, validityDate));
+			} else if (!excludeDone || !PaperStatus.DONE.equals(userPaper.getPaperStatus())) {
+				userPapers.add(userPaper);
+			}
+		}
+		userPapers.addAll(notStarted);
+		return orEmpty(PaperConversionUtil.freePaperToDto(userPapers));
+	}
+
+	private static List<PaperDto> orEmpty(List<PaperDto> paperDtos) {
+		return paperDtos != null ? paperDtos : new ArrayList<>();
+	}
+
+	private static String shelfKey(TestType testType, List<String> paperIds, long validityDate, boolean excludeDone) {
+		return testType + ":" + excludeDone + ":" + validityDate + ":" + String.join(",", paperIds);
+	}
+}
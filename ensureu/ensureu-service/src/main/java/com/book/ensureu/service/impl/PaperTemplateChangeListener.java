@@ -0,0 +1,65 @@
+package com.book.ensureu.service.impl;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.model.FreePaperCollection;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.QuizPaperCollection;
+import com.book.ensureu.service.PaperTemplateService;
+
+/**
+ * Invalidates the cached template of a paper collection on every save or delete of it, whichever
+ * path wrote it: the admin paper screens, the CSV upload, the quiz collection service and the paper
+ * to subscription job.
+ */
+@Component
+public class PaperTemplateChangeListener extends AbstractMongoEventListener<Object> {
+
+	private final PaperTemplateService paperTemplateService;
+
+	public PaperTemplateChangeListener(PaperTemplateService paperTemplateService) {
+		this.paperTemplateService = paperTemplateService;
+	}
+
+	@Override
+	public void onAfterSave(AfterSaveEvent<Object> event) {
+		Object source = event.getSource();
+		if (source instanceof PaidPaperCollection) {
+			paperTemplateService.invalidate(TestType.PAID, ((PaidPaperCollection) source).getId());
+		} else if (source instanceof FreePaperCollection) {
+			paperTemplateService.invalidate(TestType.FREE, ((FreePaperCollection) source).getId());
+		} else if (source instanceof QuizPaperCollection) {
+			paperTemplateService.invalidate(TestType.QUIZ, ((QuizPaperCollection) source).getId());
+		}
+	}
+
+	/*
+	 * the source of a delete is the query, repository deletes match a single _id
+	 */
+	@Override
+	public void onAfterDelete(AfterDeleteEvent<Object> event) {
+		TestType testType = testType(event.getType());
+		Object id = event.getSource().get("_id");
+		if (testType != null && id != null && !(id instanceof Document)) {
+			paperTemplateService.invalidate(testType, id.toString());
+		}
+	}
+
+	static TestType testType(Class<?> type) {
+		if (type == null) {
+			return null;
+		} else if (PaidPaperCollection.class.isAssignableFrom(type)) {
+			return TestType.PAID;
+		} else if (FreePaperCollection.class.isAssignableFrom(type)) {
+			return TestType.FREE;
+		} else if (QuizPaperCollection.class.isAssignableFrom(type)) {
+			return TestType.QUIZ;
+		}
+		return null;
+	}
+}
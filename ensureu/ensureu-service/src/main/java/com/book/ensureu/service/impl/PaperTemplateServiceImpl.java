@@ -0,0 +1,342 @@
+package com.book.ensureu.service.impl;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import javax.annotation.PostConstruct;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.book.ensureu.admin.constant.PaperStateStatus;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.model.FreePaperCollection;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.Paper;
+import com.book.ensureu.model.PaperTemplateInvalidation;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.QuizPaperCollection;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+import com.book.ensureu.repository.FreePaperCollectionRepository;
+import com.book.ensureu.repository.PaidPaperCollectionRepository;
+import com.book.ensureu.repository.QuizPaperCollectionRepository;
+import com.book.ensureu.service.PaperTemplateService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Templates are keyed by (testType, paperId, version) and weighed by their question count. An admin
+ * edit bumps the version of the paper, so a load that read the old document while the edit was in
+ * flight lands under a key nobody asks for anymore instead of overwriting the fresh one. Versions
+ * are local to this instance, an edit is published to the others through paperTemplateInvalidation,
+ * which every instance polls, so a template is stale on another instance for at most one poll interval.
+ */
+@Service
+public class PaperTemplateServiceImpl implements PaperTemplateService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PaperTemplateServiceImpl.class);
+
+	/** invalidations are read again for this long, so a write committed behind a later one is not missed */
+	private static final long INVALIDATION_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	private static final long INVALIDATION_RETENTION_SECONDS = TimeUnit.DAYS.toSeconds(1);
+
+	private final PaidPaperCollectionRepository paidPaperCollectionRepository;
+
+	private final FreePaperCollectionRepository freePaperCollectionRepository;
+
+	private final QuizPaperCollectionRepository quizPaperCollectionRepository;
+
+	private final MongoTemplate mongoTemplate;
+
+	private final long prewarmWindowMillis;
+
+	private final int prewarmMaxPapers;
+
+	private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+	/** invalidatedAt of the invalidations already applied here, by testType:paperId */
+	private final Map<String, Date> appliedInvalidations = new ConcurrentHashMap<>();
+
+	private volatile long invalidationWatermark = System.currentTimeMillis() - INVALIDATION_OVERLAP_MILLIS;
+
+	private final Cache<TemplateKey, Paper<Sections<SubSections<Question<Problem>>>>> templates;
+
+	public PaperTemplateServiceImpl(PaidPaperCollectionRepository paidPaperCollectionRepository,
+			FreePaperCollectionRepository freePaperCollectionRepository,
+			QuizPaperCollectionRepository quizPaperCollectionRepository, MongoTemplate mongoTemplate,
+			MeterRegistry meterRegistry,
+			@Value("${paper.template.cache.max.questions:100000}") long maxQuestions,
+			@Value("${paper.template.cache.expire.minutes:10}") long expireMinutes,
+			@Value("${paper.template.prewarm.window.minutes:30}") long prewarmWindowMinutes,
+			@Value("${paper.template.prewarm.max.papers:50}") int prewarmMaxPapers) {
+		this.paidPaperCollectionRepository = paidPaperCollectionRepository;
+		this.freePaperCollectionRepository = freePaperCollectionRepository;
+		this.quizPaperCollectionRepository = quizPaperCollectionRepository;
+		this.mongoTemplate = mongoTemplate;
+		this.prewarmWindowMillis = TimeUnit.MINUTES.toMillis(prewarmWindowMinutes);
+		this.prewarmMaxPapers = prewarmMaxPapers;
+		this.templates = Caffeine.newBuilder()
+				.maximumWeight(maxQuestions)
+				.weigher((TemplateKey key, Paper<Sections<SubSections<Question<Problem>>>> paper) -> weight(paper))
+				.expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, templates, "paperTemplates");
+	}
+
+	@PostConstruct
+	public void ensureIndexes() {
+		try {
+			mongoTemplate.indexOps(PaperTemplateInvalidation.class).ensureIndex(new Index()
+					.on("invalidatedAt", Sort.Direction.ASC).expire(INVALIDATION_RETENTION_SECONDS, TimeUnit.SECONDS));
+		} catch (Exception ex) {
+			LOGGER.error("[paperTemplate] unable to ensure paperTemplateInvalidation indexes", ex);
+		}
+	}
+
+	@Override
+	public Optional<PaidPaperCollection> getPaidTemplate(String paperId) {
+		return get(TestType.PAID, paperId, PaidPaperCollection.class);
+	}
+
+	@Override
+	public Optional<FreePaperCollection> getFreeTemplate(String paperId) {
+		return get(TestType.FREE, paperId, FreePaperCollection.class);
+	}
+
+	@Override
+	public Optional<QuizPaperCollection> getQuizTemplate(String paperId) {
+		return get(TestType.QUIZ, paperId, QuizPaperCollection.class);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <C extends Paper<Sections<SubSections<Question<Problem>>>>> C copyOf(C template) {
+		if (template == null) {
+			return null;
+		}
+		MongoConverter converter = mongoTemplate.getConverter();
+		Document document = new Document();
+		converter.write(template, document);
+		return (C) converter.read(template.getClass(), document);
+	}
+
+	@Override
+	public void invalidate(TestType testType, String paperId) {
+		if (testType == null || paperId == null) {
+			return;
+		}
+		evict(testType, paperId);
+		publish(testType, paperId);
+	}
+
+	/**
+	 * Drops the templates other instances invalidated since the last poll.
+	 */
+	@Scheduled(fixedDelayString = "${paper.template.invalidation.poll.millis:5000}",
+			initialDelayString = "${paper.template.invalidation.poll.millis:5000}")
+	public void pollInvalidations() {
+		try {
+			Query query = new Query(Criteria.where("invalidatedAt")
+					.gte(new Date(invalidationWatermark - INVALIDATION_OVERLAP_MILLIS)));
+			long watermark = invalidationWatermark;
+			for (PaperTemplateInvalidation invalidation : mongoTemplate.find(query, PaperTemplateInvalidation.class)) {
+				Date invalidatedAt = invalidation.getInvalidatedAt();
+				if (invalidatedAt == null || invalidation.getTestType() == null || invalidation.getPaperId() == null) {
+					continue;
+				}
+				watermark = Math.max(watermark, invalidatedAt.getTime());
+				Date applied = appliedInvalidations.put(invalidation.getId(), invalidatedAt);
+				if (applied == null || applied.before(invalidatedAt)) {
+					evict(invalidation.getTestType(), invalidation.getPaperId());
+				}
+			}
+			invalidationWatermark = watermark;
+			long floor = watermark - INVALIDATION_OVERLAP_MILLIS;
+			appliedInvalidations.values().removeIf(invalidatedAt -> invalidatedAt.getTime() < floor);
+		} catch (Exception ex) {
+			LOGGER.error("[paperTemplate] invalidation poll failed", ex);
+		}
+	}
+
+	private void evict(TestType testType, String paperId) {
+		long version = versions.merge(versionKey(testType, paperId), 1L, Long::sum);
+		templates.asMap().keySet().removeIf(key -> key.testType == testType && key.paperId.equals(paperId));
+		LOGGER.info("[paperTemplate] invalidated testType [{}] paperId [{}] version [{}]", testType, paperId, version);
+	}
+
+	/*
+	 * the own invalidation is recorded as applied, so the poll does not evict a template loaded since
+	 */
+	private void publish(TestType testType, String paperId) {
+		String id = versionKey(testType, paperId);
+		try {
+			PaperTemplateInvalidation invalidation = mongoTemplate.findAndModify(
+					new Query(Criteria.where("id").is(id)),
+					new Update().set("testType", testType).set("paperId", paperId).currentDate("invalidatedAt"),
+					FindAndModifyOptions.options().upsert(true).returnNew(true), PaperTemplateInvalidation.class);
+			if (invalidation != null && invalidation.getInvalidatedAt() != null) {
+				appliedInvalidations.merge(id, invalidation.getInvalidatedAt(),
+						(applied, published) -> applied.after(published) ? applied : published);
+			}
+		} catch (Exception ex) {
+			LOGGER.error("[paperTemplate] unable to publish the invalidation of [{}], other instances keep it until expiry",
+					id, ex);
+		}
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${paper.template.prewarm.interval.millis:300000}",
+			initialDelayString = "${paper.template.prewarm.initial.delay.millis:60000}")
+	public void prewarm() {
+		try {
+			long now = System.currentTimeMillis();
+			int loaded = prewarm(TestType.PAID, PaidPaperCollection.class, now)
+					+ prewarm(TestType.FREE, FreePaperCollection.class, now)
+					+ prewarm(TestType.QUIZ, QuizPaperCollection.class, now);
+			if (loaded > 0) {
+				LOGGER.info("[paperTemplate] pre-warmed [{}] papers starting within [{}] ms", loaded, prewarmWindowMillis);
+			}
+		} catch (Exception ex) {
+			LOGGER.error("[paperTemplate] pre-warm failed", ex);
+		}
+	}
+
+	private <T extends Paper<Sections<SubSections<Question<Problem>>>>> int prewarm(TestType testType,
+			Class<T> paperClass, long now) {
+		Query query = new Query(Criteria.where("paperStateStatus").is(PaperStateStatus.ACTIVE)
+				.and("validityRangeStartDateTime").gte(now).lte(now + prewarmWindowMillis))
+				.with(Sort.by("validityRangeStartDateTime"))
+				.limit(prewarmMaxPapers);
+		List<T> papers = mongoTemplate.find(query, paperClass);
+		int loaded = 0;
+		for (T paper : papers) {
+			String paperId = paperId(paper);
+			if (paperId != null && templates.asMap().putIfAbsent(key(testType, paperId), paper) == null) {
+				loaded++;
+			}
+		}
+		return loaded;
+	}
+
+	private <T> Optional<T> get(TestType testType, String paperId, Class<T> paperClass) {
+		if (paperId == null) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(paperClass.cast(templates.get(key(testType, paperId), this::load)));
+	}
+
+	private Paper<Sections<SubSections<Question<Problem>>>> load(TemplateKey key) {
+		switch (key.testType) {
+		case PAID:
+			return paidPaperCollectionRepository.findById(key.paperId).orElse(null);
+		case FREE:
+			return freePaperCollectionRepository.findById(key.paperId).orElse(null);
+		case QUIZ:
+			return quizPaperCollectionRepository.findById(key.paperId).orElse(null);
+		default:
+			return null;
+		}
+	}
+
+	private TemplateKey key(TestType testType, String paperId) {
+		return new TemplateKey(testType, paperId, versions.getOrDefault(versionKey(testType, paperId), 0L));
+	}
+
+	private static String versionKey(TestType testType, String paperId) {
+		return testType + ":" + paperId;
+	}
+
+	private static String paperId(Paper<?> paper) {
+		if (paper instanceof PaidPaperCollection) {
+			return ((PaidPaperCollection) paper).getId();
+		} else if (paper instanceof FreePaperCollection) {
+			return ((FreePaperCollection) paper).getId();
+		} else if (paper instanceof QuizPaperCollection) {
+			return ((QuizPaperCollection) paper).getId();
+		}
+		return null;
+	}
+
+	/*
+	 * counts the questions actually present rather than trusting totalQuestionCount, a paper
+	 * weighs at least 1 so empty drafts still count against the limit
+	 */
+	static int weight(Paper<Sections<SubSections<Question<Problem>>>> paper) {
+		int questions = 0;
+		if (paper.getPattern() != null && paper.getPattern().getSections() != null) {
+			for (Sections<SubSections<Question<Problem>>> section : paper.getPattern().getSections()) {
+				if (section == null) {
+					continue;
+				}
+				if (section.getQuestionData() != null && section.getQuestionData().getQuestions() != null) {
+					questions += section.getQuestionData().getQuestions().size();
+				}
+				if (section.getSubSections() != null) {
+					for (SubSections<Question<Problem>> subSection : section.getSubSections()) {
+						if (subSection != null && subSection.getQuestionData() != null
+								&& subSection.getQuestionData().getQuestions() != null) {
+							questions += subSection.getQuestionData().getQuestions().size();
+						}
+					}
+				}
+			}
+		}
+		return Math.max(1, questions);
+	}
+
+	private static final class TemplateKey {
+
+		private final TestType testType;
+
+		private final String paperId;
+
+		private final long version;
+
+		private TemplateKey(TestType testType, String paperId, long version) {
+			this.testType = testType;
+			this.paperId = paperId;
+			this.version = version;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof TemplateKey)) {
+				return false;
+			}
+			TemplateKey other = (TemplateKey) o;
+			return version == other.version && testType == other.testType && paperId.equals(other.paperId);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(testType, paperId, version);
+		}
+	}
+}
@@ -31,6 +31,7 @@ import com.book.ensureu.repository.QuizPaperCollectionRepository;
 import com.book.ensureu.repository.QuizPaperRepository;
 import com.book.ensureu.service.CounterService;
 import com.book.ensureu.service.PaperService;
+import com.book.ensureu.service.PaperTemplateService;
 import com.book.ensureu.service.SubscriptionService;
 import com.book.ensureu.util.QuizPaperConversionUtil;
 
@@ -51,6 +52,9 @@ public class QuizPaperServiceImpl implements PaperService {
 	@Autowired
 	CounterService counterService;
 
+	@Autowired
+	private PaperTemplateService paperTemplateService;
+
 	@Autowired
 	@Lazy
 	private SubscriptionService subscriptionService;
@@ -68,6 +72,7 @@ public class QuizPaperServiceImpl implements PaperService {
 		}
 		log.info("User Mapping quizPaper UserId [" + quizPaper.getUserId() + "] paperId [" + quizPaper.getPaperId()
 				+ "]");
+		keepAutosaveSeq(quizPaper);
 		quizPaperRepository.save(quizPaper);
 		
 	}
@@ -78,6 +83,7 @@ public class QuizPaperServiceImpl implements PaperService {
 		QuizPaper quizPaper = QuizPaperConversionUtil.quizPaperDtoToModel(paperDto);
 		log.info("User Mapping QuizPaper UserId [" + quizPaper.getUserId() + "] paperId [" + quizPaper.getPaperId()
 				+ "]");
+		keepAutosaveSeq(quizPaper);
 		quizPaperRepository.save(quizPaper);
 	}
 
@@ -105,6 +111,12 @@ public class QuizPaperServiceImpl implements PaperService {
 		return null;
 	}
 
+	@Override
+	public Optional<PaperDto> findSavedPaperByPaperIdAndUserId(String paperId, String userId, TestType typePaper) {
+		return Optional.ofNullable(quizPaperRepository.findByUserIdAndPaperId(userId, paperId))
+				.map(QuizPaperConversionUtil::quizPaperToDto);
+	}
+
 	@Override
 	public List<PaperDto> getPaperByUserId(String userId) {
 		return null;
@@ -165,8 +177,8 @@ public class QuizPaperServiceImpl implements PaperService {
 						valididtyDate = paperInfo.get(0).getValidity();
 					}
 
-					Optional<QuizPaperCollection> quizPaperCollOpt = quizPaperCollectionRepository
-							.findById(paperId);
+					Optional<QuizPaperCollection> quizPaperCollOpt = paperTemplateService
+							.getQuizTemplate(paperId);
 					if (quizPaperCollOpt.isPresent()) {
 						QuizPaperCollection quizPaperCollection = quizPaperCollOpt
 								.get();
@@ -395,7 +407,7 @@ public class QuizPaperServiceImpl implements PaperService {
 			quizPaper = new QuizPaper();
 			quizPaper.setPaperId(quizPaperColl.getId());
 			if (userMapped != null) {
-				quizPaper.setPaper(quizPaperColl);
+				quizPaper.setPaper(paperTemplateService.copyOf(quizPaperColl));
 				quizPaper.setPaperStatus(PaperStatus.INPROGRESS);
 				quizPaper.setCreateDateTime(System.currentTimeMillis());
 			} else {
@@ -420,4 +432,17 @@ public class QuizPaperServiceImpl implements PaperService {
 		return quizPaper; 
 	}
 
+	/*
+	 * the dto carries no autosave sequence, saving without the stored one would let a late batch
+	 * overwrite the responses of this save
+	 */
+	private void keepAutosaveSeq(QuizPaper quizPaper) {
+		if (quizPaper.getUserId() == null || quizPaper.getPaperId() == null) {
+			return;
+		}
+		QuizPaper existing = quizPaperRepository.findByUserIdAndPaperId(quizPaper.getUserId(), quizPaper.getPaperId());
+		if (existing != null) {
+			quizPaper.setAutosaveSeq(existing.getAutosaveSeq());
+		}
+	}
 }
@@ -0,0 +1,68 @@
+package com.book.ensureu.service.impl;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import com.book.ensureu.common.model.PriceMetaData;
+import com.book.ensureu.event.SubscriptionExpiredEvent;
+import com.book.ensureu.model.PaperInfoDataModel;
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.service.SubscriptionCatalogService;
+import com.book.ensureu.service.impl.helper.SubscriptionPaperResolver;
+
+/**
+ * Marks the subscription catalog changed on every save or delete of the documents it is built from,
+ * whichever path wrote them: the admin subscription and price screens, paper info enabling and the
+ * paper to subscription job. Subscription and paper info writes also drop the memoized fallback papers,
+ * as does a subscription lapsing.
+ */
+@Component
+public class SubscriptionCatalogChangeListener extends AbstractMongoEventListener<Object> {
+
+	private final SubscriptionCatalogService subscriptionCatalogService;
+
+	private final SubscriptionPaperResolver subscriptionPaperResolver;
+
+	public SubscriptionCatalogChangeListener(SubscriptionCatalogService subscriptionCatalogService,
+			SubscriptionPaperResolver subscriptionPaperResolver) {
+		this.subscriptionCatalogService = subscriptionCatalogService;
+		this.subscriptionPaperResolver = subscriptionPaperResolver;
+	}
+
+	@Override
+	public void onAfterSave(AfterSaveEvent<Object> event) {
+		changed(event.getSource().getClass());
+	}
+
+	@Override
+	public void onAfterDelete(AfterDeleteEvent<Object> event) {
+		if (event.getType() != null) {
+			changed(event.getType());
+		}
+	}
+
+	/*
+	 * a lapsed subscription drops out of the catalog and the fallback without any write
+	 */
+	@EventListener
+	public void onSubscriptionExpired(SubscriptionExpiredEvent event) {
+		changed(Subscription.class);
+	}
+
+	private void changed(Class<?> type) {
+		if (isCatalogSource(type)) {
+			subscriptionCatalogService.markChanged();
+		}
+		if (Subscription.class.isAssignableFrom(type) || PaperInfoDataModel.class.isAssignableFrom(type)) {
+			subscriptionPaperResolver.evictFallback();
+		}
+	}
+
+	static boolean isCatalogSource(Class<?> type) {
+		return Subscription.class.isAssignableFrom(type) || PriceMetaData.class.isAssignableFrom(type)
+				|| PaperInfoDataModel.class.isAssignableFrom(type);
+	}
+}
@@ -0,0 +1,132 @@
+package com.book.ensureu.service.impl;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperPackageDto;
+import com.book.ensureu.dto.SubscriptionCatalogSnapshot;
+import com.book.ensureu.service.SubscriptionCatalogService;
+import com.book.ensureu.service.SubscriptionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Snapshots are built with {@link SubscriptionService#getSubscriptionList(TestType)} and replaced
+ * whole, so a request sees either the old or the new catalog. Rebuilds are serialized, a rebuild
+ * that fails keeps the previous snapshot. The ETag is a digest of the serialized package and
+ * Last-Modified only moves when the digest does, a scheduled rebuild of an unchanged catalog keeps
+ * clients' cached copies valid.
+ */
+@Slf4j
+@Service
+public class SubscriptionCatalogServiceImpl implements SubscriptionCatalogService {
+
+	private final SubscriptionService subscriptionService;
+
+	private final ObjectMapper objectMapper;
+
+	private final Timer buildTimer;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Map<TestType, SubscriptionCatalogSnapshot> snapshots = new ConcurrentHashMap<>();
+
+	private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+	private final long rebuildDelayMillis;
+
+	private final ScheduledExecutorService refresher;
+
+	public SubscriptionCatalogServiceImpl(SubscriptionService subscriptionService, ObjectMapper objectMapper,
+			MeterRegistry meterRegistry,
+			@Value("${subscription.catalog.rebuild.delay.millis:1000}") long rebuildDelayMillis) {
+		this.subscriptionService = subscriptionService;
+		this.objectMapper = objectMapper;
+		this.meterRegistry = meterRegistry;
+		this.rebuildDelayMillis = rebuildDelayMillis;
+		this.buildTimer = meterRegistry.timer("subscription.catalog.builds");
+		this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "subscription-catalog");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public SubscriptionCatalogSnapshot getCatalog(TestType testType) {
+		SubscriptionCatalogSnapshot snapshot = snapshots.get(testType);
+		if (snapshot != null) {
+			return snapshot;
+		}
+		// first request of a test type, concurrent ones wait for the same build
+		return snapshots.computeIfAbsent(testType, type -> build(type, null));
+	}
+
+	@Override
+	public void markChanged() {
+		// the delay lets a burst of writes (saveAll, a price save and its index update) settle first
+		if (refreshQueued.compareAndSet(false, true)) {
+			refresher.schedule(() -> {
+				refreshQueued.set(false);
+				refresh();
+			}, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${subscription.catalog.refresh.millis:300000}",
+			initialDelayString = "${subscription.catalog.refresh.millis:300000}")
+	public synchronized void refresh() {
+		for (TestType testType : new ArrayList<>(snapshots.keySet())) {
+			SubscriptionCatalogSnapshot previous = snapshots.get(testType);
+			try {
+				SubscriptionCatalogSnapshot snapshot = build(testType, previous);
+				snapshots.put(testType, snapshot);
+				if (previous == null || !previous.getETag().equals(snapshot.getETag())) {
+					log.info("[subscriptionCatalog] {} catalog changed, etag [{}]", testType, snapshot.getETag());
+				}
+			} catch (Exception e) {
+				meterRegistry.counter("subscription.catalog.build.failures").increment();
+				log.error("[subscriptionCatalog] unable to rebuild {} catalog, serving the previous one", testType, e);
+			}
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		refresher.shutdownNow();
+	}
+
+	SubscriptionCatalogSnapshot build(TestType testType, SubscriptionCatalogSnapshot previous) {
+		long start = System.nanoTime();
+		PaperPackageDto paperPackage = subscriptionService.getSubscriptionList(testType);
+		String eTag;
+		try {
+			eTag = DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(paperPackage));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Unable to serialize " + testType + " subscription catalog", e);
+		}
+		long now = System.currentTimeMillis();
+		long lastModified = previous != null && previous.getETag().equals(eTag) ? previous.getLastModified()
+				: now / 1000 * 1000;
+		buildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return new SubscriptionCatalogSnapshot(testType, paperPackage, eTag, lastModified, now);
+	}
+}
@@ -2,6 +2,7 @@ package com.book.ensureu.service.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -16,15 +17,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import com.book.ensureu.dto.PaperCategoryDto;
+import com.book.ensureu.admin.dao.PriceMetaDataDao;
 import com.book.ensureu.dto.PaperInfo;
 import com.book.ensureu.dto.PaperPackageDto;
-import com.book.ensureu.dto.PaperTypeDto;
 import com.book.ensureu.dto.PurchaseSubscriptionsDto;
 import com.book.ensureu.dto.SubscribedDto;
 import com.book.ensureu.dto.SubscriptionDto;
 import com.book.ensureu.model.PaidPaperCollection;
 import com.book.ensureu.common.model.PriceMetaData;
+import com.book.ensureu.common.model.PriceMetaDataIndex;
 import com.book.ensureu.model.PurchaseSubscriptions;
 import com.book.ensureu.model.Subscription;
 import com.book.ensureu.model.UserEntitlement;
@@ -36,7 +37,9 @@ import com.book.ensureu.repository.SubscriptionRepository;
 import com.book.ensureu.repository.UserEntitlementRepository;
 import com.book.ensureu.response.dto.Response;
 import com.book.ensureu.service.CounterService;
+import com.book.ensureu.service.EntitlementIndexService;
 import com.book.ensureu.service.SubscriptionService;
+import com.book.ensureu.service.impl.helper.SubscriptionPaperResolver;
 import com.book.ensureu.service.impl.helper.SubscriptionServiceImplHelper;
 
 @Service
@@ -56,12 +59,21 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     @Autowired
     private PriceMetaDataRepository priceMetaDataRepository;
 
+    @Autowired
+    private PriceMetaDataDao priceMetaDataDao;
+
     @Autowired
     private PurchaseSubscriptionsRespository purchaseSubscriptionsRespository;
 
     @Autowired
     private SubscriptionServiceImplHelper implHelper;
 
+    @Autowired
+    private SubscriptionPaperResolver subscriptionPaperResolver;
+
+    @Autowired
+    private EntitlementIndexService entitlementIndexService;
+
     @Autowired
     private CounterService counterService;
 
@@ -285,46 +297,9 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         try {
             List<Subscription> listOfSubs = implHelper.getSubscriptionByTestType(testType);
             paperPackageDto = new PaperPackageDto();
-            Map<PaperType, PaperTypeDto> mapOfPaperType = new HashMap<>();
-            // List<PaperTypeDto> listOfTypeDto = new link
-            Map<PaperCategory, PaperCategoryDto> mapOfPaperCatogory = new HashMap<>();
-            Map<PaperSubCategory, SubscriptionDto> mapOfSubscribtionDto = new HashMap<>();
             if (TestType.PAID.equals(testType)) {
-               // List<PriceMetaData> listOfPriceMetaData = priceMetaDataRepository.findAll();
-            	List<PriceMetaData> listOfPriceMetaData = priceMetaDataRepository.findBySubscriptionTypeIn(SubscriptionType.getAll());
-                // implHelper.addDumyData(listOfPriceMetaData);
-
-                listOfSubs.forEach((subObj) -> {
-                    if (!mapOfPaperType.containsKey(subObj.getPaperType())) {
-                        PaperTypeDto paperTypeDto = new PaperTypeDto();
-                        paperTypeDto.setPaperType(subObj.getPaperType().toString());
-                        // put papertype in map papertype
-                        mapOfPaperType.put(subObj.getPaperType(), paperTypeDto);
-                        if (!mapOfPaperCatogory.containsKey(subObj.getPaperCategory())) {
-                            PaperCategoryDto categoryDto = implHelper.addCategoryAndSubCategoryToPaperTypeDto(
-                                    mapOfPaperCatogory, mapOfSubscribtionDto, listOfPriceMetaData, subObj);
-                            List<PaperCategoryDto> listOfCategoryDto = new LinkedList<>();
-                            listOfCategoryDto.add(categoryDto);
-                            paperTypeDto.setListOfCategoryDto(listOfCategoryDto);
-                        } else {
-                            implHelper.addSubCategoryToCategoryDto(mapOfPaperCatogory, mapOfSubscribtionDto,
-                                    listOfPriceMetaData, subObj);
-
-                        }
-                    } else {
-                        PaperTypeDto paperTypeDto = mapOfPaperType.get(subObj.getPaperType());
-                        if (!mapOfPaperCatogory.containsKey(subObj.getPaperCategory())) {
-                            PaperCategoryDto categoryDto = implHelper.addCategoryAndSubCategoryToPaperTypeDto(
-                                    mapOfPaperCatogory, mapOfSubscribtionDto, listOfPriceMetaData, subObj);
-                            List<PaperCategoryDto> listOfCategoryDto = paperTypeDto.getListOfCategoryDto();
-                            listOfCategoryDto.add(categoryDto);
-                        } else {
-                            implHelper.addSubCategoryToCategoryDto(mapOfPaperCatogory, mapOfSubscribtionDto,
-                                    listOfPriceMetaData, subObj);
-                        }
-                    }
-                });
-                paperPackageDto.setListOfPaperTypeDto(new LinkedList<>(mapOfPaperType.values()));
+                PriceMetaDataIndex priceIndex = priceMetaDataDao.getPriceIndex();
+                paperPackageDto.setListOfPaperTypeDto(implHelper.createPaperTypeDtoList(listOfSubs, priceIndex));
 
             } else {
                 List<SubscriptionDto> listOfSubsDto = implHelper.convertToSubscriptionDtoList(listOfSubs);
@@ -358,9 +333,7 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         Long timeInMilliSec = 1000l;
         Long time = System.currentTimeMillis();
         timeInMilliSec = time + timeInMilliSec * milliseconds;
-        List<SubscribedDto> listOfSubDto = implHelper.getSubscribedDto(userId, true, null, null, null, null,
-                TestType.PAID);
-        return listOfSubDto;
+        return getAllSubscribedDto(userId, null, TestType.PAID);
     }
 
     @Override
@@ -368,37 +341,32 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         Long timeInMilliSec = 1000l;
         Long time = System.currentTimeMillis();
         timeInMilliSec = time + timeInMilliSec * milliseconds;
-        List<SubscribedDto> listOfSubDto = implHelper.getSubscribedDto(userId, true, null, null, paperType, null,
-                testType);
-        return listOfSubDto;
+        return getAllSubscribedDto(userId, paperType, testType);
+    }
+
+    /*
+     * lapsed entitlements included, they are flagged inactive by the expiry
+     */
+    private List<SubscribedDto> getAllSubscribedDto(String userId, PaperType paperType, TestType testType) {
+        List<EntitlementType> subscriptionTypes = Arrays.asList(EntitlementType.SUBSCRIPTION, EntitlementType.FREE_SUBSCRIPTION);
+        return implHelper.getSubscriptionFromUserEntitle(paperType, null, testType, entitlementRepository
+                .findAllByUserIdAndPaperTypeAndTestTypeAndEntitlementTypeIn(userId, paperType, testType, subscriptionTypes));
     }
 
     @Override
     public List<PaperInfo> getPaperInfoListForUser(String userName, List<String> paperIds, TestType testType) {
         LOGGER.info(" inside method getPaperInfoListForUser " + userName + " testtype " + testType);
         List<PaperInfo> listOfPaperInfo = null;
-        Long timeInMillis = System.currentTimeMillis();
         if (testType != null) {
             if (TestType.PAID.equals(testType)) {
-                List<UserEntitlement> listOfEntitle = entitlementRepository
-                        .findByUserIdAndActiveAndCreatedDateAndValidityAndEntitlementType(userName, true, timeInMillis, timeInMillis, EntitlementType.SUBSCRIPTION);
-
-                List<SubscribedDto> listOfSubDto = implHelper.getSubscriptionFromUserEntitle(null, null, testType,
-                        listOfEntitle);
-                listOfPaperInfo = implHelper.getPaperInfoFromSubscribedDtoList(listOfSubDto, paperIds);
+                listOfPaperInfo = entitlementIndexService.getPaperInfoList(userName, paperIds, testType);
             } else if (TestType.FREE.equals(testType)) {
-                // Query FREE_SUBSCRIPTION entitlements for free papers
-                List<UserEntitlement> listOfEntitle = entitlementRepository
-                        .findByUserIdAndActiveAndCreatedDateAndValidityAndEntitlementType(userName, true, timeInMillis, timeInMillis, EntitlementType.FREE_SUBSCRIPTION);
-
-                if (listOfEntitle != null && !listOfEntitle.isEmpty()) {
-                    List<SubscribedDto> listOfSubDto = implHelper.getSubscriptionFromUserEntitle(null, null, testType,
-                            listOfEntitle);
-                    listOfPaperInfo = implHelper.getPaperInfoFromSubscribedDtoList(listOfSubDto, paperIds);
+                // FREE_SUBSCRIPTION entitlements for free papers
+                if (entitlementIndexService.isEntitled(userName, testType)) {
+                    listOfPaperInfo = entitlementIndexService.getPaperInfoList(userName, paperIds, testType);
                 } else {
                     // Fallback to subscription list if no entitlement found
-                    List<Subscription> listOfSubs = implHelper.getSubscriptionByTestType(testType);
-                    listOfPaperInfo = implHelper.getPaperInfoFromSubscriptionList(listOfSubs, paperIds);
+                    listOfPaperInfo = subscriptionPaperResolver.getFallbackPaperInfo(testType, paperIds);
                 }
             }
         } else {
@@ -417,22 +385,13 @@ public class SubscriptionServiceImpl implements SubscriptionService {
             if (TestType.PAID.equals(testType)) {
                 // Query both SUBSCRIPTION and FREE_SUBSCRIPTION
                 List<EntitlementType> subscriptionTypes = Arrays.asList(EntitlementType.SUBSCRIPTION, EntitlementType.FREE_SUBSCRIPTION);
-                List<UserEntitlement> listOfEntitle = entitlementRepository.findByUserIdAndActiveAndEntitlementTypeIn(userName, true, subscriptionTypes);
-                int count = -1;
-                for (UserEntitlement userEntitlement : listOfEntitle) {
-                    count++;
-                    if (userEntitlement.getCreatedDate() < timeInMilli && userEntitlement.getValidity() > timeInMilli) {
-                        break;
-                    }
-                }
-
-                if (count > 0) {
-                    int startIndex = 0;
-                    if (count > 2) {
-                        startIndex = count - 2;
-                    }
+                // lapsed entitlements are flagged inactive, so the two that lapsed last are read without active
+                List<UserEntitlement> listOfEntitle = new ArrayList<>(entitlementRepository
+                        .findByUserIdAndEntitlementTypeInAndValidityUpTo(userName, subscriptionTypes, timeInMilli));
+                if (!listOfEntitle.isEmpty()) {
+                    listOfEntitle.sort(Comparator.comparing(UserEntitlement::getValidity));
                     List<SubscribedDto> listOfSubDto = implHelper.getSubscriptionFromUserEntitle(null, null, testType,
-                            listOfEntitle.subList(startIndex, count));
+                            listOfEntitle.subList(Math.max(0, listOfEntitle.size() - 2), listOfEntitle.size()));
                     listOfPaperInfo = implHelper.getPaperInfoFromSubscribedDtoList(listOfSubDto, null);
                 } else {
                     LOGGER.info(" no past subscriptions for userId :" + userName);
@@ -46,7 +46,7 @@ public class UserEntitlementServiceImpl implements UserEntitlementService {
 		try {
 			// Query both SUBSCRIPTION and FREE_SUBSCRIPTION
 			List<EntitlementType> subscriptionTypes = Arrays.asList(EntitlementType.SUBSCRIPTION, EntitlementType.FREE_SUBSCRIPTION);
-			List<UserEntitlement> list = userEntitlementRepository.findByUserIdAndActiveAndEntitlementTypeIn(userId, active, subscriptionTypes);
+			List<UserEntitlement> list = findByActive(userId, active, subscriptionTypes);
 			response.setBody(list).setStatus(200).setMessage("ok");
 		} catch (Exception e) {
 			LOGGER.error(" Exception occured while fetching entitlement details for userId: " + userId + " msg:"
@@ -64,7 +64,7 @@ public class UserEntitlementServiceImpl implements UserEntitlementService {
 		try {
 			// Query both SUBSCRIPTION and FREE_SUBSCRIPTION
 			List<EntitlementType> subscriptionTypes = Arrays.asList(EntitlementType.SUBSCRIPTION, EntitlementType.FREE_SUBSCRIPTION);
-			List<UserEntitlement> list = userEntitlementRepository.findByUserIdAndActiveAndEntitlementTypeIn(userId, active, subscriptionTypes);
+			List<UserEntitlement> list = findByActive(userId, active, subscriptionTypes);
 			
 			List<Long> listOfIds = new LinkedList<>();
 			list.forEach((userObj)->{
@@ -94,7 +94,7 @@ public class UserEntitlementServiceImpl implements UserEntitlementService {
 		try {
 			// Query both SUBSCRIPTION and FREE_SUBSCRIPTION
 			List<EntitlementType> subscriptionTypes = Arrays.asList(EntitlementType.SUBSCRIPTION, EntitlementType.FREE_SUBSCRIPTION);
-			List<UserEntitlement> list = userEntitlementRepository.findByUserIdAndActiveAndEntitlementTypeIn(userId, active, subscriptionTypes);
+			List<UserEntitlement> list = findByActive(userId, active, subscriptionTypes);
 			response.setBody(list).setStatus(200).setMessage("ok");
 		} catch (Exception e) {
 			LOGGER.error(" Exception occured while fetching entitlement details for userId: " + userId + " msg:"
@@ -112,7 +112,7 @@ public class UserEntitlementServiceImpl implements UserEntitlementService {
 		try {
 			// Query both SUBSCRIPTION and FREE_SUBSCRIPTION
 			List<EntitlementType> subscriptionTypes = Arrays.asList(EntitlementType.SUBSCRIPTION, EntitlementType.FREE_SUBSCRIPTION);
-			List<UserEntitlement> list = userEntitlementRepository.findByUserIdAndActiveAndEntitlementTypeIn(userId, active, subscriptionTypes);
+			List<UserEntitlement> list = findByActive(userId, active, subscriptionTypes);
 			response.setBody(list).setStatus(200).setMessage("ok");
 		} catch (Exception e) {
 			LOGGER.error(" Exception occured while fetching entitlement details for userId: " + userId + " msg:"
@@ -124,6 +124,16 @@ public class UserEntitlementServiceImpl implements UserEntitlementService {
 	
 	
 	
+	/*
+	 * active keeps its meaning from before the expiry flagged lapsed entitlements inactive: true lists
+	 * them with the active ones, false only the entitlements deactivated otherwise
+	 */
+	private List<UserEntitlement> findByActive(String userId, Boolean active, List<EntitlementType> entitlementTypes) {
+		return Boolean.FALSE.equals(active)
+				? userEntitlementRepository.findWrittenInactiveByUserIdAndEntitlementTypeIn(userId, entitlementTypes)
+				: userEntitlementRepository.findWrittenActiveByUserIdAndEntitlementTypeIn(userId, entitlementTypes);
+	}
+
 	@Override
 	public void updateUserEntitles() {
 		LOGGER.info(" inside method updateUserEntitles ");
@@ -0,0 +1,206 @@
+package com.book.ensureu.service.impl.helper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.book.ensureu.constant.PaperSubCategory;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperInfo;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.repository.PaidPaperCollectionRepository;
+import com.book.ensureu.repository.SubscriptionRepository;
+import com.book.ensureu.service.PaperInfoDataService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves the papers of many subscriptions at once. Subscriptions without a stored paper list get
+ * the active papers of their sub category and test type from the paid paper collection, fetched
+ * with one $in query per test type instead of one query per subscription. The subscription papers a
+ * user without entitlements falls back to are kept per test type for a short while,
+ * subscription.fallback counts how often that path is taken.
+ */
+@Slf4j
+@Component
+public class SubscriptionPaperResolver {
+
+	private final SubscriptionRepository subscriptionRepository;
+
+	private final PaidPaperCollectionRepository paidPaperCollectionRepository;
+
+	private final PaperInfoDataService paperInfoDataService;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Cache<TestType, List<PaperInfo>> fallbackPapers;
+
+	public SubscriptionPaperResolver(SubscriptionRepository subscriptionRepository,
+			PaidPaperCollectionRepository paidPaperCollectionRepository, PaperInfoDataService paperInfoDataService,
+			MeterRegistry meterRegistry,
+			@Value("${subscription.fallback.cache.expire.seconds:60}") long expireSeconds) {
+		this.subscriptionRepository = subscriptionRepository;
+		this.paidPaperCollectionRepository = paidPaperCollectionRepository;
+		this.paperInfoDataService = paperInfoDataService;
+		this.meterRegistry = meterRegistry;
+		this.fallbackPapers = Caffeine.newBuilder()
+				.expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, fallbackPapers, "subscriptionFallbackPapers");
+	}
+
+	/**
+	 * Subscriptions of testType whose sub category has enabled papers and whose validity has not
+	 * ended, null when no sub category is enabled.
+	 */
+	public List<Subscription> findSubscriptionsByTestType(TestType testType) {
+		List<PaperSubCategory> listOfSubCatogory = PaperSubCategory.getList();
+		List<Subscription> listOfSubs = null;
+
+		// enable and disable the subscription...
+		//priority setting for subscription
+		Map<PaperSubCategory, List<String>> paperInfoAvalable = paperInfoDataService
+				.getPaperInfoByTestTypeAndPaperSubCategoryAndEnable(testType, listOfSubCatogory, true);
+		if (paperInfoAvalable != null) {
+			List<PaperSubCategory> listOfEnableSubCategory = new ArrayList<>(paperInfoAvalable.keySet());
+			listOfSubs = subscriptionRepository.findByPaperSubCategoryInAndTestTypeOrder(listOfEnableSubCategory,
+					testType, System.currentTimeMillis());
+		} else {
+			log.info("Paper is not enalbed for {}", testType);
+		}
+
+		log.info("listOfSubscription {}", (listOfSubs != null) ? listOfSubs.size() : " no data found");
+		return listOfSubs;
+	}
+
+	/**
+	 * Papers of paperIds held by the open subscriptions of testType, one entry per subscription
+	 * holding the paper with that subscription's created date and validity, in subscription order.
+	 * Empty when paperIds is, as before.
+	 */
+	public List<PaperInfo> getFallbackPaperInfo(TestType testType, List<String> paperIds) {
+		meterRegistry.counter("subscription.fallback", "testType", String.valueOf(testType)).increment();
+		List<PaperInfo> listOfPaperInfo = new ArrayList<>();
+		if (paperIds == null || paperIds.isEmpty()) {
+			return listOfPaperInfo;
+		}
+		Set<String> wanted = new HashSet<>(paperIds);
+		for (PaperInfo paperInfo : fallbackPapers.get(testType, this::loadFallbackPapers)) {
+			if (wanted.contains(paperInfo.getId())) {
+				listOfPaperInfo.add(copy(paperInfo));
+			}
+		}
+		return listOfPaperInfo;
+	}
+
+	/**
+	 * Collection papers of every subscription in subscriptions that has no paper list of its own,
+	 * keyed by subscription id. Each subscription gets its own PaperInfo instances.
+	 */
+	public Map<Long, List<PaperInfo>> resolveCollectionPapers(Collection<Subscription> subscriptions) {
+		Map<TestType, Set<PaperSubCategory>> wanted = new EnumMap<>(TestType.class);
+		for (Subscription subscription : subscriptions) {
+			if (needsCollectionPapers(subscription)) {
+				wanted.computeIfAbsent(subscription.getTestType(), type -> new HashSet<>())
+						.add(subscription.getPaperSubCategory());
+			}
+		}
+		if (wanted.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<TestType, Map<PaperSubCategory, List<PaidPaperCollection>>> found = new EnumMap<>(TestType.class);
+		wanted.forEach((testType, subCategories) -> {
+			Map<PaperSubCategory, List<PaidPaperCollection>> bySubCategory = new EnumMap<>(PaperSubCategory.class);
+			try {
+				for (PaidPaperCollection paper : paidPaperCollectionRepository
+						.findByPaperSubCategoryInAndTestType(subCategories, testType)) {
+					bySubCategory.computeIfAbsent(paper.getPaperSubCategory(), subCategory -> new ArrayList<>())
+							.add(paper);
+				}
+			} catch (Exception e) {
+				log.error("Error fetching papers from PaidPaperCollection: {}", e.getMessage());
+			}
+			found.put(testType, bySubCategory);
+		});
+		Map<Long, List<PaperInfo>> papers = new HashMap<>();
+		for (Subscription subscription : subscriptions) {
+			if (!needsCollectionPapers(subscription)) {
+				continue;
+			}
+			List<PaperInfo> paperInfoList = new ArrayList<>();
+			for (PaidPaperCollection paper : found.get(subscription.getTestType())
+					.getOrDefault(subscription.getPaperSubCategory(), Collections.emptyList())) {
+				paperInfoList.add(PaperInfo.builder()
+						.id(paper.getId())
+						.paperName(paper.getPaperName())
+						.build());
+			}
+			meterRegistry.counter("subscription.papers.from.collection", "testType",
+					String.valueOf(subscription.getTestType())).increment();
+			papers.put(subscription.getId(), paperInfoList);
+		}
+		return papers;
+	}
+
+	public void evictFallback() {
+		fallbackPapers.invalidateAll();
+	}
+
+	/*
+	 * only papers stored on the subscriptions count here, the collection fallback of
+	 * resolveCollectionPapers never applied to this path
+	 */
+	private List<PaperInfo> loadFallbackPapers(TestType testType) {
+		List<Subscription> listOfSubs = findSubscriptionsByTestType(testType);
+		if (listOfSubs == null || listOfSubs.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<PaperInfo> papers = new ArrayList<>();
+		for (Subscription subscription : listOfSubs) {
+			if (subscription.getListOfPaperInfo() == null) {
+				continue;
+			}
+			for (PaperInfo paperInfo : subscription.getListOfPaperInfo()) {
+				if (paperInfo != null) {
+					PaperInfo resolved = copy(paperInfo);
+					resolved.setCreatedDate(subscription.getCreatedDate());
+					resolved.setValidity(subscription.getValidity());
+					papers.add(resolved);
+				}
+			}
+		}
+		log.debug("[subscriptionFallback] loaded [{}] papers of [{}] {} subscriptions", papers.size(),
+				listOfSubs.size(), testType);
+		return Collections.unmodifiableList(papers);
+	}
+
+	private static boolean needsCollectionPapers(Subscription subscription) {
+		return (subscription.getListOfPaperInfo() == null || subscription.getListOfPaperInfo().isEmpty())
+				&& subscription.getPaperSubCategory() != null && subscription.getTestType() != null;
+	}
+
+	private static PaperInfo copy(PaperInfo paperInfo) {
+		return PaperInfo.builder()
+				.id(paperInfo.getId())
+				.paperName(paperInfo.getPaperName())
+				.createdDate(paperInfo.getCreatedDate())
+				.validity(paperInfo.getValidity())
+				.build();
+	}
+}
@@ -4,10 +4,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import com.book.ensureu.annotation.PurchaseSubscription;
 import com.book.ensureu.constant.*;
@@ -20,19 +22,20 @@ import org.springframework.stereotype.Component;
 import com.book.ensureu.dto.PaperCategoryDto;
 import com.book.ensureu.dto.PaperInfo;
 import com.book.ensureu.dto.PaperSubCatogoryDto;
+import com.book.ensureu.dto.PaperTypeDto;
 import com.book.ensureu.common.dto.PriceMetaDataDto;
 import com.book.ensureu.dto.SubscribedDto;
 import com.book.ensureu.dto.SubscriptionDto;
 import com.book.ensureu.dto.UserPassSubscriptionDto;
 import com.book.ensureu.model.PaidPaperCollection;
 import com.book.ensureu.common.model.PriceMetaData;
+import com.book.ensureu.common.model.PriceMetaDataIndex;
 import com.book.ensureu.model.Subscription;
 import com.book.ensureu.model.UserEntitlement;
 import com.book.ensureu.repository.PaidPaperCollectionRepository;
 import com.book.ensureu.repository.SubscriptionRepository;
 import com.book.ensureu.repository.UserEntitlementRepository;
 import com.book.ensureu.service.CounterService;
-import com.book.ensureu.service.PaperInfoDataService;
 
 @Component
 public class SubscriptionServiceImplHelper {
@@ -50,9 +53,9 @@ public class SubscriptionServiceImplHelper {
 
     @Autowired
     private PaidPaperCollectionRepository paidPaperCollectionRepository;
-    
+
     @Autowired
-    private PaperInfoDataService paperInfoDataService;
+    private SubscriptionPaperResolver subscriptionPaperResolver;
     
     @Value("${paper.days.validity:1}")
     private Integer days;
@@ -98,10 +101,10 @@ public class SubscriptionServiceImplHelper {
 
     /**
      * @param subscription
-     * @param listOfPrice
+     * @param priceIndex
      * @return
      */
-    public SubscriptionDto convertToSubscriptionDto(Subscription subscription, List<PriceMetaData> listOfPrice) {
+    public SubscriptionDto convertToSubscriptionDto(Subscription subscription, PriceMetaDataIndex priceIndex) {
         SubscriptionDto dto = new SubscriptionDto();
         dto.setId(subscription.getId());
         dto.setPaperType(subscription.getPaperType().toString());
@@ -111,7 +114,7 @@ public class SubscriptionServiceImplHelper {
         dto.setDescription(subscription.getDescription());
         dto.setValidity(subscription.getValidity());
         dto.setListOfSubscriptionType(SubscriptionType.getAll());
-        dto.setMapOfSubTypeVsPrice(createMapOfSubTypeVsPrice(subscription, listOfPrice));
+        dto.setMapOfSubTypeVsPrice(createMapOfSubTypeVsPrice(subscription, priceIndex));
         dto.setPaperIds(subscription.getPaperIds());
         dto.setPaperInfoList(subscription.getListOfPaperInfo());
         List<Long> listOfSubscriptionId = new LinkedList<>();
@@ -123,10 +126,13 @@ public class SubscriptionServiceImplHelper {
     /**
      * @param subscription
      * @param mapOfUserEntitlement
+     * @param collectionPapers papers of subscriptions without their own, see
+     *                         {@link SubscriptionPaperResolver#resolveCollectionPapers}
      * @return
      */
     public SubscribedDto convertToSubscribedDto(Subscription subscription,
-                                                Map<Long, UserEntitlement> mapOfUserEntitlement) {
+                                                Map<Long, UserEntitlement> mapOfUserEntitlement,
+                                                Map<Long, List<PaperInfo>> collectionPapers) {
         SubscribedDto dto = new SubscribedDto();
         dto.setId(subscription.getId());
         dto.setPaperType(subscription.getPaperType());
@@ -140,10 +146,13 @@ public class SubscriptionServiceImplHelper {
         // Get paper info from subscription, or fetch from PaidPaperCollection as fallback
         List<PaperInfo> paperInfoList = subscription.getListOfPaperInfo();
         if ((paperInfoList == null || paperInfoList.isEmpty()) && subscription.getPaperSubCategory() != null) {
-            // Fallback: fetch papers from PaidPaperCollection by paperSubCategory
-            LOGGER.info("No papers in subscription {}, fetching from PaidPaperCollection for subCategory: {}",
-                    subscription.getId(), subscription.getPaperSubCategory());
-            paperInfoList = fetchPaperInfoFromCollection(subscription.getPaperSubCategory(), subscription.getTestType());
+            // Fallback: papers from PaidPaperCollection by paperSubCategory, resolved for the whole batch
+            paperInfoList = collectionPapers.get(subscription.getId());
+            if (paperInfoList == null) {
+                LOGGER.info("No papers in subscription {}, fetching from PaidPaperCollection for subCategory: {}",
+                        subscription.getId(), subscription.getPaperSubCategory());
+                paperInfoList = fetchPaperInfoFromCollection(subscription.getPaperSubCategory(), subscription.getTestType());
+            }
         }
         dto.setListOfPaperInfo(paperInfoList);
 
@@ -210,38 +219,24 @@ public class SubscriptionServiceImplHelper {
         }
     }
 
+    /**
+     * Prices of the subscription's sub category for every offered subscription type, null when no
+     * price is configured at all.
+     */
     public Map<SubscriptionType, PriceMetaDataDto> createMapOfSubTypeVsPrice(Subscription subscription,
-                                                                             List<PriceMetaData> listOfPrice) {
-        if (null == listOfPrice || listOfPrice.isEmpty())
+                                                                             PriceMetaDataIndex priceIndex) {
+        if (null == priceIndex || priceIndex.isEmpty())
             return null;
 
-        Map<SubscriptionType, PriceMetaDataDto> map = new HashMap<>();
-
+        Map<SubscriptionType, PriceMetaData> prices = priceIndex.prices(subscription.getPaperType(),
+                subscription.getPaperCategory(), subscription.getPaperSubCategory());
+        Map<SubscriptionType, PriceMetaDataDto> map = new EnumMap<>(SubscriptionType.class);
         for (SubscriptionType typeObj : SubscriptionType.getAll()) {
-            for (PriceMetaData priceMetaData : listOfPrice) {
-                if (subscription.getPaperType().equals(priceMetaData.getPaperType())
-                        && subscription.getPaperCategory().equals(priceMetaData.getPaperCategory())
-                        && subscription.getPaperSubCategory().equals(priceMetaData.getPaperSubCategory())
-                        && typeObj.equals(priceMetaData.getSubscriptionType())) {
-                    map.put(typeObj, convertToPriceMetaDataDto(priceMetaData));
-
-                }
+            PriceMetaData priceMetaData = prices.get(typeObj);
+            if (priceMetaData != null) {
+                map.put(typeObj, convertToPriceMetaDataDto(priceMetaData));
             }
         }
-
-        SubscriptionType.getAll().forEach((typeObj) -> {
-            for (PriceMetaData priceMetaData : listOfPrice) {
-                if (subscription.getPaperType().equals(priceMetaData.getPaperType())
-                        && subscription.getPaperCategory().equals(priceMetaData.getPaperCategory())
-                        && subscription.getPaperSubCategory().equals(priceMetaData.getPaperSubCategory())
-                        && typeObj.equals(priceMetaData.getSubscriptionType())) {
-                    map.put(typeObj, convertToPriceMetaDataDto(priceMetaData));
-
-                }
-            }
-
-        });
-
         return map;
     }
 
@@ -283,23 +278,7 @@ public class SubscriptionServiceImplHelper {
      * @return
      */
     public List<Subscription> getSubscriptionByTestType(TestType testType) {
-        List<PaperSubCategory> listOfSubCatogory = PaperSubCategory.getList();
-        List<PaperSubCategory> listOfEnableSubCategory=new ArrayList<PaperSubCategory>();
-        List<Subscription> listOfSubs = null;
-        
-        // enable and disable the subscription...
-        //priority setting for subscription
-        Map<PaperSubCategory,List<String>> paperInfoAvalable=paperInfoDataService.getPaperInfoByTestTypeAndPaperSubCategoryAndEnable(testType, listOfSubCatogory, true);
-        if(paperInfoAvalable!=null){
-        	 listOfEnableSubCategory=new ArrayList(paperInfoAvalable.keySet());
-        	  listOfSubs = subscriptionRepository
-                      .findByPaperSubCategoryInAndTestTypeOrder(listOfEnableSubCategory, testType, System.currentTimeMillis());
-        }else {
-        	LOGGER.info("Paper is not enalbed for "+ testType);;	
-        }
-      
-        LOGGER.info("listOfSubscription " + ((listOfSubs != null) ? listOfSubs.size() : " no data found"));
-        return listOfSubs;
+        return subscriptionPaperResolver.findSubscriptionsByTestType(testType);
     }
 
     public void createUserEntitlementAndSave(String userId, UserPassSubscriptionDto subscribedDto) {
@@ -607,7 +586,7 @@ public class SubscriptionServiceImplHelper {
 
         // convert to subscribe // needs to change this
 
-        list.stream().filter((subObj) -> {
+        List<Subscription> filtered = list.stream().filter((subObj) -> {
             boolean flag = true;
             if (null != paperType && !subObj.getPaperType().equals(paperType))
                 flag = false;
@@ -620,24 +599,69 @@ public class SubscriptionServiceImplHelper {
 
             return flag;
 
-        }).forEach((subObj) -> {
-            if (subObj != null)
-                listOfSubDto.add(convertToSubscribedDto(subObj, mapOfUserEntitlement));
-        });
+        }).collect(Collectors.toList());
+        Map<Long, List<PaperInfo>> collectionPapers = subscriptionPaperResolver.resolveCollectionPapers(filtered);
+        filtered.forEach((subObj) -> listOfSubDto.add(convertToSubscribedDto(subObj, mapOfUserEntitlement,
+                collectionPapers)));
 
         // remove based on filter from final list also
 
         return listOfSubDto;
     }
 
+    /**
+     * Builds the PaperType -> PaperCategory -> PaperSubCategory tree of the catalog, one
+     * SubscriptionDto per sub category collecting the ids of all its subscriptions.
+     *
+     * @param listOfSubs
+     * @param priceIndex
+     * @return
+     */
+    public List<PaperTypeDto> createPaperTypeDtoList(List<Subscription> listOfSubs, PriceMetaDataIndex priceIndex) {
+        Map<PaperType, PaperTypeDto> mapOfPaperType = new HashMap<>();
+        Map<PaperCategory, PaperCategoryDto> mapOfPaperCatogory = new HashMap<>();
+        Map<PaperSubCategory, SubscriptionDto> mapOfSubscribtionDto = new HashMap<>();
+        listOfSubs.forEach((subObj) -> {
+            if (!mapOfPaperType.containsKey(subObj.getPaperType())) {
+                PaperTypeDto paperTypeDto = new PaperTypeDto();
+                paperTypeDto.setPaperType(subObj.getPaperType().toString());
+                // put papertype in map papertype
+                mapOfPaperType.put(subObj.getPaperType(), paperTypeDto);
+                if (!mapOfPaperCatogory.containsKey(subObj.getPaperCategory())) {
+                    PaperCategoryDto categoryDto = addCategoryAndSubCategoryToPaperTypeDto(
+                            mapOfPaperCatogory, mapOfSubscribtionDto, priceIndex, subObj);
+                    List<PaperCategoryDto> listOfCategoryDto = new LinkedList<>();
+                    listOfCategoryDto.add(categoryDto);
+                    paperTypeDto.setListOfCategoryDto(listOfCategoryDto);
+                } else {
+                    addSubCategoryToCategoryDto(mapOfPaperCatogory, mapOfSubscribtionDto,
+                            priceIndex, subObj);
+
+                }
+            } else {
+                PaperTypeDto paperTypeDto = mapOfPaperType.get(subObj.getPaperType());
+                if (!mapOfPaperCatogory.containsKey(subObj.getPaperCategory())) {
+                    PaperCategoryDto categoryDto = addCategoryAndSubCategoryToPaperTypeDto(
+                            mapOfPaperCatogory, mapOfSubscribtionDto, priceIndex, subObj);
+                    List<PaperCategoryDto> listOfCategoryDto = paperTypeDto.getListOfCategoryDto();
+                    listOfCategoryDto.add(categoryDto);
+                } else {
+                    addSubCategoryToCategoryDto(mapOfPaperCatogory, mapOfSubscribtionDto,
+                            priceIndex, subObj);
+                }
+            }
+        });
+        return new LinkedList<>(mapOfPaperType.values());
+    }
+
     /**
      * @param mapOfPaperCatogory
      * @param mapOfSubscribtionDto
-     * @param listOfPriceMetaData
+     * @param priceIndex
      * @param subObj
      */
     public void addSubCategoryToCategoryDto(Map<PaperCategory, PaperCategoryDto> mapOfPaperCatogory,
-                                            Map<PaperSubCategory, SubscriptionDto> mapOfSubscribtionDto, List<PriceMetaData> listOfPriceMetaData,
+                                            Map<PaperSubCategory, SubscriptionDto> mapOfSubscribtionDto, PriceMetaDataIndex priceIndex,
                                             Subscription subObj) {
         PaperCategoryDto categoryDto = mapOfPaperCatogory.get(subObj.getPaperCategory());
         List<PaperSubCatogoryDto> listOfSubCategoryDto = categoryDto.getListOfSubCategoryDto();
@@ -648,7 +672,7 @@ public class SubscriptionServiceImplHelper {
 
         } else {
             PaperSubCatogoryDto paperSubCatogoryDto = new PaperSubCatogoryDto();
-            SubscriptionDto subscriptionDto = convertToSubscriptionDto(subObj, listOfPriceMetaData);
+            SubscriptionDto subscriptionDto = convertToSubscriptionDto(subObj, priceIndex);
             paperSubCatogoryDto.setSubscriptionDto(subscriptionDto);
             paperSubCatogoryDto.setPaperSubCategory(subObj.getPaperSubCategory().toString());
             listOfSubCategoryDto.add(paperSubCatogoryDto);
@@ -659,13 +683,13 @@ public class SubscriptionServiceImplHelper {
     /**
      * @param mapOfPaperCatogory
      * @param mapOfSubscribtionDto
-     * @param listOfPriceMetaData
+     * @param priceIndex
      * @param subObj
      * @return
      */
     public PaperCategoryDto addCategoryAndSubCategoryToPaperTypeDto(
             Map<PaperCategory, PaperCategoryDto> mapOfPaperCatogory,
-            Map<PaperSubCategory, SubscriptionDto> mapOfSubscribtionDto, List<PriceMetaData> listOfPriceMetaData,
+            Map<PaperSubCategory, SubscriptionDto> mapOfSubscribtionDto, PriceMetaDataIndex priceIndex,
             Subscription subObj) {
         PaperCategoryDto categoryDto = new PaperCategoryDto();
         mapOfPaperCatogory.put(subObj.getPaperCategory(), categoryDto);
@@ -674,7 +698,7 @@ public class SubscriptionServiceImplHelper {
         List<PaperSubCatogoryDto> listOfSubCategoryDto = new LinkedList<>();
         PaperSubCatogoryDto paperSubCatogoryDto = new PaperSubCatogoryDto();
 
-        SubscriptionDto subscriptionDto = convertToSubscriptionDto(subObj, listOfPriceMetaData);
+        SubscriptionDto subscriptionDto = convertToSubscriptionDto(subObj, priceIndex);
         paperSubCatogoryDto.setSubscriptionDto(subscriptionDto);
         paperSubCatogoryDto.setPaperSubCategory(subObj.getPaperSubCategory().toString());
 
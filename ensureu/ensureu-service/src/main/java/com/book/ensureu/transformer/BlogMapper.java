@@ -0,0 +1,50 @@
+package com.book.ensureu.transformer;
+
+import java.util.List;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+import com.book.ensureu.dto.BlogCategoryDTO;
+import com.book.ensureu.dto.BlogCommentsDTO;
+import com.book.ensureu.dto.BlogTagsDTO;
+import com.book.ensureu.dto.BlogsDTO;
+import com.book.ensureu.model.BlogCategoryModel;
+import com.book.ensureu.model.BlogCommentsModel;
+import com.book.ensureu.model.BlogTagsModel;
+import com.book.ensureu.model.BlogsModel;
+
+/**
+ * Blog DTO conversions implemented at compile time by MapStruct, in place of ObjectMapper.convertValue
+ * round trips through a token buffer. Setters are called with nulls just as convertValue did, so the
+ * models still default their dates.
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface BlogMapper {
+
+	BlogsModel toBlogsModel(BlogsDTO blogsDto);
+
+	BlogsDTO toBlogsDto(BlogsModel blogsModel);
+
+	List<BlogsDTO> toBlogsDtos(List<BlogsModel> blogsModels);
+
+	BlogCommentsModel toBlogCommentsModel(BlogCommentsDTO blogCommentsDto);
+
+	BlogCommentsDTO toBlogCommentsDto(BlogCommentsModel blogCommentsModel);
+
+	BlogCategoryModel toBlogCategoryModel(BlogCategoryDTO blogCategoryDto);
+
+	BlogCategoryDTO toBlogCategoryDto(BlogCategoryModel blogCategoryModel);
+
+	List<BlogCategoryModel> toBlogCategoryModels(List<BlogCategoryDTO> blogCategoryDtos);
+
+	List<BlogCategoryDTO> toBlogCategoryDtos(List<BlogCategoryModel> blogCategoryModels);
+
+	BlogTagsModel toBlogTagsModel(BlogTagsDTO blogTagsDto);
+
+	BlogTagsDTO toBlogTagsDto(BlogTagsModel blogTagsModel);
+
+	List<BlogTagsModel> toBlogTagsModels(List<BlogTagsDTO> blogTagsDtos);
+
+	List<BlogTagsDTO> toBlogTagsDtos(List<BlogTagsModel> blogTagsModels);
+}
@@ -0,0 +1,73 @@
+package com.book.ensureu.transformer;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+import org.mapstruct.ReportingPolicy;
+import org.mapstruct.factory.Mappers;
+
+import com.book.ensureu.constant.PaperSubCategory;
+import com.book.ensureu.dto.PaperCollectionDto;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.model.FreePaper;
+import com.book.ensureu.model.FreePaperCollection;
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.PastPaper;
+import com.book.ensureu.model.PastPaperCollection;
+import com.book.ensureu.model.QuizPaper;
+import com.book.ensureu.model.QuizPaperCollection;
+
+/**
+ * PaperDto conversions of the user paper documents, implemented at compile time by MapStruct. The
+ * paper pattern is handed over as the same instance, never copied. Paid, free and past papers show
+ * the display name of their sub category, quiz papers keep the stored one.
+ */
+@Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface PaperMapper {
+
+	PaperMapper INSTANCE = Mappers.getMapper(PaperMapper.class);
+
+	PaidPaper toPaidPaper(PaperDto paperDto);
+
+	PaperDto fromPaidPaper(PaidPaper paidPaper);
+
+	FreePaper toFreePaper(PaperDto paperDto);
+
+	PaperDto fromFreePaper(FreePaper freePaper);
+
+	QuizPaper toQuizPaper(PaperDto paperDto);
+
+	PaperDto fromQuizPaper(QuizPaper quizPaper);
+
+	PastPaper toPastPaper(PaperDto paperDto);
+
+	PaperDto fromPastPaper(PastPaper pastPaper);
+
+	@Mapping(target = "paperSubCategoryName", source = "paperSubCategory", qualifiedByName = "subCategoryName")
+	PaidPaperCollection toPaidPaperCollection(PaperCollectionDto paperCollectionDto);
+
+	@Mapping(target = "paperSubCategoryName", source = "paperSubCategory", qualifiedByName = "subCategoryName")
+	PaperCollectionDto fromPaidPaperCollection(PaidPaperCollection paidPaperCollection);
+
+	@Mapping(target = "paperSubCategoryName", source = "paperSubCategory", qualifiedByName = "subCategoryName")
+	FreePaperCollection toFreePaperCollection(PaperCollectionDto paperCollectionDto);
+
+	@Mapping(target = "paperSubCategoryName", source = "paperSubCategory", qualifiedByName = "subCategoryName")
+	PaperCollectionDto fromFreePaperCollection(FreePaperCollection freePaperCollection);
+
+	@Mapping(target = "paperSubCategoryName", source = "paperSubCategory", qualifiedByName = "subCategoryName")
+	PastPaperCollection toPastPaperCollection(PaperCollectionDto paperCollectionDto);
+
+	@Mapping(target = "paperSubCategoryName", source = "paperSubCategory", qualifiedByName = "subCategoryName")
+	PaperCollectionDto fromPastPaperCollection(PastPaperCollection pastPaperCollection);
+
+	QuizPaperCollection toQuizPaperCollection(PaperCollectionDto paperCollectionDto);
+
+	PaperCollectionDto fromQuizPaperCollection(QuizPaperCollection quizPaperCollection);
+
+	@Named("subCategoryName")
+	default String subCategoryName(PaperSubCategory paperSubCategory) {
+		return paperSubCategory != null ? paperSubCategory.toString() : null;
+	}
+}
@@ -0,0 +1,55 @@
+package com.book.ensureu.aop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ServiceCallLimitAspect caller addresses
+ */
+class ServiceCallLimitAspectTest {
+
+    private static final Set<String> PROXIES = new HashSet<>(Collections.singletonList("172.18.0.5"));
+
+    @Test
+    void forwardedForOfAnUntrustedPeerIsIgnored() {
+        MockHttpServletRequest request = request("203.0.113.7", "198.51.100.1");
+
+        assertEquals("203.0.113.7", ServiceCallLimitAspect.clientAddress(request, PROXIES));
+        assertEquals("203.0.113.7", ServiceCallLimitAspect.clientAddress(request, Collections.emptySet()));
+    }
+
+    @Test
+    void trustedProxyYieldsTheAddressItAppended() {
+        // the client sent its own X-Forwarded-For, nginx appended the real peer
+        MockHttpServletRequest request = request("172.18.0.5", "198.51.100.1, 203.0.113.7");
+
+        assertEquals("203.0.113.7", ServiceCallLimitAspect.clientAddress(request, PROXIES));
+    }
+
+    @Test
+    void chainedTrustedProxiesAreSkipped() {
+        MockHttpServletRequest request = request("172.18.0.5", "198.51.100.1,203.0.113.7, 172.18.0.5");
+
+        assertEquals("203.0.113.7", ServiceCallLimitAspect.clientAddress(request, PROXIES));
+    }
+
+    @Test
+    void trustedProxyWithoutForwardedForIsThePeer() {
+        assertEquals("172.18.0.5", ServiceCallLimitAspect.clientAddress(request("172.18.0.5", null), PROXIES));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,196 @@
+package com.book.ensureu.benchmark;
+
+import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.PaperSubCategory;
+import com.book.ensureu.dto.BlogsDTO;
+import com.book.ensureu.dto.PaperCollectionDto;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.model.BlogCategoryModel;
+import com.book.ensureu.model.BlogsModel;
+import com.book.ensureu.model.Options;
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.Pattern;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.QuestionData;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+import com.book.ensureu.transformer.BlogMapper;
+import com.book.ensureu.transformer.PaperMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.BeanUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated mappers with the reflective conversions they replace: ObjectMapper.convertValue
+ * as the blog services used it and BeanUtils.copyProperties as the quiz conversion used it. Not a unit
+ * test, run it from the IDE or with
+ * <pre>
+ * mvn -pl ensureu-service test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.book.ensureu.benchmark.PaperConversionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaperConversionBenchmark {
+
+    @Param({ "25", "100" })
+    private int questionCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final BlogMapper blogMapper = Mappers.getMapper(BlogMapper.class);
+
+    private PaidPaper paidPaper;
+
+    private PaperDto paperDto;
+
+    private List<BlogsModel> blogs;
+
+    @Setup
+    public void setUp() {
+        paidPaper = paidPaper(questionCount);
+        paperDto = PaperMapper.INSTANCE.fromPaidPaper(paidPaper);
+        blogs = blogs(questionCount);
+    }
+
+    @Benchmark
+    public PaperDto paidPaperToDtoGenerated() {
+        return PaperMapper.INSTANCE.fromPaidPaper(paidPaper);
+    }
+
+    @Benchmark
+    public PaperDto paidPaperToDtoBeanUtils() {
+        PaperDto target = new PaperDto();
+        BeanUtils.copyProperties(paidPaper, target, "paper");
+        PaperCollectionDto paper = new PaperCollectionDto();
+        BeanUtils.copyProperties(paidPaper.getPaper(), paper);
+        target.setPaper(paper);
+        return target;
+    }
+
+    @Benchmark
+    public PaperDto paidPaperToDtoConvertValue() {
+        return objectMapper.convertValue(paidPaper, PaperDto.class);
+    }
+
+    @Benchmark
+    public PaidPaper paperDtoToPaidPaperGenerated() {
+        return PaperMapper.INSTANCE.toPaidPaper(paperDto);
+    }
+
+    @Benchmark
+    public PaidPaper paperDtoToPaidPaperConvertValue() {
+        return objectMapper.convertValue(paperDto, PaidPaper.class);
+    }
+
+    @Benchmark
+    public List<BlogsDTO> blogsToDtosGenerated() {
+        return blogMapper.toBlogsDtos(blogs);
+    }
+
+    @Benchmark
+    public List<BlogsDTO> blogsToDtosConvertValue() {
+        return objectMapper.convertValue(blogs, new TypeReference<List<BlogsDTO>>() {
+        });
+    }
+
+    private static PaidPaper paidPaper(int questionCount) {
+        List<Question<Problem>> questions = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            List<Options> options = new ArrayList<>();
+            for (int o = 0; o < 4; o++) {
+                Options option = new Options();
+                option.setValue(String.valueOf(o));
+                option.setPrompt("Option " + o + " of question " + i);
+                options.add(option);
+            }
+            Problem problem = new Problem();
+            problem.setQuestion("Question " + i + ": which of the following completes the series?");
+            problem.setOptions(options);
+            problem.setCo(Arrays.asList("1"));
+            Question<Problem> question = new Question<>();
+            question.setId("q" + i);
+            question.setProblem(problem);
+            questions.add(question);
+        }
+        QuestionData<Question<Problem>> questionData = new QuestionData<>();
+        questionData.setQuestions(questions);
+        SubSections<Question<Problem>> subSection = new SubSections<>();
+        subSection.setQuestionData(questionData);
+        Sections<SubSections<Question<Problem>>> section = new Sections<>();
+        section.setTitle("Reasoning");
+        section.setSubSections(new ArrayList<>(Arrays.asList(subSection)));
+        Pattern<Sections<SubSections<Question<Problem>>>> pattern = new Pattern<>();
+        pattern.setSections(new ArrayList<>(Arrays.asList(section)));
+
+        PaidPaperCollection collection = new PaidPaperCollection();
+        collection.setId("P1");
+        collection.setPaperName("Mock test 1");
+        collection.setPaperSubCategory(PaperSubCategory.SSC_CGL_TIER1);
+        collection.setTotalQuestionCount(questionCount);
+        collection.setPattern(pattern);
+        PaidPaper paidPaper = new PaidPaper();
+        paidPaper.setId(1L);
+        paidPaper.setPaperId("P1");
+        paidPaper.setUserId("user1");
+        paidPaper.setPaperStatus(PaperStatus.INPROGRESS);
+        paidPaper.setPaperSubCategory(PaperSubCategory.SSC_CGL_TIER1);
+        paidPaper.setTotalScore(200.0);
+        paidPaper.setCreateDateTime(System.currentTimeMillis());
+        paidPaper.setPaper(collection);
+        return paidPaper;
+    }
+
+    private static List<BlogsModel> blogs(int count) {
+        BlogCategoryModel category = new BlogCategoryModel();
+        category.setId("c1");
+        category.setName("Exams");
+        category.setCreatedDate(1L);
+        List<BlogsModel> blogs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BlogsModel blog = new BlogsModel();
+            blog.setId("b" + i);
+            blog.setTitle("How to prepare for tier " + i);
+            blog.setBody("Body of blog " + i);
+            blog.setCategory(category);
+            blog.setTags(Arrays.asList("ssc", "cgl"));
+            blog.setCreatedDate(1L);
+            blog.setUpdatedDate(2L);
+            blog.setViews(10L);
+            blogs.add(blog);
+        }
+        return blogs;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PaperConversionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+package com.book.ensureu.benchmark;
+
+import com.book.ensureu.common.dto.PriceMetaDataDto;
+import com.book.ensureu.common.model.PriceMetaData;
+import com.book.ensureu.common.model.PriceMetaDataIndex;
+import com.book.ensureu.constant.PaperCategory;
+import com.book.ensureu.constant.PaperSubCategory;
+import com.book.ensureu.constant.SubscriptionType;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperTypeDto;
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.service.impl.helper.SubscriptionServiceImplHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices 10k subscriptions through the PriceMetaDataIndex and through the SubscriptionType x price
+ * list scan it replaced, and times the PAID catalog tree build on top of the index. priceCount above
+ * the 32 current prices stands for price history kept in the collection. Not a unit test, run it
+ * from the IDE or with
+ * <pre>
+ * mvn -pl ensureu-service test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.book.ensureu.benchmark.SubscriptionCatalogBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubscriptionCatalogBenchmark {
+
+    @Param({ "10000" })
+    private int subscriptionCount;
+
+    @Param({ "32", "512" })
+    private int priceCount;
+
+    private final SubscriptionServiceImplHelper implHelper = new SubscriptionServiceImplHelper();
+
+    private List<Subscription> subscriptions;
+
+    private List<PriceMetaData> prices;
+
+    private PriceMetaDataIndex priceIndex;
+
+    @Setup
+    public void setUp() {
+        List<PaperSubCategory> subCategories = PaperSubCategory.getList();
+        subscriptions = new ArrayList<>(subscriptionCount);
+        for (int i = 0; i < subscriptionCount; i++) {
+            PaperSubCategory paperSubCategory = subCategories.get(i % subCategories.size());
+            PaperCategory paperCategory = PaperSubCategory.getParent(paperSubCategory);
+            subscriptions.add(Subscription.builder()
+                    .id((long) i)
+                    .paperType(PaperCategory.getParent(paperCategory))
+                    .paperCategory(paperCategory)
+                    .paperSubCategory(paperSubCategory)
+                    .testType(TestType.PAID)
+                    .description("Subscription " + i)
+                    .validity(System.currentTimeMillis())
+                    .build());
+        }
+        List<SubscriptionType> types = SubscriptionType.getAll();
+        prices = new ArrayList<>(priceCount);
+        for (int i = 0; i < priceCount; i++) {
+            PaperSubCategory paperSubCategory = subCategories.get((i / types.size()) % subCategories.size());
+            PaperCategory paperCategory = PaperSubCategory.getParent(paperSubCategory);
+            prices.add(new PriceMetaData((long) i, 200.0, 10.0, 180.0, 9.0, 10.0, PaperCategory.getParent(paperCategory),
+                    paperCategory, paperSubCategory, types.get(i % types.size())));
+        }
+        priceIndex = PriceMetaDataIndex.of(prices);
+    }
+
+    @Benchmark
+    public void priceMapsIndexed(Blackhole blackhole) {
+        for (Subscription subscription : subscriptions) {
+            blackhole.consume(implHelper.createMapOfSubTypeVsPrice(subscription, priceIndex));
+        }
+    }
+
+    @Benchmark
+    public void priceMapsListScan(Blackhole blackhole) {
+        for (Subscription subscription : subscriptions) {
+            blackhole.consume(listScan(subscription, prices));
+        }
+    }
+
+    @Benchmark
+    public PriceMetaDataIndex indexBuild() {
+        return PriceMetaDataIndex.of(prices);
+    }
+
+    @Benchmark
+    public List<PaperTypeDto> catalogTree() {
+        return implHelper.createPaperTypeDtoList(subscriptions, priceIndex);
+    }
+
+    /*
+     * createMapOfSubTypeVsPrice before the index, including its duplicated second pass
+     */
+    private Map<SubscriptionType, PriceMetaDataDto> listScan(Subscription subscription, List<PriceMetaData> listOfPrice) {
+        Map<SubscriptionType, PriceMetaDataDto> map = new HashMap<>();
+        for (int pass = 0; pass < 2; pass++) {
+            for (SubscriptionType typeObj : SubscriptionType.getAll()) {
+                for (PriceMetaData priceMetaData : listOfPrice) {
+                    if (subscription.getPaperType().equals(priceMetaData.getPaperType())
+                            && subscription.getPaperCategory().equals(priceMetaData.getPaperCategory())
+                            && subscription.getPaperSubCategory().equals(priceMetaData.getPaperSubCategory())
+                            && typeObj.equals(priceMetaData.getSubscriptionType())) {
+                        map.put(typeObj, implHelper.convertToPriceMetaDataDto(priceMetaData));
+                    }
+                }
+            }
+        }
+        return map;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SubscriptionCatalogBenchmark.class.getSimpleName()).build()).run();
+    }
+}
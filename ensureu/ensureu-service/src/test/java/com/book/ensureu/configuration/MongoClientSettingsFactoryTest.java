@@ -0,0 +1,79 @@
+package com.book.ensureu.configuration;
+
+import com.book.ensureu.profiler.MongoQueryProfiler;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for MongoClientSettingsFactory
+ */
+class MongoClientSettingsFactoryTest {
+
+    private final MongoClientSettingsFactory factory = factory(Collections.emptySet());
+
+    @Test
+    void poolSettingsOverrideTheConnectionString() {
+        MongoClientSettings settings = factory.settings(new ConnectionString("mongodb://localhost:27017/ensureu?maxPoolSize=7"));
+
+        assertEquals(50, settings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(5, settings.getConnectionPoolSettings().getMinSize());
+        assertEquals(1500, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+        assertEquals(4000, settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+        assertEquals("majority", settings.getWriteConcern().getWString());
+        assertEquals(ReadPreference.primary(), settings.getReadPreference());
+    }
+
+    @Test
+    void compressorsWithoutTheirLibraryAreSkipped() {
+        assertEquals(Arrays.asList("zlib"), compressorNames(factory(Collections.emptySet())));
+        assertEquals(Arrays.asList("snappy", "zlib"),
+                compressorNames(factory(Collections.singleton("org.xerial.snappy.Snappy"))));
+    }
+
+    @Test
+    void compressorsWithTheirLibraryKeepTheConfiguredOrder() {
+        assertEquals(Arrays.asList("zstd", "snappy", "zlib"), compressorNames(factory(new HashSet<>(
+                Arrays.asList("com.github.luben.zstd.Zstd", "org.xerial.snappy.Snappy")))));
+    }
+
+    @Test
+    void secondaryReadPreferenceCarriesMaxStaleness() {
+        ReadPreference readPreference = factory.secondaryReadPreference();
+
+        assertEquals("secondaryPreferred", readPreference.getName());
+        assertEquals(120L, readPreference.toDocument().getInt64("maxStalenessSeconds").getValue());
+    }
+
+    private static List<String> compressorNames(MongoClientSettingsFactory factory) {
+        return factory.compressorList().stream().map(MongoCompressor::getName).collect(Collectors.toList());
+    }
+
+    /*
+     * only the given library classes count as present, whatever the test classpath holds
+     */
+    private static MongoClientSettingsFactory factory(Set<String> presentClasses) {
+        return new MongoClientSettingsFactory(new SimpleMeterRegistry(), mock(MongoQueryProfiler.class),
+                50, 5, 2, 1500, 60000, 0, 3000, 4000, Arrays.asList("zstd", "snappy", "zlib"), "primary", "MAJORITY",
+                "secondaryPreferred", 120) {
+            @Override
+            boolean isPresent(String className) {
+                return presentClasses.contains(className);
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.book.ensureu.configuration;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ReadIntentMongoTemplate applying the thread's read intent
+ */
+class ReadIntentMongoTemplateTest {
+
+    private final ReadIntentMongoTemplate mongoTemplate = new ReadIntentMongoTemplate(mock(MongoClient.class), "ensureu");
+
+    @AfterEach
+    void clearIntent() {
+        ReadIntent.restore(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void collectionKeepsTemplateDefaultWithoutIntent() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+
+        assertSame(collection, mongoTemplate.prepareCollection(collection));
+        verify(collection, never()).withReadPreference(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void intentIsAppliedAndNestedIntentRestored() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        MongoCollection<Document> secondary = mock(MongoCollection.class);
+        when(collection.withReadPreference(ReadPreference.secondaryPreferred())).thenReturn(secondary);
+
+        ReadPreference outer = ReadIntent.use(ReadPreference.secondaryPreferred());
+        ReadPreference inner = ReadIntent.use(ReadPreference.secondaryPreferred());
+        assertSame(secondary, mongoTemplate.prepareCollection(collection));
+        ReadIntent.restore(inner);
+
+        assertEquals(ReadPreference.secondaryPreferred(), ReadIntent.current());
+        ReadIntent.restore(outer);
+        assertNull(ReadIntent.current());
+    }
+}
@@ -0,0 +1,115 @@
+package com.book.ensureu.flow.analytics.dao;
+
+import com.book.ensureu.aop.SecondaryReadAspect;
+import com.book.ensureu.configuration.MongoClientSettingsFactory;
+import com.book.ensureu.configuration.ReadIntent;
+import com.book.ensureu.flow.analytics.dto.UserAnalyticsDto;
+import com.book.ensureu.flow.analytics.model.PaperStat;
+import com.book.ensureu.flow.analytics.model.UserPaperStat;
+import com.book.ensureu.flow.analytics.repository.PaperStatRepository;
+import com.book.ensureu.flow.analytics.repository.QuestionStatRepository;
+import com.book.ensureu.flow.analytics.repository.UserPaperStatRepository;
+import com.book.ensureu.flow.analytics.repository.UserPaperTimeSeriesRepository;
+import com.book.ensureu.flow.analytics.transformer.PercentilePercentTransformer;
+import com.book.ensureu.flow.analytics.transformer.UserQuestionTimeTransformer;
+import com.mongodb.ReadPreference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserAnalyticsCache freshness, with the analytics built through the woven UserAnalyticsDao
+ */
+class UserAnalyticsCacheTest {
+
+    private final List<ReadPreference> reads = new ArrayList<>();
+
+    private final PaperStatRepository paperStatRepository = mock(PaperStatRepository.class);
+
+    private final UserPaperStatRepository userPaperStatRepository = mock(UserPaperStatRepository.class);
+
+    private final QuestionStatRepository questionStatRepository = mock(QuestionStatRepository.class);
+
+    private final UserAnalyticsCache userAnalyticsCache = new UserAnalyticsCache(paperStatRepository,
+            new SimpleMeterRegistry(), 100, 30, 5, 0.01, 300);
+
+    @Test
+    void analyticsAreBuiltFromTheSameNodeAsTheirRevision() {
+        PaperStat paperStat = PaperStat.builder().paperId("paper1").revision(3L).totalUsers(1L).build();
+        when(paperStatRepository.fetchPaperStatRevision("paper1")).thenAnswer(invocation -> read(paperStat));
+        when(paperStatRepository.fetchPaperStat("paper1")).thenAnswer(invocation -> read(paperStat));
+        when(paperStatRepository.fetchPaperStatByIdIn(anyList())).thenAnswer(invocation -> read(Collections.emptyList()));
+        when(userPaperStatRepository.fetchUserPaperStat("user1", "user1", "paper1"))
+                .thenAnswer(invocation -> read(Collections.singletonList(UserPaperStat.builder()
+                        .userId("user1").paperId("paper1").totalScore(40.0)
+                        .userQuestionStatList(Collections.emptyList()).build())));
+        when(userPaperStatRepository.fetchPreviousPaper(anyString(), anyInt()))
+                .thenAnswer(invocation -> read(Collections.emptyList()));
+        when(questionStatRepository.fetchQuestionStatByPaperId("paper1"))
+                .thenAnswer(invocation -> read(Collections.emptyList()));
+        UserAnalyticsDao userAnalyticsDao = woven(new UserAnalyticsDao(mock(UserPaperTimeSeriesRepository.class),
+                paperStatRepository, userPaperStatRepository, questionStatRepository,
+                mock(PercentilePercentTransformer.class), mock(UserQuestionTimeTransformer.class), userAnalyticsCache));
+
+        UserAnalyticsDto userAnalyticsDto = userAnalyticsCache.get("user1", "paper1",
+                () -> userAnalyticsDao.buildUserAnalytics("user1", "paper1"));
+
+        assertEquals(40.0, userAnalyticsDto.getUserScoreDto().getScore());
+        verify(paperStatRepository).fetchPaperStatRevision("paper1");
+        verify(paperStatRepository).fetchPaperStat("paper1");
+        assertEquals(6, reads.size());
+        // the revision is read on the primary, so must be everything cached under it
+        assertEquals(Collections.nCopies(6, null), reads);
+    }
+
+    @Test
+    void entriesOfAUserAreRebuiltOnceAnotherPaperOfTheUserIsIngested() {
+        when(paperStatRepository.fetchPaperStatRevision("paper1"))
+                .thenReturn(PaperStat.builder().paperId("paper1").revision(3L).totalUsers(2L).build());
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<UserAnalyticsDto> loader = () -> {
+            loads.incrementAndGet();
+            return UserAnalyticsDto.builder().build();
+        };
+        userAnalyticsCache.get("user1", "paper1", loader);
+        userAnalyticsCache.get("user2", "paper1", loader);
+        userAnalyticsCache.get("user1", "paper1", loader);
+        assertEquals(2, loads.get());
+
+        // user1 submitted paper2, the growth embedded in the paper1 entry misses it
+        userAnalyticsCache.evictUserGrowth(Collections.singleton("user1"));
+        userAnalyticsCache.get("user1", "paper1", loader);
+        userAnalyticsCache.get("user2", "paper1", loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    private <T> T read(T result) {
+        reads.add(ReadIntent.current());
+        return result;
+    }
+
+    /*
+     * the dao as the application context hands it out, advised by SecondaryReadAspect
+     */
+    private static UserAnalyticsDao woven(UserAnalyticsDao userAnalyticsDao) {
+        MongoClientSettingsFactory mongoClientSettingsFactory = mock(MongoClientSettingsFactory.class);
+        when(mongoClientSettingsFactory.secondaryReadPreference()).thenReturn(ReadPreference.secondaryPreferred());
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(userAnalyticsDao);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new SecondaryReadAspect(mongoClientSettingsFactory, new SimpleMeterRegistry()));
+        return proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,103 @@
+package com.book.ensureu.flow.analytics.repository;
+
+import com.book.ensureu.flow.analytics.model.AppliedStatDelta;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AppliedStatDeltaRepository claims and their release on rejected writes
+ */
+class AppliedStatDeltaRepositoryTest {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+
+    private final AppliedStatDeltaRepository appliedStatDeltaRepository = new AppliedStatDeltaRepository(mongoTemplate, 60);
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AppliedStatDelta.class)).thenReturn(bulkOperations);
+    }
+
+    @Test
+    void idsWhoseMarkerAlreadyExistsAreNotClaimed() {
+        when(bulkOperations.execute()).thenThrow(rejected(error(DUPLICATE_KEY, 1)));
+
+        assertEquals(Arrays.asList("a", "c"), Arrays.asList(appliedStatDeltaRepository
+                .claim(Arrays.asList("a", "b", "c", "a")).toArray()));
+
+        verify(bulkOperations).insert(anyList());
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(AppliedStatDelta.class));
+    }
+
+    @Test
+    void claimIsReleasedWhenAMarkerFailsForAnotherReason() {
+        BulkOperationException rejected = rejected(error(DUPLICATE_KEY, 0), error(2, 2));
+        when(bulkOperations.execute()).thenThrow(rejected);
+
+        assertSame(rejected, assertThrows(BulkOperationException.class,
+                () -> appliedStatDeltaRepository.claim(Arrays.asList("a", "b", "c"))));
+
+        assertEquals(Collections.singletonList("b"), releasedIds());
+    }
+
+    @Test
+    void markersFromTheRejectedOpOnAreReleased() {
+        when(bulkOperations.execute()).thenThrow(rejected(error(2, 2)));
+
+        assertThrows(BulkOperationException.class,
+                () -> appliedStatDeltaRepository.execute(bulkOperations, Arrays.asList(null, "a", "b", null, "c")));
+
+        assertEquals(Arrays.asList("b", "c"), releasedIds());
+    }
+
+    @Test
+    void markersAreKeptWhenItIsUnknownWhatWasApplied() {
+        when(bulkOperations.execute()).thenThrow(new IllegalStateException("write timeout"));
+
+        assertThrows(IllegalStateException.class,
+                () -> appliedStatDeltaRepository.execute(bulkOperations, Arrays.asList(null, "a", "b")));
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(AppliedStatDelta.class));
+    }
+
+    private List<Object> releasedIds() {
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(AppliedStatDelta.class));
+        return new ArrayList<Object>((Collection<?>) removed.getValue().getQueryObject().get("id", Document.class).get("$in"));
+    }
+
+    private static BulkWriteError error(int code, int index) {
+        return new BulkWriteError(code, "rejected", new BsonDocument(), index);
+    }
+
+    private static BulkOperationException rejected(BulkWriteError... errors) {
+        return new BulkOperationException("rejected", new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                Arrays.asList(errors), null, new ServerAddress(), Collections.emptySet()));
+    }
+}
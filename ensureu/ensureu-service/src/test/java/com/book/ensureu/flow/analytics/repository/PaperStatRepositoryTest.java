@@ -0,0 +1,119 @@
+package com.book.ensureu.flow.analytics.repository;
+
+import com.book.ensureu.flow.analytics.model.PaperStat;
+import com.book.ensureu.flow.analytics.model.UserPaperStat;
+import com.book.ensureu.flow.analytics.util.KeyConversionUtil;
+import com.book.ensureu.flow.analytics.util.ScoreDistribution;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PaperStatRepository score buckets and per submission claims
+ */
+class PaperStatRepositoryTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+
+    private final AppliedStatDeltaRepository appliedStatDeltaRepository = mock(AppliedStatDeltaRepository.class);
+
+    private final PaperStatRepository paperStatRepository = new PaperStatRepository(mongoTemplate, appliedStatDeltaRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(appliedStatDeltaRepository.claim(anyCollection()))
+                .thenAnswer(invocation -> new LinkedHashSet<>(invocation.<Collection<String>>getArgument(0)));
+    }
+
+    @Test
+    @SuppressWarnings({"deprecation", "unchecked"})
+    void legacyPaperStatIsSeededBeforeTheFirstSubmissionIsCounted() {
+        PaperStat legacy = PaperStat.builder().paperId("paper1").build();
+        legacy.getMarksVsUsersTreeMap().put(KeyConversionUtil.getDoubleToKey(90.0), Arrays.asList("u1", "u2"));
+        legacy.getMarksVsUsersTreeMap().put(KeyConversionUtil.getDoubleToKey(50.0), Collections.singletonList("u3"));
+        when(mongoTemplate.find(any(Query.class), eq(PaperStat.class))).thenReturn(Collections.singletonList(legacy));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaperStat.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, PaperStat.class)).thenReturn(bulkOperations);
+
+        paperStatRepository.addUserMarksToPaperStat(UserPaperStat.builder()
+                .id(UserPaperStat.idOf("u4", "paper1")).userId("u4").paperId("paper1").totalScore(70.0).build());
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        InOrder inOrder = inOrder(mongoTemplate, appliedStatDeltaRepository);
+        inOrder.verify(mongoTemplate).updateFirst(any(Query.class), updates.capture(), eq(PaperStat.class));
+        inOrder.verify(appliedStatDeltaRepository).execute(bulkOperations, Arrays.asList(null, "u4_paper1:PaperStat:paper1"));
+        Document seed = updates.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(3L, seed.get("totalUsers"));
+        assertEquals(90.0, seed.get("topScore"));
+
+        // the seeded buckets plus the $inc of the submission
+        Map<String, Long> scoreBuckets = new HashMap<>((Map<String, Long>) seed.get("scoreBuckets"));
+        ArgumentCaptor<Update> counted = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, atLeastOnce()).updateOne(any(Query.class), counted.capture());
+        counted.getValue().getUpdateObject().get("$inc", Document.class).forEach((key, value) -> {
+            if (key.startsWith("scoreBuckets.")) {
+                scoreBuckets.merge(key.substring("scoreBuckets.".length()), ((Number) value).longValue(), Long::sum);
+            }
+        });
+        ScoreDistribution distribution = ScoreDistribution.of(scoreBuckets);
+        assertEquals(4, distribution.getTotalUsers());
+        assertEquals(3, distribution.rankOf(70.0));
+        assertEquals(90.0, distribution.getTopScore());
+    }
+
+    @Test
+    void bucketedPaperStatIsNotSeededAgain() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, PaperStat.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaperStat.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        paperStatRepository.addUserMarksToPaperStat(UserPaperStat.builder()
+                .id(UserPaperStat.idOf("u4", "paper1")).userId("u4").paperId("paper1").totalScore(70.0).build());
+
+        ArgumentCaptor<Query> legacy = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(legacy.capture(), eq(PaperStat.class));
+        assertTrue(legacy.getValue().getQueryObject().toJson().contains("scoreBuckets"));
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atMost(1)).updateFirst(any(Query.class), updates.capture(), eq(PaperStat.class));
+        updates.getAllValues().forEach(update -> assertNull(update.getUpdateObject().get("$set", Document.class)
+                .get("scoreBuckets")));
+    }
+
+    @Test
+    void submissionAlreadyCountedIsNotAddedAgain() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, PaperStat.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaperStat.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(appliedStatDeltaRepository.claim(anyCollection())).thenReturn(new LinkedHashSet<>());
+
+        paperStatRepository.addUserMarksToPaperStat(UserPaperStat.builder()
+                .id(UserPaperStat.idOf("u4", "paper1")).userId("u4").paperId("paper1").totalScore(70.0).build());
+
+        verify(appliedStatDeltaRepository).claim(Collections.singletonList("u4_paper1:PaperStat:paper1"));
+        verify(bulkOperations, never()).updateOne(any(Query.class), any(Update.class));
+        verify(appliedStatDeltaRepository).execute(bulkOperations, Collections.singletonList(null));
+    }
+}
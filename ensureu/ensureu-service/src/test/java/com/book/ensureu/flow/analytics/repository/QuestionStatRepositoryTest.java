@@ -0,0 +1,116 @@
+package com.book.ensureu.flow.analytics.repository;
+
+import com.book.ensureu.constant.QuestionAttemptedStatus;
+import com.book.ensureu.flow.analytics.model.QuestionStat;
+import com.book.ensureu.flow.analytics.model.UserPaperStat;
+import com.book.ensureu.flow.analytics.model.UserQuestionStat;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for QuestionStatRepository per submission claims
+ */
+class QuestionStatRepositoryTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+
+    private final AppliedStatDeltaRepository appliedStatDeltaRepository = mock(AppliedStatDeltaRepository.class);
+
+    private final QuestionStatRepository questionStatRepository =
+            new QuestionStatRepository(mongoTemplate, appliedStatDeltaRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, QuestionStat.class)).thenReturn(bulkOperations);
+        when(appliedStatDeltaRepository.claim(anyCollection()))
+                .thenAnswer(invocation -> new LinkedHashSet<>(invocation.<Collection<String>>getArgument(0)));
+    }
+
+    @Test
+    void everySubmissionIsCountedByItsOwnClaimedUpdate() {
+        questionStatRepository.addUserQuestionStats(Arrays.asList(
+                stat("user1", response("q1", 2.0, 8L), response("q2", -0.5, 40L)),
+                stat("user2", response("q1", 0.0, 3L))));
+
+        ArgumentCaptor<Query> inserted = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(2)).upsert(inserted.capture(), any(Update.class));
+        assertEquals(Arrays.asList("paper1_q1", "paper1_q2"), inserted.getAllValues().stream()
+                .map(query -> query.getQueryObject().get("id")).collect(Collectors.toList()));
+        ArgumentCaptor<Query> counted = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(3)).updateOne(counted.capture(), updates.capture());
+        assertEquals(Arrays.asList("paper1_q1", "paper1_q2", "paper1_q1"), counted.getAllValues().stream()
+                .map(query -> query.getQueryObject().get("id")).collect(Collectors.toList()));
+        Document inc = updates.getAllValues().get(2).getUpdateObject().get("$inc", Document.class);
+        assertEquals(1L, inc.get("submissions"));
+        assertEquals(1L, inc.get("skipCount"));
+        assertEquals(1L, inc.get("timeBuckets.le_5"));
+        List<String> claimed = Arrays.asList("user1_paper1:QuestionStat:paper1_q1",
+                "user1_paper1:QuestionStat:paper1_q2", "user2_paper1:QuestionStat:paper1_q1");
+        verify(appliedStatDeltaRepository).claim(claimed);
+        List<String> markerIds = new ArrayList<>(Arrays.asList(null, null));
+        markerIds.addAll(claimed);
+        verify(appliedStatDeltaRepository).execute(bulkOperations, markerIds);
+    }
+
+    @Test
+    void redeliveredSubmissionIsNotCountedAgain() {
+        UserPaperStat userPaperStat = stat("user1", response("q1", 2.0, 8L), response("q2", 0.0, 8L));
+        when(appliedStatDeltaRepository.claim(anyCollection()))
+                .thenReturn(new LinkedHashSet<>(Arrays.asList("user1_paper1:QuestionStat:paper1_q1",
+                        "user1_paper1:QuestionStat:paper1_q2")))
+                .thenReturn(new LinkedHashSet<>(Collections.singletonList("user1_paper1:QuestionStat:paper1_q2")))
+                .thenReturn(new LinkedHashSet<>());
+
+        questionStatRepository.addUserQuestionStats(Collections.singletonList(userPaperStat));
+        questionStatRepository.addUserQuestionStats(Collections.singletonList(userPaperStat));
+        questionStatRepository.addUserQuestionStats(Collections.singletonList(userPaperStat));
+
+        ArgumentCaptor<Query> counted = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(3)).updateOne(counted.capture(), any(Update.class));
+        assertEquals(Arrays.asList("paper1_q1", "paper1_q2", "paper1_q2"), counted.getAllValues().stream()
+                .map(query -> query.getQueryObject().get("id")).collect(Collectors.toList()));
+        verify(appliedStatDeltaRepository, times(2)).execute(eq(bulkOperations), anyList());
+    }
+
+    private static UserPaperStat stat(String userId, UserQuestionStat... responses) {
+        return UserPaperStat.builder()
+                .id(UserPaperStat.idOf(userId, "paper1"))
+                .userId(userId)
+                .paperId("paper1")
+                .userQuestionStatList(Arrays.asList(responses))
+                .build();
+    }
+
+    private static UserQuestionStat response(String questionId, Double marks, Long timeTaken) {
+        return UserQuestionStat.builder()
+                .questionId(questionId)
+                .marks(marks)
+                .timeTaken(timeTaken)
+                .questionAttemptedStatus(QuestionAttemptedStatus.NA)
+                .build();
+    }
+}
@@ -0,0 +1,248 @@
+package com.book.ensureu.flow.analytics.service.impl;
+
+import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperCollectionDto;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.flow.analytics.constant.IngestionStatus;
+import com.book.ensureu.flow.analytics.dao.UserAnalyticsCache;
+import com.book.ensureu.flow.analytics.dao.UserAnalyticsDao;
+import com.book.ensureu.flow.analytics.model.AnalyticsIngestionEvent;
+import com.book.ensureu.flow.analytics.model.PaperStat;
+import com.book.ensureu.flow.analytics.model.UserPaperStat;
+import com.book.ensureu.flow.analytics.repository.AnalyticsIngestionEventRepository;
+import com.book.ensureu.flow.analytics.repository.AppliedStatDeltaRepository;
+import com.book.ensureu.flow.analytics.repository.PaperStatRepository;
+import com.book.ensureu.flow.analytics.repository.QuestionStatRepository;
+import com.book.ensureu.flow.analytics.repository.UserPaperStatRepository;
+import com.book.ensureu.flow.analytics.transformer.UserPaperStatTransformer;
+import com.book.ensureu.flow.analytics.transformer.UserQuestionStatTransformer;
+import com.book.ensureu.flow.analytics.util.KeyConversionUtil;
+import com.book.ensureu.model.Pattern;
+import com.book.ensureu.service.PaperService;
+import com.book.ensureu.service.impl.PaperFactory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AnalyticsIngestionQueueImpl redelivery, the stats are written through the real
+ * ingestion service and repositories over a mocked MongoTemplate
+ */
+class AnalyticsIngestionQueueImplTest {
+
+    private static final String FIRST = AnalyticsIngestionEvent.idOf("user1", "paper1");
+
+    private static final String SECOND = AnalyticsIngestionEvent.idOf("user2", "paper1");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private final BulkOperations bulkOperations = mock(BulkOperations.class, RETURNS_SELF);
+
+    private final AnalyticsIngestionEventRepository eventRepository = mock(AnalyticsIngestionEventRepository.class);
+
+    private final PaperFactory paperFactory = mock(PaperFactory.class);
+
+    private final PaperService paperService = mock(PaperService.class);
+
+    private final Set<String> appliedStatDeltas = new HashSet<>();
+
+    private final AppliedStatDeltaRepository appliedStatDeltaRepository = spy(new AppliedStatDeltaRepository(mongoTemplate, 60));
+
+    private AnalyticsIngestionQueueImpl ingestionQueue;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class))).thenReturn(bulkOperations);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaperStat.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(paperFactory.getPaperService(TestType.PAID.toString())).thenReturn(paperService);
+        when(paperService.findSavedPaperByPaperIdAndUserId(anyString(), anyString(), eq(TestType.PAID)))
+                .thenAnswer(invocation -> Optional.of(paper(invocation.getArgument(1), invocation.getArgument(0))));
+        // markers live in memory, the stat bulks still go through the real execute
+        doAnswer(invocation -> invocation.<Collection<String>>getArgument(0).stream()
+                .filter(appliedStatDeltas::add)
+                .collect(Collectors.toCollection(LinkedHashSet::new)))
+                .when(appliedStatDeltaRepository).claim(anyCollection());
+        doAnswer(invocation -> appliedStatDeltas.removeAll(invocation.getArgument(0)))
+                .when(appliedStatDeltaRepository).release(anyCollection());
+        UserAnalyticsDao userAnalyticsDao = new UserAnalyticsDao(null,
+                new PaperStatRepository(mongoTemplate, appliedStatDeltaRepository),
+                new UserPaperStatRepository(mongoTemplate),
+                new QuestionStatRepository(mongoTemplate, appliedStatDeltaRepository), null, null,
+                mock(UserAnalyticsCache.class));
+        AnalyticsDataIngestionServiceImpl ingestionService = new AnalyticsDataIngestionServiceImpl(userAnalyticsDao,
+                new UserPaperStatTransformer(new UserQuestionStatTransformer()), null);
+        ingestionQueue = new AnalyticsIngestionQueueImpl(eventRepository, ingestionService, paperFactory,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(ingestionQueue, "capacity", 10);
+        ReflectionTestUtils.setField(ingestionQueue, "workers", 1);
+        ReflectionTestUtils.setField(ingestionQueue, "batchSize", 10);
+        ReflectionTestUtils.setField(ingestionQueue, "lockMillis", 60000L);
+        ReflectionTestUtils.setField(ingestionQueue, "maxAttempts", 5);
+        ingestionQueue.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ingestionQueue.stop();
+    }
+
+    @Test
+    void retryAfterARejectedStatWriteCountsEverySubmissionOnce() {
+        when(eventRepository.claimStale(anyInt(), anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> Arrays.asList(event(FIRST, "user1", invocation.getArgument(1)),
+                        event(SECOND, "user2", invocation.getArgument(1))));
+        // the PaperStat bulk of the batch applies the first score and is rejected at the second one
+        when(bulkOperations.execute()).thenReturn(null)
+                .thenThrow(new BulkOperationException("rejected", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(),
+                        Collections.singletonList(new BulkWriteError(2, "rejected", new BsonDocument(), 2)),
+                        null, new ServerAddress(), Collections.emptySet())))
+                .thenReturn(null);
+
+        ingestionQueue.sweep();
+
+        ArgumentCaptor<Query> replaced = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(4)).replaceOne(replaced.capture(), any(UserPaperStat.class),
+                any(FindAndReplaceOptions.class));
+        assertEquals(Arrays.asList(FIRST, SECOND, FIRST, SECOND), replaced.getAllValues().stream()
+                .map(query -> query.getQueryObject().get("id")).collect(Collectors.toList()));
+        // the rejected score is sent again by the retry, the applied one is not
+        assertEquals(Arrays.asList(scoreKey(40.0), scoreKey(60.0), scoreKey(60.0)), countedScoreKeys());
+        assertEquals(new HashSet<>(Arrays.asList(FIRST + ":PaperStat:paper1", SECOND + ":PaperStat:paper1")),
+                appliedStatDeltas);
+        verify(eventRepository).markDone(eq(Collections.singletonList(FIRST)), anyString());
+        verify(eventRepository).markDone(eq(Collections.singletonList(SECOND)), anyString());
+        verify(eventRepository, never()).markFailed(any(), anyString(), anyInt());
+    }
+
+    @Test
+    void eventOfAnExpiredLockIsReloadedAndAppliedUnderItsEventId() {
+        long before = System.currentTimeMillis();
+        when(eventRepository.claimStale(anyInt(), anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> Collections.singletonList(event(FIRST, "user1", invocation.getArgument(1))));
+
+        ingestionQueue.sweep();
+
+        ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Long> pendingBefore = ArgumentCaptor.forClass(Long.class);
+        verify(eventRepository).claimStale(eq(10), owner.capture(), eq(60000L), pendingBefore.capture());
+        assertTrue(pendingBefore.getValue() >= before - 60000L);
+        verify(paperService).findSavedPaperByPaperIdAndUserId("paper1", "user1", TestType.PAID);
+        verify(paperService, never()).getPaperByPaperIdAndUserId(anyString(), anyString(), any());
+        ArgumentCaptor<Query> replaced = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UserPaperStat> stat = ArgumentCaptor.forClass(UserPaperStat.class);
+        ArgumentCaptor<FindAndReplaceOptions> options = ArgumentCaptor.forClass(FindAndReplaceOptions.class);
+        verify(bulkOperations).replaceOne(replaced.capture(), stat.capture(), options.capture());
+        assertEquals(FIRST, replaced.getValue().getQueryObject().get("id"));
+        assertEquals(FIRST, stat.getValue().getId());
+        assertTrue(options.getValue().isUpsert());
+        assertEquals(Collections.singletonList(scoreKey(40.0)), countedScoreKeys());
+        assertEquals(Collections.singleton(FIRST + ":PaperStat:paper1"), appliedStatDeltas);
+        verify(eventRepository).markDone(Collections.singletonList(FIRST), owner.getValue());
+    }
+
+    @Test
+    void sweptEventWithoutASubmittedPaperFailsWithoutStartingOne() {
+        when(eventRepository.claimStale(anyInt(), anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> Arrays.asList(event(FIRST, "user1", invocation.getArgument(1)),
+                        event(SECOND, "user2", invocation.getArgument(1))));
+        PaperDto started = paper("user2", "paper1");
+        started.setPaperStatus(PaperStatus.START);
+        when(paperService.findSavedPaperByPaperIdAndUserId("paper1", "user1", TestType.PAID)).thenReturn(Optional.empty());
+        when(paperService.findSavedPaperByPaperIdAndUserId("paper1", "user2", TestType.PAID)).thenReturn(Optional.of(started));
+
+        ingestionQueue.sweep();
+
+        ArgumentCaptor<AnalyticsIngestionEvent> failed = ArgumentCaptor.forClass(AnalyticsIngestionEvent.class);
+        ArgumentCaptor<String> errors = ArgumentCaptor.forClass(String.class);
+        verify(eventRepository, times(2)).markFailed(failed.capture(), errors.capture(), eq(0));
+        assertEquals(Arrays.asList(FIRST, SECOND), failed.getAllValues().stream()
+                .map(AnalyticsIngestionEvent::getId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("paper not found", "paper not submitted"), errors.getAllValues());
+        verify(paperService, never()).getPaperByPaperIdAndUserId(anyString(), anyString(), any());
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), any(Class.class));
+        verify(eventRepository, never()).markDone(anyCollection(), anyString());
+    }
+
+    /**
+     * score bucket of every PaperStat $inc sent, each is one counted submission
+     */
+    private List<String> countedScoreKeys() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, atLeastOnce()).updateOne(any(Query.class), update.capture());
+        List<String> scoreKeys = new ArrayList<>();
+        for (Update counted : update.getAllValues()) {
+            Document inc = counted.getUpdateObject().get("$inc", Document.class);
+            assertEquals(1, inc.get("totalUsers"));
+            inc.keySet().stream().filter(key -> key.startsWith("scoreBuckets.")).forEach(scoreKeys::add);
+        }
+        return scoreKeys;
+    }
+
+    private static String scoreKey(double score) {
+        return "scoreBuckets." + KeyConversionUtil.getDoubleToKey(score);
+    }
+
+    private static AnalyticsIngestionEvent event(String id, String userId, String owner) {
+        return AnalyticsIngestionEvent.builder()
+                .id(id)
+                .userId(userId)
+                .paperId("paper1")
+                .testType(TestType.PAID)
+                .status(IngestionStatus.PROCESSING)
+                .owner(owner)
+                .build();
+    }
+
+    private static PaperDto paper(String userId, String paperId) {
+        PaperCollectionDto paperCollectionDto = new PaperCollectionDto();
+        paperCollectionDto.setPattern(new Pattern<>());
+        paperCollectionDto.getPattern().setSections(Collections.emptyList());
+        PaperDto paperDto = new PaperDto();
+        paperDto.setUserId(userId);
+        paperDto.setPaperId(paperId);
+        paperDto.setTestType(TestType.PAID);
+        paperDto.setPaperStatus(PaperStatus.DONE);
+        paperDto.setTotalGetScore("user1".equals(userId) ? 40.0 : 60.0);
+        paperDto.setPaper(paperCollectionDto);
+        return paperDto;
+    }
+}
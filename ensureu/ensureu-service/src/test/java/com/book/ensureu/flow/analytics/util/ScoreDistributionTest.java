@@ -0,0 +1,76 @@
+package com.book.ensureu.flow.analytics.util;
+
+import com.book.ensureu.flow.analytics.model.PaperStat;
+import com.book.ensureu.flow.analytics.model.PercentileDataObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ScoreDistribution rank and percentile lookups
+ */
+class ScoreDistributionTest {
+
+    private Map<String, Long> buckets() {
+        Map<String, Long> buckets = new HashMap<>();
+        buckets.put(KeyConversionUtil.getDoubleToKey(90.5), 1L);
+        buckets.put(KeyConversionUtil.getDoubleToKey(75.0), 3L);
+        buckets.put(KeyConversionUtil.getDoubleToKey(-2.25), 1L);
+        return buckets;
+    }
+
+    @Test
+    void testRankOf_CountsUsersStrictlyAbove() {
+        ScoreDistribution distribution = ScoreDistribution.of(buckets());
+
+        assertEquals(5, distribution.getTotalUsers());
+        assertEquals(90.5, distribution.getTopScore());
+        assertEquals(1, distribution.rankOf(95.0));
+        assertEquals(1, distribution.rankOf(90.5));
+        assertEquals(2, distribution.rankOf(75.0));
+        assertEquals(5, distribution.rankOf(0.0));
+        assertEquals(6, distribution.rankOf(-10.0));
+    }
+
+    @Test
+    void testPercentileOf_MatchesPercentileList() {
+        ScoreDistribution distribution = ScoreDistribution.of(buckets());
+        List<PercentileDataObject> percentileList = distribution.toPercentileDataObjectList();
+
+        assertEquals(3, percentileList.size());
+        assertEquals(90.5, percentileList.get(0).getMarks());
+        assertEquals(100.0, percentileList.get(0).getPercentile());
+        assertEquals(2, percentileList.get(1).getRank());
+        assertEquals(distribution.percentileOf(75.0), percentileList.get(1).getPercentile());
+        assertEquals(20.0, distribution.percentileOf(-2.25));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testOf_ReadsLegacyMarksVsUsersTreeMap() {
+        PaperStat paperStat = PaperStat.builder().paperId("paper-1").build();
+        paperStat.getMarksVsUsersTreeMap().put(KeyConversionUtil.getDoubleToKey(40.0), Arrays.asList("u1", "u2"));
+        paperStat.getMarksVsUsersTreeMap().put(KeyConversionUtil.getDoubleToKey(60.0), Arrays.asList("u3"));
+
+        ScoreDistribution distribution = ScoreDistribution.of(paperStat);
+
+        assertEquals(3, distribution.getTotalUsers());
+        assertEquals(60.0, distribution.getTopScore());
+        assertEquals(2, distribution.rankOf(40.0));
+    }
+
+    @Test
+    void testOf_EmptyPaperStat() {
+        ScoreDistribution distribution = ScoreDistribution.of((PaperStat) null);
+
+        assertEquals(0, distribution.getTotalUsers());
+        assertNull(distribution.getTopScore());
+        assertEquals(0.0, distribution.percentileOf(10.0));
+        assertTrue(distribution.toPercentileDataObjectList().isEmpty());
+    }
+}
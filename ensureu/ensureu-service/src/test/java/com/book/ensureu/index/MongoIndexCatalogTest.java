@@ -0,0 +1,143 @@
+package com.book.ensureu.index;
+
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.model.User;
+import com.book.ensureu.model.UserEntitlement;
+import com.book.ensureu.repository.FreePaperRepository;
+import com.book.ensureu.repository.PaidPaperRepository;
+import com.book.ensureu.repository.PastPaperRepository;
+import com.book.ensureu.repository.QuizPaperRepository;
+import com.book.ensureu.repository.SubscriptionRepository;
+import com.book.ensureu.repository.UserEntitlementRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks every query declared on the catalog's repositories against MongoIndexCatalog
+ */
+class MongoIndexCatalogTest {
+
+    private static final List<Class<?>> REPOSITORIES = Arrays.asList(PaidPaperRepository.class,
+            FreePaperRepository.class, QuizPaperRepository.class, PastPaperRepository.class,
+            UserEntitlementRepository.class, SubscriptionRepository.class);
+
+    // case-insensitive regex search of the admin listing, no index can serve it
+    private static final Set<String> SCANS = Collections.singleton("SubscriptionRepository.searchByNameOrDescription");
+
+    @Test
+    void everyRepositoryQueryShapeHasASupportingIndex() {
+        List<String> unsupported = new ArrayList<>();
+        for (Class<?> repository : REPOSITORIES) {
+            Class<?> modelClass = ResolvableType.forClass(repository).as(MongoRepository.class).resolveGeneric(0);
+            assertFalse(MongoIndexCatalog.required(modelClass).isEmpty(), modelClass + " has no catalog entry");
+            for (Method method : repository.getDeclaredMethods()) {
+                if (isCrudMethod(method)) {
+                    continue;
+                }
+                String name = repository.getSimpleName() + "." + method.getName();
+                Set<String> fields = queryFields(method, modelClass);
+                if (fields.isEmpty() || SCANS.contains(name) || fields.contains("id") || fields.contains("_id")) {
+                    continue;
+                }
+                boolean supported = MongoIndexCatalog.required(modelClass).stream()
+                        .anyMatch(index -> fields.contains(MongoIndexCatalog.leadingKey(index)));
+                if (!supported) {
+                    unsupported.add(name + " " + fields);
+                }
+            }
+        }
+        assertTrue(unsupported.isEmpty(), "query shapes without a supporting index: " + unsupported);
+    }
+
+    @Test
+    void declaredIndexesUseModelProperties() {
+        for (Map.Entry<Class<?>, List<Index>> entry : MongoIndexCatalog.required().entrySet()) {
+            for (Index index : entry.getValue()) {
+                for (String key : index.getIndexKeys().keySet()) {
+                    assertDoesNotThrow(() -> PropertyPath.from(key, entry.getKey()),
+                            entry.getKey().getSimpleName() + " has no property " + key);
+                }
+            }
+        }
+    }
+
+    @Test
+    void hotQueriesAreCoveredByCompoundIndexes() {
+        assertDeclared(PaidPaper.class, new Document("userId", 1).append("paperId", 1),
+                new Document("name", "userId_1_paperId_1").append("background", true));
+        assertDeclared(UserEntitlement.class, new Document("userId", 1).append("active", 1)
+                        .append("entitlementType", 1).append("validity", 1),
+                new Document("name", "userId_1_active_1_entitlementType_1_validity_1").append("background", true));
+        assertDeclared(Subscription.class, new Document("paperSubCategory", 1).append("testType", 1)
+                        .append("validity", 1),
+                new Document("name", "paperSubCategory_1_testType_1_validity_1").append("background", true));
+    }
+
+    @Test
+    void userNameIndexMatchesTheInitScripts() {
+        // mongo-init.js creates { userName: 1 } { unique: true } under the default name
+        assertDeclared(User.class, new Document("userName", 1),
+                new Document("name", "userName_1").append("unique", true).append("background", true));
+    }
+
+    /*
+     * keys are compared as json so their order counts, a differing option makes createIndex fail
+     * against the existing index
+     */
+    private static void assertDeclared(Class<?> modelClass, Document keys, Document options) {
+        Index index = MongoIndexCatalog.required(modelClass).stream()
+                .filter(declared -> keys.toJson().equals(declared.getIndexKeys().toJson()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(modelClass.getSimpleName() + " declares no index " + keys.toJson()));
+        assertEquals(options, index.getIndexOptions());
+    }
+
+    // findAll(Pageable) and findById are redeclared CRUD methods, not derived queries
+    private static boolean isCrudMethod(Method method) {
+        return Arrays.stream(MongoRepository.class.getMethods()).anyMatch(crud -> crud.getName().equals(method.getName()));
+    }
+
+    private static Set<String> queryFields(Method method, Class<?> modelClass) {
+        Set<String> fields = new LinkedHashSet<>();
+        Query query = method.getAnnotation(Query.class);
+        if (query != null && !query.value().isEmpty()) {
+            collectFields(Document.parse(query.value().replaceAll("\\?\\d+", "null")), fields);
+        } else {
+            for (Part part : new PartTree(method.getName(), modelClass).getParts()) {
+                fields.add(part.getProperty().toDotPath());
+            }
+        }
+        return fields;
+    }
+
+    private static void collectFields(Document filter, Set<String> fields) {
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            if (!entry.getKey().startsWith("$")) {
+                fields.add(entry.getKey());
+            } else if (entry.getValue() instanceof List) {
+                for (Object clause : (List<?>) entry.getValue()) {
+                    collectFields((Document) clause, fields);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.book.ensureu.profiler;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for query shape normalization and explain plan summaries
+ */
+class QueryShapesTest {
+
+    @Test
+    void valuesAreDroppedAndOperatorsKept() {
+        String first = QueryShapes.shape("find", BsonDocument.parse(
+                "{find: 'paidPaper', filter: {$and: [{userId: 'u1'}, {paperId: {$in: ['p1', 'p2']}}]}, sort: {createDateTime: -1}, $db: 'ensureu'}"));
+        String second = QueryShapes.shape("find", BsonDocument.parse(
+                "{find: 'paidPaper', filter: {$and: [{userId: 'u2'}, {paperId: {$in: ['p9']}}]}, sort: {createDateTime: -1}}"));
+
+        assertEquals("find paidPaper {$and:[{userId:?},{paperId:{$in:?}}]} sort{\"createDateTime\":-1}", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void pipelineKeepsStageNamesAndMatchFilter() {
+        String shape = QueryShapes.shape("aggregate", BsonDocument.parse(
+                "{aggregate: 'paidPaperCollection', pipeline: [{$match: {_id: {$in: ['p1']}}}, {$project: {pattern: 0}},"
+                        + " {$lookup: {from: 'paidPaper', as: 'userPapers'}}], cursor: {}}"));
+
+        assertEquals("aggregate paidPaperCollection [$match{_id:{$in:?}},$project,$lookup]", shape);
+    }
+
+    @Test
+    void writesUseTheirFirstStatementAndOtherCommandsAreSkipped() {
+        assertEquals("update userEntitlement {userId:?,active:?}", QueryShapes.shape("update", BsonDocument.parse(
+                "{update: 'userEntitlement', updates: [{q: {userId: 'u1', active: true}, u: {$set: {active: false}}}]}")));
+        assertNull(QueryShapes.shape("hello", BsonDocument.parse("{hello: 1}")));
+    }
+
+    @Test
+    void documentsAreCountedFromTheReply() {
+        assertEquals(2, MongoQueryProfiler.documents("find",
+                BsonDocument.parse("{cursor: {id: 0, firstBatch: [{a: 1}, {a: 2}]}, ok: 1}")));
+        assertEquals(1, MongoQueryProfiler.documents("getMore",
+                BsonDocument.parse("{cursor: {id: 5, nextBatch: [{a: 1}]}, ok: 1}")));
+        assertEquals(7, MongoQueryProfiler.documents("count", BsonDocument.parse("{n: 7, ok: 1}")));
+    }
+
+    @Test
+    void planSummaryFollowsInputStages() {
+        Document explain = Document.parse("{queryPlanner: {winningPlan: {stage: 'PROJECTION_SIMPLE', inputStage:"
+                + " {stage: 'FETCH', inputStage: {stage: 'IXSCAN', indexName: 'userId_1_paperId_1'}}}}}");
+        Document collScan = Document.parse("{stages: [{$cursor: {queryPlanner: {winningPlan: {queryPlan: {stage: 'COLLSCAN'}}}}}]}");
+
+        assertEquals("PROJECTION_SIMPLE > FETCH > IXSCAN(userId_1_paperId_1)", PlanSummary.summarize(explain));
+        assertEquals("COLLSCAN", PlanSummary.summarize(collScan));
+        assertNull(PlanSummary.summarize(new Document("ok", 1)));
+    }
+}
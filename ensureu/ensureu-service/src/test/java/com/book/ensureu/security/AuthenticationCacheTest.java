@@ -0,0 +1,42 @@
+package com.book.ensureu.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AuthenticationCache negative entries
+ */
+class AuthenticationCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final AuthenticationCache authenticationCache =
+            new AuthenticationCache(new SimpleMeterRegistry(), 100, 300, 10, nanos::get);
+
+    @Test
+    void nonProviderMarkExpiresAfterSeconds() {
+        authenticationCache.markNonProviderToken("token");
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertTrue(authenticationCache.isNonProviderToken("token"));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertFalse(authenticationCache.isNonProviderToken("token"));
+    }
+
+    @Test
+    void savedProviderTokenIsNoLongerMarked() {
+        authenticationCache.markNonProviderToken("token");
+        authenticationCache.markNonProviderToken("other");
+
+        authenticationCache.forgetNonProviderToken("token");
+
+        assertFalse(authenticationCache.isNonProviderToken("token"));
+        assertTrue(authenticationCache.isNonProviderToken("other"));
+    }
+}
@@ -0,0 +1,175 @@
+package com.book.ensureu.service.audit.impl;
+
+import com.book.ensureu.constant.AuditOverflowPolicy;
+import com.book.ensureu.constant.CounterEnum;
+import com.book.ensureu.model.UserAuditLogin;
+import com.book.ensureu.service.CounterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserAuditLoginWriter batching, overflow policies and the flush on shutdown
+ */
+class UserAuditLoginWriterTest {
+
+    private static final String FLUSHER = "audit-login-writer";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private final CounterService counterService = mock(CounterService.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UserAuditLoginWriter writer = new UserAuditLoginWriter(mongoTemplate, counterService, meterRegistry);
+
+    /** user ids of every insertMany, with the thread that ran it */
+    private final List<List<String>> inserted = new CopyOnWriteArrayList<>();
+    private final List<String> insertThreads = new CopyOnWriteArrayList<>();
+
+    /** the first insert of the flusher waits for release, so the buffer can be filled behind it */
+    private final CountDownLatch flusherInserting = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        AtomicLong ids = new AtomicLong();
+        when(counterService.increment(CounterEnum.USERAUDIT)).thenAnswer(invocation -> ids.incrementAndGet());
+        when(mongoTemplate.insert(anyCollection(), eq(UserAuditLogin.class))).thenAnswer(invocation -> {
+            Collection<UserAuditLogin> batch = invocation.getArgument(0);
+            batch.forEach(userAuditLogin -> assertNotNull(userAuditLogin.getId()));
+            inserted.add(batch.stream().map(UserAuditLogin::getUserId).collect(Collectors.toList()));
+            insertThreads.add(Thread.currentThread().getName());
+            if (FLUSHER.equals(Thread.currentThread().getName()) && flusherInserting.getCount() > 0) {
+                flusherInserting.countDown();
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            }
+            return batch;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        writer.stop();
+    }
+
+    @Test
+    void eventsAreWrittenWithOneInsertOnceBatchSizeIsWaiting() throws InterruptedException {
+        release.countDown();
+        start(100, 3, 200, AuditOverflowPolicy.DROP);
+
+        writer.submit(login("u1"));
+        writer.submit(login("u2"));
+        writer.submit(login("u3"));
+        writer.submit(login("u4"));
+
+        verify(mongoTemplate, timeout(2000).times(2)).insert(anyCollection(), eq(UserAuditLogin.class));
+        assertEquals(Arrays.asList(Arrays.asList("u1", "u2", "u3"), Collections.singletonList("u4")), inserted);
+        assertEquals(4.0, count("written"));
+        assertEquals(4.0, count("queued"));
+    }
+
+    @Test
+    void overflowIsDroppedAndCountedUnderDrop() throws InterruptedException {
+        start(1, 1, 100, AuditOverflowPolicy.DROP);
+        writer.submit(login("u1"));
+        assertTrue(flusherInserting.await(5, TimeUnit.SECONDS));
+
+        writer.submit(login("u2"));
+        writer.submit(login("u3"));
+
+        assertEquals(1.0, count("dropped"));
+        assertEquals(0.0, count("caller_runs"));
+        release.countDown();
+        writer.stop();
+        // u2 is written by the flusher or by the final flush of stop()
+        assertEquals(Arrays.asList(Collections.singletonList("u1"), Collections.singletonList("u2")), inserted);
+    }
+
+    @Test
+    void overflowIsWrittenByTheCallerUnderCallerRuns() throws InterruptedException {
+        start(1, 1, 100, AuditOverflowPolicy.CALLER_RUNS);
+        writer.submit(login("u1"));
+        assertTrue(flusherInserting.await(5, TimeUnit.SECONDS));
+
+        writer.submit(login("u2"));
+        writer.submit(login("u3"));
+
+        assertEquals(Arrays.asList(Collections.singletonList("u1"), Collections.singletonList("u3")), inserted);
+        assertEquals(Thread.currentThread().getName(), insertThreads.get(1));
+        assertEquals(1.0, count("caller_runs"));
+        assertEquals(0.0, count("dropped"));
+        release.countDown();
+        writer.stop();
+        assertEquals(Collections.singletonList("u2"), inserted.get(2));
+        assertEquals(3.0, count("written"));
+    }
+
+    @Test
+    void eventsStillBufferedAreWrittenOnShutdown() throws InterruptedException {
+        start(10, 1, 100, AuditOverflowPolicy.DROP);
+        writer.submit(login("u1"));
+        assertTrue(flusherInserting.await(5, TimeUnit.SECONDS));
+        writer.submit(login("u2"));
+        writer.submit(login("u3"));
+
+        List<Throwable> stopFailures = new ArrayList<>();
+        Thread stopper = new Thread(() -> {
+            try {
+                writer.stop();
+            } catch (Throwable e) {
+                stopFailures.add(e);
+            }
+        }, "stopper");
+        stopper.start();
+        // the flusher finishes its insert only once running is off, so the rest is left to stop()
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Boolean.TRUE.equals(ReflectionTestUtils.getField(writer, "running"))) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+        release.countDown();
+        stopper.join(5000);
+
+        assertFalse(stopper.isAlive());
+        assertTrue(stopFailures.isEmpty());
+        assertEquals(Arrays.asList(Collections.singletonList("u1"), Arrays.asList("u2", "u3")), inserted);
+        assertEquals(Arrays.asList(FLUSHER, "stopper"), insertThreads);
+    }
+
+    private void start(int capacity, int batchSize, long flushMillis, AuditOverflowPolicy overflowPolicy) {
+        ReflectionTestUtils.setField(writer, "capacity", capacity);
+        ReflectionTestUtils.setField(writer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writer, "flushMillis", flushMillis);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", overflowPolicy);
+        writer.start();
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("audit.login.events", "result", result).count();
+    }
+
+    private static UserAuditLogin login(String userId) {
+        return UserAuditLogin.builder().userId(userId).createDate(System.currentTimeMillis()).build();
+    }
+}
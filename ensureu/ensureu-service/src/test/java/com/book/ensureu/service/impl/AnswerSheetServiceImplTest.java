@@ -0,0 +1,133 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.PaperStorageMode;
+import com.book.ensureu.constant.QuestionAttemptedStatus;
+import com.book.ensureu.model.AnswerSheet;
+import com.book.ensureu.model.Options;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.Pattern;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.QuestionData;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AnswerSheetServiceImpl split / merge of user papers
+ */
+class AnswerSheetServiceImplTest {
+
+    private final AnswerSheetServiceImpl answerSheetService = new AnswerSheetServiceImpl(PaperStorageMode.ANSWER_SHEET);
+
+    @Test
+    void answerSheetKeepsOnlyTouchedQuestionsAndSections() {
+        PaidPaperCollection attempted = template();
+        Question<Problem> answered = question(attempted, 0, 0, 1);
+        answered.getProblem().setSo(Collections.singletonList("2"));
+        answered.setQuestionAttemptedStatus(QuestionAttemptedStatus.CORRECT);
+        answered.setTimeTakenInSecond(35);
+        answered.setScore(2);
+        SubSections<Question<Problem>> subSection = attempted.getPattern().getSections().get(0).getSubSections().get(0);
+        subSection.setCorrectCount(1);
+        subSection.setScoreInSubSection(2);
+
+        AnswerSheet answerSheet = answerSheetService.toAnswerSheet(attempted.getPattern());
+
+        assertEquals(1, answerSheet.getResponses().size());
+        assertEquals(Collections.singletonList("2"), answerSheet.getResponses().get("q1").getSo());
+        assertEquals(35, answerSheet.getResponses().get("q1").getTimeTakenInSecond());
+        assertEquals(1, answerSheet.getSections().size());
+        assertEquals(2, answerSheet.getSections().get("0_0").getScoreInSection());
+    }
+
+    @Test
+    void questionsWithoutUsableIdAreKeyedByPosition() {
+        PaidPaperCollection attempted = template();
+        Question<Problem> dotted = question(attempted, 0, 0, 0);
+        dotted.setId("a.b");
+        dotted.setTimeTakenInSecond(4);
+
+        AnswerSheet answerSheet = answerSheetService.toAnswerSheet(attempted.getPattern());
+
+        assertTrue(answerSheet.getResponses().containsKey("0_0_0"));
+    }
+
+    @Test
+    void mergeRestoresResponsesWithoutTouchingTemplate() {
+        PaidPaperCollection attempted = template();
+        Question<Problem> answered = question(attempted, 0, 0, 1);
+        answered.getProblem().setSo(Collections.singletonList("2"));
+        answered.setQuestionAttemptedStatus(QuestionAttemptedStatus.INCORRECT);
+        answered.setTimeTakenInSecond(12);
+        attempted.getPattern().getSections().get(0).setTimeTakenSecond(40);
+        AnswerSheet answerSheet = answerSheetService.toAnswerSheet(attempted.getPattern());
+
+        PaidPaperCollection template = template();
+        PaidPaperCollection merged = answerSheetService.merge(template, answerSheet);
+
+        Question<Problem> mergedQuestion = question(merged, 0, 0, 1);
+        assertEquals("P1", merged.getId());
+        assertEquals(QuestionAttemptedStatus.INCORRECT, mergedQuestion.getQuestionAttemptedStatus());
+        assertEquals(12, mergedQuestion.getTimeTakenInSecond());
+        assertEquals(Collections.singletonList("2"), mergedQuestion.getProblem().getSo());
+        assertTrue(mergedQuestion.getProblem().getOptions().get(2).isSelected());
+        assertFalse(mergedQuestion.getProblem().getOptions().get(0).isSelected());
+        assertEquals(40, merged.getPattern().getSections().get(0).getTimeTakenSecond());
+        // untouched question keeps the template problem
+        assertSame(question(template, 0, 0, 0).getProblem(), question(merged, 0, 0, 0).getProblem());
+
+        Question<Problem> templateQuestion = question(template, 0, 0, 1);
+        assertNull(templateQuestion.getQuestionAttemptedStatus());
+        assertTrue(templateQuestion.getProblem().getSo() == null || templateQuestion.getProblem().getSo().isEmpty());
+        assertFalse(templateQuestion.getProblem().getOptions().get(2).isSelected());
+        assertEquals(0, template.getPattern().getSections().get(0).getTimeTakenSecond());
+    }
+
+    private static Question<Problem> question(PaidPaperCollection paper, int section, int subSection, int index) {
+        return paper.getPattern().getSections().get(section).getSubSections().get(subSection)
+                .getQuestionData().getQuestions().get(index);
+    }
+
+    private static PaidPaperCollection template() {
+        List<Question<Problem>> questions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Problem problem = new Problem();
+            problem.setQuestion("question " + i);
+            problem.setCo(Collections.singletonList("1"));
+            List<Options> options = new ArrayList<>();
+            for (String prompt : Arrays.asList("A", "B", "C", "D")) {
+                Options option = new Options();
+                option.setPrompt(prompt);
+                options.add(option);
+            }
+            problem.setOptions(options);
+            Question<Problem> question = new Question<>();
+            question.setId("q" + i);
+            question.setProblem(problem);
+            questions.add(question);
+        }
+        QuestionData<Question<Problem>> questionData = new QuestionData<>();
+        questionData.setQuestions(questions);
+        SubSections<Question<Problem>> subSection = new SubSections<>();
+        subSection.setTitle("Algebra");
+        subSection.setQuestionData(questionData);
+        Sections<SubSections<Question<Problem>>> section = new Sections<>();
+        section.setTitle("Maths");
+        section.setScore(6);
+        section.setSubSections(new ArrayList<>(Collections.singletonList(subSection)));
+        Pattern<Sections<SubSections<Question<Problem>>>> pattern = new Pattern<>();
+        pattern.setSections(new ArrayList<>(Collections.singletonList(section)));
+        PaidPaperCollection paper = new PaidPaperCollection();
+        paper.setId("P1");
+        paper.setPattern(pattern);
+        return paper;
+    }
+}
@@ -0,0 +1,102 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.CounterEnum;
+import com.book.ensureu.model.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CounterServiceImpl hi/lo block allocation
+ */
+class CounterServiceImplTest {
+
+    private final AtomicLong storedCounter = new AtomicLong(41);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MockEnvironment environment;
+
+    private CounterServiceImpl counterService(MockEnvironment environment) {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        // behaves like the atomic $inc on the counter document
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Counter.class)))
+                .thenAnswer(invocation -> {
+                    Update update = invocation.getArgument(1);
+                    long inc = ((Number) update.getUpdateObject().get("$inc", Document.class).get("counter")).longValue();
+                    return new Counter("TESTPAPER", storedCounter.addAndGet(inc));
+                });
+        CounterServiceImpl counterService = new CounterServiceImpl();
+        counterService.mongoTemplate = mongoTemplate;
+        counterService.meterRegistry = meterRegistry;
+        counterService.environment = environment;
+        ReflectionTestUtils.setField(counterService, "defaultBlockSize", 10);
+        counterService.init();
+        return counterService;
+    }
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment();
+    }
+
+    @Test
+    void testIncrement_HandsOutReservedBlockInOrder() {
+        CounterServiceImpl counterService = counterService(environment);
+
+        for (long expected = 42; expected < 67; expected++) {
+            assertEquals(expected, counterService.increment(CounterEnum.TESTPAPER));
+        }
+        assertEquals(71, storedCounter.get());
+        assertEquals(3.0, meterRegistry.get("counter.id.reservations").tag("counter", "TESTPAPER").counter().count());
+    }
+
+    @Test
+    void testIncrement_BlockSizeOverrideOfOneStaysSequential() {
+        environment.setProperty("counter.block.size.TESTPAPER", "1");
+        CounterServiceImpl counterService = counterService(environment);
+
+        assertEquals(42, counterService.increment(CounterEnum.TESTPAPER));
+        assertEquals(43, counterService.increment(CounterEnum.TESTPAPER));
+        assertEquals(43, storedCounter.get());
+    }
+
+    @Test
+    void testIncrement_ConcurrentCallersGetUniqueIds() throws Exception {
+        CounterServiceImpl counterService = counterService(environment);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    ids.add(counterService.increment(CounterEnum.TESTPAPER));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(4000, ids.size());
+        assertEquals(4000 / 10.0, meterRegistry.get("counter.id.reservations").tag("counter", "TESTPAPER").counter().count());
+    }
+}
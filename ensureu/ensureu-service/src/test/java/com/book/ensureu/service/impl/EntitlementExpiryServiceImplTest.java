@@ -0,0 +1,84 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.event.EntitlementExpiredEvent;
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.model.UserEntitlement;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for EntitlementExpiryServiceImpl tracking and bulk deactivation
+ */
+class EntitlementExpiryServiceImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void lapsedEntitlementsAreFlaggedInactiveAndPublished() {
+        EntitlementExpiryServiceImpl expiryService = expiryService();
+        UserEntitlement lapsed = UserEntitlement.builder().id(7L).userId("user1").validity(1L).build();
+        when(mongoTemplate.find(any(Query.class), eq(UserEntitlement.class)))
+                .thenReturn(Collections.singletonList(lapsed));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(UserEntitlement.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        long now = System.currentTimeMillis();
+        assertTrue(expiryService.sweep(now));
+
+        verify(mongoTemplate).updateMulti(argThat(query -> query.getQueryObject().containsKey("validity")
+                        && Boolean.TRUE.equals(query.getQueryObject().get("active"))),
+                argThat(update -> Boolean.FALSE.equals(update.getUpdateObject().get("$set", Document.class)
+                        .get("active"))
+                        && Long.valueOf(now).equals(update.getUpdateObject().get("$set", Document.class)
+                        .get("expiredDate"))), eq(UserEntitlement.class));
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Collections.singletonList(lapsed), ((EntitlementExpiredEvent) event.getValue()).getEntitlements());
+        assertEquals(1.0, meterRegistry.counter("entitlement.expiry.deactivated", "source", "sweep").count());
+    }
+
+    @Test
+    void onlyExpiriesWithinTheLoadedHorizonAreHeld() {
+        EntitlementExpiryServiceImpl expiryService = expiryService();
+        when(mongoTemplate.find(any(Query.class), eq(UserEntitlement.class))).thenReturn(Collections.emptyList());
+        when(mongoTemplate.find(any(Query.class), eq(Subscription.class))).thenReturn(Collections.emptyList());
+        long now = System.currentTimeMillis();
+        expiryService.load(now + 60_000);
+
+        expiryService.track(UserEntitlement.builder().id(1L).active(true).validity(now + 30_000).build());
+        expiryService.track(UserEntitlement.builder().id(2L).active(true).validity(now + 120_000).build());
+        expiryService.track(UserEntitlement.builder().id(3L).active(false).validity(now + 30_000).build());
+        assertEquals(1, expiryService.pending());
+
+        expiryService.track(UserEntitlement.builder().id(1L).active(true).validity(now + 120_000).build());
+        assertEquals(0, expiryService.pending(), "an extension past the horizon is left to a later load");
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    private EntitlementExpiryServiceImpl expiryService() {
+        return new EntitlementExpiryServiceImpl(mongoTemplate, eventPublisher, meterRegistry, true, 1000,
+                3_600_000, 60_000, 60_000, 500);
+    }
+}
@@ -0,0 +1,99 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.EntitlementType;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperInfo;
+import com.book.ensureu.dto.SubscribedDto;
+import com.book.ensureu.model.UserEntitlement;
+import com.book.ensureu.repository.UserEntitlementRepository;
+import com.book.ensureu.service.impl.helper.SubscriptionServiceImplHelper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for EntitlementIndexServiceImpl lookups and per-user caching
+ */
+class EntitlementIndexServiceImplTest {
+
+    private final UserEntitlementRepository entitlementRepository = mock(UserEntitlementRepository.class);
+
+    private final SubscriptionServiceImplHelper implHelper = mock(SubscriptionServiceImplHelper.class);
+
+    private final EntitlementIndexServiceImpl entitlementIndexService = new EntitlementIndexServiceImpl(
+            entitlementRepository, implHelper, new SimpleMeterRegistry(), 100, 60);
+
+    @Test
+    void paperKeepsTheWindowThatEndsLast() {
+        long now = System.currentTimeMillis();
+        EntitlementIndex index = EntitlementIndex.of(Arrays.asList(
+                subscription(paper("P1", now + 1000), paper("P2", now - 1000)),
+                subscription(paper("P1", now + 5000))), true);
+
+        assertEquals(Long.valueOf(now + 5000), index.validity("P1", now));
+        assertNull(index.validity("P2", now), "ended windows are not served");
+        assertNull(index.validity("P3", now));
+        assertEquals(1, index.paperInfoList(null, now).size());
+        assertEquals(1, index.paperInfoList(Arrays.asList("P1", "P1", "P3"), now).size());
+    }
+
+    @Test
+    void indexIsBuiltOnceUntilTheUserIsEvicted() {
+        long validity = System.currentTimeMillis() + 60_000;
+        List<UserEntitlement> entitlements = Collections.singletonList(new UserEntitlement());
+        when(entitlementRepository.findByUserIdAndActiveAndCreatedDateAndValidityAndEntitlementType(eq("user1"),
+                anyBoolean(), anyLong(), anyLong(), eq(EntitlementType.SUBSCRIPTION))).thenReturn(entitlements);
+        when(implHelper.getSubscriptionFromUserEntitle(any(), any(), eq(TestType.PAID), anyList()))
+                .thenReturn(Collections.singletonList(subscription(paper("P1", validity))));
+
+        List<PaperInfo> first = entitlementIndexService.getPaperInfoList("user1", Arrays.asList("P1"), TestType.PAID);
+        first.get(0).setValidity(0L);
+        assertEquals(Long.valueOf(validity), entitlementIndexService.getValidity("user1", "P1", TestType.PAID));
+        assertTrue(entitlementIndexService.isEntitled("user1", TestType.PAID));
+        verify(implHelper, times(1)).getSubscriptionFromUserEntitle(any(), any(), eq(TestType.PAID), anyList());
+
+        entitlementIndexService.evict("user1");
+        entitlementIndexService.getValidity("user1", "P1", TestType.PAID);
+        verify(implHelper, times(2)).getSubscriptionFromUserEntitle(any(), any(), eq(TestType.PAID), anyList());
+    }
+
+    @Test
+    void userWithoutEntitlementsIsNotEntitledNorCached() {
+        when(entitlementRepository.findByUserIdAndActiveAndCreatedDateAndValidityAndEntitlementType(eq("user2"),
+                anyBoolean(), anyLong(), anyLong(), eq(EntitlementType.FREE_SUBSCRIPTION)))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.singletonList(new UserEntitlement()));
+        when(implHelper.getSubscriptionFromUserEntitle(any(), any(), eq(TestType.FREE), anyList()))
+                .thenReturn(Collections.singletonList(subscription(paper("P1", System.currentTimeMillis() + 60_000))));
+
+        assertFalse(entitlementIndexService.isEntitled("user2", TestType.FREE));
+        assertTrue(entitlementIndexService.getPaperInfoList("user2", null, TestType.FREE).isEmpty());
+        // bought on another instance, nothing was evicted here
+        assertTrue(entitlementIndexService.isEntitled("user2", TestType.FREE));
+    }
+
+    private static SubscribedDto subscription(PaperInfo... papers) {
+        SubscribedDto subscribedDto = new SubscribedDto();
+        subscribedDto.setListOfPaperInfo(Arrays.asList(papers));
+        return subscribedDto;
+    }
+
+    private static PaperInfo paper(String id, long validity) {
+        return PaperInfo.builder().id(id).paperName(id).validity(validity).build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.book.ensureu.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExpiryTimeWheel placement, cascading between levels and rescheduling
+ */
+class ExpiryTimeWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void deadlinesFireOnTheirTickAcrossLevels() {
+        // 10ms ticks, 4 slots, 3 levels: level 0 reaches 40ms, level 1 160ms, level 2 640ms
+        ExpiryTimeWheel<String> wheel = new ExpiryTimeWheel<>(10, 4, 3, START);
+        wheel.schedule("near", START + 25);
+        wheel.schedule("middle", START + 95);
+        wheel.schedule("far", START + 600);
+        assertFalse(wheel.schedule("beyond", START + 10_000), "past the top level nothing is held");
+        assertEquals(3, wheel.size());
+
+        assertTrue(wheel.advance(START + 29).isEmpty(), "a deadline never fires before it");
+        assertEquals(Collections.singletonList("near"), wheel.advance(START + 30));
+        assertTrue(wheel.advance(START + 99).isEmpty());
+        assertEquals(Collections.singletonList("middle"), wheel.advance(START + 100));
+        assertEquals(Collections.singletonList("far"), wheel.advance(START + 5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedulingAgainMovesTheDeadline() {
+        ExpiryTimeWheel<String> wheel = new ExpiryTimeWheel<>(10, 4, 3, START);
+        wheel.schedule("a", START + 20);
+        wheel.schedule("b", START + 20);
+        wheel.schedule("a", START + 300);
+        wheel.cancel("b");
+        wheel.schedule("c", START - 5);
+
+        assertEquals(Collections.singletonList("c"), wheel.advance(START), "lapsed deadlines are due at once");
+        assertTrue(wheel.advance(START + 290).isEmpty());
+        assertEquals(Collections.singletonList("a"), wheel.advance(START + 300));
+        assertFalse(wheel.contains("b"));
+    }
+
+    @Test
+    void randomDeadlinesFireNoEarlierThanDueAndNoLaterThanOneTick() {
+        long tick = 1000;
+        ExpiryTimeWheel<Integer> wheel = new ExpiryTimeWheel<>(tick, 64, 4, START);
+        Random random = new Random(7);
+        long[] deadlines = new long[5000];
+        for (int key = 0; key < deadlines.length; key++) {
+            deadlines[key] = START + random.nextInt(10_000_000);
+            wheel.schedule(key, deadlines[key]);
+        }
+        List<Integer> fired = new ArrayList<>();
+        for (long now = START; now <= START + 10_000_000 + tick; now += 337) {
+            for (Integer key : wheel.advance(now)) {
+                assertTrue(now >= deadlines[key], "fired early: " + key);
+                assertTrue(now < deadlines[key] + tick + 337, "fired late: " + key);
+                fired.add(key);
+            }
+        }
+        assertEquals(deadlines.length, fired.size());
+        assertEquals(deadlines.length, new HashSet<>(fired).size());
+        assertEquals(0, wheel.size());
+    }
+}
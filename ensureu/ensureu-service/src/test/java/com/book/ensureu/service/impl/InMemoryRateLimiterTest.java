@@ -0,0 +1,39 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.service.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the sliding window rate limiting
+ */
+class InMemoryRateLimiterTest {
+
+    private static final long WINDOW = 1000;
+
+    @Test
+    void testTryAcquire_RejectsOverLimitPerKey() {
+        InMemoryRateLimiter rateLimiter = new InMemoryRateLimiter(100, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("OTPSERVICE:user", 3, 60_000));
+        }
+        assertTrue(rateLimiter.tryAcquire("OTPSERVICE:user", 3, 60_000) > 0);
+        assertEquals(0, rateLimiter.tryAcquire("OTPSERVICE:other", 3, 60_000));
+    }
+
+    @Test
+    void testRetryAfterMillis_PreviousWindowSlidesOut() {
+        // 4 calls in the previous window, limit 3: half way through, 2 still count
+        assertEquals(0, RateLimiter.retryAfterMillis(4, 0, 3, WINDOW, 10 * WINDOW + 500));
+        // 4 * 0.5 + 1 + 1 > 3, allowed again once only a quarter overlaps
+        assertEquals(250, RateLimiter.retryAfterMillis(4, 1, 3, WINDOW, 10 * WINDOW + 500));
+    }
+
+    @Test
+    void testRetryAfterMillis_CurrentWindowFull() {
+        // 3 of 3 taken at 200ms: wait 800ms to the next window plus a third of it for 3 * overlap + 1 <= 3
+        assertEquals(800 + 334, RateLimiter.retryAfterMillis(0, 3, 3, WINDOW, 10 * WINDOW + 200));
+    }
+}
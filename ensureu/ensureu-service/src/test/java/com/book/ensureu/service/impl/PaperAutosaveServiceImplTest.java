@@ -0,0 +1,197 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.PaperStorageMode;
+import com.book.ensureu.constant.QuestionAttemptedStatus;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperAutosaveDto;
+import com.book.ensureu.dto.PaperAutosaveResultDto;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.dto.QuestionAutosaveDto;
+import com.book.ensureu.exception.unchecked.InvalidRequestException;
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.QuizPaper;
+import com.book.ensureu.repository.PaidPaperRepository;
+import com.book.ensureu.service.PaperShelfService;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for PaperAutosaveServiceImpl update building
+ */
+class PaperAutosaveServiceImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    private final PaperShelfService paperShelfService = mock(PaperShelfService.class);
+
+    private PaperAutosaveServiceImpl autosaveService(PaperStorageMode storageMode) {
+        return new PaperAutosaveServiceImpl(mongoTemplate, new AnswerSheetServiceImpl(storageMode),
+                paperShelfService, new SimpleMeterRegistry(), 50);
+    }
+
+    @Test
+    void answerSheetModeSetsResponsesByKeyBehindSequenceCheck() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaidPaper.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        PaperAutosaveResultDto result = autosaveService(PaperStorageMode.ANSWER_SHEET)
+                .autosave("user1", batch(TestType.PAID, 7, response("q9", 1, 0, 3)));
+
+        assertTrue(result.isApplied());
+        assertEquals(7, result.getSeq());
+        verify(paperShelfService).evict("user1");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(PaidPaper.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(7L, set.get(PaperAutosaveServiceImpl.SEQ_FIELD));
+        assertEquals(Collections.singletonList("2"), set.get("answerSheet.responses.q9.so"));
+        assertEquals(15L, set.get("answerSheet.responses.q9.timeTakenInSecond"));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals("user1", filter.get("userId"));
+        assertNotNull(filter.get("$or"));
+        assertTrue(filter.containsKey("answerSheet"));
+    }
+
+    @Test
+    void fullDocumentGetsPositionalUpdateWithOptionFlags() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(QuizPaper.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        QuestionAutosaveDto response = response(null, 0, null, 4);
+        response.setOptionCount(4);
+
+        autosaveService(PaperStorageMode.ANSWER_SHEET).autosave("user1", batch(TestType.QUIZ, 1, response));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(QuizPaper.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        String question = "paper.pattern.sections.0.questionData.questions.4.";
+        assertEquals(Collections.singletonList("2"), set.get(question + "problem.so"));
+        assertEquals(true, set.get(question + "problem.options.2.selected"));
+        assertEquals(false, set.get(question + "problem.options.0.selected"));
+        assertFalse(set.containsKey(question + "problem.options.4.selected"));
+    }
+
+    @Test
+    void otherShapeIsTriedBeforeBatchIsIgnored() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaidPaper.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        PaperAutosaveResultDto result = autosaveService(PaperStorageMode.FULL)
+                .autosave("user1", batch(TestType.PAID, 3, response("q1", 0, 0, 0)));
+
+        assertFalse(result.isApplied());
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(PaidPaper.class));
+        verify(paperShelfService, never()).evict(any());
+    }
+
+    @Test
+    void fullDocumentFilterRequiresTheQuestionAtEachPosition() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(QuizPaper.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        PaperAutosaveResultDto result = autosaveService(PaperStorageMode.FULL).autosave("user1",
+                batch(TestType.QUIZ, 2, response("q9", 1, 0, 3), response(null, 0, null, 40)));
+
+        assertFalse(result.isApplied());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(QuizPaper.class));
+        Document filter = query.getValue().getQueryObject();
+        assertEquals("q9", filter.get("paper.pattern.sections.1.subSections.0.questionData.questions.3.id"));
+        assertEquals(new Document("$exists", true), filter.get("paper.pattern.sections.0.questionData.questions.40"));
+        Document mapped = new QueryMapper(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()))
+                .getMappedObject(filter, new MongoMappingContext().getPersistentEntity(QuizPaper.class));
+        assertEquals("q9", mapped.get("paper.pattern.sections.1.subSections.0.questionData.questions.3._id"));
+    }
+
+    @Test
+    void staleSeqIsRejectedAfterFullSave() {
+        PaidPaperRepository paidPaperRepository = mock(PaidPaperRepository.class);
+        PaidPaper stored = new PaidPaper();
+        stored.setAutosaveSeq(7L);
+        when(paidPaperRepository.findByUserIdAndPaperId("user1", "P1")).thenReturn(stored);
+        PaidPaperServiceImpl paidPaperService = new PaidPaperServiceImpl();
+        ReflectionTestUtils.setField(paidPaperService, "paidPaperRepository", paidPaperRepository);
+        ReflectionTestUtils.setField(paidPaperService, "answerSheetService", new AnswerSheetServiceImpl(PaperStorageMode.FULL));
+        ReflectionTestUtils.setField(paidPaperService, "paperShelfService", mock(PaperShelfService.class));
+        PaperDto paperDto = new PaperDto();
+        paperDto.setId(11L);
+        paperDto.setUserId("user1");
+        paperDto.setPaperId("P1");
+
+        paidPaperService.savePaper(paperDto);
+
+        ArgumentCaptor<PaidPaper> saved = ArgumentCaptor.forClass(PaidPaper.class);
+        verify(paidPaperRepository).save(saved.capture());
+        assertEquals(7L, saved.getValue().getAutosaveSeq());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaidPaper.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        autosaveService(PaperStorageMode.FULL).autosave("user1", batch(TestType.PAID, 5, response("q1", 0, null, 0)));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).updateFirst(query.capture(), any(Update.class), eq(PaidPaper.class));
+        // the seq 7 kept by the save satisfies neither branch, the batch is ignored
+        assertEquals(Arrays.asList(new Document(PaperAutosaveServiceImpl.SEQ_FIELD, new Document("$lt", 5L)),
+                new Document(PaperAutosaveServiceImpl.SEQ_FIELD, new Document("$exists", false))),
+                query.getValue().getQueryObject().get("$or"));
+    }
+
+    @Test
+    void twoQuestionsAtOnePositionAreRejected() {
+        PaperAutosaveServiceImpl autosaveService = autosaveService(PaperStorageMode.FULL);
+        assertThrows(InvalidRequestException.class, () -> autosaveService.autosave("user1",
+                batch(TestType.QUIZ, 1, response("q1", 0, null, 2), response("q2", 0, null, 2))));
+    }
+
+    @Test
+    void negativePositionsAreRejected() {
+        PaperAutosaveServiceImpl autosaveService = autosaveService(PaperStorageMode.FULL);
+        assertThrows(InvalidRequestException.class,
+                () -> autosaveService.autosave("user1", batch(TestType.PAID, 1, response("q1", -1, 0, 0))));
+    }
+
+    private static PaperAutosaveDto batch(TestType testType, long seq, QuestionAutosaveDto... responses) {
+        PaperAutosaveDto paperAutosaveDto = new PaperAutosaveDto();
+        paperAutosaveDto.setTestType(testType);
+        paperAutosaveDto.setPaperId("P1");
+        paperAutosaveDto.setSeq(seq);
+        List<QuestionAutosaveDto> list = Arrays.asList(responses);
+        paperAutosaveDto.setResponses(list);
+        return paperAutosaveDto;
+    }
+
+    private static QuestionAutosaveDto response(String questionId, int section, Integer subSection, int question) {
+        QuestionAutosaveDto response = new QuestionAutosaveDto();
+        response.setQuestionId(questionId);
+        response.setSectionIndex(section);
+        response.setSubSectionIndex(subSection);
+        response.setQuestionIndex(question);
+        response.setSo(Collections.singletonList("2"));
+        response.setQuestionAttemptedStatus(QuestionAttemptedStatus.NA);
+        response.setTimeTakenInSecond(15);
+        return response;
+    }
+}
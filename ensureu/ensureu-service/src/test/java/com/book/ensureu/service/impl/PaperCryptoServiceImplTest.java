@@ -0,0 +1,100 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.dto.PaperAesDto;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.response.dto.EncryptedResponseBody;
+import com.book.ensureu.response.dto.Response;
+import com.book.ensureu.util.AesEncDecUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PaperCryptoServiceImpl wire compatibility with AesEncDecUtil
+ */
+class PaperCryptoServiceImplTest {
+
+    private static final String SALT = "a7961e94564f046d493621714c296ca6";
+    private static final String IV = "7d88998f7bb1a35f17d39e23b43775b0";
+    private static final String PASSPHRASE = "ensureu@123";
+
+    private final PaperCryptoServiceImpl paperCryptoService = new PaperCryptoServiceImpl(new SimpleMeterRegistry(),
+            SALT, IV, PASSPHRASE, 128, 1000, 16, 1);
+
+    private PaperDto paperDto() {
+        PaperDto paperDto = new PaperDto();
+        paperDto.setPaperId("paper-1");
+        paperDto.setUserId("user-1");
+        return paperDto;
+    }
+
+    @Test
+    void testEncrypt_DecryptableByAesEncDecUtil() throws Exception {
+        String ciphertext = paperCryptoService.encrypt(paperDto());
+
+        String json = new AesEncDecUtil().decrypt(SALT, IV, PASSPHRASE, ciphertext);
+        PaperDto decrypted = new ObjectMapper().readValue(json, PaperDto.class);
+
+        assertEquals("paper-1", decrypted.getPaperId());
+        assertEquals("user-1", decrypted.getUserId());
+    }
+
+    @Test
+    void testDecrypt_ReadsAesEncDecUtilCiphertext() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(paperDto());
+        String ciphertext = new AesEncDecUtil().encrypt(SALT, IV, PASSPHRASE, json);
+
+        assertEquals("paper-1", paperCryptoService.decrypt(ciphertext, PaperDto.class).getPaperId());
+        assertEquals("paper-1", paperCryptoService.decrypt(
+                new ByteArrayInputStream(ciphertext.getBytes(StandardCharsets.US_ASCII)), PaperDto.class).getPaperId());
+    }
+
+    @Test
+    void testEncrypt_StreamMatchesStringAndKeepsTargetOpen() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        paperCryptoService.encrypt(paperDto(), out);
+        out.write(']');
+
+        String streamed = new String(out.toByteArray(), StandardCharsets.US_ASCII);
+        assertEquals("[" + paperCryptoService.encrypt(paperDto()) + "]", streamed);
+    }
+
+    @Test
+    void testDecrypt_WrongPassphraseFails() {
+        String ciphertext = paperCryptoService.encrypt(paperDto());
+
+        assertThrows(IllegalStateException.class,
+                () -> paperCryptoService.decrypt(ciphertext, PaperDto.class, SALT, IV, "wrong"));
+    }
+
+    @Test
+    void testDecryptEnvelope_ReadsPaperAesDtoBody() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String request = objectMapper.writeValueAsString(
+                new PaperAesDto<>("paper", paperCryptoService.encrypt(paperDto())));
+
+        PaperDto decrypted = paperCryptoService.decryptEnvelope(
+                new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)), PaperDto.class);
+
+        assertEquals("paper-1", decrypted.getPaperId());
+        assertNull(paperCryptoService.decryptEnvelope(
+                new ByteArrayInputStream("{\"name\":\"paper\"}".getBytes(StandardCharsets.UTF_8)), PaperDto.class));
+    }
+
+    @Test
+    void testEncryptedResponseBody_MatchesResponseJson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new EncryptedResponseBody(paperCryptoService, paperDto()).writeTo(out);
+
+        Response<String> response = new Response<String>().setStatus(200).setMessage("Success")
+                .setBody(paperCryptoService.encrypt(paperDto()));
+        assertEquals(new ObjectMapper().writeValueAsString(response), out.toString(StandardCharsets.US_ASCII.name()));
+    }
+}
@@ -0,0 +1,134 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperCollectionDto;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.Pattern;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.QuestionData;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+import com.book.ensureu.response.dto.EncryptedResponseBody;
+import com.book.ensureu.service.PaperTemplateService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for PaperPayloadServiceImpl splicing user fields onto the cached paper ciphertext
+ */
+class PaperPayloadServiceImplTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final PaperCryptoServiceImpl paperCryptoService = new PaperCryptoServiceImpl(new SimpleMeterRegistry(),
+            "a7961e94564f046d493621714c296ca6", "7d88998f7bb1a35f17d39e23b43775b0", "ensureu@123", 128, 1000, 16, 1);
+
+    private final PaperTemplateService paperTemplateService = mock(PaperTemplateService.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PaperPayloadServiceImpl paperPayloadService = new PaperPayloadServiceImpl(paperCryptoService,
+            paperTemplateService, meterRegistry, 1 << 20, 10);
+
+    @Test
+    void splicedBodyDecryptsToTheSameDocument() throws Exception {
+        PaidPaperCollection template = template();
+        when(paperTemplateService.getPaidTemplate("P1")).thenReturn(Optional.of(template));
+
+        for (String userId : new String[] { "user-1", "user-22" }) {
+            PaperDto paperDto = paperDto(template, userId);
+            JsonNode expected = decryptedBody(new EncryptedResponseBody(paperCryptoService, paperDto));
+            JsonNode spliced = decryptedBody(paperPayloadService.encryptedPaper(TestType.PAID, paperDto));
+            assertEquals(expected, spliced);
+        }
+
+        assertEquals(1, meterRegistry.counter("paper.payload.requests", "result", "miss").count());
+        assertEquals(1, meterRegistry.counter("paper.payload.requests", "result", "hit").count());
+        assertTrue(meterRegistry.counter("paper.payload.bytes", "source", "cache").count() > 0);
+    }
+
+    @Test
+    void paperNoLongerSharingTemplatePatternIsEncryptedWhole() throws Exception {
+        PaidPaperCollection template = template();
+        when(paperTemplateService.getPaidTemplate("P1")).thenReturn(Optional.of(template));
+        PaperDto paperDto = paperDto(template(), "user-1");
+
+        StreamingResponseBody body = paperPayloadService.encryptedPaper(TestType.PAID, paperDto);
+
+        assertEquals(decryptedBody(new EncryptedResponseBody(paperCryptoService, paperDto)), decryptedBody(body));
+        assertEquals(1, meterRegistry.counter("paper.payload.requests", "result", "bypass").count());
+    }
+
+    @Test
+    void encodedLengthMatchesCiphertext() {
+        for (int length : new int[] { 0, 1, 15, 16, 47, 48, 100 }) {
+            String ciphertext = paperCryptoService.encrypt(new String(new char[length]).replace('\0', 'a'));
+            // the JSON string adds its two quotes
+            assertEquals(ciphertext.length(), PaperPayloadServiceImpl.encodedLength(length + 2));
+        }
+    }
+
+    private JsonNode decryptedBody(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        JsonNode envelope = objectMapper.readTree(out.toByteArray());
+        assertEquals(200, envelope.get("status").asInt());
+        return paperCryptoService.decrypt(envelope.get("body").asText(), JsonNode.class);
+    }
+
+    private static PaperDto paperDto(PaidPaperCollection paper, String userId) {
+        PaperCollectionDto paperCollectionDto = new PaperCollectionDto();
+        paperCollectionDto.setId(paper.getId());
+        paperCollectionDto.setPaperName(paper.getPaperName());
+        paperCollectionDto.setPattern(paper.getPattern());
+        PaperDto paperDto = new PaperDto();
+        paperDto.setPaperId(paper.getId());
+        paperDto.setUserId(userId);
+        paperDto.setPaperStatus(PaperStatus.INPROGRESS);
+        paperDto.setCreateDateTime(System.currentTimeMillis());
+        paperDto.setPaper(paperCollectionDto);
+        return paperDto;
+    }
+
+    private static PaidPaperCollection template() {
+        List<Question<Problem>> questions = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Problem problem = new Problem();
+            problem.setQuestion("What is " + i + " + " + i + "? é中");
+            Question<Problem> question = new Question<>();
+            question.setId("q" + i);
+            question.setProblem(problem);
+            questions.add(question);
+        }
+        QuestionData<Question<Problem>> questionData = new QuestionData<>();
+        questionData.setQuestions(questions);
+        SubSections<Question<Problem>> subSection = new SubSections<>();
+        subSection.setQuestionData(questionData);
+        Sections<SubSections<Question<Problem>>> section = new Sections<>();
+        section.setTitle("Maths");
+        section.setSubSections(new ArrayList<>(Collections.singletonList(subSection)));
+        Pattern<Sections<SubSections<Question<Problem>>>> pattern = new Pattern<>();
+        pattern.setSections(new ArrayList<>(Collections.singletonList(section)));
+        PaidPaperCollection paper = new PaidPaperCollection();
+        paper.setId("P1");
+        paper.setPaperName("Mock test 1");
+        paper.setPattern(pattern);
+        return paper;
+    }
+}
@@ -0,0 +1,87 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dao.PaperShelfDao;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.dto.PaperShelfRow;
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.PaidPaperCollection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for PaperShelfServiceImpl row building and per-user caching
+ */
+class PaperShelfServiceImplTest {
+
+    private final PaperShelfDao paperShelfDao = mock(PaperShelfDao.class);
+
+    private final PaperShelfServiceImpl paperShelfService = new PaperShelfServiceImpl(paperShelfDao,
+            new SimpleMeterRegistry(), 100, 60);
+
+    @Test
+    void startedPapersComeFirstAndDoneOnesAreLeftOut() {
+        List<PaperShelfRow<PaidPaperCollection, PaidPaper>> rows = Arrays.asList(
+                row("P1", null), row("P2", PaperStatus.INPROGRESS), row("P3", PaperStatus.DONE), row("P4", null));
+
+        List<PaperDto> shelf = PaperShelfServiceImpl.paidShelf(rows, TestType.PAID, "user1", 99L, true);
+
+        assertEquals(Arrays.asList("P2", "P1", "P4"), paperIds(shelf));
+        assertEquals(PaperStatus.INPROGRESS, shelf.get(0).getPaperStatus());
+        assertEquals(PaperStatus.START, shelf.get(1).getPaperStatus());
+        assertEquals("user1", shelf.get(1).getUserId());
+        assertEquals(Arrays.asList("P2", "P3", "P1", "P4"),
+                paperIds(PaperShelfServiceImpl.paidShelf(rows, TestType.PAID, "user1", 99L, false)));
+    }
+
+    @Test
+    void shelfIsCachedUntilTheUserIsEvicted() {
+        List<PaperShelfRow<PaidPaperCollection, PaidPaper>> rows = Arrays.asList(row("P1", null));
+        when(paperShelfDao.findShelf(eq("user1"), anyList(), eq(PaidPaperCollection.class), eq(PaidPaper.class)))
+                .thenReturn(rows);
+        List<String> paperIds = Arrays.asList("P1");
+
+        List<PaperDto> first = paperShelfService.getPaperShelf("user1", TestType.PAID, paperIds, 0L, true);
+        first.clear();
+        List<PaperDto> second = paperShelfService.getPaperShelf("user1", TestType.PAID, paperIds, 0L, true);
+        assertEquals(1, second.size());
+        verify(paperShelfDao, times(1)).findShelf(eq("user1"), anyList(), eq(PaidPaperCollection.class),
+                eq(PaidPaper.class));
+
+        paperShelfService.evict("user1");
+        paperShelfService.getPaperShelf("user1", TestType.PAID, paperIds, 0L, true);
+        verify(paperShelfDao, times(2)).findShelf(eq("user1"), anyList(), eq(PaidPaperCollection.class),
+                eq(PaidPaper.class));
+    }
+
+    private static List<String> paperIds(List<PaperDto> shelf) {
+        return shelf.stream().map(PaperDto::getPaperId).collect(Collectors.toList());
+    }
+
+    private static PaperShelfRow<PaidPaperCollection, PaidPaper> row(String paperId, PaperStatus userStatus) {
+        PaidPaperCollection paper = new PaidPaperCollection();
+        paper.setId(paperId);
+        paper.setPaperName("Mock " + paperId);
+        PaidPaper userPaper = null;
+        if (userStatus != null) {
+            userPaper = new PaidPaper();
+            userPaper.setPaperId(paperId);
+            userPaper.setUserId("user1");
+            userPaper.setPaperStatus(userStatus);
+        }
+        return new PaperShelfRow<>(paper, userPaper);
+    }
+}
@@ -0,0 +1,220 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.PaperTemplateInvalidation;
+import com.book.ensureu.model.Pattern;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.QuestionData;
+import com.book.ensureu.model.QuizPaperCollection;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+import com.book.ensureu.repository.FreePaperCollectionRepository;
+import com.book.ensureu.repository.PaidPaperCollectionRepository;
+import com.book.ensureu.repository.QuizPaperCollectionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for PaperTemplateServiceImpl caching, copies, invalidation across instances and pre-warm,
+ * and the change listener invalidating it
+ */
+class PaperTemplateServiceImplTest {
+
+    private PaidPaperCollectionRepository paidPaperCollectionRepository;
+
+    private QuizPaperCollectionRepository quizPaperCollectionRepository;
+
+    private MongoTemplate mongoTemplate;
+
+    private PaperTemplateServiceImpl paperTemplateService;
+
+    @BeforeEach
+    void setUp() {
+        paidPaperCollectionRepository = mock(PaidPaperCollectionRepository.class);
+        quizPaperCollectionRepository = mock(QuizPaperCollectionRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        paperTemplateService = new PaperTemplateServiceImpl(paidPaperCollectionRepository,
+                mock(FreePaperCollectionRepository.class), quizPaperCollectionRepository, mongoTemplate,
+                new SimpleMeterRegistry(), 1000, 10, 30, 10);
+    }
+
+    @Test
+    void templatesAreLoadedOncePerPaperAndShared() {
+        when(paidPaperCollectionRepository.findById("P1")).thenReturn(Optional.of(paidPaper("P1", 3)));
+
+        PaidPaperCollection first = paperTemplateService.getPaidTemplate("P1").get();
+        PaidPaperCollection second = paperTemplateService.getPaidTemplate("P1").get();
+
+        assertSame(first, second);
+        verify(paidPaperCollectionRepository, times(1)).findById("P1");
+    }
+
+    @Test
+    void invalidationLoadsTheEditedPaper() {
+        when(paidPaperCollectionRepository.findById("P1"))
+                .thenReturn(Optional.of(paidPaper("P1", 3)))
+                .thenReturn(Optional.of(paidPaper("P1", 5)));
+
+        PaidPaperCollection before = paperTemplateService.getPaidTemplate("P1").get();
+        paperTemplateService.invalidate(TestType.PAID, "P1");
+        PaidPaperCollection after = paperTemplateService.getPaidTemplate("P1").get();
+
+        assertNotSame(before, after);
+        assertEquals(5, PaperTemplateServiceImpl.weight(after));
+        verify(paidPaperCollectionRepository, times(2)).findById("P1");
+    }
+
+    @Test
+    void sameIdOfAnotherTestTypeIsCachedSeparately() {
+        when(paidPaperCollectionRepository.findById("P1")).thenReturn(Optional.of(paidPaper("P1", 3)));
+        QuizPaperCollection quiz = new QuizPaperCollection();
+        quiz.setId("P1");
+        when(quizPaperCollectionRepository.findById("P1")).thenReturn(Optional.of(quiz));
+
+        paperTemplateService.getPaidTemplate("P1");
+        paperTemplateService.invalidate(TestType.QUIZ, "P1");
+        paperTemplateService.getPaidTemplate("P1");
+
+        assertSame(quiz, paperTemplateService.getQuizTemplate("P1").get());
+        verify(paidPaperCollectionRepository, times(1)).findById("P1");
+    }
+
+    @Test
+    void savesAndDeletesOfAnyWriterInvalidateTheTemplate() {
+        when(paidPaperCollectionRepository.findById("P1"))
+                .thenReturn(Optional.of(paidPaper("P1", 3)))
+                .thenReturn(Optional.of(paidPaper("P1", 5)))
+                .thenReturn(Optional.empty());
+        PaperTemplateChangeListener listener = new PaperTemplateChangeListener(paperTemplateService);
+
+        paperTemplateService.getPaidTemplate("P1");
+        listener.onAfterSave(new AfterSaveEvent<>(paidPaper("P1", 5), new Document(), "paidPaperCollection"));
+        assertEquals(5, PaperTemplateServiceImpl.weight(paperTemplateService.getPaidTemplate("P1").get()));
+
+        listener.onAfterDelete(deleted("P1", PaidPaperCollection.class));
+        assertFalse(paperTemplateService.getPaidTemplate("P1").isPresent());
+        verify(paidPaperCollectionRepository, times(3)).findById("P1");
+    }
+
+    @Test
+    void copiesShareNothingWithTheTemplate() {
+        when(mongoTemplate.getConverter()).thenReturn(
+                new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        when(paidPaperCollectionRepository.findById("P1")).thenReturn(Optional.of(paidPaper("P1", 3)));
+        PaidPaperCollection template = paperTemplateService.getPaidTemplate("P1").get();
+
+        PaidPaperCollection copy = paperTemplateService.copyOf(template);
+        questions(copy).get(0).setId("changed");
+        questions(copy).remove(2);
+
+        assertEquals("P1", copy.getId());
+        assertEquals("q0", questions(template).get(0).getId());
+        assertEquals(3, PaperTemplateServiceImpl.weight(paperTemplateService.getPaidTemplate("P1").get()));
+        assertNull(paperTemplateService.copyOf(null));
+    }
+
+    @Test
+    void invalidationsOfOtherInstancesAreAppliedOnce() {
+        when(paidPaperCollectionRepository.findById("P1"))
+                .thenReturn(Optional.of(paidPaper("P1", 3)))
+                .thenReturn(Optional.of(paidPaper("P1", 5)));
+        when(mongoTemplate.find(any(Query.class), eq(PaperTemplateInvalidation.class))).thenReturn(
+                Collections.singletonList(new PaperTemplateInvalidation("PAID:P1", TestType.PAID, "P1", new Date())));
+
+        paperTemplateService.getPaidTemplate("P1");
+        paperTemplateService.pollInvalidations();
+        assertEquals(5, PaperTemplateServiceImpl.weight(paperTemplateService.getPaidTemplate("P1").get()));
+        paperTemplateService.pollInvalidations();
+        paperTemplateService.getPaidTemplate("P1");
+
+        verify(paidPaperCollectionRepository, times(2)).findById("P1");
+    }
+
+    @Test
+    void ownInvalidationIsPublishedAndNotAppliedAgain() {
+        Date invalidatedAt = new Date();
+        PaperTemplateInvalidation published = new PaperTemplateInvalidation("PAID:P1", TestType.PAID, "P1", invalidatedAt);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaperTemplateInvalidation.class))).thenReturn(published);
+        when(mongoTemplate.find(any(Query.class), eq(PaperTemplateInvalidation.class)))
+                .thenReturn(Collections.singletonList(published));
+        when(paidPaperCollectionRepository.findById("P1")).thenReturn(Optional.of(paidPaper("P1", 3)));
+
+        paperTemplateService.invalidate(TestType.PAID, "P1");
+        paperTemplateService.getPaidTemplate("P1");
+        paperTemplateService.pollInvalidations();
+        paperTemplateService.getPaidTemplate("P1");
+
+        verify(paidPaperCollectionRepository, times(1)).findById("P1");
+    }
+
+    @Test
+    void prewarmedPapersAreServedWithoutRepositoryRead() {
+        when(mongoTemplate.find(any(Query.class), eq(PaidPaperCollection.class)))
+                .thenReturn(Collections.singletonList(paidPaper("P2", 2)));
+
+        paperTemplateService.prewarm();
+
+        assertTrue(paperTemplateService.getPaidTemplate("P2").isPresent());
+        verify(paidPaperCollectionRepository, never()).findById("P2");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AfterDeleteEvent<Object> deleted(String id, Class<?> type) {
+        return new AfterDeleteEvent<>(new Document("_id", id), (Class<Object>) type, "paperCollection");
+    }
+
+    private static List<Question<Problem>> questions(PaidPaperCollection paper) {
+        return paper.getPattern().getSections().get(0).getSubSections().get(0).getQuestionData().getQuestions();
+    }
+
+    private static PaidPaperCollection paidPaper(String id, int questionCount) {
+        List<Question<Problem>> questions = new ArrayList<>();
+        for (int i = 0; i < questionCount; i++) {
+            Question<Problem> question = new Question<>();
+            question.setId("q" + i);
+            question.setProblem(new Problem());
+            questions.add(question);
+        }
+        QuestionData<Question<Problem>> questionData = new QuestionData<>();
+        questionData.setQuestions(questions);
+        SubSections<Question<Problem>> subSection = new SubSections<>();
+        subSection.setQuestionData(questionData);
+        Sections<SubSections<Question<Problem>>> section = new Sections<>();
+        section.setSubSections(new ArrayList<>(Collections.singletonList(subSection)));
+        Pattern<Sections<SubSections<Question<Problem>>>> pattern = new Pattern<>();
+        pattern.setSections(new ArrayList<>(Collections.singletonList(section)));
+        PaidPaperCollection paper = new PaidPaperCollection();
+        paper.setId(id);
+        paper.setPattern(pattern);
+        return paper;
+    }
+}
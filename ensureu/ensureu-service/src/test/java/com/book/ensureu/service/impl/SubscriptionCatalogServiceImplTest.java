@@ -0,0 +1,78 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperPackageDto;
+import com.book.ensureu.dto.SubscriptionCatalogSnapshot;
+import com.book.ensureu.dto.SubscriptionDto;
+import com.book.ensureu.service.SubscriptionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SubscriptionCatalogServiceImpl snapshots and their validators
+ */
+class SubscriptionCatalogServiceImplTest {
+
+    private final SubscriptionService subscriptionService = mock(SubscriptionService.class);
+
+    private final SubscriptionCatalogServiceImpl subscriptionCatalogService = new SubscriptionCatalogServiceImpl(
+            subscriptionService, new ObjectMapper(), new SimpleMeterRegistry(), 0);
+
+    @Test
+    void snapshotIsBuiltOnceAndServedUntilRefreshed() {
+        when(subscriptionService.getSubscriptionList(TestType.FREE)).thenReturn(paperPackage("first"));
+
+        SubscriptionCatalogSnapshot first = subscriptionCatalogService.getCatalog(TestType.FREE);
+        assertSame(first, subscriptionCatalogService.getCatalog(TestType.FREE));
+        verify(subscriptionService, times(1)).getSubscriptionList(TestType.FREE);
+
+        when(subscriptionService.getSubscriptionList(TestType.FREE)).thenReturn(paperPackage("second"));
+        subscriptionCatalogService.refresh();
+
+        SubscriptionCatalogSnapshot second = subscriptionCatalogService.getCatalog(TestType.FREE);
+        assertNotEquals(first.getETag(), second.getETag());
+        assertEquals("second", second.getPaperPackage().getListOfFreeSubscription().get(0).getDescription());
+    }
+
+    @Test
+    void unchangedContentKeepsItsValidators() {
+        when(subscriptionService.getSubscriptionList(TestType.PAID)).thenReturn(paperPackage("same"));
+        SubscriptionCatalogSnapshot previous = subscriptionCatalogService.build(TestType.PAID, null);
+        SubscriptionCatalogSnapshot previousMoved = new SubscriptionCatalogSnapshot(TestType.PAID,
+                previous.getPaperPackage(), previous.getETag(), 1000L, previous.getBuiltAt());
+
+        SubscriptionCatalogSnapshot rebuilt = subscriptionCatalogService.build(TestType.PAID, previousMoved);
+
+        assertEquals(previous.getETag(), rebuilt.getETag());
+        assertEquals(1000L, rebuilt.getLastModified());
+        assertEquals(0L, previous.getLastModified() % 1000);
+    }
+
+    @Test
+    void failedRefreshKeepsThePreviousSnapshot() {
+        when(subscriptionService.getSubscriptionList(TestType.FREE)).thenReturn(paperPackage("kept"));
+        SubscriptionCatalogSnapshot kept = subscriptionCatalogService.getCatalog(TestType.FREE);
+
+        when(subscriptionService.getSubscriptionList(TestType.FREE)).thenThrow(new IllegalStateException("down"));
+        subscriptionCatalogService.refresh();
+
+        assertSame(kept, subscriptionCatalogService.getCatalog(TestType.FREE));
+    }
+
+    private static PaperPackageDto paperPackage(String description) {
+        SubscriptionDto subscriptionDto = new SubscriptionDto();
+        subscriptionDto.setDescription(description);
+        PaperPackageDto paperPackageDto = new PaperPackageDto();
+        paperPackageDto.setListOfFreeSubscription(Collections.singletonList(subscriptionDto));
+        return paperPackageDto;
+    }
+}
@@ -0,0 +1,93 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.EntitlementType;
+import com.book.ensureu.constant.PaperType;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.model.UserEntitlement;
+import com.book.ensureu.repository.UserEntitlementRepository;
+import com.book.ensureu.service.impl.helper.SubscriptionServiceImplHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SubscriptionServiceImpl readers of lapsed entitlements
+ */
+class SubscriptionServiceImplTest {
+
+    private static final List<EntitlementType> SUBSCRIPTION_TYPES =
+            Arrays.asList(EntitlementType.SUBSCRIPTION, EntitlementType.FREE_SUBSCRIPTION);
+
+    private final UserEntitlementRepository entitlementRepository = mock(UserEntitlementRepository.class);
+
+    private final SubscriptionServiceImplHelper implHelper = mock(SubscriptionServiceImplHelper.class);
+
+    private final SubscriptionServiceImpl subscriptionService = new SubscriptionServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(subscriptionService, "entitlementRepository", entitlementRepository);
+        ReflectionTestUtils.setField(subscriptionService, "implHelper", implHelper);
+        ReflectionTestUtils.setField(subscriptionService, "milliseconds", 86400000L);
+    }
+
+    @Test
+    void lastPapersComeFromTheTwoEntitlementsThatLapsedLast() {
+        long before = System.currentTimeMillis();
+        when(entitlementRepository.findByUserIdAndEntitlementTypeInAndValidityUpTo(eq("user1"), eq(SUBSCRIPTION_TYPES),
+                anyLong())).thenReturn(Arrays.asList(lapsed(1L, before - 3000), lapsed(2L, before - 1000),
+                lapsed(3L, before - 2000)));
+
+        subscriptionService.getLastPaperInfoListForUser("user1", true, PaperType.SSC, null, TestType.PAID);
+
+        ArgumentCaptor<Long> validity = ArgumentCaptor.forClass(Long.class);
+        verify(entitlementRepository).findByUserIdAndEntitlementTypeInAndValidityUpTo(eq("user1"),
+                eq(SUBSCRIPTION_TYPES), validity.capture());
+        assertTrue(validity.getValue() >= before);
+        verify(entitlementRepository, never()).findByUserIdAndActiveAndEntitlementTypeIn(any(), anyBoolean(), anyList());
+        assertEquals(Arrays.asList(3L, 2L), entitlementIdsPassedToHelper());
+    }
+
+    @Test
+    void allSubscriptionsIncludeLapsedEntitlements() {
+        when(entitlementRepository.findAllByUserIdAndPaperTypeAndTestTypeAndEntitlementTypeIn("user1", PaperType.SSC,
+                TestType.PAID, SUBSCRIPTION_TYPES)).thenReturn(Collections.singletonList(lapsed(1L, 1000L)));
+
+        subscriptionService.getAllSubscriptionListForUser("user1", PaperType.SSC, TestType.PAID);
+
+        assertEquals(Collections.singletonList(1L), entitlementIdsPassedToHelper());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> entitlementIdsPassedToHelper() {
+        ArgumentCaptor<List<UserEntitlement>> entitlements = ArgumentCaptor.forClass(List.class);
+        verify(implHelper).getSubscriptionFromUserEntitle(any(), isNull(), eq(TestType.PAID), entitlements.capture());
+        return entitlements.getValue().stream().map(UserEntitlement::getId).collect(Collectors.toList());
+    }
+
+    private static UserEntitlement lapsed(Long id, long validity) {
+        UserEntitlement userEntitlement = new UserEntitlement();
+        userEntitlement.setId(id);
+        userEntitlement.setUserId("user1");
+        userEntitlement.setActive(false);
+        userEntitlement.setValidity(validity);
+        userEntitlement.setCreatedDate(validity - 100000);
+        userEntitlement.setEntitlementType(EntitlementType.SUBSCRIPTION);
+        return userEntitlement;
+    }
+}
@@ -0,0 +1,54 @@
+package com.book.ensureu.service.impl;
+
+import com.book.ensureu.constant.EntitlementType;
+import com.book.ensureu.model.UserEntitlement;
+import com.book.ensureu.repository.UserEntitlementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserEntitlementServiceImpl listings by the active flag
+ */
+class UserEntitlementServiceImplTest {
+
+    private static final List<EntitlementType> SUBSCRIPTION_TYPES =
+            Arrays.asList(EntitlementType.SUBSCRIPTION, EntitlementType.FREE_SUBSCRIPTION);
+
+    private final UserEntitlementRepository userEntitlementRepository = mock(UserEntitlementRepository.class);
+
+    private final UserEntitlementServiceImpl userEntitlementService = new UserEntitlementServiceImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userEntitlementService, "userEntitlementRepository", userEntitlementRepository);
+    }
+
+    @Test
+    void activeListingKeepsEntitlementsFlaggedByTheExpiry() {
+        UserEntitlement expired = UserEntitlement.builder().id(1L).active(false).expiredDate(5L).build();
+        when(userEntitlementRepository.findWrittenActiveByUserIdAndEntitlementTypeIn("user1", SUBSCRIPTION_TYPES))
+                .thenReturn(Collections.singletonList(expired));
+
+        assertEquals(Collections.singletonList(expired),
+                userEntitlementService.getUserEntitlement("user1", true).getBody());
+        verify(userEntitlementRepository, never()).findWrittenInactiveByUserIdAndEntitlementTypeIn(eq("user1"), anyList());
+    }
+
+    @Test
+    void inactiveListingOnlyHoldsEntitlementsDeactivatedOtherwise() {
+        userEntitlementService.getUserEntitlement("user1", false);
+
+        verify(userEntitlementRepository).findWrittenInactiveByUserIdAndEntitlementTypeIn("user1", SUBSCRIPTION_TYPES);
+        verify(userEntitlementRepository, never()).findWrittenActiveByUserIdAndEntitlementTypeIn(eq("user1"), anyList());
+    }
+}
@@ -0,0 +1,116 @@
+package com.book.ensureu.service.impl.helper;
+
+import com.book.ensureu.constant.PaperSubCategory;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperInfo;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.Subscription;
+import com.book.ensureu.repository.PaidPaperCollectionRepository;
+import com.book.ensureu.repository.SubscriptionRepository;
+import com.book.ensureu.service.PaperInfoDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the batched paper resolution and the memoized FREE fallback of SubscriptionPaperResolver
+ */
+class SubscriptionPaperResolverTest {
+
+    private final SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+
+    private final PaidPaperCollectionRepository paidPaperCollectionRepository = mock(PaidPaperCollectionRepository.class);
+
+    private final PaperInfoDataService paperInfoDataService = mock(PaperInfoDataService.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SubscriptionPaperResolver resolver = new SubscriptionPaperResolver(subscriptionRepository,
+            paidPaperCollectionRepository, paperInfoDataService, meterRegistry, 60);
+
+    @Test
+    void subscriptionsWithoutPapersShareOneQueryPerTestType() {
+        when(paidPaperCollectionRepository.findByPaperSubCategoryInAndTestType(any(), eq(TestType.PAID)))
+                .thenReturn(Arrays.asList(collectionPaper("C1", PaperSubCategory.SSC_CGL_TIER1),
+                        collectionPaper("C2", PaperSubCategory.SSC_CGL_TIER2)));
+        Subscription tier1 = subscription(1L, PaperSubCategory.SSC_CGL_TIER1);
+        Subscription tier1Again = subscription(2L, PaperSubCategory.SSC_CGL_TIER1);
+        Subscription stored = subscription(3L, PaperSubCategory.SSC_CGL_TIER2, paper("S1"));
+
+        Map<Long, List<PaperInfo>> papers = resolver.resolveCollectionPapers(Arrays.asList(tier1, tier1Again, stored));
+
+        verify(paidPaperCollectionRepository, times(1)).findByPaperSubCategoryInAndTestType(any(), eq(TestType.PAID));
+        assertEquals("C1", papers.get(1L).get(0).getId());
+        assertEquals(1, papers.get(2L).size());
+        assertNotSame(papers.get(1L).get(0), papers.get(2L).get(0), "each subscription gets its own paper infos");
+        assertFalse(papers.containsKey(3L), "stored papers are not replaced");
+    }
+
+    @Test
+    void fallbackIsLoadedOncePerTestTypeAndServesCopies() {
+        Map<PaperSubCategory, List<String>> enabled = Collections.singletonMap(PaperSubCategory.SSC_CGL_TIER1,
+                Collections.singletonList("P1"));
+        when(paperInfoDataService.getPaperInfoByTestTypeAndPaperSubCategoryAndEnable(eq(TestType.FREE), anyList(),
+                eq(true))).thenReturn(enabled);
+        Subscription first = subscription(1L, PaperSubCategory.SSC_CGL_TIER1, paper("P1"), paper("P2"));
+        first.setValidity(100L);
+        Subscription second = subscription(2L, PaperSubCategory.SSC_CGL_TIER1, paper("P1"));
+        second.setValidity(200L);
+        when(subscriptionRepository.findByPaperSubCategoryInAndTestTypeOrder(anyList(), eq(TestType.FREE), anyLong()))
+                .thenReturn(Arrays.asList(first, second));
+
+        List<PaperInfo> papers = resolver.getFallbackPaperInfo(TestType.FREE, Arrays.asList("P1", "P3"));
+        assertEquals(2, papers.size(), "one entry per subscription holding the paper");
+        assertEquals(Long.valueOf(100L), papers.get(0).getValidity());
+        assertEquals(Long.valueOf(200L), papers.get(1).getValidity());
+        papers.get(0).setValidity(0L);
+
+        assertEquals(Long.valueOf(100L),
+                resolver.getFallbackPaperInfo(TestType.FREE, Arrays.asList("P1")).get(0).getValidity());
+        assertTrue(resolver.getFallbackPaperInfo(TestType.FREE, Collections.emptyList()).isEmpty());
+        verify(subscriptionRepository, times(1)).findByPaperSubCategoryInAndTestTypeOrder(anyList(),
+                eq(TestType.FREE), anyLong());
+        assertEquals(3.0, meterRegistry.counter("subscription.fallback", "testType", "FREE").count());
+
+        resolver.evictFallback();
+        resolver.getFallbackPaperInfo(TestType.FREE, Arrays.asList("P1"));
+        verify(subscriptionRepository, times(2)).findByPaperSubCategoryInAndTestTypeOrder(anyList(),
+                eq(TestType.FREE), anyLong());
+    }
+
+    private static Subscription subscription(Long id, PaperSubCategory subCategory, PaperInfo... papers) {
+        Subscription subscription = new Subscription();
+        subscription.setId(id);
+        subscription.setTestType(TestType.PAID);
+        subscription.setPaperSubCategory(subCategory);
+        subscription.setListOfPaperInfo(new ArrayList<>(Arrays.asList(papers)));
+        return subscription;
+    }
+
+    private static PaperInfo paper(String id) {
+        return PaperInfo.builder().id(id).paperName(id).build();
+    }
+
+    private static PaidPaperCollection collectionPaper(String id, PaperSubCategory subCategory) {
+        PaidPaperCollection paper = new PaidPaperCollection();
+        paper.setId(id);
+        paper.setPaperName(id);
+        paper.setPaperSubCategory(subCategory);
+        return paper;
+    }
+}
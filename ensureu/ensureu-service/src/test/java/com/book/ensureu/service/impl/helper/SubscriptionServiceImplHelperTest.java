@@ -0,0 +1,97 @@
+package com.book.ensureu.service.impl.helper;
+
+import com.book.ensureu.common.dto.PriceMetaDataDto;
+import com.book.ensureu.common.model.PriceMetaData;
+import com.book.ensureu.common.model.PriceMetaDataIndex;
+import com.book.ensureu.constant.PaperCategory;
+import com.book.ensureu.constant.PaperSubCategory;
+import com.book.ensureu.constant.PaperType;
+import com.book.ensureu.constant.SubscriptionType;
+import com.book.ensureu.constant.TestType;
+import com.book.ensureu.dto.PaperTypeDto;
+import com.book.ensureu.model.Subscription;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the price lookups of SubscriptionServiceImplHelper catalog conversions
+ */
+class SubscriptionServiceImplHelperTest {
+
+    private final SubscriptionServiceImplHelper implHelper = new SubscriptionServiceImplHelper();
+
+    @Test
+    void pricesOfTheSubCategoryAreMappedByOfferedType() {
+        PriceMetaDataIndex priceIndex = PriceMetaDataIndex.of(Arrays.asList(
+                price(1L, PaperSubCategory.SSC_CGL_TIER1, SubscriptionType.MONTHLY, 100.0),
+                price(2L, PaperSubCategory.SSC_CGL_TIER1, SubscriptionType.MONTHLY, 120.0),
+                price(3L, PaperSubCategory.SSC_CGL_TIER1, SubscriptionType.YEARLY, 900.0),
+                price(4L, PaperSubCategory.SSC_CGL_TIER2, SubscriptionType.DAY, 10.0)));
+
+        Map<SubscriptionType, PriceMetaDataDto> prices = implHelper.createMapOfSubTypeVsPrice(
+                subscription(1L, PaperSubCategory.SSC_CGL_TIER1), priceIndex);
+
+        assertEquals(Collections.singleton(SubscriptionType.MONTHLY), prices.keySet(), "YEARLY is not offered");
+        assertEquals(Long.valueOf(2L), prices.get(SubscriptionType.MONTHLY).getId(), "the later price wins");
+        assertTrue(implHelper.createMapOfSubTypeVsPrice(subscription(2L, PaperSubCategory.BANK_PO_PRE), priceIndex)
+                .isEmpty());
+        assertNull(implHelper.createMapOfSubTypeVsPrice(subscription(3L, PaperSubCategory.SSC_CGL_TIER1),
+                PriceMetaDataIndex.EMPTY));
+    }
+
+    @Test
+    void savedPriceReplacesTheOneWithItsId() {
+        PriceMetaDataIndex priceIndex = PriceMetaDataIndex.of(Collections.singletonList(
+                price(1L, PaperSubCategory.SSC_CGL_TIER1, SubscriptionType.MONTHLY, 100.0)));
+
+        PriceMetaDataIndex patched = priceIndex.with(price(1L, PaperSubCategory.SSC_CGL_TIER1, SubscriptionType.DAY, 5.0));
+
+        assertEquals(1, patched.size());
+        Map<SubscriptionType, PriceMetaData> prices = patched.prices(PaperType.SSC, PaperCategory.SSC_CGL,
+                PaperSubCategory.SSC_CGL_TIER1);
+        assertEquals(Collections.singleton(SubscriptionType.DAY), prices.keySet());
+        assertEquals(1, priceIndex.prices(PaperType.SSC, PaperCategory.SSC_CGL, PaperSubCategory.SSC_CGL_TIER1)
+                .size(), "the previous index is unchanged");
+    }
+
+    @Test
+    void subscriptionsOfOneSubCategoryShareItsDto() {
+        PriceMetaDataIndex priceIndex = PriceMetaDataIndex.of(Collections.singletonList(
+                price(1L, PaperSubCategory.SSC_CGL_TIER1, SubscriptionType.MONTHLY, 100.0)));
+
+        List<PaperTypeDto> paperTypes = implHelper.createPaperTypeDtoList(Arrays.asList(
+                subscription(1L, PaperSubCategory.SSC_CGL_TIER1),
+                subscription(2L, PaperSubCategory.SSC_CGL_TIER1),
+                subscription(3L, PaperSubCategory.SSC_CGL_TIER2)), priceIndex);
+
+        assertEquals(1, paperTypes.size());
+        assertEquals(1, paperTypes.get(0).getListOfCategoryDto().size());
+        assertEquals(2, paperTypes.get(0).getListOfCategoryDto().get(0).getListOfSubCategoryDto().size());
+        assertEquals(Arrays.asList(1L, 2L), paperTypes.get(0).getListOfCategoryDto().get(0).getListOfSubCategoryDto()
+                .get(0).getSubscriptionDto().getListOfSubscriptionIds());
+    }
+
+    private static Subscription subscription(Long id, PaperSubCategory paperSubCategory) {
+        PaperCategory paperCategory = PaperSubCategory.getParent(paperSubCategory);
+        return Subscription.builder()
+                .id(id)
+                .paperType(PaperCategory.getParent(paperCategory))
+                .paperCategory(paperCategory)
+                .paperSubCategory(paperSubCategory)
+                .testType(TestType.PAID)
+                .build();
+    }
+
+    private static PriceMetaData price(Long id, PaperSubCategory paperSubCategory, SubscriptionType subscriptionType,
+            double price) {
+        PaperCategory paperCategory = PaperSubCategory.getParent(paperSubCategory);
+        return new PriceMetaData(id, price, price / 10, price * 0.9, price / 12, 10.0,
+                PaperCategory.getParent(paperCategory), paperCategory, paperSubCategory, subscriptionType);
+    }
+}
@@ -0,0 +1,70 @@
+package com.book.ensureu.transformer;
+
+import com.book.ensureu.constant.PaperStatus;
+import com.book.ensureu.constant.PaperSubCategory;
+import com.book.ensureu.dto.PaperDto;
+import com.book.ensureu.model.PaidPaper;
+import com.book.ensureu.model.PaidPaperCollection;
+import com.book.ensureu.model.Pattern;
+import com.book.ensureu.model.Problem;
+import com.book.ensureu.model.Question;
+import com.book.ensureu.model.QuizPaper;
+import com.book.ensureu.model.QuizPaperCollection;
+import com.book.ensureu.model.Sections;
+import com.book.ensureu.model.SubSections;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the generated PaperMapper
+ */
+class PaperMapperTest {
+
+    @Test
+    void paidPaperRoundTripKeepsThePatternInstance() {
+        Pattern<Sections<SubSections<Question<Problem>>>> pattern = new Pattern<>();
+        PaidPaperCollection collection = new PaidPaperCollection();
+        collection.setId("P1");
+        collection.setPaperSubCategory(PaperSubCategory.SSC_CGL_TIER1);
+        collection.setPaperSubCategoryName("stale");
+        collection.setPattern(pattern);
+        PaidPaper paidPaper = new PaidPaper();
+        paidPaper.setId(7L);
+        paidPaper.setPaperId("P1");
+        paidPaper.setUserId("user1");
+        paidPaper.setPaperStatus(PaperStatus.INPROGRESS);
+        paidPaper.setTotalScore(40.0);
+        paidPaper.setPaper(collection);
+
+        PaperDto paperDto = PaperMapper.INSTANCE.fromPaidPaper(paidPaper);
+
+        assertEquals(7L, paperDto.getId());
+        assertEquals("user1", paperDto.getUserId());
+        assertEquals(PaperStatus.INPROGRESS, paperDto.getPaperStatus());
+        assertEquals(40.0, paperDto.getTotalScore());
+        assertSame(pattern, paperDto.getPaper().getPattern());
+        assertEquals("SSC CGL TIER-1", paperDto.getPaper().getPaperSubCategoryName());
+
+        PaidPaper back = PaperMapper.INSTANCE.toPaidPaper(paperDto);
+        assertEquals("P1", back.getPaper().getId());
+        assertSame(pattern, back.getPaper().getPattern());
+    }
+
+    @Test
+    void quizPaperKeepsItsStoredSubCategoryName() {
+        QuizPaperCollection collection = new QuizPaperCollection();
+        collection.setPaperSubCategory(PaperSubCategory.SSC_CGL_TIER1);
+        collection.setPaperSubCategoryName("Quiz of the day");
+        QuizPaper quizPaper = new QuizPaper();
+        quizPaper.setPaper(collection);
+
+        assertEquals("Quiz of the day", PaperMapper.INSTANCE.fromQuizPaper(quizPaper).getPaper().getPaperSubCategoryName());
+    }
+
+    @Test
+    void missingPaperStaysNull() {
+        assertNull(PaperMapper.INSTANCE.fromPaidPaper(null));
+        assertNull(PaperMapper.INSTANCE.toPaidPaper(new PaperDto()).getPaper());
+    }
+}
@@ -15,25 +15,11 @@ db.createUser({
 
 // Create indexes for better query performance
 
-// Users collection
-db.users.createIndex({ "userName": 1 }, { unique: true, sparse: true });
-db.users.createIndex({ "email": 1 }, { sparse: true });
-db.users.createIndex({ "mobileNumber": 1 }, { sparse: true });
-db.users.createIndex({ "createdDate": -1 });
-
-// Papers collection
-db.papers.createIndex({ "paperCategory": 1, "paperStatus": 1 });
-db.papers.createIndex({ "paperType": 1 });
-db.papers.createIndex({ "createdDate": -1 });
-db.papers.createIndex({ "paperSubCategory": 1 });
-
-// User Progress/Enrollments
-db.userenrollments.createIndex({ "userId": 1, "paperId": 1 });
-db.userenrollments.createIndex({ "userId": 1, "status": 1 });
-
-// Subscriptions
-db.subscriptions.createIndex({ "userId": 1, "state": 1 });
-db.subscriptions.createIndex({ "expiryDate": 1 });
+// User collection
+db.user.createIndex({ "userName": 1 }, { unique: true });
+
+// Indexes of the service collections (user papers, userEntitlement, subscription, ...) are
+// declared in ensureu-service's MongoIndexCatalog and created by the service at startup
 
 // AI Analysis collection (new)
 db.user_exam_analyses.createIndex({ "user_id": 1, "analyzed_at": -1 });